@@ -0,0 +1,4 @@
+<%@ page import="org.opencms.workplace.tools.database.*" %><%
+	CmsSqlStatisticsList wp = new CmsSqlStatisticsList(pageContext, request, response);
+	wp.displayDialog();
+%>
\ No newline at end of file
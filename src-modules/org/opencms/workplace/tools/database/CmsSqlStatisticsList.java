@@ -0,0 +1,237 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.workplace.tools.database;
+
+import org.opencms.db.CmsSqlStatistics;
+import org.opencms.db.CmsSqlStatistics.CmsTimingStatistic;
+import org.opencms.jsp.CmsJspActionElement;
+import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.OpenCms;
+import org.opencms.workplace.list.A_CmsListDialog;
+import org.opencms.workplace.list.CmsListColumnAlignEnum;
+import org.opencms.workplace.list.CmsListColumnDefinition;
+import org.opencms.workplace.list.CmsListItem;
+import org.opencms.workplace.list.CmsListMetadata;
+import org.opencms.workplace.list.CmsListOrderEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.jsp.PageContext;
+
+/**
+ * Lists the execution times of the SQL statements, one row per query key.<p>
+ *
+ * The statistics are only recorded if <code>db.statistics.enabled</code> is set in the
+ * <code>opencms.properties</code>, otherwise the list is empty.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsSqlStatisticsList extends A_CmsListDialog {
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_AVERAGE = "ca";
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_COUNT = "cc";
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_ERRORS = "ce";
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_MAX = "cm";
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_PERCENTILE = "cp";
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_QUERY = "cq";
+
+    /** List column id constant. */
+    public static final String LIST_COLUMN_TOTAL = "ct";
+
+    /** List id constant. */
+    public static final String LIST_ID = "lsqls";
+
+    /** The percentile shown in the list. */
+    private static final int PERCENTILE = 95;
+
+    /**
+     * Public constructor.<p>
+     *
+     * @param jsp an initialized JSP action element
+     */
+    public CmsSqlStatisticsList(CmsJspActionElement jsp) {
+
+        super(
+            jsp,
+            LIST_ID,
+            Messages.get().container(Messages.GUI_SQLSTATISTICS_LIST_NAME_0),
+            LIST_COLUMN_TOTAL,
+            CmsListOrderEnum.ORDER_DESCENDING,
+            LIST_COLUMN_QUERY);
+    }
+
+    /**
+     * Public constructor with JSP variables.<p>
+     *
+     * @param context the JSP page context
+     * @param req the JSP request
+     * @param res the JSP response
+     */
+    public CmsSqlStatisticsList(PageContext context, HttpServletRequest req, HttpServletResponse res) {
+
+        this(new CmsJspActionElement(context, req, res));
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#executeListMultiActions()
+     */
+    @Override
+    public void executeListMultiActions() throws CmsRuntimeException {
+
+        throwListUnsupportedActionException();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#executeListSingleActions()
+     */
+    @Override
+    public void executeListSingleActions() throws CmsRuntimeException {
+
+        throwListUnsupportedActionException();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#fillDetails(java.lang.String)
+     */
+    @Override
+    protected void fillDetails(String detailId) {
+
+        // no details
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#getListItems()
+     */
+    @Override
+    protected List<CmsListItem> getListItems() {
+
+        List<CmsListItem> result = new ArrayList<CmsListItem>();
+        CmsSqlStatistics statistics = OpenCms.getSqlManager().getSqlStatistics();
+        if (statistics == null) {
+            // the statistics are not enabled
+            return result;
+        }
+        for (CmsTimingStatistic query : statistics.getQueryStatistics()) {
+            CmsListItem item = getList().newItem(query.getName());
+            item.set(LIST_COLUMN_QUERY, query.getName());
+            item.set(LIST_COLUMN_COUNT, new Long(query.getCount()));
+            item.set(LIST_COLUMN_ERRORS, new Long(query.getErrorCount()));
+            item.set(LIST_COLUMN_TOTAL, new Long(query.getTotalTime()));
+            item.set(LIST_COLUMN_AVERAGE, new Long(Math.round(query.getAverageTime())));
+            item.set(LIST_COLUMN_MAX, new Long(query.getMaxTime()));
+            item.set(LIST_COLUMN_PERCENTILE, new Long(query.getPercentile(PERCENTILE)));
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.workplace.CmsWorkplace#initMessages()
+     */
+    @Override
+    protected void initMessages() {
+
+        // add specific dialog resource bundle
+        addMessages(Messages.get().getBundleName());
+        // add default resource bundles
+        super.initMessages();
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#setColumns(org.opencms.workplace.list.CmsListMetadata)
+     */
+    @Override
+    protected void setColumns(CmsListMetadata metadata) {
+
+        // create column for the query key
+        CmsListColumnDefinition queryCol = new CmsListColumnDefinition(LIST_COLUMN_QUERY);
+        queryCol.setName(Messages.get().container(Messages.GUI_SQLSTATISTICS_LIST_COLS_QUERY_0));
+        queryCol.setWidth("40%");
+        metadata.addColumn(queryCol);
+
+        // create columns for the number of executions and failures
+        metadata.addColumn(createNumberColumn(LIST_COLUMN_COUNT, Messages.GUI_SQLSTATISTICS_LIST_COLS_COUNT_0));
+        metadata.addColumn(createNumberColumn(LIST_COLUMN_ERRORS, Messages.GUI_SQLSTATISTICS_LIST_COLS_ERRORS_0));
+
+        // create columns for the execution times
+        metadata.addColumn(createNumberColumn(LIST_COLUMN_TOTAL, Messages.GUI_SQLSTATISTICS_LIST_COLS_TOTAL_0));
+        metadata.addColumn(createNumberColumn(LIST_COLUMN_AVERAGE, Messages.GUI_SQLSTATISTICS_LIST_COLS_AVERAGE_0));
+        metadata.addColumn(
+            createNumberColumn(LIST_COLUMN_PERCENTILE, Messages.GUI_SQLSTATISTICS_LIST_COLS_PERCENTILE_0));
+        metadata.addColumn(createNumberColumn(LIST_COLUMN_MAX, Messages.GUI_SQLSTATISTICS_LIST_COLS_MAX_0));
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#setIndependentActions(org.opencms.workplace.list.CmsListMetadata)
+     */
+    @Override
+    protected void setIndependentActions(CmsListMetadata metadata) {
+
+        // no independent actions
+    }
+
+    /**
+     * @see org.opencms.workplace.list.A_CmsListDialog#setMultiActions(org.opencms.workplace.list.CmsListMetadata)
+     */
+    @Override
+    protected void setMultiActions(CmsListMetadata metadata) {
+
+        // no multi actions
+    }
+
+    /**
+     * Creates a right aligned column for a numeric value.<p>
+     *
+     * @param id the column id
+     * @param nameKey the message key of the column name
+     *
+     * @return the column definition
+     */
+    private CmsListColumnDefinition createNumberColumn(String id, String nameKey) {
+
+        CmsListColumnDefinition col = new CmsListColumnDefinition(id);
+        col.setName(Messages.get().container(nameKey));
+        col.setWidth("10%");
+        col.setAlign(CmsListColumnAlignEnum.ALIGN_RIGHT);
+        return col;
+    }
+}
@@ -35,6 +35,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchIndexSource;
 import org.opencms.search.CmsSearchManager;
+import org.opencms.search.documents.CmsExtractionResultCache;
 import org.opencms.search.fields.CmsLuceneField;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
@@ -287,6 +288,39 @@ public class CmsSearchIndexList extends A_CmsListDialog {
         listSave();
     }
 
+    /**
+     * Shows the statistics of the text extraction result cache below the list of indexes.<p>
+     *
+     * @see org.opencms.workplace.list.A_CmsListDialog#customHtmlEnd()
+     */
+    @Override
+    protected String customHtmlEnd() {
+
+        StringBuffer result = new StringBuffer(512);
+        CmsExtractionResultCache cache = OpenCms.getSearchManager().getExtractionResultCache();
+        if (cache != null) {
+            long hits = cache.getHits();
+            long lookups = hits + cache.getMisses();
+            result.append(dialogBlockStart(key(Messages.GUI_LIST_SEARCHINDEX_EXTRACTION_CACHE_0)));
+            result.append("\n");
+            result.append(
+                key(
+                    Messages.GUI_LIST_SEARCHINDEX_EXTRACTION_CACHE_STATS_7,
+                    new Object[] {
+                        new Integer(cache.getEntryCount()),
+                        new Long(cache.getSize() / 1024),
+                        new Long(cache.getMaxSize() / 1024),
+                        new Long(hits),
+                        new Long(cache.getMisses()),
+                        new Long(lookups > 0 ? (hits * 100) / lookups : 0),
+                        new Long(cache.getEvictions())}));
+            result.append("\n");
+            result.append(dialogBlockEnd());
+        }
+        result.append(super.customHtmlEnd());
+        return result.toString();
+    }
+
     /**
      * @see org.opencms.workplace.list.A_CmsListDialog#fillDetails(java.lang.String)
      */
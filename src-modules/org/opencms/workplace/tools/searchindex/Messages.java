@@ -766,6 +766,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_LIST_SEARCHINDEX_DETAIL_INDEXSOURCE_SHOW_HELP_0 = "GUI_LIST_SEARCHINDEX_DETAIL_INDEXSOURCE_SHOW_HELP_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_LIST_SEARCHINDEX_EXTRACTION_CACHE_0 = "GUI_LIST_SEARCHINDEX_EXTRACTION_CACHE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_LIST_SEARCHINDEX_EXTRACTION_CACHE_STATS_7 = "GUI_LIST_SEARCHINDEX_EXTRACTION_CACHE_STATS_7";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_LIST_SEARCHINDEX_MACTION_ADD_DOCTYPE_NAME_0 = "GUI_LIST_SEARCHINDEX_MACTION_ADD_DOCTYPE_NAME_0";
 
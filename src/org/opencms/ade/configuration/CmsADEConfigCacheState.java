@@ -44,6 +44,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
@@ -83,6 +84,9 @@ public class CmsADEConfigCacheState {
     /** The configurations from the sitemap / VFS. */
     private Map<String, CmsADEConfigDataInternal> m_siteConfigurationsByPath = new HashMap<String, CmsADEConfigDataInternal>();
 
+    /** The wrapped configurations by internal configuration, shared by all lookups for the same sub-sitemap. */
+    private ConcurrentHashMap<CmsADEConfigDataInternal, CmsADEConfigData> m_wrappedConfigurations = new ConcurrentHashMap<CmsADEConfigDataInternal, CmsADEConfigData>();
+
     /**
      * Creates a new configuration cache state.<p>
      *
@@ -481,13 +485,13 @@ public class CmsADEConfigCacheState {
     }
 
     /**
-     * Wraps the internal config data into a bean which manages the lookup of inherited configurations.<p>
+     * Creates the bean which manages the lookup of inherited configurations for the given internal config data.<p>
      *
      * @param data the config data to wrap
      *
      * @return the wrapper object
      */
-    private CmsADEConfigData wrap(CmsADEConfigDataInternal data) {
+    private CmsADEConfigData createWrapper(CmsADEConfigDataInternal data) {
 
         String path = data.getBasePath();
         List<CmsADEConfigDataInternal> configList = Lists.newArrayList();
@@ -515,4 +519,27 @@ public class CmsADEConfigCacheState {
         }
         return new CmsADEConfigData(data, this, new CmsADEConfigurationSequence(configList));
     }
+
+    /**
+     * Wraps the internal config data into a bean which manages the lookup of inherited configurations.<p>
+     *
+     * Since this cache state is immutable, the wrapper is only created once for every internal config data bean,
+     * so the merged configuration computed by the wrapper is shared by all requests.<p>
+     *
+     * @param data the config data to wrap
+     *
+     * @return the wrapper object
+     */
+    private CmsADEConfigData wrap(CmsADEConfigDataInternal data) {
+
+        CmsADEConfigData result = m_wrappedConfigurations.get(data);
+        if (result == null) {
+            result = createWrapper(data);
+            CmsADEConfigData existing = m_wrappedConfigurations.putIfAbsent(data, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
 }
@@ -53,7 +53,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +62,8 @@ import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.apache.commons.logging.Log;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -169,6 +170,39 @@ public class CmsADEConfigData {
         }
     }
 
+    /**
+     * The active external formatters of a sub-sitemap for a given formatter cache state.<p>
+     */
+    private static class ActiveFormatters {
+
+        /** The formatter cache state from which the active formatters were computed. */
+        private CmsFormatterConfigurationCacheState m_cacheState;
+
+        /** The active formatters by structure id. */
+        private Map<CmsUUID, I_CmsFormatterBean> m_formatters;
+
+        /** The active formatters by resource type name. */
+        private ListMultimap<String, I_CmsFormatterBean> m_formattersByType;
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param cacheState the formatter cache state from which the active formatters were computed
+         * @param formatters the active formatters by structure id
+         */
+        ActiveFormatters(CmsFormatterConfigurationCacheState cacheState, Map<CmsUUID, I_CmsFormatterBean> formatters) {
+
+            m_cacheState = cacheState;
+            m_formatters = Collections.unmodifiableMap(formatters);
+            m_formattersByType = ArrayListMultimap.create();
+            for (I_CmsFormatterBean formatter : formatters.values()) {
+                for (String typeName : formatter.getResourceTypeNames()) {
+                    m_formattersByType.put(typeName, formatter);
+                }
+            }
+        }
+    }
+
     /** The log instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsADEConfigData.class);
 
@@ -181,10 +215,26 @@ public class CmsADEConfigData {
     /** The configuration sequence (contains the list of all sitemap configuration data beans to be used for inheritance). */
     private CmsADEConfigurationSequence m_configSequence;
 
+    /** The memoized active external formatters. */
+    private volatile ActiveFormatters m_memoActiveFormatters;
+
+    /** The memoized formatter change sets of this and all parent configurations. */
+    private volatile List<CmsFormatterChangeSet> m_memoFormatterChangeSets;
+
+    /** The memoized parent configuration. */
+    private volatile Optional<CmsADEConfigData> m_memoParent;
+
+    /** The memoized resource type configurations, including the disabled ones. */
+    private volatile List<CmsResourceTypeConfig> m_memoResourceTypes;
+
     /**
      * Creates a new configuration data object, based on an internal configuration data bean and a
      * configuration cache state.<p>
      *
+     * If a configuration cache state is given, the merged configuration data (e.g. the resource types
+     * and the active formatters) is computed only once and then shared, so the configuration data object
+     * and the internal configuration data beans must not be changed anymore.<p>
+     *
      * @param data the internal configuration data bean
      * @param cache the configuration cache state
      * @param configSequence the configuration sequence
@@ -286,14 +336,11 @@ public class CmsADEConfigData {
     /**
      * Gets the active external (non-schema) formatters for this sub-sitemap.<p>
      *
-     * @return the map of active external formatters by structure id
+     * @return the unmodifiable map of active external formatters by structure id
      */
     public Map<CmsUUID, I_CmsFormatterBean> getActiveFormatters() {
 
-        CmsFormatterConfigurationCacheState cacheState = getCachedFormatters();
-        Map<CmsUUID, I_CmsFormatterBean> result = Maps.newHashMap(cacheState.getAutoEnabledFormatters());
-        applyAllFormatterChanges(result, cacheState);
-        return result;
+        return getMemoActiveFormatters().m_formatters;
     }
 
     /**
@@ -472,20 +519,27 @@ public class CmsADEConfigData {
     /**
      * Returns the formatter change sets for this and all parent sitemaps, ordered by increasing folder depth of the sitemap.<p>
      *
-     * @return the formatter change sets for all ancestor sitemaps
+     * @return the unmodifiable list of formatter change sets for all ancestor sitemaps
      */
     public List<CmsFormatterChangeSet> getFormatterChangeSets() {
 
-        CmsADEConfigData currentConfig = this;
-        List<CmsFormatterChangeSet> result = Lists.newArrayList();
-        while (currentConfig != null) {
-            CmsFormatterChangeSet changes = currentConfig.getOwnFormatterChangeSet();
-            if (changes != null) {
-                result.add(changes);
+        List<CmsFormatterChangeSet> result = m_memoFormatterChangeSets;
+        if (result == null) {
+            CmsADEConfigData currentConfig = this;
+            result = Lists.newArrayList();
+            while (currentConfig != null) {
+                CmsFormatterChangeSet changes = currentConfig.getOwnFormatterChangeSet();
+                if (changes != null) {
+                    result.add(changes);
+                }
+                currentConfig = currentConfig.parent();
+            }
+            Collections.reverse(result);
+            result = Collections.unmodifiableList(result);
+            if (isMemoized()) {
+                m_memoFormatterChangeSets = result;
             }
-            currentConfig = currentConfig.parent();
         }
-        Collections.reverse(result);
         return result;
     }
 
@@ -685,7 +739,7 @@ public class CmsADEConfigData {
         for (CmsResourceTypeConfig config : result) {
             config.initialize(getCms());
         }
-        return result;
+        return Collections.unmodifiableList(result);
     }
 
     /**
@@ -852,13 +906,20 @@ public class CmsADEConfigData {
      */
     public CmsADEConfigData parent() {
 
-        Optional<CmsADEConfigurationSequence> parentPath = m_configSequence.getParent();
-        if (parentPath.isPresent()) {
-            CmsADEConfigDataInternal internalData = parentPath.get().getConfig();
-            return new CmsADEConfigData(internalData, m_cache, parentPath.get());
-        } else {
-            return null;
+        Optional<CmsADEConfigData> result = m_memoParent;
+        if (result == null) {
+            Optional<CmsADEConfigurationSequence> parentPath = m_configSequence.getParent();
+            if (parentPath.isPresent()) {
+                CmsADEConfigDataInternal internalData = parentPath.get().getConfig();
+                result = Optional.of(new CmsADEConfigData(internalData, m_cache, parentPath.get()));
+            } else {
+                result = Optional.absent();
+            }
+            if (isMemoized()) {
+                m_memoParent = result;
+            }
         }
+        return result.orNull();
     }
 
     /**
@@ -968,7 +1029,6 @@ public class CmsADEConfigData {
         CmsFormatterConfiguration schemaFormatters) {
 
         String typeName = resType.getTypeName();
-        CmsFormatterConfigurationCacheState formatterCacheState = getCachedFormatters();
         List<I_CmsFormatterBean> formatters = new ArrayList<I_CmsFormatterBean>();
         Set<String> types = new HashSet<String>();
         types.add(typeName);
@@ -983,16 +1043,7 @@ public class CmsADEConfigData {
             }
 
         }
-        Map<CmsUUID, I_CmsFormatterBean> externalFormattersById = Maps.newHashMap();
-        for (I_CmsFormatterBean formatter : formatterCacheState.getFormattersForType(typeName, true)) {
-            externalFormattersById.put(new CmsUUID(formatter.getId()), formatter);
-        }
-        applyAllFormatterChanges(externalFormattersById, formatterCacheState);
-        for (I_CmsFormatterBean formatter : externalFormattersById.values()) {
-            if (formatter.getResourceTypeNames().contains(typeName)) {
-                formatters.add(formatter);
-            }
-        }
+        formatters.addAll(getMemoActiveFormatters().m_formattersByType.get(typeName));
         return CmsFormatterConfiguration.create(cms, formatters);
     }
 
@@ -1043,34 +1094,31 @@ public class CmsADEConfigData {
      */
     protected List<CmsResourceTypeConfig> internalGetResourceTypes(boolean filterDisabled) {
 
-        CmsADEConfigData parentData = parent();
-        List<CmsResourceTypeConfig> parentResourceTypes = null;
-        if (parentData == null) {
-            parentResourceTypes = Lists.newArrayList();
-        } else {
-            parentResourceTypes = Lists.newArrayList();
-            for (CmsResourceTypeConfig typeConfig : parentData.internalGetResourceTypes(false)) {
-                CmsResourceTypeConfig copiedType = typeConfig.copy(m_data.isDiscardInheritedTypes());
-                parentResourceTypes.add(copiedType);
+        List<CmsResourceTypeConfig> allTypes = m_memoResourceTypes;
+        if (allTypes == null) {
+            CmsADEConfigData parentData = parent();
+            List<CmsResourceTypeConfig> parentResourceTypes = Lists.newArrayList();
+            if (parentData != null) {
+                for (CmsResourceTypeConfig typeConfig : parentData.internalGetResourceTypes(false)) {
+                    CmsResourceTypeConfig copiedType = typeConfig.copy(m_data.isDiscardInheritedTypes());
+                    parentResourceTypes.add(copiedType);
+                }
             }
-        }
-        List<CmsResourceTypeConfig> result = combineConfigurationElements(
-            parentResourceTypes,
-            m_data.getOwnResourceTypes(),
-            true);
-        if (m_data.isCreateContentsLocally()) {
-            for (CmsResourceTypeConfig typeConfig : result) {
-                typeConfig.updateBasePath(
-                    CmsStringUtil.joinPaths(m_data.getBasePath(), CmsADEManager.CONTENT_FOLDER_NAME));
+            allTypes = combineConfigurationElements(parentResourceTypes, m_data.getOwnResourceTypes(), true);
+            if (m_data.isCreateContentsLocally()) {
+                for (CmsResourceTypeConfig typeConfig : allTypes) {
+                    typeConfig.updateBasePath(
+                        CmsStringUtil.joinPaths(m_data.getBasePath(), CmsADEManager.CONTENT_FOLDER_NAME));
+                }
+            }
+            if (isMemoized()) {
+                m_memoResourceTypes = allTypes;
             }
         }
-        if (filterDisabled) {
-            Iterator<CmsResourceTypeConfig> iter = result.iterator();
-            while (iter.hasNext()) {
-                CmsResourceTypeConfig typeConfig = iter.next();
-                if (typeConfig.isDisabled()) {
-                    iter.remove();
-                }
+        List<CmsResourceTypeConfig> result = new ArrayList<CmsResourceTypeConfig>(allTypes.size());
+        for (CmsResourceTypeConfig typeConfig : allTypes) {
+            if (!filterDisabled || !typeConfig.isDisabled()) {
+                result.add(typeConfig);
             }
         }
         return result;
@@ -1123,4 +1171,38 @@ public class CmsADEConfigData {
         }
         return result;
     }
+
+    /**
+     * Returns the active external formatters for the current formatter cache state.<p>
+     *
+     * @return the active external formatters
+     */
+    private ActiveFormatters getMemoActiveFormatters() {
+
+        CmsFormatterConfigurationCacheState cacheState = getCachedFormatters();
+        ActiveFormatters result = m_memoActiveFormatters;
+        if ((result == null) || (result.m_cacheState != cacheState)) {
+            // the formatter cache state is replaced on every formatter change
+            Map<CmsUUID, I_CmsFormatterBean> formatters = Maps.newHashMap(cacheState.getAutoEnabledFormatters());
+            applyAllFormatterChanges(formatters, cacheState);
+            result = new ActiveFormatters(cacheState, formatters);
+            if (isMemoized()) {
+                m_memoActiveFormatters = result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the merged configuration data of this object is computed only once.<p>
+     *
+     * This is the case for configuration data objects belonging to a configuration cache state,
+     * which is replaced on every configuration change.<p>
+     *
+     * @return true if the merged configuration data is computed only once
+     */
+    private boolean isMemoized() {
+
+        return m_cache != null;
+    }
 }
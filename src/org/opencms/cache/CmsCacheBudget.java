@@ -0,0 +1,271 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A memory budget shared by several {@link CmsConcurrentCacheMap} instances.<p>
+ *
+ * Each cache of the budget reports the estimated memory size of the entries it adds and removes,
+ * so the total size of all caches is known at any time without walking the cache contents.
+ * The individual caches are bounded by their own quota, but the sum of the quotas may be larger than
+ * the budget. If the total size exceeds the budget, entries are evicted from the caches with
+ * the lowest priority first, and among caches of the same priority from the caches with the lowest hit rate,
+ * until the total size is below {@link #TARGET_PERCENT} percent of the budget.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsCacheBudget {
+
+    /**
+     * A cache registered with the budget.<p>
+     */
+    private static class CmsBudgetEntry {
+
+        /** The cache. */
+        CmsConcurrentCacheMap<?, ?> m_cache;
+
+        /** The name of the cache. */
+        String m_name;
+
+        /** The priority of the cache. */
+        int m_priority;
+
+        /**
+         * Creates a new budget entry.<p>
+         *
+         * @param name the name of the cache
+         * @param cache the cache
+         * @param priority the priority of the cache
+         */
+        CmsBudgetEntry(String name, CmsConcurrentCacheMap<?, ?> cache, int priority) {
+
+            m_name = name;
+            m_cache = cache;
+            m_priority = priority;
+        }
+    }
+
+    /** Priority for caches whose entries are expensive to recreate, these are evicted last. */
+    public static final int PRIORITY_HIGH = 3;
+
+    /** Priority for caches whose entries are cheap to recreate, these are evicted first. */
+    public static final int PRIORITY_LOW = 1;
+
+    /** Default priority. */
+    public static final int PRIORITY_NORMAL = 2;
+
+    /** The percentage of the budget the total size is reduced to if the budget is exceeded. */
+    public static final int TARGET_PERCENT = 90;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsCacheBudget.class);
+
+    /** The caches of this budget. */
+    private List<CmsBudgetEntry> m_entries;
+
+    /** Flag to make sure only one thread evicts entries at a time. */
+    private AtomicBoolean m_evicting;
+
+    /** The number of times the budget was exceeded. */
+    private AtomicLong m_exceededCount;
+
+    /** The maximum total size of all caches in bytes. */
+    private long m_maxSize;
+
+    /** The estimated total size of all caches in bytes. */
+    private AtomicLong m_size;
+
+    /**
+     * Creates a new memory budget.<p>
+     *
+     * @param maxSize the maximum total size of all caches in bytes
+     */
+    public CmsCacheBudget(long maxSize) {
+
+        m_maxSize = maxSize;
+        m_size = new AtomicLong();
+        m_exceededCount = new AtomicLong();
+        m_evicting = new AtomicBoolean();
+        m_entries = new CopyOnWriteArrayList<CmsBudgetEntry>();
+    }
+
+    /**
+     * Evicts entries from the caches of this budget if the budget is exceeded.<p>
+     *
+     * If another thread is already evicting entries, this method returns immediately.<p>
+     *
+     * @return the estimated number of bytes freed
+     */
+    public long enforce() {
+
+        if ((m_size.get() <= m_maxSize) || !m_evicting.compareAndSet(false, true)) {
+            return 0;
+        }
+        long freed = 0;
+        try {
+            m_exceededCount.incrementAndGet();
+            long target = (m_maxSize / 100) * TARGET_PERCENT;
+            for (CmsBudgetEntry entry : getEvictionOrder()) {
+                long excess = m_size.get() - target;
+                if (excess <= 0) {
+                    break;
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_CACHE_BUDGET_EVICT_3,
+                            entry.m_name,
+                            String.valueOf(m_size.get()),
+                            String.valueOf(m_maxSize)));
+                }
+                freed += entry.m_cache.evict(excess);
+            }
+        } finally {
+            m_evicting.set(false);
+        }
+        return freed;
+    }
+
+    /**
+     * Returns the number of times the budget was exceeded and entries were evicted.<p>
+     *
+     * @return the number of times the budget was exceeded
+     */
+    public long getExceededCount() {
+
+        return m_exceededCount.get();
+    }
+
+    /**
+     * Returns the maximum total size of all caches in bytes.<p>
+     *
+     * @return the maximum total size of all caches
+     */
+    public long getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the given percentage of the budget in bytes, used to calculate the quota of a single cache.<p>
+     *
+     * @param percent the percentage of the budget
+     *
+     * @return the quota in bytes
+     */
+    public long getQuota(int percent) {
+
+        return (m_maxSize / 100) * percent;
+    }
+
+    /**
+     * Returns the estimated total size of all caches in bytes.<p>
+     *
+     * @return the estimated total size of all caches
+     */
+    public long getSize() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Registers a cache with this budget.<p>
+     *
+     * The cache must have been created with this budget.<p>
+     *
+     * @param name the name of the cache
+     * @param cache the cache
+     * @param priority the priority of the cache, one of the <code>PRIORITY_</code> constants
+     */
+    public void register(String name, CmsConcurrentCacheMap<?, ?> cache, int priority) {
+
+        m_entries.add(new CmsBudgetEntry(name, cache, priority));
+    }
+
+    /**
+     * Adds the given number of bytes to the total size, and evicts entries if the budget is exceeded.<p>
+     *
+     * @param bytes the number of bytes added
+     */
+    void acquire(long bytes) {
+
+        if (m_size.addAndGet(bytes) > m_maxSize) {
+            enforce();
+        }
+    }
+
+    /**
+     * Subtracts the given number of bytes from the total size.<p>
+     *
+     * @param bytes the number of bytes removed
+     */
+    void release(long bytes) {
+
+        m_size.addAndGet(-bytes);
+    }
+
+    /**
+     * Returns the caches of this budget in the order entries should be evicted from them.<p>
+     *
+     * @return the caches of this budget in eviction order
+     */
+    private List<CmsBudgetEntry> getEvictionOrder() {
+
+        List<CmsBudgetEntry> result = new ArrayList<CmsBudgetEntry>(m_entries);
+        // the hit rates change concurrently, so read them once before sorting
+        final Map<CmsBudgetEntry, Double> hitRates = new HashMap<CmsBudgetEntry, Double>();
+        for (CmsBudgetEntry entry : result) {
+            hitRates.put(entry, Double.valueOf(entry.m_cache.getHitRate()));
+        }
+        Collections.sort(result, new Comparator<CmsBudgetEntry>() {
+
+            public int compare(CmsBudgetEntry first, CmsBudgetEntry second) {
+
+                if (first.m_priority != second.m_priority) {
+                    return first.m_priority < second.m_priority ? -1 : 1;
+                }
+                return hitRates.get(first).compareTo(hitRates.get(second));
+            }
+        });
+        return result;
+    }
+}
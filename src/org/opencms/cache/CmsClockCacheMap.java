@@ -0,0 +1,317 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent cache map bounded by the number of entries, optimized for frequent reads of small entries.<p>
+ *
+ * Reading an entry neither acquires a lock nor allocates memory, it only marks the entry as referenced.
+ * If the maximum size is exceeded, entries are evicted with the CLOCK algorithm: a clock hand moves
+ * over the entries, referenced entries get a second chance and lose their mark, the first entry
+ * found without mark is removed. This approximates a least recently used eviction.<p>
+ *
+ * Unlike {@link CmsConcurrentCacheMap}, this cache records no statistics and does not take part
+ * in the cache budget, since both would require work on every read.<p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 10.0.0
+ */
+public class CmsClockCacheMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * A cached value with its reference mark.<p>
+     *
+     * @param <V> the value type
+     */
+    private static class Node<V> {
+
+        /** Set when the value is read, cleared when the clock hand passes. */
+        volatile boolean m_referenced;
+
+        /** The cached value. */
+        final V m_value;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param value the cached value
+         */
+        Node(V value) {
+
+            m_value = value;
+        }
+    }
+
+    /** The default concurrency level. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The number of evicted entries. */
+    private AtomicLong m_evictionCount;
+
+    /** The lock for moving the clock hand, only one thread evicts entries at a time. */
+    private ReentrantLock m_evictionLock;
+
+    /** The clock hand, an iterator over the entries. */
+    private Iterator<Map.Entry<K, Node<V>>> m_hand;
+
+    /** The cached entries. */
+    private ConcurrentHashMap<K, Node<V>> m_map;
+
+    /** The maximum number of entries. */
+    private int m_maxSize;
+
+    /** The approximate number of entries, maintained to avoid counting the segments of the map on every write. */
+    private AtomicInteger m_size;
+
+    /**
+     * Creates a new cache map.<p>
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public CmsClockCacheMap(int maxSize) {
+
+        this(maxSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new cache map.<p>
+     *
+     * @param maxSize the maximum number of entries
+     * @param concurrencyLevel the estimated number of concurrently updating threads
+     */
+    public CmsClockCacheMap(int maxSize, int concurrencyLevel) {
+
+        m_maxSize = Math.max(1, maxSize);
+        m_map = new ConcurrentHashMap<K, Node<V>>(
+            Math.min(m_maxSize, 1024),
+            0.75f,
+            concurrencyLevel > 0 ? concurrencyLevel : DEFAULT_CONCURRENCY_LEVEL);
+        m_size = new AtomicInteger();
+        m_evictionCount = new AtomicLong();
+        m_evictionLock = new ReentrantLock();
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        m_map.clear();
+        m_size.set(0);
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return (key != null) && m_map.containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        return new AbstractSet<Map.Entry<K, V>>() {
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+
+                final Iterator<Map.Entry<K, Node<V>>> it = m_map.entrySet().iterator();
+                return new Iterator<Map.Entry<K, V>>() {
+
+                    public boolean hasNext() {
+
+                        return it.hasNext();
+                    }
+
+                    public Map.Entry<K, V> next() {
+
+                        Map.Entry<K, Node<V>> entry = it.next();
+                        return new AbstractMap.SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue().m_value);
+                    }
+
+                    public void remove() {
+
+                        it.remove();
+                        m_size.decrementAndGet();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return m_map.size();
+            }
+        };
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        Node<V> node = m_map.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (!node.m_referenced) {
+            // avoid writing the shared field if the entry is already marked
+            node.m_referenced = true;
+        }
+        return node.m_value;
+    }
+
+    /**
+     * Returns the number of entries evicted because the maximum size was exceeded.<p>
+     *
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+
+        return m_evictionCount.get();
+    }
+
+    /**
+     * Returns the maximum number of entries.<p>
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * @see java.util.AbstractMap#keySet()
+     */
+    @Override
+    public Set<K> keySet() {
+
+        return m_map.keySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        Node<V> previous = m_map.put(key, new Node<V>(value));
+        if (previous != null) {
+            return previous.m_value;
+        }
+        if (m_size.incrementAndGet() > m_maxSize) {
+            evict();
+        }
+        return null;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        Node<V> node = m_map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        m_size.decrementAndGet();
+        return node.m_value;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_map.size();
+    }
+
+    /**
+     * Moves the clock hand and removes entries until the cache is within its maximum size.<p>
+     *
+     * If another thread is already evicting entries, this method returns immediately.<p>
+     */
+    private void evict() {
+
+        if (!m_evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int size = m_map.size();
+            // every entry is passed at most twice, once to clear its mark and once to remove it
+            int steps = 2 * size;
+            while ((size > m_maxSize) && (steps-- > 0)) {
+                if ((m_hand == null) || !m_hand.hasNext()) {
+                    m_hand = m_map.entrySet().iterator();
+                    if (!m_hand.hasNext()) {
+                        break;
+                    }
+                }
+                Map.Entry<K, Node<V>> entry = m_hand.next();
+                Node<V> node = entry.getValue();
+                if (node.m_referenced) {
+                    node.m_referenced = false;
+                } else if (m_map.remove(entry.getKey(), node)) {
+                    size--;
+                    m_evictionCount.incrementAndGet();
+                }
+            }
+            m_size.set(size);
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+}
\ No newline at end of file
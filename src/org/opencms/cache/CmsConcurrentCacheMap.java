@@ -0,0 +1,572 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.monitor.CmsMemoryMonitor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Function;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Maps;
+
+/**
+ * A concurrent, size or weight bounded cache map used by the memory monitor as an
+ * alternative to a synchronized {@link org.apache.commons.collections.map.LRUMap}.<p>
+ *
+ * Read access does not acquire a global lock. The cache is bounded either by the number
+ * of entries, or, if a maximum weight is configured, by the estimated memory size of the
+ * cached objects as calculated by {@link CmsMemoryMonitor#getMemorySize(Object)}.<p>
+ *
+ * Hit, miss and eviction counts are recorded for every instance.<p>
+ *
+ * If a {@link CmsCacheBudget} is set, the estimated memory size of the cache is tracked
+ * when entries are added and removed, and reported to the budget, which may evict the least
+ * recently used entries from this cache if the budget shared by all caches is exceeded.<p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 10.0.0
+ */
+public class CmsConcurrentCacheMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * A cached value together with its estimated memory size and the time of the last access.<p>
+     *
+     * @param <V> the value type
+     */
+    protected static class CmsCacheEntry<V> {
+
+        /** The time of the last access, used to evict the least recently used entries first. */
+        volatile long m_lastAccess;
+
+        /** The cached value. */
+        final V m_value;
+
+        /** The estimated memory size of key and value, 0 if neither a weight bound nor a budget is set. */
+        final long m_weight;
+
+        /**
+         * Creates a new cache entry.<p>
+         *
+         * @param value the cached value
+         * @param weight the estimated memory size of key and value
+         */
+        CmsCacheEntry(V value, long weight) {
+
+            m_value = value;
+            m_weight = weight;
+            m_lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Snapshot of a cache entry and its last access, used to sort the entries before evicting them.<p>
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    protected static class CmsEvictionCandidate<K, V> implements Comparable<CmsEvictionCandidate<K, V>> {
+
+        /** The cache entry. */
+        final CmsCacheEntry<V> m_entry;
+
+        /** The key of the cache entry. */
+        final K m_key;
+
+        /** The time of the last access when the snapshot was taken. */
+        final long m_lastAccess;
+
+        /**
+         * Creates a new eviction candidate.<p>
+         *
+         * @param key the key of the cache entry
+         * @param entry the cache entry
+         */
+        CmsEvictionCandidate(K key, CmsCacheEntry<V> entry) {
+
+            m_key = key;
+            m_entry = entry;
+            m_lastAccess = entry.m_lastAccess;
+        }
+
+        /**
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(CmsEvictionCandidate<K, V> other) {
+
+            // values of System.nanoTime() must be compared by their difference
+            long diff = m_lastAccess - other.m_lastAccess;
+            return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+    }
+
+    /**
+     * Weigher that uses the memory size estimated when the entry was created.<p>
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    protected static class CmsMemorySizeWeigher<K, V> implements Weigher<K, CmsCacheEntry<V>> {
+
+        /**
+         * @see com.google.common.cache.Weigher#weigh(java.lang.Object, java.lang.Object)
+         */
+        public int weigh(K key, CmsCacheEntry<V> entry) {
+
+            return (int)Math.max(0, Math.min(entry.m_weight, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Removal listener that keeps track of the estimated memory size of the cache
+     * and notifies the listener given in the constructor.<p>
+     */
+    protected class CmsRemovalTrackingListener implements RemovalListener<K, CmsCacheEntry<V>> {
+
+        /**
+         * @see com.google.common.cache.RemovalListener#onRemoval(com.google.common.cache.RemovalNotification)
+         */
+        public void onRemoval(RemovalNotification<K, CmsCacheEntry<V>> notification) {
+
+            CmsCacheEntry<V> entry = notification.getValue();
+            if (entry == null) {
+                return;
+            }
+            if (m_budget != null) {
+                m_weight.addAndGet(-entry.m_weight);
+                m_budget.release(entry.m_weight);
+            }
+            if (m_removalListener != null) {
+                m_removalListener.onRemoval(notification.getKey(), entry.m_value, notification.wasEvicted());
+            }
+        }
+    }
+
+    /** The default concurrency level. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The estimated memory size of all entries, only tracked if a budget is set. */
+    protected AtomicLong m_weight;
+
+    /** The budget this cache belongs to, or <code>null</code>. */
+    CmsCacheBudget m_budget;
+
+    /** The removal listener given in the constructor, or <code>null</code>. */
+    I_CmsCacheRemovalListener<K, V> m_removalListener;
+
+    /** The number of entries evicted because the budget was exceeded. */
+    private AtomicLong m_budgetEvictionCount;
+
+    /** The internal cache. */
+    private Cache<K, CmsCacheEntry<V>> m_cache;
+
+    /** The maximum number of entries, only used if no maximum weight is set. */
+    private int m_maxSize;
+
+    /** The maximum weight, or 0 if the cache is only bounded by the number of entries. */
+    private long m_maxWeight;
+
+    /** View of the internal cache that returns the cached values instead of the entries. */
+    private Map<K, V> m_values;
+
+    /**
+     * Creates a new cache map bounded by the number of entries.<p>
+     *
+     * @param maxSize the maximum number of entries
+     */
+    public CmsConcurrentCacheMap(int maxSize) {
+
+        this(maxSize, 0, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new cache map.<p>
+     *
+     * If <code>maxWeight</code> is greater than 0, the cache is bounded by the estimated memory
+     * size of its entries and <code>maxSize</code> is ignored, otherwise it is bounded by <code>maxSize</code>.<p>
+     *
+     * @param maxSize the maximum number of entries
+     * @param maxWeight the maximum total weight of all entries in bytes, or 0 for no weight bound
+     * @param concurrencyLevel the estimated number of concurrently updating threads
+     */
+    public CmsConcurrentCacheMap(int maxSize, long maxWeight, int concurrencyLevel) {
+
+        this(maxSize, maxWeight, concurrencyLevel, null);
+    }
+
+    /**
+     * Creates a new cache map with a listener that is notified when entries are removed.<p>
+     *
+     * The listener is called for all removals, the <code>evicted</code> parameter tells if an entry
+     * was removed because of the size or weight bound.<p>
+     *
+     * @param maxSize the maximum number of entries
+     * @param maxWeight the maximum total weight of all entries in bytes, or 0 for no weight bound
+     * @param concurrencyLevel the estimated number of concurrently updating threads
+     * @param removalListener the removal listener, may be <code>null</code>
+     */
+    public CmsConcurrentCacheMap(
+        int maxSize,
+        long maxWeight,
+        int concurrencyLevel,
+        I_CmsCacheRemovalListener<K, V> removalListener) {
+
+        this(maxSize, maxWeight, concurrencyLevel, removalListener, null);
+    }
+
+    /**
+     * Creates a new cache map that belongs to the given memory budget.<p>
+     *
+     * If a budget is given, the estimated memory size of all entries is tracked and reported to the budget.
+     * The budget must be notified of this cache with {@link CmsCacheBudget#register(String, CmsConcurrentCacheMap, int)}
+     * so that it can evict entries from it.<p>
+     *
+     * @param maxSize the maximum number of entries
+     * @param maxWeight the maximum total weight of all entries in bytes, or 0 for no weight bound
+     * @param concurrencyLevel the estimated number of concurrently updating threads
+     * @param removalListener the removal listener, may be <code>null</code>
+     * @param budget the memory budget, may be <code>null</code>
+     */
+    public CmsConcurrentCacheMap(
+        int maxSize,
+        long maxWeight,
+        int concurrencyLevel,
+        I_CmsCacheRemovalListener<K, V> removalListener,
+        CmsCacheBudget budget) {
+
+        m_maxSize = maxSize;
+        m_maxWeight = maxWeight;
+        m_budget = budget;
+        m_removalListener = removalListener;
+        m_weight = new AtomicLong();
+        m_budgetEvictionCount = new AtomicLong();
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats().concurrencyLevel(
+            concurrencyLevel > 0 ? concurrencyLevel : DEFAULT_CONCURRENCY_LEVEL);
+        if ((budget != null) || (removalListener != null)) {
+            builder.removalListener(new CmsRemovalTrackingListener());
+        }
+        if (maxWeight > 0) {
+            builder.maximumWeight(maxWeight).weigher(new CmsMemorySizeWeigher<K, V>());
+        } else {
+            builder.maximumSize(maxSize);
+        }
+        m_cache = builder.build();
+        m_values = Maps.transformValues(m_cache.asMap(), new Function<CmsCacheEntry<V>, V>() {
+
+            public V apply(CmsCacheEntry<V> entry) {
+
+                return entry.m_value;
+            }
+        });
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        m_cache.invalidateAll();
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return (key != null) && m_cache.asMap().containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        return m_values.entrySet();
+    }
+
+    /**
+     * Removes the least recently used entries from this cache until the estimated memory size
+     * of the removed entries reaches the given amount, or the cache is empty.<p>
+     *
+     * This sorts a snapshot of all entries by their last access, so it should only be called
+     * if the memory budget is exceeded.<p>
+     *
+     * @param bytes the number of bytes to free
+     *
+     * @return the estimated number of bytes freed
+     */
+    public long evict(long bytes) {
+
+        // the access times are copied because they may change while sorting
+        List<CmsEvictionCandidate<K, V>> candidates = new ArrayList<CmsEvictionCandidate<K, V>>(size());
+        for (Map.Entry<K, CmsCacheEntry<V>> entry : m_cache.asMap().entrySet()) {
+            candidates.add(new CmsEvictionCandidate<K, V>(entry.getKey(), entry.getValue()));
+        }
+        Collections.sort(candidates);
+        long freed = 0;
+        for (CmsEvictionCandidate<K, V> candidate : candidates) {
+            if (freed >= bytes) {
+                break;
+            }
+            // only remove the entry if it has not been replaced in the meantime
+            if (m_cache.asMap().remove(candidate.m_key, candidate.m_entry)) {
+                freed += candidate.m_entry.m_weight;
+                m_budgetEvictionCount.incrementAndGet();
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Returns the value cached for the given key, recording a cache hit or miss.<p>
+     *
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        CmsCacheEntry<V> entry = m_cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (m_budget != null) {
+            entry.m_lastAccess = System.nanoTime();
+        }
+        return entry.m_value;
+    }
+
+    /**
+     * Returns the memory budget this cache belongs to.<p>
+     *
+     * @return the memory budget, or <code>null</code> if this cache does not belong to a budget
+     */
+    public CmsCacheBudget getBudget() {
+
+        return m_budget;
+    }
+
+    /**
+     * Returns the number of entries evicted because the memory budget was exceeded.<p>
+     *
+     * @return the number of entries evicted because the memory budget was exceeded
+     */
+    public long getBudgetEvictionCount() {
+
+        return m_budgetEvictionCount.get();
+    }
+
+    /**
+     * Returns the number of entries evicted because of the size or weight bound.<p>
+     *
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+
+        return m_cache.stats().evictionCount();
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+
+        return m_cache.stats().hitCount();
+    }
+
+    /**
+     * Returns the ratio of cache hits to all lookups, or 1.0 if there were no lookups yet.<p>
+     *
+     * @return the cache hit rate
+     */
+    public double getHitRate() {
+
+        return m_cache.stats().hitRate();
+    }
+
+    /**
+     * Returns the maximum number of entries.<p>
+     *
+     * This is only relevant if no maximum weight has been set.<p>
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the maximum weight in bytes, or 0 if this cache is bounded by the number of entries.<p>
+     *
+     * @return the maximum weight
+     */
+    public long getMaxWeight() {
+
+        return m_maxWeight;
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+
+        return m_cache.stats().missCount();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.<p>
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+
+        return m_cache.stats();
+    }
+
+    /**
+     * Returns the estimated memory size of all entries in bytes.<p>
+     *
+     * The size is only tracked if this cache belongs to a memory budget, otherwise 0 is returned.<p>
+     *
+     * @return the estimated memory size of all entries
+     */
+    public long getWeight() {
+
+        return m_weight.get();
+    }
+
+    /**
+     * @see java.util.AbstractMap#keySet()
+     */
+    @Override
+    public Set<K> keySet() {
+
+        return m_cache.asMap().keySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        // the weight is only needed for the weight bound or the budget, it is calculated once per entry
+        long weight = ((m_maxWeight > 0) || (m_budget != null)) ? weigh(key, value) : 0;
+        CmsCacheEntry<V> entry = new CmsCacheEntry<V>(value, weight);
+        if (m_budget == null) {
+            return unwrap(m_cache.asMap().put(key, entry));
+        }
+        // add the weight before the entry, the removal of a replaced or evicted entry subtracts its weight
+        m_weight.addAndGet(weight);
+        V result = unwrap(m_cache.asMap().put(key, entry));
+        m_budget.acquire(weight);
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        if (key == null) {
+            return null;
+        }
+        return unwrap(m_cache.asMap().remove(key));
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_cache.asMap().size();
+    }
+
+    /**
+     * @see java.util.AbstractMap#values()
+     */
+    @Override
+    public Collection<V> values() {
+
+        return m_values.values();
+    }
+
+    /**
+     * Returns the estimated memory size of a cache entry.<p>
+     *
+     * @param key the key
+     * @param value the value
+     *
+     * @return the estimated memory size in bytes
+     */
+    protected static long weigh(Object key, Object value) {
+
+        if (value == null) {
+            return CmsMemoryMonitor.getMemorySize(key);
+        }
+        return CmsMemoryMonitor.getMemorySize(key) + CmsMemoryMonitor.getValueSize(value);
+    }
+
+    /**
+     * Returns the value of the given cache entry.<p>
+     *
+     * @param entry the cache entry, may be <code>null</code>
+     *
+     * @return the value of the entry, or <code>null</code> if the entry is <code>null</code>
+     */
+    private V unwrap(CmsCacheEntry<V> entry) {
+
+        return entry == null ? null : entry.m_value;
+    }
+}
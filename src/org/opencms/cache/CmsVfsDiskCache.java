@@ -33,6 +33,9 @@ import org.opencms.util.CmsStringUtil;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Implements a RFS file based disk cache, that handles parameter based versions of VFS files,
@@ -62,6 +65,9 @@ public class CmsVfsDiskCache {
      *
      * If the required parent folders do not exists, they are also created.<p>
      *
+     * The content is written to a temporary file first, which is then renamed to the given name.
+     * This way, other threads reading the file never see a partially written file.<p>
+     *
      * @param rfsName the RFS name of the file to save the content in
      * @param content the content of the file to save
      *
@@ -77,10 +83,32 @@ public class CmsVfsDiskCache {
             // create parent folders
             p.mkdirs();
         }
-        // write file contents
-        FileOutputStream fs = new FileOutputStream(f);
-        fs.write(content);
-        fs.close();
+        // write file contents to a temporary file in the same folder
+        File tmp = new File(p, f.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        boolean saved = false;
+        try {
+            FileOutputStream fs = new FileOutputStream(tmp);
+            try {
+                fs.write(content);
+            } finally {
+                fs.close();
+            }
+            try {
+                Files.move(
+                    tmp.toPath(),
+                    f.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            saved = true;
+        } finally {
+            if (!saved) {
+                // never leave a partially written temporary file behind
+                tmp.delete();
+            }
+        }
         return f;
     }
 
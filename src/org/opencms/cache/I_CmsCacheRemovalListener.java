@@ -0,0 +1,49 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+/**
+ * Listener that is notified when entries are removed from a {@link CmsConcurrentCacheMap}.<p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsCacheRemovalListener<K, V> {
+
+    /**
+     * Invoked after an entry was removed from the cache.<p>
+     *
+     * @param key the key of the removed entry
+     * @param value the value of the removed entry
+     * @param evicted <code>true</code> if the entry was removed because of the size or weight bound of the cache,
+     *      <code>false</code> if it was removed explicitly or replaced
+     */
+    void onRemoval(K key, V value, boolean evicted);
+}
@@ -37,6 +37,9 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CACHE_BUDGET_EVICT_3 = "LOG_CACHE_BUDGET_EVICT_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CACHE_COSTS_TOO_HIGH_2 = "LOG_CACHE_COSTS_TOO_HIGH_2";
 
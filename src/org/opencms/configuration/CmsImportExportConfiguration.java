@@ -222,6 +222,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exportheaders node. */
     public static final String N_STATICEXPORT_EXPORTHEADERS = "exportheaders";
 
+    /**  The node name of the export link cache size node. */
+    public static final String N_STATICEXPORT_EXPORTLINKS = "exportlinks";
+
     /**  The node name of the static export exportpath node. */
     public static final String N_STATICEXPORT_EXPORTPATH = "exportpath";
 
@@ -231,6 +234,12 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export export-rules node. */
     public static final String N_STATICEXPORT_EXPORTRULES = "export-rules";
 
+    /**  The node name of the static export exportthreads node. */
+    public static final String N_STATICEXPORT_EXPORTTHREADS = "exportthreads";
+
+    /**  The node name of the export uri cache size node. */
+    public static final String N_STATICEXPORT_EXPORTURIS = "exporturis";
+
     /**  The node name of the static export exporturl node. */
     public static final String N_STATICEXPORT_EXPORTURL = "exporturl";
 
@@ -243,12 +252,18 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export header node. */
     public static final String N_STATICEXPORT_HEADER = "header";
 
+    /**  The node name of the static export link caches node. */
+    public static final String N_STATICEXPORT_LINKCACHES = "linkcaches";
+
     /**  The node name of the static export export-rule modified node. */
     public static final String N_STATICEXPORT_MODIFIED = "modified-resources";
 
     /**  The node name of the static export rule name nodes. */
     public static final String N_STATICEXPORT_NAME = "name";
 
+    /**  The node name of the online link cache size node. */
+    public static final String N_STATICEXPORT_ONLINELINKS = "onlinelinks";
+
     /**  The node name of the static export plainoptimization node. */
     public static final String N_STATICEXPORT_PLAINOPTIMIZATION = "plainoptimization";
 
@@ -282,6 +297,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export rfx-rules node. */
     public static final String N_STATICEXPORT_RFS_RULES = "rfs-rules";
 
+    /**  The node name of the secure link cache size node. */
+    public static final String N_STATICEXPORT_SECURELINKS = "securelinks";
+
     /**  The node name of the static export rfx-rule source node. */
     public static final String N_STATICEXPORT_SOURCE = "source";
 
@@ -291,6 +309,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export testresource node. */
     public static final String N_STATICEXPORT_TESTRESOURCE = "testresource";
 
+    /**  The node name of the static export trackdependencies node. */
+    public static final String N_STATICEXPORT_TRACKDEPENDENCIES = "trackdependencies";
+
     /**  The node name of the static export export-rule export uri node. */
     public static final String N_STATICEXPORT_URI = "uri";
 
@@ -490,6 +511,23 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_REQUESTHEADERS + "/" + N_STATICEXPORT_REMOTEADDR,
             "setRemoteAddr",
             0);
+        // link cache size rules
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_LINKCACHES + "/" + N_STATICEXPORT_ONLINELINKS,
+            "setCacheSizeOnlineLinks",
+            0);
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_LINKCACHES + "/" + N_STATICEXPORT_EXPORTLINKS,
+            "setCacheSizeExportLinks",
+            0);
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_LINKCACHES + "/" + N_STATICEXPORT_SECURELINKS,
+            "setCacheSizeSecureLinks",
+            0);
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_LINKCACHES + "/" + N_STATICEXPORT_EXPORTURIS,
+            "setCacheSizeExportUris",
+            0);
         // rfs-prefix rule
         digester.addCallMethod(
             "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_RENDERSETTINGS + "/" + N_STATICEXPORT_RFS_PREFIX,
@@ -515,6 +553,16 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_RENDERSETTINGS + "/" + N_STATICEXPORT_PLAINOPTIMIZATION,
             "setPlainExportOptimization",
             0);
+        // export threads rule
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_RENDERSETTINGS + "/" + N_STATICEXPORT_EXPORTTHREADS,
+            "setExportThreads",
+            0);
+        // track dependencies rule
+        digester.addCallMethod(
+            "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_RENDERSETTINGS + "/" + N_STATICEXPORT_TRACKDEPENDENCIES,
+            "setTrackDependencies",
+            0);
         // test resource rule
         digester.addCallMethod(
             "*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_RENDERSETTINGS + "/" + N_STATICEXPORT_TESTRESOURCE,
@@ -878,6 +926,23 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             }
         }
 
+        // <linkcaches> node, only written if a cache size differs from the default
+        int onlineLinks = m_staticExportManager.getCacheSizeOnlineLinks();
+        int exportLinks = m_staticExportManager.getCacheSizeExportLinks();
+        int secureLinks = m_staticExportManager.getCacheSizeSecureLinks();
+        int exportUris = m_staticExportManager.getCacheSizeExportUris();
+        int defaultSize = CmsStaticExportManager.DEFAULT_LINK_CACHE_SIZE;
+        if ((onlineLinks != defaultSize)
+            || (exportLinks != defaultSize)
+            || (secureLinks != defaultSize)
+            || (exportUris != defaultSize)) {
+            Element linkcachesElement = staticexportElement.addElement(N_STATICEXPORT_LINKCACHES);
+            linkcachesElement.addElement(N_STATICEXPORT_ONLINELINKS).addText(String.valueOf(onlineLinks));
+            linkcachesElement.addElement(N_STATICEXPORT_EXPORTLINKS).addText(String.valueOf(exportLinks));
+            linkcachesElement.addElement(N_STATICEXPORT_SECURELINKS).addText(String.valueOf(secureLinks));
+            linkcachesElement.addElement(N_STATICEXPORT_EXPORTURIS).addText(String.valueOf(exportUris));
+        }
+
         // <rendersettings> node
         Element rendersettingsElement = staticexportElement.addElement(N_STATICEXPORT_RENDERSETTINGS);
 
@@ -901,6 +966,18 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         rendersettingsElement.addElement(N_STATICEXPORT_PLAINOPTIMIZATION).addText(
             m_staticExportManager.getPlainExportOptimization());
 
+        // <exportthreads> node
+        if (m_staticExportManager.getExportThreads() != CmsStaticExportManager.DEFAULT_EXPORT_THREADS) {
+            rendersettingsElement.addElement(N_STATICEXPORT_EXPORTTHREADS).addText(
+                String.valueOf(m_staticExportManager.getExportThreads()));
+        }
+
+        // <trackdependencies> node
+        if (m_staticExportManager.isTrackDependencies()) {
+            rendersettingsElement.addElement(N_STATICEXPORT_TRACKDEPENDENCIES).addText(
+                String.valueOf(m_staticExportManager.isTrackDependencies()));
+        }
+
         // <testresource> node
         Element testresourceElement = rendersettingsElement.addElement(N_STATICEXPORT_TESTRESOURCE);
         testresourceElement.addAttribute(A_URI, m_staticExportManager.getTestResource());
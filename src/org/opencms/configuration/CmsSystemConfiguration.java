@@ -47,6 +47,8 @@ import org.opencms.main.I_CmsRequestHandler;
 import org.opencms.main.I_CmsResourceInit;
 import org.opencms.main.I_CmsSessionStorageProvider;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.scheduler.CmsScheduleManager;
@@ -169,12 +171,30 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the browser-based node. */
     public static final String N_BROWSER_BASED = "browser-based";
 
+    /** The node name for the cache-budget node. */
+    public static final String N_CACHE_BUDGET = "cache-budget";
+
+    /** The node name for the cache-concurrency node. */
+    public static final String N_CACHE_CONCURRENCY = "cache-concurrency";
+
+    /** The node name for the FlexCache dependency tracking node. */
+    public static final String N_CACHE_DEPENDENCIES = "cache-dependencies";
+
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
+    /** The node name for the cache-engine node. */
+    public static final String N_CACHE_ENGINE = "cache-engine";
+
+    /** The node name for the cache-maxweight node. */
+    public static final String N_CACHE_MAXWEIGHT = "cache-maxweight";
+
     /** The node name for the cache-offline node. */
     public static final String N_CACHE_OFFLINE = "cache-offline";
 
+    /** The node name for the cache-quota node. */
+    public static final String N_CACHE_QUOTA = "cache-quota";
+
     /** The node name for a job class. */
     public static final String N_CLASS = "class";
 
@@ -355,9 +375,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context project name. */
     public static final String N_PROJECT = "project";
 
+    /** The node name for the publish batch size. */
+    public static final String N_PUBLISH_BATCHSIZE = "publish-batchsize";
+
     /** The node name for the publish list remove mode. */
     public static final String N_PUBLISH_LIST_REMOVE_MODE = "publish-list-remove-mode";
 
+    /** The node name for the number of publish worker threads. */
+    public static final String N_PUBLISH_WORKERS = "publish-workers";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
@@ -484,6 +510,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for users. */
     public static final String N_SIZE_USERS = "size-users";
 
+    /** The size of the memory monitor's cache for parsed XML contents. */
+    public static final String N_SIZE_XMLCONTENTS = "size-xmlcontents";
+
     /** The subscriptionmanager node name. */
     public static final String N_SUBSCRIPTIONMANAGER = "subscriptionmanager";
 
@@ -532,6 +561,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The disk cache folder for XML contents in binary form. */
+    public static final String N_XMLCONTENT_DISKCACHE = "xmlcontent-diskcache";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -1011,6 +1043,19 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_EMAIL_RECEIVER + "/" + N_RECEIVER,
             "addEmailReceiver",
             0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINE, "setCacheEngine", 0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_MAXWEIGHT,
+            "setCacheMaxWeight",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_CONCURRENCY,
+            "setCacheConcurrencyLevel",
+            0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BUDGET, "setCacheBudget", 0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_QUOTA, "setCacheQuota", 2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_QUOTA, 0, A_TYPE);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_QUOTA, 1);
 
         // set the MemoryMonitorConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR, "setCmsMemoryMonitorConfiguration");
@@ -1024,6 +1069,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        // add flexcache dependency tracking
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CACHE_DEPENDENCIES,
+            "setDependencyTracking",
+            0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CACHE_ENGINE, "setCacheEngine", 0);
         // add flexcache device selector
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR,
@@ -1083,6 +1134,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_PERMISSIONS,
             "setPermissionCacheSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_XMLCONTENTS,
+            "setXmlContentCacheSize",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_XMLCONTENT_DISKCACHE,
+            "setXmlContentDiskCache",
+            0);
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_OFFLINE,
             "setContainerPageOfflineSize",
@@ -1125,6 +1184,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISH_WORKERS,
+            "setPublishWorkers",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_PUBLISH_BATCHSIZE,
+            "setPublishBatchSize",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1490,6 +1557,33 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                     emailreceiverElement.addElement(N_RECEIVER).addText(iter.next());
                 }
             }
+            if (m_cmsMemoryMonitorConfiguration.isConcurrentCacheEngine()) {
+                memorymonitorElement.addElement(N_CACHE_ENGINE).addText(
+                    m_cmsMemoryMonitorConfiguration.getCacheEngine());
+                if (m_cmsMemoryMonitorConfiguration.getCacheMaxWeight() > 0) {
+                    memorymonitorElement.addElement(N_CACHE_MAXWEIGHT).addText(
+                        String.valueOf(m_cmsMemoryMonitorConfiguration.getCacheMaxWeight()));
+                }
+                if (m_cmsMemoryMonitorConfiguration.getCacheConcurrencyLevel() > 0) {
+                    memorymonitorElement.addElement(N_CACHE_CONCURRENCY).addText(
+                        String.valueOf(m_cmsMemoryMonitorConfiguration.getCacheConcurrencyLevel()));
+                }
+                if (m_cmsMemoryMonitorConfiguration.getCacheBudget() != null) {
+                    memorymonitorElement.addElement(N_CACHE_BUDGET).addText(
+                        m_cmsMemoryMonitorConfiguration.getCacheBudget());
+                }
+                if (m_cmsMemoryMonitorConfiguration.getDefaultCacheQuota() != CmsMemoryMonitor.DEFAULT_CACHE_QUOTA) {
+                    Element quotaElement = memorymonitorElement.addElement(N_CACHE_QUOTA);
+                    quotaElement.addAttribute(A_TYPE, CmsMemoryMonitorConfiguration.CACHE_QUOTA_DEFAULT);
+                    quotaElement.addText(String.valueOf(m_cmsMemoryMonitorConfiguration.getDefaultCacheQuota()));
+                }
+                Map<CacheType, Integer> cacheQuotas = m_cmsMemoryMonitorConfiguration.getCacheQuotas();
+                for (Map.Entry<CacheType, Integer> entry : cacheQuotas.entrySet()) {
+                    Element quotaElement = memorymonitorElement.addElement(N_CACHE_QUOTA);
+                    quotaElement.addAttribute(A_TYPE, entry.getKey().name());
+                    quotaElement.addText(String.valueOf(entry.getValue()));
+                }
+            }
         }
 
         // create <flexcache> node
@@ -1505,6 +1599,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.isDependencyTracking()) {
+            flexcacheElement.addElement(N_CACHE_DEPENDENCIES).addText(Boolean.TRUE.toString());
+        }
+        if (m_cmsFlexCacheConfiguration.isConcurrentCacheEngine()) {
+            flexcacheElement.addElement(N_CACHE_ENGINE).addText(m_cmsFlexCacheConfiguration.getCacheEngine());
+        }
         if (m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration() != null) {
             Element flexcacheDeviceSelectorElement = flexcacheElement.addElement(N_DEVICESELECTOR);
             flexcacheDeviceSelectorElement.addAttribute(
@@ -1550,6 +1650,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (m_cacheSettings.getConfiguredXmlContentCacheSize() > -1) {
+            cacheElement.addElement(N_SIZE_XMLCONTENTS).setText(
+                Integer.toString(m_cacheSettings.getConfiguredXmlContentCacheSize()));
+        }
+        if (m_cacheSettings.getXmlContentDiskCache() != null) {
+            cacheElement.addElement(N_XMLCONTENT_DISKCACHE).setText(m_cacheSettings.getXmlContentDiskCache());
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1577,6 +1684,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            // optional nodes for parallel publishing
+            if (m_publishManager.getPublishWorkers() > 1) {
+                pubHistElement.addElement(N_PUBLISH_WORKERS).setText(
+                    String.valueOf(m_publishManager.getPublishWorkers()));
+                pubHistElement.addElement(N_PUBLISH_BATCHSIZE).setText(
+                    String.valueOf(m_publishManager.getPublishBatchSize()));
+            }
         }
 
         // session storage provider
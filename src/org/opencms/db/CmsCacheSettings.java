@@ -27,6 +27,8 @@
 
 package org.opencms.db;
 
+import org.opencms.util.CmsStringUtil;
+
 /**
  * The settings of the OpenCms memory monitor.<p>
  *
@@ -76,6 +78,12 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for user/group relations. */
     private int m_userGroupsCacheSize;
 
+    /** The size of the memory monitor's cache for parsed XML contents. */
+    private int m_xmlContentCacheSize = -1; // this configuration entry is optional
+
+    /** The RFS folder of the disk cache for XML contents in binary form, relative to the web application. */
+    private String m_xmlContentDiskCache; // this configuration entry is optional
+
     /**
      * Default constructor.<p>
      */
@@ -152,6 +160,18 @@ public class CmsCacheSettings {
         return m_rolesCacheSize;
     }
 
+    /**
+     * Returns the size of the memory monitor's cache for parsed XML contents.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the size of the memory monitor's cache for parsed XML contents
+     */
+    public int getConfiguredXmlContentCacheSize() {
+
+        return m_xmlContentCacheSize;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for groups.<p>
      *
@@ -284,6 +304,29 @@ public class CmsCacheSettings {
         return m_userGroupsCacheSize;
     }
 
+    /**
+     * Returns the size of the memory monitor's cache for parsed XML contents.<p>
+     *
+     * @return the size of the memory monitor's cache for parsed XML contents
+     */
+    public int getXmlContentCacheSize() {
+
+        if (m_xmlContentCacheSize < 0) {
+            return 1024;
+        }
+        return m_xmlContentCacheSize;
+    }
+
+    /**
+     * Returns the RFS folder of the disk cache for XML contents in binary form, relative to the web application.<p>
+     *
+     * @return the RFS folder of the disk cache, or <code>null</code> if the disk cache is disabled
+     */
+    public String getXmlContentDiskCache() {
+
+        return m_xmlContentDiskCache;
+    }
+
     /**
      * Sets the size of the memory monitor's cache for ACLs.<p>
      *
@@ -424,6 +467,26 @@ public class CmsCacheSettings {
         m_userGroupsCacheSize = getIntValue(size, 256);
     }
 
+    /**
+     * Sets the size of the memory monitor's cache for parsed XML contents.<p>
+     *
+     * @param size the size of the memory monitor's cache for parsed XML contents
+     */
+    public void setXmlContentCacheSize(String size) {
+
+        m_xmlContentCacheSize = getIntValue(size, 1024);
+    }
+
+    /**
+     * Sets the RFS folder of the disk cache for XML contents in binary form, relative to the web application.<p>
+     *
+     * @param folder the RFS folder of the disk cache, an empty value disables the disk cache
+     */
+    public void setXmlContentDiskCache(String folder) {
+
+        m_xmlContentDiskCache = CmsStringUtil.isEmptyOrWhitespaceOnly(folder) ? null : folder.trim();
+    }
+
     /**
      * Turns a string into an int.<p>
      *
@@ -88,7 +88,7 @@ public class CmsDbSqlException extends CmsDbException {
 
         if (stmt != null) {
             // unfortunately, DelegatingPreparedStatement has no toString() method implementation
-            Statement s = stmt;
+            Statement s = CmsSqlStatistics.unwrap(stmt);
             while (s instanceof DelegatingPreparedStatement) {
                 s = ((DelegatingPreparedStatement)s).getInnermostDelegate();
             }
@@ -61,6 +61,7 @@ import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.flex.CmsFlexDependencyRecorder;
 import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.gwt.shared.alias.CmsAliasImportResult;
 import org.opencms.gwt.shared.alias.CmsAliasImportStatus;
@@ -123,6 +124,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -341,7 +343,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     private CmsLockManager m_lockManager;
 
     /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -364,6 +366,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The sql manager. */
     private CmsSqlManager m_sqlManager;
 
+    /** The SQL statistics, or <code>null</code> if disabled. */
+    private CmsSqlStatistics m_sqlStatistics;
+
     /** The subscription driver. */
     private I_CmsSubscriptionDriver m_subscriptionDriver;
 
@@ -468,6 +473,17 @@ public final class CmsDriverManager implements I_CmsEventListener {
             driverManager.newPoolInstance(config, name);
         }
 
+        // enable the SQL statistics if configured, before the drivers are created
+        if (config.getBoolean(CmsSqlStatistics.KEY_STATISTICS_ENABLED, false)) {
+            int slowStatements = config.getInteger(CmsSqlStatistics.KEY_STATISTICS_SLOW_STATEMENTS, 20);
+            driverManager.m_sqlStatistics = new CmsSqlStatistics(slowStatements);
+            driverManager.m_sqlStatistics.registerMBean();
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(Messages.INIT_SQL_STATISTICS_1, String.valueOf(slowStatements)));
+            }
+        }
+
         // initialize the runtime info factory with the generated driver manager
         runtimeInfoFactory.initialize(driverManager);
 
@@ -711,6 +727,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
             m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
         }
         m_monitor.flushCache(CmsMemoryMonitor.CacheType.USERGROUPS, CmsMemoryMonitor.CacheType.USER_LIST);
+        if (user.isGuestUser()) {
+            // the groups of the guest user determine the permissions in the online project
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+        }
 
         if (!dbc.getProjectId().isNullUUID() && !CmsProject.ONLINE_PROJECT_ID.equals(dbc.getProjectId())) {
             // user modified event is not needed
@@ -996,8 +1016,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_monitor.clearCache();
                 break;
             case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
+                m_monitor.clearPrincipalsCache();
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+                break;
             case I_CmsEventListener.EVENT_USER_MODIFIED:
                 m_monitor.clearPrincipalsCache();
+                String userName = (String)event.getData().get(I_CmsEventListener.KEY_USER_NAME);
+                if (OpenCms.getDefaultUsers().isUserGuest(userName)) {
+                    // changes of other users do not affect the online permissions of the guest user
+                    m_monitor.flushCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+                }
                 break;
             default:
                 // noop
@@ -2383,7 +2411,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_monitor.flushCache(
             CmsMemoryMonitor.CacheType.USERGROUPS,
             CmsMemoryMonitor.CacheType.USER_LIST,
-            CmsMemoryMonitor.CacheType.ACL);
+            CmsMemoryMonitor.CacheType.ACL,
+            CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
 
         if (!dbc.getProjectId().isNullUUID()) {
             // group modified event is not needed
@@ -3227,6 +3256,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_connectionPools = null;
             }
 
+            if (m_sqlStatistics != null) {
+                m_sqlStatistics.unregisterMBean();
+            }
+
             m_monitor.clearCache();
 
             m_lockManager = null;
@@ -4775,6 +4808,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_sqlManager;
     }
 
+    /**
+     * Returns the SQL statistics.<p>
+     *
+     * @return the SQL statistics, or <code>null</code> if the statistics are disabled
+     */
+    public CmsSqlStatistics getSqlStatistics() {
+
+        return m_sqlStatistics;
+    }
+
     /**
      * Returns the subscription driver of this driver manager.<p>
      *
@@ -6512,6 +6555,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 getFiles);
 
             if (checkPermissions) {
+                // read the access control entries of all children at once
+                prefetchAccessControlLists(dbc, resource, resourceList);
                 // apply the permission filter
                 resourceList = filterPermissions(dbc, resourceList, filter);
             }
@@ -6525,6 +6570,46 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Returns the child resources of a resource, and reads the properties of all
+     * child resources in advance.<p>
+     *
+     * The properties of all children are read with a single query and stored in the property cache,
+     * so reading the (not inherited) properties of the returned resources afterwards does not require
+     * a database access for each child. This is useful e.g. for building the navigation.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to return the child resources for
+     * @param filter the resource filter to use
+     * @param getFolders if true the child folders are included in the result
+     * @param getFiles if true the child files are included in the result
+     * @param checkPermissions if the resources should be filtered with the current user permissions
+     *
+     * @return a list of all child resources
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #readChildResources(CmsDbContext, CmsResource, CmsResourceFilter, boolean, boolean, boolean)
+     */
+    public List<CmsResource> readChildResourcesWithProperties(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsResourceFilter filter,
+        boolean getFolders,
+        boolean getFiles,
+        boolean checkPermissions) throws CmsException {
+
+        List<CmsResource> resourceList = readChildResources(
+            dbc,
+            resource,
+            filter,
+            getFolders,
+            getFiles,
+            checkPermissions);
+        prefetchPropertyObjects(dbc, resource, resourceList);
+        return resourceList;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -7334,15 +7419,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public CmsProperty readPropertyObject(CmsDbContext dbc, CmsResource resource, String key, boolean search)
     throws CmsException {
 
-        // use the list reading method to obtain all properties for the resource
-        List<CmsProperty> properties = readPropertyObjects(dbc, resource, search);
-        // create a lookup propertry object and look this up in the result map
-        int i = properties.indexOf(new CmsProperty(key, null, null));
         CmsProperty result;
-        if (i >= 0) {
-            // property has been found in the map
-            result = properties.get(i);
+        if (search) {
+            // inherited lookups only require a single map lookup in the effective property map
+            result = readEffectivePropertyMap(dbc, resource).get(key);
         } else {
+            // use the list reading method to obtain all properties for the resource
+            List<CmsProperty> properties = readPropertyObjects(dbc, resource, false);
+            // create a lookup propertry object and look this up in the result map
+            int i = properties.indexOf(new CmsProperty(key, null, null));
+            result = (i >= 0) ? properties.get(i) : null;
+        }
+        if (result == null) {
             // property is not defined, return NULL property
             result = CmsProperty.getNullProperty();
         }
@@ -7379,35 +7467,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
             // result not cached, let's look it up in the DB
             if (search) {
-                boolean cont;
-                properties = new ArrayList<CmsProperty>();
-                List<CmsProperty> parentProperties = null;
-
-                do {
-                    try {
-                        parentProperties = readPropertyObjects(dbc, resource, false);
-
-                        // make sure properties from lower folders "overwrite" properties from upper folders
-                        parentProperties.removeAll(properties);
-                        parentProperties.addAll(properties);
-
-                        properties.clear();
-                        properties.addAll(parentProperties);
-
-                        cont = resource.getRootPath().length() > 1;
-                    } catch (CmsSecurityException se) {
-                        // a security exception (probably no read permission) we return the current result
-                        cont = false;
-                    }
-                    if (cont) {
-                        // no permission check on parent folder is required since we must have "read"
-                        // permissions to read the child resource anyway
-                        resource = readResource(
-                            dbc,
-                            CmsResource.getParentFolder(resource.getRootPath()),
-                            CmsResourceFilter.ALL);
-                    }
-                } while (cont);
+                // the effective property map already contains the properties inherited from all parent folders
+                properties = new ArrayList<CmsProperty>(readEffectivePropertyMap(dbc, resource).values());
             } else {
                 properties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), resource);
                 //                for (CmsProperty prop : properties) {
@@ -8248,6 +8309,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
             m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
         }
         m_monitor.flushCache(CmsMemoryMonitor.CacheType.USERGROUPS, CmsMemoryMonitor.CacheType.USER_LIST);
+        if (user.isGuestUser()) {
+            // the groups of the guest user determine the permissions in the online project
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+        }
 
         if (!dbc.getProjectId().isNullUUID()) {
             // user modified event is not needed
@@ -9293,12 +9358,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         synchronized (m_publishListUpdateLock) {
 
-            if (m_log.isEmpty()) {
-                return;
+            List<CmsLogEntry> log;
+            synchronized (m_log) {
+                if (m_log.isEmpty()) {
+                    return;
+                }
+                log = new ArrayList<CmsLogEntry>(m_log);
+                m_log.clear();
             }
-
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
             String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
             if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
                 m_projectDriver.log(dbc, log);
@@ -10898,14 +10965,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         boolean forFolder,
         int depth) throws CmsException {
 
-        String cacheKey = getCacheKey(
-            new String[] {
-                inheritedOnly ? "+" : "-",
-                forFolder ? "+" : "-",
-                Integer.toString(depth),
-                resource.getStructureId().toString()},
-            dbc);
-
+        String cacheKey = getAccessControlListCacheKey(dbc, resource, inheritedOnly, forFolder, depth);
         CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
 
         // return the cached acl if already available
@@ -10919,24 +10979,56 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resource.getResourceId(),
             (depth > 1) || ((depth > 0) && forFolder));
 
+        return getAccessControlList(dbc, resource, null, aces, inheritedOnly, forFolder, depth, cacheKey);
+    }
+
+    /**
+     * Returns the access control list of a given resource, using the given access control entries of the resource.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     * @param parentResource the parent folder of the resource, or <code>null</code> to read it
+     * @param aces the access control entries of the resource itself
+     * @param inheritedOnly flag indicates to collect inherited permissions only
+     * @param forFolder should be true if resource is a folder
+     * @param depth the depth to include non-inherited access entries, also
+     * @param cacheKey the key to cache the access control list with
+     *
+     * @return the access control list of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsAccessControlList getAccessControlList(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsResource parentResource,
+        List<CmsAccessControlEntry> aces,
+        boolean inheritedOnly,
+        boolean forFolder,
+        int depth,
+        String cacheKey) throws CmsException {
+
+        CmsAccessControlList acl = null;
+
         // sort the list of aces
         boolean overwriteAll = sortAceList(aces);
 
         // if no 'overwrite all' ace was found
         if (!overwriteAll) {
             // get the acl of the parent
-            CmsResource parentResource = null;
-            try {
-                // try to recurse over the id
-                parentResource = getVfsDriver(dbc).readParentFolder(
-                    dbc,
-                    dbc.currentProject().getUuid(),
-                    resource.getStructureId());
-            } catch (CmsVfsResourceNotFoundException e) {
-                // should never happen, but try with the path
-                String parentPath = CmsResource.getParentFolder(resource.getRootPath());
-                if (parentPath != null) {
-                    parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
+            if (parentResource == null) {
+                try {
+                    // try to recurse over the id
+                    parentResource = getVfsDriver(dbc).readParentFolder(
+                        dbc,
+                        dbc.currentProject().getUuid(),
+                        resource.getStructureId());
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // should never happen, but try with the path
+                    String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+                    if (parentPath != null) {
+                        parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
+                    }
                 }
             }
             if (parentResource != null) {
@@ -10975,6 +11067,33 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return acl;
     }
 
+    /**
+     * Returns the key used to cache the access control list of a resource.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource
+     * @param inheritedOnly flag indicates to collect inherited permissions only
+     * @param forFolder should be true if resource is a folder
+     * @param depth the depth to include non-inherited access entries, also
+     *
+     * @return the cache key
+     */
+    private String getAccessControlListCacheKey(
+        CmsDbContext dbc,
+        CmsResource resource,
+        boolean inheritedOnly,
+        boolean forFolder,
+        int depth) {
+
+        return getCacheKey(
+            new String[] {
+                inheritedOnly ? "+" : "-",
+                forFolder ? "+" : "-",
+                Integer.toString(depth),
+                resource.getStructureId().toString()},
+            dbc);
+    }
+
     /**
      * Return a cache key build from the provided information.<p>
      *
@@ -11252,6 +11371,158 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return allUsers;
     }
 
+    /**
+     * Reads the access control entries of all given child resources with a single query and caches
+     * the access control lists of the children that are not cached yet.<p>
+     *
+     * @param dbc the current database context
+     * @param folder the parent folder
+     * @param children the child resources of the folder
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void prefetchAccessControlLists(CmsDbContext dbc, CmsResource folder, List<CmsResource> children)
+    throws CmsException {
+
+        if ((children.size() < 2)
+            || !dbc.getProjectId().isNullUUID()
+            || !m_monitor.isEnabled(CmsMemoryMonitor.CacheType.ACL)) {
+            // nothing to gain
+            return;
+        }
+        Map<CmsResource, String> missing = new LinkedHashMap<CmsResource, String>();
+        for (CmsResource child : children) {
+            String cacheKey = getAccessControlListCacheKey(dbc, child, false, child.isFolder(), 0);
+            if (m_monitor.getCachedACL(cacheKey) == null) {
+                missing.put(child, cacheKey);
+            }
+        }
+        if (missing.size() < 2) {
+            return;
+        }
+        Map<CmsUUID, List<CmsAccessControlEntry>> aces = getUserDriver(dbc).readChildAccessControlEntries(
+            dbc,
+            dbc.currentProject(),
+            folder);
+        for (Map.Entry<CmsResource, String> entry : missing.entrySet()) {
+            CmsResource child = entry.getKey();
+            List<CmsAccessControlEntry> childAces = aces.get(child.getResourceId());
+            // siblings share the same entries, so always use a new list
+            childAces = (childAces == null)
+            ? new ArrayList<CmsAccessControlEntry>()
+            : new ArrayList<CmsAccessControlEntry>(childAces);
+            getAccessControlList(dbc, child, folder, childAces, false, child.isFolder(), 0, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the properties of all given child resources with a single query and caches
+     * the property lists of the children that are not cached yet.<p>
+     *
+     * @param dbc the current database context
+     * @param folder the parent folder
+     * @param children the child resources of the folder
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void prefetchPropertyObjects(CmsDbContext dbc, CmsResource folder, List<CmsResource> children)
+    throws CmsException {
+
+        if ((children.size() < 2)
+            || !dbc.getProjectId().isNullUUID()
+            || !m_monitor.isEnabled(CmsMemoryMonitor.CacheType.PROPERTY_LIST)) {
+            // nothing to gain
+            return;
+        }
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        Map<CmsResource, String> missing = new LinkedHashMap<CmsResource, String>();
+        for (CmsResource child : children) {
+            String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, child.getRootPath());
+            if (m_monitor.getCachedPropertyList(cacheKey) == null) {
+                missing.put(child, cacheKey);
+            }
+        }
+        if (missing.size() < 2) {
+            return;
+        }
+        Map<CmsUUID, List<CmsProperty>> properties = getVfsDriver(dbc).readChildPropertyObjects(
+            dbc,
+            dbc.currentProject(),
+            folder);
+        for (Map.Entry<CmsResource, String> entry : missing.entrySet()) {
+            List<CmsProperty> childProperties = properties.get(entry.getKey().getStructureId());
+            if (childProperties == null) {
+                childProperties = new ArrayList<CmsProperty>();
+            }
+            CmsProperty.setFrozen(childProperties);
+            m_monitor.cachePropertyList(entry.getValue(), childProperties);
+        }
+    }
+
+    /**
+     * Returns the effective properties of a resource, that is the properties of the resource itself
+     * combined with the properties inherited from all its parent folders.<p>
+     *
+     * The effective map of a resource is composed from the (cached) effective map of its parent folder
+     * and the resource's own properties, so every folder is only evaluated once until the
+     * property list cache is flushed.<p>
+     *
+     * The iteration order of the returned map is the same as the order of the property list returned by
+     * {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)} with <code>search</code> enabled,
+     * i.e. properties of upper folders come first.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to read the effective properties for
+     *
+     * @return an unmodifiable map from property names to frozen properties
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<String, CmsProperty> readEffectivePropertyMap(CmsDbContext dbc, CmsResource resource)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        String cacheKey = getCacheKey(CACHE_ALL_PROPERTIES, true, projectId, resource.getRootPath());
+        boolean useCache = dbc.getProjectId().isNullUUID();
+
+        Map<String, CmsProperty> result = useCache ? m_monitor.getCachedPropertyMap(cacheKey) : null;
+        if (result != null) {
+            return result;
+        }
+
+        List<CmsProperty> ownProperties;
+        try {
+            ownProperties = readPropertyObjects(dbc, resource, false);
+        } catch (CmsSecurityException se) {
+            // a security exception (probably no read permission), stop searching at this level
+            return Collections.emptyMap();
+        }
+
+        Map<String, CmsProperty> effective;
+        if (resource.getRootPath().length() > 1) {
+            // no permission check on parent folder is required since we must have "read"
+            // permissions to read the child resource anyway
+            CmsResource parent = readResource(
+                dbc,
+                CmsResource.getParentFolder(resource.getRootPath()),
+                CmsResourceFilter.ALL);
+            effective = new LinkedHashMap<String, CmsProperty>(readEffectivePropertyMap(dbc, parent));
+        } else {
+            effective = new LinkedHashMap<String, CmsProperty>();
+        }
+        for (CmsProperty property : ownProperties) {
+            // make sure properties from lower folders "overwrite" properties from upper folders
+            effective.remove(property.getName());
+            effective.put(property.getName(), property);
+        }
+
+        result = Collections.unmodifiableMap(effective);
+        if (useCache) {
+            m_monitor.cachePropertyMap(cacheKey, result);
+        }
+        return result;
+    }
+
     /**
      * Reads all resources that are inside and changed in a specified project.<p>
      *
@@ -11418,6 +11689,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 if (aceModified) {
                     // clear the cache
                     m_monitor.clearAccessControlListCache();
+                    if (project.isOnlineProject()) {
+                        m_monitor.flushCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+                    }
                 }
             }
             if (attrModified || aceModified) {
@@ -11671,6 +11945,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * If either x, y or z has an expiration / release date set, then page A must expire at a certain point
      * in time. This is ensured by the context date check here.<p>
      *
+     * If the current thread records the resources it reads (see {@link CmsFlexDependencyRecorder}),
+     * the resource is also recorded.<p>
+     *
      * @param dbc the current database context
      * @param resource the resource to get the date information from
      */
@@ -11680,6 +11957,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if (info != null) {
             info.updateFromResource(resource);
         }
+        CmsFlexDependencyRecorder.record(resource);
     }
 
     /**
@@ -11697,10 +11975,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
     private List<CmsResource> updateContextDates(CmsDbContext dbc, List<CmsResource> resourceList) {
 
         CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
-        if (info != null) {
+        boolean recording = CmsFlexDependencyRecorder.isRecording();
+        if ((info != null) || recording) {
             for (int i = 0; i < resourceList.size(); i++) {
                 CmsResource resource = resourceList.get(i);
-                info.updateFromResource(resource);
+                if (info != null) {
+                    info.updateFromResource(resource);
+                }
+                if (recording) {
+                    CmsFlexDependencyRecorder.record(resource);
+                }
             }
         }
         return resourceList;
@@ -11730,6 +12014,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        boolean recording = CmsFlexDependencyRecorder.isRecording();
         List<CmsResource> result = new ArrayList<CmsResource>(resourceList.size());
         for (int i = 0; i < resourceList.size(); i++) {
             CmsResource resource = resourceList.get(i);
@@ -11741,6 +12026,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
             if (info != null) {
                 info.updateFromResource(resource);
             }
+            if (recording) {
+                CmsFlexDependencyRecorder.record(resource);
+            }
         }
         return result;
     }
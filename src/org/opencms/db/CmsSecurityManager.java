@@ -4098,6 +4098,53 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Returns the child resources of a resource, and reads the properties of all
+     * child resources in advance.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource to return the child resources for
+     * @param filter the resource filter to use
+     * @param getFolders if true the child folders are included in the result
+     * @param getFiles if true the child files are included in the result
+     *
+     * @return a list of all child resources
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the user has insufficient permission for the given resource (read is required)
+     *
+     * @see #readChildResources(CmsRequestContext, CmsResource, CmsResourceFilter, boolean, boolean)
+     */
+    public List<CmsResource> readChildResourcesWithProperties(
+        CmsRequestContext context,
+        CmsResource resource,
+        CmsResourceFilter filter,
+        boolean getFolders,
+        boolean getFiles) throws CmsException, CmsSecurityException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // check the access permissions
+            checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL);
+            result = m_driverManager.readChildResourcesWithProperties(
+                dbc,
+                resource,
+                filter,
+                getFolders,
+                getFiles,
+                true);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_CHILD_RESOURCES_1, context.getSitePath(resource)),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
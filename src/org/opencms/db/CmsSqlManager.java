@@ -127,4 +127,14 @@ public class CmsSqlManager {
 
         return m_driverManager.getIdleConnections(dbPoolUrl);
     }
+
+    /**
+     * Returns the SQL statistics.<p>
+     *
+     * @return the SQL statistics, or <code>null</code> if the statistics are disabled
+     */
+    public CmsSqlStatistics getSqlStatistics() {
+
+        return m_driverManager.getSqlStatistics();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,735 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Collects timing statistics for the SQL statements executed by the generic database drivers.<p>
+ *
+ * For every query key of the <code>query.properties</code> files, the number of executions,
+ * the total and maximum execution time and a latency histogram are recorded. Statements that are
+ * not created from a query key are recorded under {@link #KEY_DYNAMIC_SQL}. In addition, the time
+ * needed to check out a connection from each pool and the slowest single statement executions
+ * are recorded.<p>
+ *
+ * The statistics are enabled with the <code>db.statistics.enabled</code> setting in
+ * <code>opencms.properties</code>. If enabled, the prepared statements created by the SQL managers
+ * are wrapped by a proxy that measures the <code>execute...</code> calls, and the statistics are
+ * published as JMX bean under the name {@link #OBJECT_NAME}. The time needed to read the result
+ * sets is not included.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsSqlStatistics implements I_CmsSqlStatistics {
+
+    /**
+     * A single slow statement execution.<p>
+     */
+    public static class CmsSlowStatement {
+
+        /** The execution time in nanoseconds. */
+        private long m_duration;
+
+        /** The query key. */
+        private String m_queryKey;
+
+        /** The SQL of the statement. */
+        private String m_sql;
+
+        /** The time the statement was executed. */
+        private long m_time;
+
+        /**
+         * Creates a new slow statement entry.<p>
+         *
+         * @param queryKey the query key
+         * @param sql the SQL of the statement
+         * @param duration the execution time in nanoseconds
+         * @param time the time the statement was executed
+         */
+        protected CmsSlowStatement(String queryKey, String sql, long duration, long time) {
+
+            m_queryKey = queryKey;
+            m_sql = sql;
+            m_duration = duration;
+            m_time = time;
+        }
+
+        /**
+         * Returns the execution time in milliseconds.<p>
+         *
+         * @return the execution time in milliseconds
+         */
+        public long getDuration() {
+
+            return TimeUnit.NANOSECONDS.toMillis(m_duration);
+        }
+
+        /**
+         * Returns the query key.<p>
+         *
+         * @return the query key
+         */
+        public String getQueryKey() {
+
+            return m_queryKey;
+        }
+
+        /**
+         * Returns the SQL of the statement, shortened to {@link CmsSqlStatistics#MAX_SQL_LENGTH} characters.<p>
+         *
+         * @return the SQL of the statement
+         */
+        public String getSql() {
+
+            return m_sql;
+        }
+
+        /**
+         * Returns the time the statement was executed.<p>
+         *
+         * @return the time the statement was executed
+         */
+        public long getTime() {
+
+            return m_time;
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+
+            return Messages.get().getBundle().key(
+                Messages.LOG_SQL_SLOW_STATEMENT_4,
+                new Object[] {String.valueOf(getDuration()), new Date(m_time), m_queryKey, m_sql});
+        }
+    }
+
+    /**
+     * Execution time statistic for a single query key or connection pool.<p>
+     */
+    public static class CmsTimingStatistic {
+
+        /** The upper limits of the histogram buckets in milliseconds, the last bucket has no limit. */
+        public static final long[] BUCKET_LIMITS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+        /** The histogram buckets. */
+        private AtomicLongArray m_buckets;
+
+        /** The number of recorded executions. */
+        private AtomicLong m_count;
+
+        /** The number of failed executions. */
+        private AtomicLong m_errors;
+
+        /** The maximum execution time in nanoseconds. */
+        private AtomicLong m_maxTime;
+
+        /** The query key or pool name. */
+        private String m_name;
+
+        /** The total execution time in nanoseconds. */
+        private AtomicLong m_totalTime;
+
+        /**
+         * Creates a new timing statistic.<p>
+         *
+         * @param name the query key or pool name
+         */
+        protected CmsTimingStatistic(String name) {
+
+            m_name = name;
+            m_buckets = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+            m_count = new AtomicLong();
+            m_errors = new AtomicLong();
+            m_maxTime = new AtomicLong();
+            m_totalTime = new AtomicLong();
+        }
+
+        /**
+         * Returns the average execution time in milliseconds.<p>
+         *
+         * @return the average execution time in milliseconds
+         */
+        public double getAverageTime() {
+
+            long count = m_count.get();
+            return count == 0 ? 0 : (m_totalTime.get() / 1000000.0) / count;
+        }
+
+        /**
+         * Returns the number of recorded executions.<p>
+         *
+         * @return the number of recorded executions
+         */
+        public long getCount() {
+
+            return m_count.get();
+        }
+
+        /**
+         * Returns the number of failed executions.<p>
+         *
+         * @return the number of failed executions
+         */
+        public long getErrorCount() {
+
+            return m_errors.get();
+        }
+
+        /**
+         * Returns the histogram of the execution times.<p>
+         *
+         * The entry at index <code>i</code> is the number of executions that took less than
+         * <code>BUCKET_LIMITS[i]</code> milliseconds, but not less than the previous limit.
+         * The last entry counts all executions above the last limit.<p>
+         *
+         * @return the histogram of the execution times
+         */
+        public long[] getHistogram() {
+
+            long[] result = new long[m_buckets.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = m_buckets.get(i);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the maximum execution time in milliseconds.<p>
+         *
+         * @return the maximum execution time in milliseconds
+         */
+        public long getMaxTime() {
+
+            return TimeUnit.NANOSECONDS.toMillis(m_maxTime.get());
+        }
+
+        /**
+         * Returns the query key or pool name.<p>
+         *
+         * @return the query key or pool name
+         */
+        public String getName() {
+
+            return m_name;
+        }
+
+        /**
+         * Returns an upper bound for the given percentile of the execution times in milliseconds,
+         * based on the histogram.<p>
+         *
+         * @param percent the percentile, e.g. 95
+         *
+         * @return an upper bound for the percentile in milliseconds
+         */
+        public long getPercentile(int percent) {
+
+            long[] histogram = getHistogram();
+            long total = 0;
+            for (long count : histogram) {
+                total += count;
+            }
+            long limit = (long)Math.ceil((total * percent) / 100.0);
+            long sum = 0;
+            for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+                sum += histogram[i];
+                if ((sum >= limit) && (sum > 0)) {
+                    return Math.min(BUCKET_LIMITS[i], Math.max(1, getMaxTime()));
+                }
+            }
+            return getMaxTime();
+        }
+
+        /**
+         * Returns the total execution time in milliseconds.<p>
+         *
+         * @return the total execution time in milliseconds
+         */
+        public long getTotalTime() {
+
+            return TimeUnit.NANOSECONDS.toMillis(m_totalTime.get());
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+
+            return Messages.get().getBundle().key(
+                Messages.LOG_SQL_TIMING_7,
+                new Object[] {
+                    m_name,
+                    String.valueOf(getCount()),
+                    String.valueOf(getErrorCount()),
+                    String.valueOf(getTotalTime()),
+                    String.format("%.2f", Double.valueOf(getAverageTime())),
+                    String.valueOf(getPercentile(95)),
+                    String.valueOf(getMaxTime())});
+        }
+
+        /**
+         * Records a single execution.<p>
+         *
+         * @param nanos the execution time in nanoseconds
+         * @param failed <code>true</code> if the execution failed
+         */
+        protected void record(long nanos, boolean failed) {
+
+            m_count.incrementAndGet();
+            if (failed) {
+                m_errors.incrementAndGet();
+            }
+            m_totalTime.addAndGet(nanos);
+            long max = m_maxTime.get();
+            while ((nanos > max) && !m_maxTime.compareAndSet(max, nanos)) {
+                max = m_maxTime.get();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while ((bucket < BUCKET_LIMITS.length) && (millis >= BUCKET_LIMITS[bucket])) {
+                bucket++;
+            }
+            m_buckets.incrementAndGet(bucket);
+        }
+    }
+
+    /**
+     * Invocation handler that measures the execution of a prepared statement.<p>
+     */
+    private static class CmsProfilingHandler implements InvocationHandler {
+
+        /** The query key. */
+        private String m_queryKey;
+
+        /** The SQL of the statement. */
+        private String m_sql;
+
+        /** The wrapped statement. */
+        private PreparedStatement m_statement;
+
+        /** The statistics to record the executions in. */
+        private CmsSqlStatistics m_statistics;
+
+        /**
+         * Creates a new profiling handler.<p>
+         *
+         * @param statistics the statistics to record the executions in
+         * @param statement the wrapped statement
+         * @param queryKey the query key
+         * @param sql the SQL of the statement
+         */
+        CmsProfilingHandler(CmsSqlStatistics statistics, PreparedStatement statement, String queryKey, String sql) {
+
+            m_statistics = statistics;
+            m_statement = statement;
+            m_queryKey = queryKey;
+            m_sql = sql;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            if (!method.getName().startsWith("execute")) {
+                return invokeStatement(method, args);
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = invokeStatement(method, args);
+                failed = false;
+                return result;
+            } finally {
+                m_statistics.recordStatement(m_queryKey, m_sql, System.nanoTime() - start, failed);
+            }
+        }
+
+        /**
+         * Invokes a method of the wrapped statement.<p>
+         *
+         * @param method the method
+         * @param args the arguments
+         *
+         * @return the result of the method
+         *
+         * @throws Throwable the exception thrown by the method
+         */
+        private Object invokeStatement(Method method, Object[] args) throws Throwable {
+
+            try {
+                return method.invoke(m_statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** The query key used for statements that are not read from the query properties. */
+    public static final String KEY_DYNAMIC_SQL = "[dynamic SQL]";
+
+    /** The configuration key to enable the statistics. */
+    public static final String KEY_STATISTICS_ENABLED = "db.statistics.enabled";
+
+    /** The configuration key for the number of slow statements to keep. */
+    public static final String KEY_STATISTICS_SLOW_STATEMENTS = "db.statistics.slowstatements";
+
+    /** The maximum length of the SQL kept for a slow statement. */
+    public static final int MAX_SQL_LENGTH = 500;
+
+    /** The name of the JMX bean. */
+    public static final String OBJECT_NAME = "org.opencms.db:type=SqlStatistics";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSqlStatistics.class);
+
+    /** The pool checkout statistics by pool URL. */
+    private ConcurrentHashMap<String, CmsTimingStatistic> m_checkouts;
+
+    /** The number of executed statements. */
+    private AtomicLong m_executedStatements;
+
+    /** The maximum number of slow statements to keep. */
+    private int m_maxSlowStatements;
+
+    /** The name the JMX bean is registered with, or <code>null</code> if not registered. */
+    private ObjectName m_objectName;
+
+    /** The query statistics by query key. */
+    private ConcurrentHashMap<String, CmsTimingStatistic> m_queries;
+
+    /** The slowest statements, the fastest of them first. */
+    private PriorityQueue<CmsSlowStatement> m_slowStatements;
+
+    /** The execution time in nanoseconds a statement must exceed to be added to the slow statements. */
+    private volatile long m_slowThreshold;
+
+    /**
+     * Creates new SQL statistics.<p>
+     *
+     * @param maxSlowStatements the maximum number of slow statements to keep
+     */
+    public CmsSqlStatistics(int maxSlowStatements) {
+
+        m_maxSlowStatements = Math.max(1, maxSlowStatements);
+        m_checkouts = new ConcurrentHashMap<String, CmsTimingStatistic>();
+        m_queries = new ConcurrentHashMap<String, CmsTimingStatistic>();
+        m_executedStatements = new AtomicLong();
+        m_slowStatements = new PriorityQueue<CmsSlowStatement>(m_maxSlowStatements, new Comparator<CmsSlowStatement>() {
+
+            public int compare(CmsSlowStatement first, CmsSlowStatement second) {
+
+                return first.m_duration < second.m_duration ? -1 : (first.m_duration == second.m_duration ? 0 : 1);
+            }
+        });
+    }
+
+    /**
+     * Returns the statement wrapped by a profiling proxy, or the given statement if it is not wrapped.<p>
+     *
+     * @param statement the statement to unwrap
+     *
+     * @return the wrapped statement
+     */
+    public static Statement unwrap(Statement statement) {
+
+        if ((statement != null) && Proxy.isProxyClass(statement.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(statement);
+            if (handler instanceof CmsProfilingHandler) {
+                return ((CmsProfilingHandler)handler).m_statement;
+            }
+        }
+        return statement;
+    }
+
+    /**
+     * Returns the pool checkout statistics, ordered by pool URL.<p>
+     *
+     * @return the pool checkout statistics
+     */
+    public List<CmsTimingStatistic> getCheckoutStatistics() {
+
+        List<CmsTimingStatistic> result = new ArrayList<CmsTimingStatistic>(m_checkouts.values());
+        Collections.sort(result, new Comparator<CmsTimingStatistic>() {
+
+            public int compare(CmsTimingStatistic first, CmsTimingStatistic second) {
+
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlStatistics#getExecutedStatements()
+     */
+    public long getExecutedStatements() {
+
+        return m_executedStatements.get();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlStatistics#getPoolCheckouts()
+     */
+    public String[] getPoolCheckouts() {
+
+        return toStrings(getCheckoutStatistics());
+    }
+
+    /**
+     * Returns the query statistics, ordered by the total execution time, the most expensive queries first.<p>
+     *
+     * @return the query statistics
+     */
+    public List<CmsTimingStatistic> getQueryStatistics() {
+
+        List<CmsTimingStatistic> result = new ArrayList<CmsTimingStatistic>(m_queries.values());
+        Collections.sort(result, new Comparator<CmsTimingStatistic>() {
+
+            public int compare(CmsTimingStatistic first, CmsTimingStatistic second) {
+
+                long firstTime = first.m_totalTime.get();
+                long secondTime = second.m_totalTime.get();
+                return firstTime > secondTime ? -1 : (firstTime == secondTime ? 0 : 1);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlStatistics#getQueryTimings()
+     */
+    public String[] getQueryTimings() {
+
+        return toStrings(getQueryStatistics());
+    }
+
+    /**
+     * Returns the slowest single statement executions, the slowest first.<p>
+     *
+     * @return the slowest single statement executions
+     */
+    public List<CmsSlowStatement> getSlowStatementList() {
+
+        List<CmsSlowStatement> result;
+        synchronized (m_slowStatements) {
+            result = new ArrayList<CmsSlowStatement>(m_slowStatements);
+        }
+        Collections.sort(result, Collections.reverseOrder(m_slowStatements.comparator()));
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlStatistics#getSlowStatements()
+     */
+    public String[] getSlowStatements() {
+
+        return toStrings(getSlowStatementList());
+    }
+
+    /**
+     * Records the time needed to check out a connection from a pool.<p>
+     *
+     * @param poolUrl the URL of the pool
+     * @param nanos the time in nanoseconds
+     */
+    public void recordCheckout(String poolUrl, long nanos) {
+
+        getStatistic(m_checkouts, poolUrl).record(nanos, false);
+    }
+
+    /**
+     * Records the execution of a statement.<p>
+     *
+     * @param queryKey the query key, or {@link #KEY_DYNAMIC_SQL}
+     * @param sql the SQL of the statement
+     * @param nanos the execution time in nanoseconds
+     * @param failed <code>true</code> if the execution failed
+     */
+    public void recordStatement(String queryKey, String sql, long nanos, boolean failed) {
+
+        m_executedStatements.incrementAndGet();
+        getStatistic(m_queries, queryKey).record(nanos, failed);
+        if (nanos <= m_slowThreshold) {
+            return;
+        }
+        synchronized (m_slowStatements) {
+            if ((m_slowStatements.size() >= m_maxSlowStatements)
+                && (nanos <= m_slowStatements.peek().m_duration)) {
+                return;
+            }
+            String shortSql = ((sql != null) && (sql.length() > MAX_SQL_LENGTH))
+            ? sql.substring(0, MAX_SQL_LENGTH)
+            : sql;
+            m_slowStatements.add(new CmsSlowStatement(queryKey, shortSql, nanos, System.currentTimeMillis()));
+            if (m_slowStatements.size() > m_maxSlowStatements) {
+                m_slowStatements.poll();
+            }
+            if (m_slowStatements.size() >= m_maxSlowStatements) {
+                m_slowThreshold = m_slowStatements.peek().m_duration;
+            }
+        }
+    }
+
+    /**
+     * Registers the statistics as JMX bean with the platform bean server.<p>
+     */
+    public synchronized void registerMBean() {
+
+        if (m_objectName != null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                // left over from a previous initialization in the same JVM
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, I_CmsSqlStatistics.class), objectName);
+            m_objectName = objectName;
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_SQL_STATISTICS_REGISTER_FAILED_1, OBJECT_NAME), e);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlStatistics#reset()
+     */
+    public void reset() {
+
+        m_queries.clear();
+        m_checkouts.clear();
+        m_executedStatements.set(0);
+        synchronized (m_slowStatements) {
+            m_slowStatements.clear();
+            m_slowThreshold = 0;
+        }
+    }
+
+    /**
+     * Removes the JMX bean of the statistics from the platform bean server.<p>
+     */
+    public synchronized void unregisterMBean() {
+
+        if (m_objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(m_objectName);
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_SQL_STATISTICS_REGISTER_FAILED_1, OBJECT_NAME), e);
+        }
+        m_objectName = null;
+    }
+
+    /**
+     * Wraps the given statement with a proxy that records the execution times of the statement.<p>
+     *
+     * @param statement the statement to wrap
+     * @param queryKey the query key, or <code>null</code> if the statement was not created from a query key
+     * @param sql the SQL of the statement
+     *
+     * @return the wrapped statement
+     */
+    public PreparedStatement wrap(PreparedStatement statement, String queryKey, String sql) {
+
+        String key = CmsStringUtil.isEmptyOrWhitespaceOnly(queryKey) ? KEY_DYNAMIC_SQL : queryKey;
+        return (PreparedStatement)Proxy.newProxyInstance(
+            CmsSqlStatistics.class.getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new CmsProfilingHandler(this, statement, key, sql));
+    }
+
+    /**
+     * Returns the statistic with the given name from the given map, creating it if necessary.<p>
+     *
+     * @param statistics the map of statistics
+     * @param name the name of the statistic
+     *
+     * @return the statistic
+     */
+    private CmsTimingStatistic getStatistic(ConcurrentHashMap<String, CmsTimingStatistic> statistics, String name) {
+
+        CmsTimingStatistic statistic = statistics.get(name);
+        if (statistic == null) {
+            statistic = new CmsTimingStatistic(name);
+            CmsTimingStatistic existing = statistics.putIfAbsent(name, statistic);
+            if (existing != null) {
+                statistic = existing;
+            }
+        }
+        return statistic;
+    }
+
+    /**
+     * Converts the given objects to strings.<p>
+     *
+     * @param objects the objects to convert
+     *
+     * @return the string representations of the objects
+     */
+    private String[] toStrings(List<?> objects) {
+
+        String[] result = new String[objects.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = objects.get(i).toString();
+        }
+        return result;
+    }
+}
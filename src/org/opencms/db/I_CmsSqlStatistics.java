@@ -0,0 +1,71 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+/**
+ * Management interface of the SQL statistics, used to publish the statistics as a JMX bean.<p>
+ *
+ * All statistics are returned as preformatted lines, so that they can be displayed by any JMX console.<p>
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsSqlStatistics {
+
+    /**
+     * Returns the total number of executed statements.<p>
+     *
+     * @return the total number of executed statements
+     */
+    long getExecutedStatements();
+
+    /**
+     * Returns the wait times for pool checkouts, one line per pool.<p>
+     *
+     * @return the wait times for pool checkouts
+     */
+    String[] getPoolCheckouts();
+
+    /**
+     * Returns the timings of the queries, one line per query key, ordered by the total execution time.<p>
+     *
+     * @return the timings of the queries
+     */
+    String[] getQueryTimings();
+
+    /**
+     * Returns the slowest single statement executions, the slowest first.<p>
+     *
+     * @return the slowest single statement executions
+     */
+    String[] getSlowStatements();
+
+    /**
+     * Resets all statistics.<p>
+     */
+    void reset();
+}
@@ -469,6 +469,26 @@ public interface I_CmsUserDriver extends I_CmsDriver {
         CmsUUID resource,
         CmsUUID principal) throws CmsDataAccessException;
 
+    /**
+     * Reads the access control entries of all child resources of a folder.<p>
+     *
+     * This reads the entries of all children with a single query, to avoid
+     * reading the entries of each child separately when a folder is listed.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param parent the parent folder
+     *
+     * @return a map from the resource ids of the children to their access control entries,
+     *      children without access control entries are not contained in the map
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsAccessControlEntry>> readChildAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource parent) throws CmsDataAccessException;
+
     /**
      * Reads all child groups of a group.<p>
      *
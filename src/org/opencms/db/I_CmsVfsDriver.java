@@ -432,6 +432,24 @@ public interface I_CmsVfsDriver {
     List<CmsAlias> readAliases(CmsDbContext dbc, CmsProject project, CmsAliasFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the property objects of all child resources of a folder.<p>
+     *
+     * This reads the properties of all children with a single query, the result for every child
+     * is the same as returned by {@link #readPropertyObjects(CmsDbContext, CmsProject, CmsResource)}.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param parent the parent folder
+     *
+     * @return a map from the structure ids of the children to their properties,
+     *      children without properties are not contained in the map
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource parent)
+    throws CmsDataAccessException;
+
     /**
      * Reads all child-files and/or child-folders of a specified parent resource.<p>
      *
@@ -846,6 +846,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_SHUTDOWN_1 = "INIT_SECURITY_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_SQL_STATISTICS_1 = "INIT_SQL_STATISTICS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WAIT_FOR_DB_4 = "INIT_WAIT_FOR_DB_4";
 
@@ -879,6 +882,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SQL_SLOW_STATEMENT_4 = "LOG_SQL_SLOW_STATEMENT_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SQL_STATISTICS_REGISTER_FAILED_1 = "LOG_SQL_STATISTICS_REGISTER_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SQL_TIMING_7 = "LOG_SQL_TIMING_7";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
@@ -426,6 +426,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsHistoryDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -1367,52 +1368,42 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
             m_sqlManager.closeAll(dbc, conn, stmt, null);
         }
 
-        try {
-            conn = m_sqlManager.getConnection(dbc);
-            for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
-
-                for (int i = 0; i < 2; i++) {
-                    int mappingType;
-                    String value;
-                    CmsUUID id;
-                    if (i == 0) {
-                        // write the structure value on the first cycle
-                        value = entry.getKey().getStructureValue();
-                        mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                        id = resource.getStructureId();
-                        if (CmsStringUtil.isEmpty(value)) {
-                            continue;
-                        }
-                    } else {
-                        // write the resource value on the second cycle
-                        value = entry.getKey().getResourceValue();
-                        mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                        id = resource.getResourceId();
-                        if (CmsStringUtil.isEmpty(value)) {
-                            break;
-                        }
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager);
+        for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
+
+            for (int i = 0; i < 2; i++) {
+                int mappingType;
+                String value;
+                CmsUUID id;
+                if (i == 0) {
+                    // write the structure value on the first cycle
+                    value = entry.getKey().getStructureValue();
+                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                    id = resource.getStructureId();
+                    if (CmsStringUtil.isEmpty(value)) {
+                        continue;
+                    }
+                } else {
+                    // write the resource value on the second cycle
+                    value = entry.getKey().getResourceValue();
+                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                    id = resource.getResourceId();
+                    if (CmsStringUtil.isEmpty(value)) {
+                        break;
                     }
-
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
-
-                    stmt.setString(1, resource.getStructureId().toString());
-                    stmt.setString(2, entry.getValue().getId().toString());
-                    stmt.setString(3, id.toString());
-                    stmt.setInt(4, mappingType);
-                    stmt.setString(5, m_sqlManager.validateEmpty(value));
-                    stmt.setInt(6, publishTag);
-
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
                 }
+
+                batch.add(
+                    "C_PROPERTIES_HISTORY_CREATE",
+                    resource.getStructureId().toString(),
+                    entry.getValue().getId().toString(),
+                    id.toString(),
+                    Integer.valueOf(mappingType),
+                    m_sqlManager.validateEmpty(value),
+                    Integer.valueOf(publishTag));
             }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
         }
+        batch.execute(dbc);
     }
 
     /**
@@ -0,0 +1,378 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishList;
+import org.opencms.db.I_CmsProjectDriver;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.report.CmsBufferedReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Publishes the files of a publish list on a bounded pool of worker threads.<p>
+ *
+ * The files are partitioned into batches which can be published independently of each other.
+ * All siblings of a resource, as well as all files with the same root path (e.g. a deleted file
+ * and a new file created at the same location), are always put in the same batch, and within a batch the
+ * files are published in the order of the publish list. Folders are not handled here, they
+ * are always published serially before and after the files.<p>
+ *
+ * Every worker thread uses its own database context, so the driver writes of different batches
+ * run on different database connections. The report output of each file is buffered and written
+ * to the publish report in one block, so the report stays readable.<p>
+ *
+ * As in the serial publish process, the first error aborts the publishing of the remaining files.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsParallelFilePublisher {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsParallelFilePublisher.class);
+
+    /** Flag to indicate that a worker has failed and the remaining files should not be published. */
+    private volatile boolean m_aborted;
+
+    /** The maximum number of files in a batch. */
+    private int m_batchSize;
+
+    /** The project driver used to publish the single files. */
+    private CmsProjectDriver m_driver;
+
+    /** The number of worker threads. */
+    private int m_workers;
+
+    /**
+     * Creates a new parallel file publisher.<p>
+     *
+     * @param driver the project driver used to publish the single files
+     * @param workers the number of worker threads
+     * @param batchSize the maximum number of files in a batch
+     */
+    public CmsParallelFilePublisher(CmsProjectDriver driver, int workers, int batchSize) {
+
+        m_driver = driver;
+        m_workers = Math.max(1, workers);
+        m_batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Partitions the given list of files into batches that can be published independently.<p>
+     *
+     * Files sharing the same resource id (siblings) or the same root path are always put
+     * in the same batch. The order of the files within a batch is the same as in the given list.
+     * A batch can contain more than <code>batchSize</code> files if there are more related files.<p>
+     *
+     * @param files the files to partition
+     * @param batchSize the maximum number of files in a batch
+     *
+     * @return the list of batches
+     */
+    public static List<List<CmsResource>> createBatches(List<CmsResource> files, int batchSize) {
+
+        int size = files.size();
+        int[] groups = new int[size];
+        Map<CmsUUID, Integer> resourceIds = new HashMap<CmsUUID, Integer>(size);
+        Map<String, Integer> rootPaths = new HashMap<String, Integer>(size);
+        for (int i = 0; i < size; i++) {
+            groups[i] = i;
+            CmsResource file = files.get(i);
+            Integer sibling = resourceIds.get(file.getResourceId());
+            if (sibling == null) {
+                resourceIds.put(file.getResourceId(), Integer.valueOf(i));
+            } else {
+                joinGroups(groups, sibling.intValue(), i);
+            }
+            Integer samePath = rootPaths.get(file.getRootPath());
+            if (samePath == null) {
+                rootPaths.put(file.getRootPath(), Integer.valueOf(i));
+            } else {
+                joinGroups(groups, samePath.intValue(), i);
+            }
+        }
+
+        // collect the groups, in the order of their first file
+        Map<Integer, List<CmsResource>> groupMap = new LinkedHashMap<Integer, List<CmsResource>>();
+        for (int i = 0; i < size; i++) {
+            Integer group = Integer.valueOf(findGroup(groups, i));
+            List<CmsResource> groupFiles = groupMap.get(group);
+            if (groupFiles == null) {
+                groupFiles = new ArrayList<CmsResource>(2);
+                groupMap.put(group, groupFiles);
+            }
+            groupFiles.add(files.get(i));
+        }
+
+        // fill the batches with complete groups
+        List<List<CmsResource>> batches = new ArrayList<List<CmsResource>>();
+        List<CmsResource> batch = new ArrayList<CmsResource>(batchSize);
+        for (List<CmsResource> groupFiles : groupMap.values()) {
+            if (!batch.isEmpty() && ((batch.size() + groupFiles.size()) > batchSize)) {
+                batches.add(batch);
+                batch = new ArrayList<CmsResource>(batchSize);
+            }
+            batch.addAll(groupFiles);
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Publishes all files of the given publish list.<p>
+     *
+     * @param dbc the current database context
+     * @param report the publish report
+     * @param projectDriver the project driver to bounce the publish tasks through
+     * @param onlineProject the online project
+     * @param publishList the publish list
+     * @param publishedContentIds the ids of the already published contents, must be thread safe
+     * @param publishedIds the ids of the already published resources, must be thread safe
+     * @param publishTag the publish tag
+     *
+     * @return the number of processed files
+     *
+     * @throws CmsException if publishing one of the files fails
+     */
+    public int publishFiles(
+        final CmsDbContext dbc,
+        final I_CmsReport report,
+        final I_CmsProjectDriver projectDriver,
+        final CmsProject onlineProject,
+        final CmsPublishList publishList,
+        final Set<CmsUUID> publishedContentIds,
+        final Set<CmsUUID> publishedIds,
+        final int publishTag) throws CmsException {
+
+        final List<CmsResource> files = publishList.getFileList();
+        final AtomicInteger counter = new AtomicInteger();
+        List<List<CmsResource>> batches = createBatches(files, m_batchSize);
+        int workers = Math.min(m_workers, batches.size());
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARALLEL_PUBLISH_START_3,
+                    String.valueOf(files.size()),
+                    String.valueOf(batches.size()),
+                    String.valueOf(workers)));
+        }
+
+        m_aborted = false;
+        ExecutorService executor = Executors.newFixedThreadPool(
+            workers,
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Publish worker %d").setDaemon(true).build());
+        List<Future<Void>> results = new ArrayList<Future<Void>>(batches.size());
+        Throwable error = null;
+        try {
+            for (final List<CmsResource> batch : batches) {
+                results.add(executor.submit(new Callable<Void>() {
+
+                    public Void call() throws Exception {
+
+                        publishBatch(
+                            dbc,
+                            report,
+                            projectDriver,
+                            onlineProject,
+                            publishList,
+                            batch,
+                            counter,
+                            files.size(),
+                            publishedContentIds,
+                            publishedIds,
+                            publishTag);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            m_aborted = true;
+            Thread.currentThread().interrupt();
+            error = e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (error instanceof CmsException) {
+            throw (CmsException)error;
+        } else if (error != null) {
+            dbc.throwException(Messages.get().container(Messages.ERR_PARALLEL_PUBLISH_INTERRUPTED_0), error);
+        }
+        return counter.get();
+    }
+
+    /**
+     * Publishes a batch of files in the current worker thread.<p>
+     *
+     * @param dbc the database context of the publish thread
+     * @param report the publish report
+     * @param projectDriver the project driver to bounce the publish tasks through
+     * @param onlineProject the online project
+     * @param publishList the publish list
+     * @param batch the files to publish
+     * @param counter the counter for the number of processed files
+     * @param n the total number of files
+     * @param publishedContentIds the ids of the already published contents
+     * @param publishedIds the ids of the already published resources
+     * @param publishTag the publish tag
+     *
+     * @throws CmsException if publishing one of the files fails
+     */
+    protected void publishBatch(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        I_CmsProjectDriver projectDriver,
+        CmsProject onlineProject,
+        CmsPublishList publishList,
+        List<CmsResource> batch,
+        AtomicInteger counter,
+        int n,
+        Set<CmsUUID> publishedContentIds,
+        Set<CmsUUID> publishedIds,
+        int publishTag) throws CmsException {
+
+        CmsDbContext workerDbc = new CmsDbContext(dbc.getRequestContext());
+        workerDbc.setProjectId(dbc.getProjectId());
+        workerDbc.setAttribute(
+            CmsDriverManager.KEY_CHANGED_AND_DELETED,
+            dbc.getAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED));
+        CmsSqlBatch publishHistory = new CmsSqlBatch(m_driver.getSqlManager());
+        workerDbc.setAttribute(CmsSqlBatch.ATTRIBUTE_PUBLISH_HISTORY, publishHistory);
+        CmsBufferedReport workerReport = new CmsBufferedReport(report);
+        boolean success = false;
+        try {
+            for (CmsResource file : batch) {
+                if (m_aborted) {
+                    break;
+                }
+                try {
+                    m_driver.publishFileAndResetState(
+                        workerDbc,
+                        workerReport,
+                        projectDriver,
+                        counter.incrementAndGet(),
+                        n,
+                        onlineProject,
+                        file,
+                        publishedContentIds,
+                        publishedIds,
+                        publishList.getPublishHistoryId(),
+                        publishTag);
+                } finally {
+                    workerReport.flush();
+                }
+            }
+            publishHistory.execute(workerDbc);
+            success = true;
+        } finally {
+            if (!success) {
+                // stop the other workers
+                m_aborted = true;
+            }
+            workerDbc.clear();
+        }
+    }
+
+    /**
+     * Returns the root index of the group the given index belongs to.<p>
+     *
+     * @param groups the group array
+     * @param index the index to look up
+     *
+     * @return the root index of the group
+     */
+    private static int findGroup(int[] groups, int index) {
+
+        int root = index;
+        while (groups[root] != root) {
+            root = groups[root];
+        }
+        // compress the path to speed up later lookups
+        int current = index;
+        while (groups[current] != root) {
+            int next = groups[current];
+            groups[current] = root;
+            current = next;
+        }
+        return root;
+    }
+
+    /**
+     * Joins the groups of the two given indexes.<p>
+     *
+     * The group with the lower root index becomes the root of the joined group,
+     * so the order of the groups is kept.<p>
+     *
+     * @param groups the group array
+     * @param first the first index
+     * @param second the second index
+     */
+    private static void joinGroups(int[] groups, int first, int second) {
+
+        int firstRoot = findGroup(groups, first);
+        int secondRoot = findGroup(groups, second);
+        if (firstRoot < secondRoot) {
+            groups[secondRoot] = firstRoot;
+        } else if (secondRoot < firstRoot) {
+            groups[firstRoot] = secondRoot;
+        }
+    }
+}
@@ -869,6 +869,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         String classname = configuration.get("db.project.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsProjectDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -1626,8 +1627,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFolderCount = 0;
         int deletedFolderCount = 0;
         int publishedFileCount = 0;
-        Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
-        Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        Set<CmsUUID> publishedContentIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
+        Set<CmsUUID> publishedIds = Collections.synchronizedSet(new HashSet<CmsUUID>());
+        CmsSqlBatch publishHistory = new CmsSqlBatch(m_sqlManager);
+        dbc.setAttribute(CmsSqlBatch.ATTRIBUTE_PUBLISH_HISTORY, publishHistory);
+        boolean finished = false;
 
         try {
 
@@ -1776,52 +1780,39 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             Set<CmsUUID> changedAndDeletedResourceIds = Sets.intersection(deletedResourceIds, changedResourceIds);
             dbc.setAttribute(CmsDriverManager.KEY_CHANGED_AND_DELETED, changedAndDeletedResourceIds);
 
-            Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
-            while (itFiles.hasNext()) {
-                CmsResource currentResource = itFiles.next();
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishFile(
+            int publishWorkers = OpenCms.getPublishManager().getPublishWorkers();
+            // parallel publishing requires a separate database context per worker thread,
+            // which is only possible for the default, non transactional database context
+            if ((publishWorkers > 1) && (filesSize > 1) && CmsDbContext.class.equals(dbc.getClass())) {
+                CmsParallelFilePublisher publisher = new CmsParallelFilePublisher(
+                    this,
+                    publishWorkers,
+                    OpenCms.getPublishManager().getPublishBatchSize());
+                publishedFileCount = publisher.publishFiles(
+                    dbc,
+                    report,
+                    projectDriver,
+                    onlineProject,
+                    publishList,
+                    publishedContentIds,
+                    publishedIds,
+                    publishTag);
+            } else {
+                Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
+                while (itFiles.hasNext()) {
+                    CmsResource currentResource = itFiles.next();
+                    publishFileAndResetState(
                         dbc,
                         report,
+                        projectDriver,
                         ++publishedFileCount,
                         filesSize,
                         onlineProject,
                         currentResource,
                         publishedContentIds,
+                        publishedIds,
                         publishList.getPublishHistoryId(),
                         publishTag);
-
-                    CmsResourceState state = currentResource.getState();
-                    if (!state.isDeleted()) {
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentResource);
-                    }
-
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentResource, true, true);
-                    // log it
-                    CmsLogEntryType type = state.isNew()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
-                    : (state.isDeleted()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
-                    : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
-                    m_driverManager.log(
-                        dbc,
-                        new CmsLogEntry(
-                            dbc,
-                            currentResource.getStructureId(),
-                            type,
-                            new String[] {currentResource.getRootPath()}),
-                        true);
-
-                    publishedIds.add(currentResource.getStructureId());
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
-                        t);
                 }
             }
 
@@ -1898,6 +1889,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     Messages.get().container(Messages.RPT_DELETE_FOLDERS_END_0),
                     I_CmsReport.FORMAT_HEADLINE);
             }
+            finished = true;
         } catch (OutOfMemoryError o) {
             // clear all caches to reclaim memory
             OpenCms.fireCmsEvent(
@@ -1909,19 +1901,34 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
-            // reset vfs driver internal info after publishing
-            m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
-            Object[] msgArgs = new Object[] {
-                String.valueOf(publishedFileCount),
-                String.valueOf(publishedFolderCount),
-                String.valueOf(deletedFolderCount),
-                report.formatRuntime()};
-
-            CmsMessageContainer message = Messages.get().container(Messages.RPT_PUBLISH_STAT_4, msgArgs);
-            if (LOG.isInfoEnabled()) {
-                LOG.info(message.key());
+            dbc.removeAttribute(CmsSqlBatch.ATTRIBUTE_PUBLISH_HISTORY);
+            try {
+                // write the remaining publish history entries
+                publishHistory.execute(dbc);
+            } catch (CmsDataAccessException e) {
+                CmsMessageContainer message = Messages.get().container(Messages.ERR_GENERIC_SQL_0);
+                if (finished) {
+                    dbc.report(report, message, e);
+                } else {
+                    // do not mask the exception that is already thrown
+                    report.println(message, I_CmsReport.FORMAT_ERROR);
+                    LOG.error(message.key(), e);
+                }
+            } finally {
+                // reset vfs driver internal info after publishing
+                m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
+                Object[] msgArgs = new Object[] {
+                    String.valueOf(publishedFileCount),
+                    String.valueOf(publishedFolderCount),
+                    String.valueOf(deletedFolderCount),
+                    report.formatRuntime()};
+
+                CmsMessageContainer message = Messages.get().container(Messages.RPT_PUBLISH_STAT_4, msgArgs);
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(message.key());
+                }
+                report.println(message);
             }
-            report.println(message);
         }
     }
 
@@ -2751,6 +2758,25 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException {
 
+        CmsSqlBatch batch = (CmsSqlBatch)dbc.getAttribute(CmsSqlBatch.ATTRIBUTE_PUBLISH_HISTORY);
+        if (batch != null) {
+            // the publish history is not read while publishing, so the entries are written in batches
+            batch.add(
+                "C_RESOURCES_WRITE_PUBLISH_HISTORY",
+                Integer.valueOf(resource.getPublishTag()),
+                resource.getStructureId().toString(),
+                resource.getResourceId().toString(),
+                resource.getRootPath(),
+                Integer.valueOf(resource.getMovedState().getState()),
+                Integer.valueOf(resource.getType()),
+                publishId.toString(),
+                Integer.valueOf(resource.getSiblingCount()));
+            if (batch.isFull()) {
+                batch.execute(dbc);
+            }
+            return;
+        }
+
         Connection conn = null;
         PreparedStatement stmt = null;
 
@@ -3697,6 +3723,85 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * Publishes a single file of a publish list, resets its state, unlocks it and writes the log entry.<p>
+     *
+     * This is called for every file of a publish list, either serially or by the publish worker threads
+     * of a {@link CmsParallelFilePublisher}.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param projectDriver the project driver to bounce the publish task through
+     * @param m the number of the file in the publish list
+     * @param n the number of files in the publish list
+     * @param onlineProject the online project
+     * @param offlineResource the file to publish
+     * @param publishedContentIds the ids of the already published contents
+     * @param publishedIds the ids of the already published resources
+     * @param publishHistoryId the publish history id
+     * @param publishTag the publish tag
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void publishFileAndResetState(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        I_CmsProjectDriver projectDriver,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource offlineResource,
+        Set<CmsUUID> publishedContentIds,
+        Set<CmsUUID> publishedIds,
+        CmsUUID publishHistoryId,
+        int publishTag) throws CmsException {
+
+        try {
+            // bounce the current publish task through all project drivers
+            projectDriver.publishFile(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                offlineResource,
+                publishedContentIds,
+                publishHistoryId,
+                publishTag);
+
+            CmsResourceState state = offlineResource.getState();
+            if (!state.isDeleted()) {
+                // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+                internalResetResourceState(dbc, offlineResource);
+            }
+
+            // unlock it
+            m_driverManager.unlockResource(dbc, offlineResource, true, true);
+            // log it
+            CmsLogEntryType type = state.isNew()
+            ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
+            : (state.isDeleted()
+            ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
+            : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+            m_driverManager.log(
+                dbc,
+                new CmsLogEntry(
+                    dbc,
+                    offlineResource.getStructureId(),
+                    type,
+                    new String[] {offlineResource.getRootPath()}),
+                true);
+
+            publishedIds.add(offlineResource.getStructureId());
+            dbc.pop();
+        } catch (Throwable t) {
+            dbc.report(
+                report,
+                Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, offlineResource.getRootPath()),
+                t);
+        }
+    }
+
     /**
      * Publishes a new file.<p>
      *
@@ -0,0 +1,254 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.db.I_CmsPreparedStatementParameter;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects write statements and executes them with JDBC batch updates.<p>
+ *
+ * The statements are grouped by their SQL query, every group is executed with
+ * {@link PreparedStatement#addBatch()} and {@link PreparedStatement#executeBatch()},
+ * in chunks of at most {@link CmsSqlManager#getMaxBatchSize()} rows. The groups are executed
+ * in the order their first statement was added, so statements must only be batched together
+ * if their relative order within different queries does not matter.<p>
+ *
+ * If the JDBC driver does not support batch updates, the statements are executed one by one
+ * on a single connection.<p>
+ *
+ * The parameters of a statement may be {@link String}, {@link Integer}, {@link Long} or
+ * {@link I_CmsPreparedStatementParameter} objects. This class is not thread safe.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsSqlBatch {
+
+    /** The database context attribute holding the batch for the publish history entries of a publish process. */
+    public static final String ATTRIBUTE_PUBLISH_HISTORY = "CmsSqlBatch.publishHistory";
+
+    /** The query keys by SQL query, used for the SQL statistics. */
+    private Map<String, String> m_queryKeys;
+
+    /** The parameters of the collected statements by SQL query. */
+    private Map<String, List<Object[]>> m_rows;
+
+    /** The number of collected statements. */
+    private int m_size;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Creates a new, empty batch.<p>
+     *
+     * @param sqlManager the SQL manager to read the queries from
+     */
+    public CmsSqlBatch(CmsSqlManager sqlManager) {
+
+        m_sqlManager = sqlManager;
+        m_rows = new LinkedHashMap<String, List<Object[]>>();
+        m_queryKeys = new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * Adds a statement for a query that depends on the project.<p>
+     *
+     * @param projectId the id of the project to read the query for
+     * @param queryKey the key of the SQL query
+     * @param params the parameters of the statement
+     */
+    public void add(CmsUUID projectId, String queryKey, Object... params) {
+
+        String sql = m_sqlManager.readQuery(projectId, queryKey);
+        List<Object[]> rows = m_rows.get(sql);
+        if (rows == null) {
+            rows = new ArrayList<Object[]>();
+            m_rows.put(sql, rows);
+            m_queryKeys.put(sql, queryKey);
+        }
+        rows.add(params);
+        m_size++;
+    }
+
+    /**
+     * Adds a statement for a query that does not depend on the project.<p>
+     *
+     * @param queryKey the key of the SQL query
+     * @param params the parameters of the statement
+     */
+    public void add(String queryKey, Object... params) {
+
+        add(CmsUUID.getNullUUID(), queryKey, params);
+    }
+
+    /**
+     * Executes all collected statements on a connection of the given database context and clears this batch.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @throws CmsDataAccessException if executing the statements fails
+     */
+    public void execute(CmsDbContext dbc) throws CmsDataAccessException {
+
+        if (isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            execute(dbc, conn);
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(Messages.ERR_GENERIC_SQL_0), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, null, null);
+        }
+    }
+
+    /**
+     * Executes all collected statements on the given connection and clears this batch.<p>
+     *
+     * The batch is cleared even if executing the statements fails.<p>
+     *
+     * @param dbc the current database context
+     * @param conn the connection to use
+     *
+     * @throws SQLException if executing the statements fails
+     */
+    public void execute(CmsDbContext dbc, Connection conn) throws SQLException {
+
+        try {
+            boolean batchSupported = m_sqlManager.isBatchSupported(conn);
+            int maxBatchSize = m_sqlManager.getMaxBatchSize();
+            for (Map.Entry<String, List<Object[]>> entry : m_rows.entrySet()) {
+                PreparedStatement stmt = null;
+                try {
+                    stmt = m_sqlManager.prepareStatement(conn, entry.getKey(), m_queryKeys.get(entry.getKey()));
+                    int pending = 0;
+                    for (Object[] params : entry.getValue()) {
+                        setParameters(stmt, params);
+                        if (!batchSupported) {
+                            stmt.executeUpdate();
+                            continue;
+                        }
+                        stmt.addBatch();
+                        pending++;
+                        if (pending >= maxBatchSize) {
+                            stmt.executeBatch();
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        stmt.executeBatch();
+                    }
+                } finally {
+                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                }
+            }
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if no statements have been collected.<p>
+     *
+     * @return <code>true</code> if no statements have been collected
+     */
+    public boolean isEmpty() {
+
+        return m_size == 0;
+    }
+
+    /**
+     * Returns <code>true</code> if the number of collected statements has reached the maximum batch size.<p>
+     *
+     * @return <code>true</code> if this batch should be executed
+     */
+    public boolean isFull() {
+
+        return m_size >= m_sqlManager.getMaxBatchSize();
+    }
+
+    /**
+     * Returns the number of collected statements.<p>
+     *
+     * @return the number of collected statements
+     */
+    public int size() {
+
+        return m_size;
+    }
+
+    /**
+     * Removes all collected statements.<p>
+     */
+    private void clear() {
+
+        m_rows.clear();
+        m_queryKeys.clear();
+        m_size = 0;
+    }
+
+    /**
+     * Sets the parameters of a statement.<p>
+     *
+     * @param stmt the statement
+     * @param params the parameters
+     *
+     * @throws SQLException if setting a parameter fails
+     */
+    private void setParameters(PreparedStatement stmt, Object[] params) throws SQLException {
+
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            if (param instanceof String) {
+                stmt.setString(i + 1, (String)param);
+            } else if (param instanceof Integer) {
+                stmt.setInt(i + 1, ((Integer)param).intValue());
+            } else if (param instanceof Long) {
+                stmt.setLong(i + 1, ((Long)param).longValue());
+            } else if (param instanceof I_CmsPreparedStatementParameter) {
+                ((I_CmsPreparedStatementParameter)param).insertIntoStatement(stmt, i + 1);
+            } else {
+                stmt.setObject(i + 1, param);
+            }
+        }
+    }
+}
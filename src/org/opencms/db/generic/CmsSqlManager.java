@@ -29,6 +29,7 @@ package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbPool;
+import org.opencms.db.CmsSqlStatistics;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
@@ -38,6 +39,7 @@ import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -57,6 +59,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
+    /** The default maximum number of statements sent to the database with one JDBC batch update. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
     /** A pattern being replaced in SQL queries to generate SQL queries to access online/offline tables. */
     protected static final String QUERY_PROJECT_SEARCH_PATTERN = "_${PROJECT}_";
 
@@ -66,6 +71,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** The filename/path of the SQL query properties. */
     private static final String QUERY_PROPERTIES = "org/opencms/db/generic/query.properties";
 
+    /** Indicates if the JDBC driver supports batch updates, <code>null</code> if not checked yet. */
+    protected volatile Boolean m_batchSupported;
+
     /** A map to cache queries with replaced search patterns. */
     protected ConcurrentHashMap<String, String> m_cachedQueries;
 
@@ -78,6 +86,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** A map holding all SQL queries. */
     protected Map<String, String> m_queries;
 
+    /** The SQL statistics, or <code>null</code> if disabled. */
+    protected CmsSqlStatistics m_statistics;
+
     /**
      * Creates a new, empty SQL manager.<p>
      */
@@ -222,7 +233,23 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
         // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
-        return getConnectionByUrl(m_poolUrl);
+        if (m_statistics == null) {
+            return getConnectionByUrl(m_poolUrl);
+        }
+        long start = System.nanoTime();
+        Connection con = getConnectionByUrl(m_poolUrl);
+        m_statistics.recordCheckout(m_poolUrl, System.nanoTime() - start);
+        return con;
+    }
+
+    /**
+     * Returns the maximum number of statements sent to the database with one JDBC batch update.<p>
+     *
+     * @return the maximum number of statements in one batch update
+     */
+    public int getMaxBatchSize() {
+
+        return DEFAULT_MAX_BATCH_SIZE;
     }
 
     /**
@@ -259,7 +286,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     throws SQLException {
 
         String rawSql = readQuery(projectId, queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return prepareStatement(con, rawSql, queryKey);
     }
 
     /**
@@ -273,7 +300,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public PreparedStatement getPreparedStatement(Connection con, String queryKey) throws SQLException {
 
         String rawSql = readQuery(CmsUUID.getNullUUID(), queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return prepareStatement(con, rawSql, queryKey);
     }
 
     /**
@@ -286,9 +313,17 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public PreparedStatement getPreparedStatementForSql(Connection con, String query) throws SQLException {
 
-        // unfortunately, this wrapper is essential, because some JDBC driver
-        // implementations don't accept the delegated objects of DBCP's connection pool.
-        return con.prepareStatement(query);
+        return prepareStatement(con, query, null);
+    }
+
+    /**
+     * Returns the SQL statistics.<p>
+     *
+     * @return the SQL statistics, or <code>null</code> if the statistics are disabled
+     */
+    public CmsSqlStatistics getStatistics() {
+
+        return m_statistics;
     }
 
     /**
@@ -308,6 +343,37 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Returns <code>true</code> if the JDBC driver supports batch updates.<p>
+     *
+     * The result is read from the meta data of the first connection checked.
+     * If the driver requires a parameter in the pool URL to send batch updates efficiently,
+     * and the parameter is missing, a hint is written to the log.<p>
+     *
+     * @param con the JDBC connection
+     *
+     * @return <code>true</code> if the JDBC driver supports batch updates
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public boolean isBatchSupported(Connection con) throws SQLException {
+
+        Boolean supported = m_batchSupported;
+        if (supported == null) {
+            DatabaseMetaData metaData = con.getMetaData();
+            supported = Boolean.valueOf(metaData.supportsBatchUpdates());
+            String parameter = getBatchUrlParameter();
+            if (supported.booleanValue() && (parameter != null) && LOG.isInfoEnabled()) {
+                String url = metaData.getURL();
+                if ((url != null) && !url.contains(parameter)) {
+                    LOG.info(Messages.get().getBundle().key(Messages.LOG_BATCH_URL_PARAMETER_1, parameter));
+                }
+            }
+            m_batchSupported = supported;
+        }
+        return supported.booleanValue();
+    }
+
     /**
      * Searches for the SQL query with the specified key and CmsProject.<p>
      *
@@ -414,6 +480,16 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
     }
 
+    /**
+     * Sets the SQL statistics used to record the execution times of the statements.<p>
+     *
+     * @param statistics the SQL statistics, or <code>null</code> to disable the statistics
+     */
+    public void setStatistics(CmsSqlStatistics statistics) {
+
+        m_statistics = statistics;
+    }
+
     /**
      * Replaces null or empty Strings with a String with one space character <code>" "</code>.<p>
      *
@@ -429,6 +505,16 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return " ";
     }
 
+    /**
+     * Returns the parameter of the JDBC pool URL that is required to send batch updates efficiently.<p>
+     *
+     * @return the URL parameter, or <code>null</code> if the JDBC driver requires no parameter
+     */
+    protected String getBatchUrlParameter() {
+
+        return null;
+    }
+
     /**
      * Loads a Java properties hash containing SQL queries.<p>
      *
@@ -453,6 +539,28 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
     }
 
+    /**
+     * Creates a prepared statement for the given query, wrapped for the SQL statistics if they are enabled.<p>
+     *
+     * @param con the JDBC connection
+     * @param query the SQL query
+     * @param queryKey the key of the SQL query, or <code>null</code> if the query was not read from the query properties
+     *
+     * @return PreparedStatement a new PreparedStatement containing the pre-compiled SQL statement
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    protected PreparedStatement prepareStatement(Connection con, String query, String queryKey) throws SQLException {
+
+        // unfortunately, this wrapper is essential, because some JDBC driver
+        // implementations don't accept the delegated objects of DBCP's connection pool.
+        PreparedStatement statement = con.prepareStatement(query);
+        if (m_statistics != null) {
+            statement = m_statistics.wrap(statement, queryKey, query);
+        }
+        return statement;
+    }
+
     /**
      * Replaces patterns ${XXX} by another property value, if XXX is a property key with a value.<p>
      */
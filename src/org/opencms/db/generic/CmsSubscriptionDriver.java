@@ -166,6 +166,7 @@ public class CmsSubscriptionDriver implements I_CmsDriver, I_CmsSubscriptionDriv
         String classname = config.get("db.subscription.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsSubscriptionDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -972,6 +972,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
         String classname = config.get("db.user.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsUserDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -1053,9 +1054,26 @@ public class CmsUserDriver implements I_CmsUserDriver {
             false);
         dbc.setProjectId(dbcProjectId);
 
+        if (!offlineId.equals(onlineId)) {
+            for (CmsAccessControlEntry ace : aces) {
+                m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
+            }
+            return;
+        }
+
+        // all online entries of the resource have been removed, so the entries can be inserted in one batch
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager);
         for (CmsAccessControlEntry ace : aces) {
-            m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
+            batch.add(
+                onlineProject.getUuid(),
+                "C_ACCESS_CREATE_5",
+                ace.getResource().toString(),
+                ace.getPrincipal().toString(),
+                Integer.valueOf(ace.getAllowedPermissions()),
+                Integer.valueOf(ace.getDeniedPermissions()),
+                Integer.valueOf(ace.getFlags()));
         }
+        batch.execute(dbc);
     }
 
     /**
@@ -1152,6 +1170,44 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#readChildAccessControlEntries(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
+     */
+    public Map<CmsUUID, List<CmsAccessControlEntry>> readChildAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource parent) throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsAccessControlEntry>> result = new HashMap<CmsUUID, List<CmsAccessControlEntry>>();
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_READ_ENTRIES_FOR_CHILDREN");
+            stmt.setString(1, parent.getStructureId().toString());
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                CmsAccessControlEntry ace = internalCreateAce(res);
+                List<CmsAccessControlEntry> aceList = result.get(ace.getResource());
+                if (aceList == null) {
+                    aceList = new ArrayList<CmsAccessControlEntry>();
+                    result.put(ace.getResource(), aceList);
+                }
+                aceList.add(ace);
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#readChildGroups(org.opencms.db.CmsDbContext, java.lang.String)
      */
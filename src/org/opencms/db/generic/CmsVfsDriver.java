@@ -120,7 +120,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
      *
      * @see #publishVersions(CmsDbContext, CmsResource, boolean)
      */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
+    protected List<CmsUUID> m_resOp = Collections.synchronizedList(new ArrayList<CmsUUID>());
 
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
@@ -1330,6 +1330,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         String classname = configuration.get("db.vfs.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsVfsDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -1758,6 +1759,83 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readChildPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource parent) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        // the property maps of the children, by structure id
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READALL_FOR_CHILDREN");
+            String parentId = parent.getStructureId().toString();
+            stmt.setString(1, parentId);
+            stmt.setString(2, parentId);
+            res = stmt.executeQuery();
+
+            while (res.next()) {
+                CmsUUID structureId = new CmsUUID(res.getString(1));
+                String rootPath = res.getString(2);
+                String propertyKey = res.getString(3);
+                String propertyValue = res.getString(4);
+                int mappingType = res.getInt(5);
+
+                Map<String, CmsProperty> propertyMap = propertyMaps.get(structureId);
+                if (propertyMap == null) {
+                    propertyMap = new HashMap<String, CmsProperty>();
+                    propertyMaps.put(structureId, propertyMap);
+                }
+                CmsProperty property = propertyMap.get(propertyKey);
+                if (property == null) {
+                    // there doesn't exist a property object for this key yet
+                    property = new CmsProperty();
+                    property.setName(propertyKey);
+                    propertyMap.put(propertyKey, property);
+                }
+
+                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                    // this property value is mapped to a structure record
+                    property.setStructureValue(propertyValue);
+                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                    // this property value is mapped to a resource record
+                    property.setResourceValue(propertyValue);
+                } else {
+                    throw new CmsDbConsistencyException(
+                        Messages.get().container(
+                            Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                            rootPath,
+                            new Integer(mappingType),
+                            propertyKey));
+                }
+                property.setOrigin(rootPath);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(propertyMaps.size());
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean)
      */
@@ -3191,147 +3269,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ? project.getUuid()
         : dbc.getProjectId();
 
-        // TODO: check if we need autocreation for link property definition types too
-        CmsPropertyDefinition propertyDefinition = null;
-        try {
-            // read the property definition
-            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
-        } catch (CmsDbEntryNotFoundException e) {
-            if (property.autoCreatePropertyDefinition()) {
-                propertyDefinition = createPropertyDefinition(
-                    dbc,
-                    projectId,
-                    property.getName(),
-                    CmsPropertyDefinition.TYPE_NORMAL);
-                try {
-                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
-                } catch (CmsDataAccessException e1) {
-                    createPropertyDefinition(
-                        dbc,
-                        CmsProject.ONLINE_PROJECT_ID,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                try {
-                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
-                } catch (CmsDataAccessException e1) {
-                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
-                        dbc,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                OpenCms.fireCmsEvent(
-                    new CmsEvent(
-                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
-                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
-
-            } else {
-                throw new CmsDbEntryNotFoundException(
-                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
-            }
-        }
-
-        PreparedStatement stmt = null;
-        Connection conn = null;
-
-        try {
-            // read the existing property to test if we need the
-            // insert or update query to write a property value
-            CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
-
-            if (existingProperty.isIdentical(property)) {
-                // property already has the identical values set, no write required
-                return;
-            }
-
-            conn = m_sqlManager.getConnection(dbc);
-
-            for (int i = 0; i < 2; i++) {
-                int mappingType = -1;
-                String value = null;
-                CmsUUID id = null;
-                boolean existsPropertyValue = false;
-                boolean deletePropertyValue = false;
-
-                // 1) take any required decisions to choose and fill the correct SQL query
-
-                if (i == 0) {
-                    // write/delete the *structure value* on the first cycle
-                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getStructureValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no structure value set or the structure value is an empty string,
-                            // continue with the resource value
-                            continue;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                    id = resource.getStructureId();
-                    existsPropertyValue = existingProperty.getStructureValue() != null;
-                } else {
-                    // write/delete the *resource value* on the second cycle
-                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getResourceValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no resource value set or the resource value is an empty string,
-                            // break out of the loop
-                            break;
-                        }
-                    }
+        CmsPropertyDefinition propertyDefinition = internalReadOrCreatePropertyDefinition(dbc, projectId, property);
 
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                    id = resource.getResourceId();
-                    existsPropertyValue = existingProperty.getResourceValue() != null;
-                }
+        // read the existing property to test if we need the
+        // insert or update query to write a property value
+        CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
 
-                // 2) execute the SQL query
-                try {
-                    if (!deletePropertyValue) {
-                        // insert/update the property value
-                        if (existsPropertyValue) {
-                            // {structure|resource} property value already exists- use update statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_UPDATE");
-                            stmt.setString(1, m_sqlManager.validateEmpty(value));
-                            stmt.setString(2, id.toString());
-                            stmt.setInt(3, mappingType);
-                            stmt.setString(4, propertyDefinition.getId().toString());
-                        } else {
-                            // {structure|resource} property value doesn't exist- use create statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_CREATE");
-                            stmt.setString(1, new CmsUUID().toString());
-                            stmt.setString(2, propertyDefinition.getId().toString());
-                            stmt.setString(3, id.toString());
-                            stmt.setInt(4, mappingType);
-                            stmt.setString(5, m_sqlManager.validateEmpty(value));
-                        }
-                    } else {
-                        // {structure|resource} property value marked as deleted- use delete statement
-                        stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_DELETE");
-                        stmt.setString(1, propertyDefinition.getId().toString());
-                        stmt.setString(2, id.toString());
-                        stmt.setInt(3, mappingType);
-                    }
-                    stmt.executeUpdate();
-                } finally {
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
-                }
-            }
-        } catch (SQLException e) {
-            throw new CmsDbSqlException(
-                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
-                e);
-        } finally {
-            m_sqlManager.closeAll(dbc, conn, stmt, null);
-        }
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager);
+        internalAddPropertyValues(batch, projectId, resource, propertyDefinition, existingProperty, property);
+        batch.execute(dbc);
     }
 
     /**
@@ -3343,12 +3289,46 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsResource resource,
         List<CmsProperty> properties) throws CmsDataAccessException {
 
-        CmsProperty property = null;
+        if (properties.size() < 2) {
+            for (CmsProperty property : properties) {
+                writePropertyObject(dbc, project, resource, property);
+            }
+            return;
+        }
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
 
-        for (int i = 0; i < properties.size(); i++) {
-            property = properties.get(i);
-            writePropertyObject(dbc, project, resource, property);
+        // read all existing properties at once instead of one query per property
+        Map<String, CmsProperty> existingProperties = new HashMap<String, CmsProperty>();
+        for (CmsProperty existingProperty : readPropertyObjects(dbc, project, resource)) {
+            existingProperties.put(existingProperty.getName(), existingProperty);
         }
+
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager);
+        Set<String> batchedNames = new HashSet<String>();
+        for (CmsProperty property : properties) {
+            CmsPropertyDefinition propertyDefinition = internalReadOrCreatePropertyDefinition(
+                dbc,
+                projectId,
+                property);
+            CmsProperty existingProperty;
+            if (batchedNames.add(propertyDefinition.getName())) {
+                existingProperty = existingProperties.get(propertyDefinition.getName());
+                if (existingProperty == null) {
+                    existingProperty = CmsProperty.getNullProperty();
+                }
+            } else {
+                // the same property is written twice, so the values written before must be visible
+                batch.execute(dbc);
+                batchedNames.clear();
+                batchedNames.add(propertyDefinition.getName());
+                existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+            }
+            internalAddPropertyValues(batch, projectId, resource, propertyDefinition, existingProperty, property);
+        }
+        batch.execute(dbc);
     }
 
     /**
@@ -3616,6 +3596,113 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Adds the statements required to write the values of a property to the given batch.<p>
+     *
+     * Nothing is added if the existing property already has identical values.<p>
+     *
+     * @param batch the batch to add the statements to
+     * @param projectId the id of the project to write the property values in
+     * @param resource the resource to write the property values for
+     * @param propertyDefinition the definition of the property
+     * @param existingProperty the existing property, or the null property if the property is not set
+     * @param property the property to write
+     */
+    protected void internalAddPropertyValues(
+        CmsSqlBatch batch,
+        CmsUUID projectId,
+        CmsResource resource,
+        CmsPropertyDefinition propertyDefinition,
+        CmsProperty existingProperty,
+        CmsProperty property) {
+
+        if (existingProperty.isIdentical(property)) {
+            // property already has the identical values set, no write required
+            return;
+        }
+
+        for (int i = 0; i < 2; i++) {
+            int mappingType = -1;
+            String value = null;
+            CmsUUID id = null;
+            boolean existsPropertyValue = false;
+            boolean deletePropertyValue = false;
+
+            // 1) take any required decisions to choose and fill the correct SQL query
+
+            if (i == 0) {
+                // write/delete the *structure value* on the first cycle
+                if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
+                    // this property value is marked to be deleted
+                    deletePropertyValue = true;
+                } else {
+                    value = property.getStructureValue();
+                    if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                        // no structure value set or the structure value is an empty string,
+                        // continue with the resource value
+                        continue;
+                    }
+                }
+
+                // set the vars to be written to the database
+                mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                id = resource.getStructureId();
+                existsPropertyValue = existingProperty.getStructureValue() != null;
+            } else {
+                // write/delete the *resource value* on the second cycle
+                if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
+                    // this property value is marked to be deleted
+                    deletePropertyValue = true;
+                } else {
+                    value = property.getResourceValue();
+                    if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                        // no resource value set or the resource value is an empty string,
+                        // break out of the loop
+                        break;
+                    }
+                }
+
+                // set the vars to be written to the database
+                mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                id = resource.getResourceId();
+                existsPropertyValue = existingProperty.getResourceValue() != null;
+            }
+
+            // 2) add the SQL statement
+            if (!deletePropertyValue) {
+                // insert/update the property value
+                if (existsPropertyValue) {
+                    // {structure|resource} property value already exists- use update statement
+                    batch.add(
+                        projectId,
+                        "C_PROPERTIES_UPDATE",
+                        m_sqlManager.validateEmpty(value),
+                        id.toString(),
+                        Integer.valueOf(mappingType),
+                        propertyDefinition.getId().toString());
+                } else {
+                    // {structure|resource} property value doesn't exist- use create statement
+                    batch.add(
+                        projectId,
+                        "C_PROPERTIES_CREATE",
+                        new CmsUUID().toString(),
+                        propertyDefinition.getId().toString(),
+                        id.toString(),
+                        Integer.valueOf(mappingType),
+                        m_sqlManager.validateEmpty(value));
+                }
+            } else {
+                // {structure|resource} property value marked as deleted- use delete statement
+                batch.add(
+                    projectId,
+                    "C_PROPERTIES_DELETE",
+                    propertyDefinition.getId().toString(),
+                    id.toString(),
+                    Integer.valueOf(mappingType));
+            }
+        }
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
@@ -3783,6 +3870,65 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Reads the definition of the given property, creating it if it does not exist and the property
+     * allows to create its definition automatically.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read the property definition in
+     * @param property the property to read the definition for
+     *
+     * @return the property definition
+     *
+     * @throws CmsDataAccessException if the property definition does not exist and can not be created
+     */
+    protected CmsPropertyDefinition internalReadOrCreatePropertyDefinition(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        CmsProperty property) throws CmsDataAccessException {
+
+        // TODO: check if we need autocreation for link property definition types too
+        CmsPropertyDefinition propertyDefinition = null;
+        try {
+            // read the property definition
+            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
+        } catch (CmsDbEntryNotFoundException e) {
+            if (property.autoCreatePropertyDefinition()) {
+                propertyDefinition = createPropertyDefinition(
+                    dbc,
+                    projectId,
+                    property.getName(),
+                    CmsPropertyDefinition.TYPE_NORMAL);
+                try {
+                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
+                } catch (CmsDataAccessException e1) {
+                    createPropertyDefinition(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                try {
+                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
+                } catch (CmsDataAccessException e1) {
+                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
+                        dbc,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                OpenCms.fireCmsEvent(
+                    new CmsEvent(
+                        I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+                        Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+
+            } else {
+                throw new CmsDbEntryNotFoundException(
+                    Messages.get().container(Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1, property.getName()));
+            }
+        }
+        return propertyDefinition;
+    }
+
     /**
      * Returns the parent id of the given resource.<p>
      *
@@ -157,6 +157,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PARENT_FOLDER_DELETED_1 = "ERR_PARENT_FOLDER_DELETED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PARALLEL_PUBLISH_INTERRUPTED_0 = "ERR_PARALLEL_PUBLISH_INTERRUPTED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PATH_NOT_IN_PARENT_ORGUNIT_SCOPE_2 = "ERR_PATH_NOT_IN_PARENT_ORGUNIT_SCOPE_2";
 
@@ -322,6 +325,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SYSTEM_ROLES_CREATION_FAILED_0 = "INIT_SYSTEM_ROLES_CREATION_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_BATCH_URL_PARAMETER_1 = "LOG_BATCH_URL_PARAMETER_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CREATE_RELATION_2 = "LOG_CREATE_RELATION_2";
 
@@ -397,6 +403,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REMOVING_ACL_1 = "LOG_REMOVING_ACL_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PARALLEL_PUBLISH_START_3 = "LOG_PARALLEL_PUBLISH_START_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REMOVING_RELATIONS_1 = "LOG_REMOVING_RELATIONS_1";
 
@@ -134,6 +134,9 @@ public class CmsUserDriver implements I_CmsUserDriver {
     /** Query key. */
     private static final String C_ACCESS_READ_ENTRIES_1 = "C_ACCESS_READ_ENTRIES_1";
 
+    /** Query key. */
+    private static final String C_ACCESS_READ_ENTRIES_FOR_CHILDREN = "C_ACCESS_READ_ENTRIES_FOR_CHILDREN";
+
     /** Query key. */
     private static final String C_ACCESS_READ_ENTRY_2 = "C_ACCESS_READ_ENTRY_2";
 
@@ -1187,6 +1190,35 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#readChildAccessControlEntries(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
+     */
+    public Map<CmsUUID, List<CmsAccessControlEntry>> readChildAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource parent) throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsAccessControlEntry>> result = new HashMap<CmsUUID, List<CmsAccessControlEntry>>();
+        try {
+            Query q = m_sqlManager.createQuery(dbc, project, C_ACCESS_READ_ENTRIES_FOR_CHILDREN);
+            q.setParameter(1, parent.getStructureId().toString());
+            @SuppressWarnings("unchecked")
+            List<I_CmsDAOAccessControl> res = q.getResultList();
+            for (I_CmsDAOAccessControl ac : res) {
+                CmsAccessControlEntry ace = internalCreateAce(ac);
+                List<CmsAccessControlEntry> aceList = result.get(ace.getResource());
+                if (aceList == null) {
+                    aceList = new ArrayList<CmsAccessControlEntry>();
+                    result.put(ace.getResource(), aceList);
+                }
+                aceList.add(ace);
+            }
+            return result;
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#readChildGroups(org.opencms.db.CmsDbContext, java.lang.String)
      */
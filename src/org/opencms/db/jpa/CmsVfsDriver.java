@@ -175,6 +175,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_PROPERTIES_READALL = "C_PROPERTIES_READALL";
 
+    /** Query key. */
+    private static final String C_PROPERTIES_READALL_FOR_CHILDREN = "C_PROPERTIES_READALL_FOR_CHILDREN";
+
     /** Query key. */
     private static final String C_PROPERTIES_READALL_COUNT = "C_PROPERTIES_READALL_COUNT";
 
@@ -1901,6 +1904,74 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readChildPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readChildPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource parent) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // the property maps of the children, by structure id
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+        try {
+            Query q = m_sqlManager.createQuery(dbc, projectId, C_PROPERTIES_READALL_FOR_CHILDREN);
+            q.setParameter(1, parent.getStructureId().toString());
+            @SuppressWarnings("unchecked")
+            List<Object[]> res = q.getResultList();
+
+            for (Object[] o : res) {
+                I_CmsDAOStructure structure = (I_CmsDAOStructure)o[0];
+                CmsUUID structureId = new CmsUUID(structure.getStructureId());
+                String rootPath = structure.getResourcePath();
+                String propertyKey = ((I_CmsDAOPropertyDef)o[1]).getPropertyDefName();
+                String propertyValue = ((I_CmsDAOProperties)o[2]).getPropertyValue();
+                int mappingType = ((I_CmsDAOProperties)o[2]).getPropertyMappingType();
+
+                Map<String, CmsProperty> propertyMap = propertyMaps.get(structureId);
+                if (propertyMap == null) {
+                    propertyMap = new HashMap<String, CmsProperty>();
+                    propertyMaps.put(structureId, propertyMap);
+                }
+                CmsProperty property = propertyMap.get(propertyKey);
+                if (property == null) {
+                    // there doesn't exist a property object for this key yet
+                    property = new CmsProperty();
+                    property.setName(propertyKey);
+                    propertyMap.put(propertyKey, property);
+                }
+
+                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                    // this property value is mapped to a structure record
+                    property.setStructureValue(propertyValue);
+                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                    // this property value is mapped to a resource record
+                    property.setResourceValue(propertyValue);
+                } else {
+                    throw new CmsDbConsistencyException(
+                        Messages.get().container(
+                            Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                            rootPath,
+                            new Integer(mappingType),
+                            propertyKey));
+                }
+                property.setOrigin(rootPath);
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>(propertyMaps.size());
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean)
      */
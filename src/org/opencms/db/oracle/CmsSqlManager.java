@@ -49,6 +49,9 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.oracle.CmsSqlManager.class);
 
+    /** The maximum number of statements in one batch update, larger batches do not improve the Oracle JDBC driver. */
+    private static final int MAX_BATCH_SIZE = 100;
+
     /** The filename/path of the SQL query properties. */
     private static final String QUERY_PROPERTIES = "org/opencms/db/oracle/query.properties";
 
@@ -149,4 +152,13 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
         Blob blob = res.getBlob(attributeName);
         return blob.getBytes(1, (int)blob.length());
     }
+
+    /**
+     * @see org.opencms.db.generic.CmsSqlManager#getMaxBatchSize()
+     */
+    @Override
+    public int getMaxBatchSize() {
+
+        return MAX_BATCH_SIZE;
+    }
 }
\ No newline at end of file
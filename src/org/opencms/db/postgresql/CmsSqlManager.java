@@ -34,6 +34,9 @@ package org.opencms.db.postgresql;
  */
 public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
 
+    /** The pool URL parameter required to send batch updates efficiently. */
+    private static final String BATCH_URL_PARAMETER = "reWriteBatchedInserts=true";
+
     /** The filename/path of the SQL query properties. */
     private static final String QUERY_PROPERTIES = "org/opencms/db/postgresql/query.properties";
 
@@ -46,4 +49,14 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
         loadQueryProperties(QUERY_PROPERTIES);
     }
 
+    /**
+     * The PostgreSQL JDBC driver only rewrites batched inserts to multi-row statements with this parameter.<p>
+     *
+     * @see org.opencms.db.generic.CmsSqlManager#getBatchUrlParameter()
+     */
+    @Override
+    protected String getBatchUrlParameter() {
+
+        return BATCH_URL_PARAMETER;
+    }
 }
\ No newline at end of file
@@ -1773,6 +1773,29 @@ public final class CmsObject {
         return m_securityManager.readChildResources(m_context, resource, filter, true, true);
     }
 
+    /**
+     * Returns all child resources of a resource, that is the resources
+     * contained in a folder, and reads the properties of all child resources in advance.<p>
+     *
+     * The result is the same as returned by {@link #getResourcesInFolder(String, CmsResourceFilter)},
+     * but the properties of all children are read at once, so that reading the properties of
+     * the returned resources with {@link #readPropertyObjects(CmsResource, boolean)} is served
+     * from the cache.<p>
+     *
+     * @param resourcename the full current site relative path of the resource to return the child resources for
+     * @param filter the resource filter to use
+     *
+     * @return a list of all child <code>{@link CmsResource}</code>s
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> getResourcesInFolderWithProperties(String resourcename, CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsResource resource = readResource(resourcename, CmsResourceFilter.ALL);
+        return m_securityManager.readChildResourcesWithProperties(m_context, resource, filter, true, true);
+    }
+
     /**
      * Adjusts the absolute resource root path for the current site.<p>
      *
@@ -27,24 +27,34 @@
 
 package org.opencms.flex;
 
+import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.cache.CmsConcurrentCacheMap;
 import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.I_CmsCacheRemovalListener;
 import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
 import org.opencms.loader.CmsJspLoader;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
@@ -89,6 +99,15 @@ import org.apache.commons.logging.Log;
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT}
  * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
  *
+ * If dependency tracking is enabled in the configuration, every entry records the VFS resources
+ * that were read while it was generated (see {@link CmsFlexCacheDependencies}). In this case a publish
+ * event only removes the online entries that depend on one of the published resources.<p>
+ *
+ * With the "concurrent" cache engine, the resource keys are stored in a {@link CmsConcurrentCacheMap}
+ * with approximate LRU eviction, and the variations in concurrent maps, so that a cache hit
+ * does not acquire any global lock. Adding and removing entries still uses the synchronized
+ * {@link CmsLruCache} to organize the entries by their size.<p>
+ *
  * @since 6.0.0
  *
  * @see org.opencms.flex.CmsFlexCacheKey
@@ -116,8 +135,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
          */
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
+            this(theKey, new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS));
+        }
+
+        /**
+         * Generates a new instance of CmsFlexCacheVariation using the given variation map.<p>
+         *
+         * @param theKey The (resource) key to contruct this variation list for
+         * @param theMap the map used to store the variations
+         */
+        public CmsFlexCacheVariation(CmsFlexCacheKey theKey, Map<String, I_CmsLruCacheObject> theMap) {
+
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_map = theMap;
         }
     }
 
@@ -152,27 +182,32 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         @Override
         protected boolean removeLRU(LinkEntry entry) {
 
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-            Collection<I_CmsLruCacheObject> entries = m.values();
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
+            releaseVariation((CmsFlexCacheVariation)entry.getValue());
             return true;
         }
     }
 
+    /**
+     * Removal listener for the concurrent key map that handles the variations in case a key is evicted.<p>
+     */
+    class CmsFlexKeyRemovalListener implements I_CmsCacheRemovalListener<String, CmsFlexCacheVariation> {
+
+        /**
+         * Ensures that all variations that referenced by this key are released
+         * if the key is evicted.<p>
+         *
+         * Keys removed explicitly are ignored, in this case the entries are handled by the caller.<p>
+         *
+         * @see org.opencms.cache.I_CmsCacheRemovalListener#onRemoval(java.lang.Object, java.lang.Object, boolean)
+         */
+        public void onRemoval(String key, CmsFlexCacheVariation value, boolean evicted) {
+
+            if (evicted) {
+                releaseVariation(value);
+            }
+        }
+    }
+
     /** Suffix to append to online cache entries. */
     public static final String CACHE_OFFLINESUFFIX = " [offline]";
 
@@ -218,6 +253,12 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** Indicates if the concurrent cache engine is used. */
+    private boolean m_concurrent;
+
+    /** Indicates if the resources each entry depends on are recorded. */
+    private boolean m_dependencyTracking;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
@@ -242,6 +283,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         m_enabled = configuration.isCacheEnabled();
         m_cacheOffline = configuration.isCacheOffline();
+        m_dependencyTracking = m_enabled && configuration.isDependencyTracking();
+        m_concurrent = configuration.isConcurrentCacheEngine();
 
         long maxCacheBytes = configuration.getMaxCacheBytes();
         long avgCacheBytes = configuration.getAvgCacheBytes();
@@ -249,13 +292,30 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxKeys = configuration.getMaxKeys();
 
         m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
-        OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
+        // the memory monitor is not available if the cache is used outside of a running OpenCms, e.g. in benchmarks
+        CmsMemoryMonitor memoryMonitor = OpenCms.getMemoryMonitor();
+        if (memoryMonitor != null) {
+            memoryMonitor.register(getClass().getName() + ".m_entryLruCache", m_variationCache);
+        }
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            Object keyMap;
+            if (m_concurrent) {
+                m_keyCache = new CmsConcurrentCacheMap<String, CmsFlexCacheVariation>(
+                    maxKeys,
+                    0,
+                    CmsConcurrentCacheMap.DEFAULT_CONCURRENCY_LEVEL,
+                    new CmsFlexKeyRemovalListener());
+                keyMap = m_keyCache;
+            } else {
+                CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
+                m_keyCache = Collections.synchronizedMap(
+                    CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
+                keyMap = flexKeyMap;
+            }
+            if (memoryMonitor != null) {
+                memoryMonitor.register(getClass().getName() + ".m_resourceMap", keyMap);
+            }
 
             OpenCms.addCmsEventListener(
                 this,
@@ -299,11 +359,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
-            case I_CmsEventListener.EVENT_CLEAR_CACHES:
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
+                if (m_dependencyTracking) {
+                    clearAfterPublish(event);
+                } else {
+                    clearAfterEvent();
                 }
-                clear();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clearAfterEvent();
                 break;
             case I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY:
                 if (LOG.isDebugEnabled()) {
@@ -440,6 +503,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_variationCache;
     }
 
+    /**
+     * Indicates if the cache records the resources each entry depends on.<p>
+     *
+     * @return true if dependency tracking is enabled, false if not
+     */
+    public boolean isDependencyTracking() {
+
+        return m_dependencyTracking;
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -490,33 +563,47 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             // cache is disabled
             return null;
         }
-        Object o = m_keyCache.get(key.getResource());
-        if (o != null) {
-            // found a matching key in the cache
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)o;
-            String variation = v.m_key.matchRequestKey(key);
+        CmsFlexCacheVariation v = m_keyCache.get(key.getResource());
+        if (v != null) {
+            // found a matching key in the cache, the key is null if the variation has been released concurrently
+            CmsFlexCacheKey cacheKey = v.m_key;
+            String variation = (cacheKey != null) ? cacheKey.matchRequestKey(key) : null;
 
             if (CmsStringUtil.isEmpty(variation)) {
                 // requested resource is not cacheable
                 return null;
             }
-            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
-            if (entry == null) {
-                // no cache entry available for variation
-                return null;
-            }
-            if (entry.getDateExpires() < System.currentTimeMillis()) {
-                // cache entry avaiable but expired, remove entry
-                m_variationCache.remove(entry);
-                return null;
-            }
-            // return the found cache entry
-            return entry;
+            return getEntry(v, variation);
         } else {
             return null;
         }
     }
 
+    /**
+     * Looks up a specific entry in the cache using a pre-calculated variation.<p>
+     *
+     * In case a found entry has a timeout set, it will be checked upon lookup.
+     * In case the timeout of the entry has been reached, it will be removed from
+     * the cache (and null will be returned in this case).<p>
+     *
+     * @param resource the resource name including the online / offline suffix
+     * @param variation the variation to look for
+     *
+     * @return the entry found for the resource and variation, or null if it is not in the cache
+     */
+    CmsFlexCacheEntry get(String resource, String variation) {
+
+        if (!isEnabled()) {
+            // cache is disabled
+            return null;
+        }
+        CmsFlexCacheVariation v = m_keyCache.get(resource);
+        if (v == null) {
+            return null;
+        }
+        return getEntry(v, variation);
+    }
+
     /**
      * Returns the CmsFlexCacheKey data structure for a given resource name.<p>
      *
@@ -610,16 +697,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return;
         }
-        Object o = m_keyCache.get(key.getResource());
-        if (o == null) {
-            // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
+        // keys are always added while holding the lock of the entry cache, since adding a key may evict
+        // another key, which releases its variation map with this lock held
+        synchronized (m_variationCache) {
+            Object o = m_keyCache.get(key.getResource());
+            if (o == null) {
+                // No variation map for this resource yet, so create one
+                CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key, createVariationMap());
+                m_keyCache.put(key.getResource(), variationMap);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
+                }
             }
+            // If != null the key is already in the cache, so we just do nothing
         }
-        // If != null the key is already in the cache, so we just do nothing
     }
 
     /**
@@ -632,11 +723,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return;
         }
-        CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
-        if (o != null) {
-            I_CmsLruCacheObject old = o.m_map.get(key.getVariation());
-            if (old != null) {
-                getEntryLruCache().remove(old);
+        // lock like releaseVariation(), so the variation map can not be released concurrently
+        synchronized (m_variationCache) {
+            CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
+            if ((o != null) && (o.m_map != null)) {
+                I_CmsLruCacheObject old = o.m_map.get(key.getVariation());
+                if (old != null) {
+                    getEntryLruCache().remove(old);
+                }
             }
         }
     }
@@ -659,6 +753,77 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Empties the cache completely after a publish or clear caches event.<p>
+     */
+    private void clearAfterEvent() {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
+        }
+        clear();
+    }
+
+    /**
+     * Removes the cache entries affected by a publish event.<p>
+     *
+     * All offline keys and entries are cleared. From the online part of the cache,
+     * only the entries that depend on a published resource are removed. If a published
+     * resource is the target of a cached key, or is located below a published folder, the key
+     * is removed as well since the "cache" property may have changed.<p>
+     *
+     * If the published resources can not be determined, or if a resource below
+     * <code>/system/</code> or an ADE configuration file was published, the cache is cleared completely.<p>
+     *
+     * @param event the publish event
+     */
+    private void clearAfterPublish(org.opencms.main.CmsEvent event) {
+
+        List<CmsPublishedResource> publishedResources = null;
+        String publishId = (event.getData() != null)
+        ? (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID)
+        : null;
+        if (publishId != null) {
+            try {
+                CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+                publishedResources = cms.readPublishedResources(new CmsUUID(publishId));
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        if ((publishedResources == null) || publishedResources.isEmpty()) {
+            clear();
+            return;
+        }
+
+        Set<String> paths = new HashSet<String>();
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        List<String> folders = new ArrayList<String>();
+        for (CmsPublishedResource res : publishedResources) {
+            String rootPath = res.getRootPath();
+            if (rootPath.startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")
+                || CmsADEManager.CONFIG_FILE_NAME.equals(CmsResource.getName(rootPath))) {
+                // templates, JSPs or configuration changed, everything may be affected
+                clear();
+                return;
+            }
+            paths.add(rootPath);
+            if (res.isFolder()) {
+                folders.add(rootPath);
+            } else {
+                String parentFolder = CmsResource.getParentFolder(rootPath);
+                if (parentFolder != null) {
+                    paths.add(parentFolder);
+                }
+            }
+            if (res.getResourceId() != null) {
+                resourceIds.add(res.getResourceId());
+            }
+        }
+        clearAccordingToSuffix(CACHE_OFFLINESUFFIX, false);
+        removeDependentEntries(paths, resourceIds, folders, publishedResources.size());
+    }
+
     /**
      * Internal method to perform cache clearance.<p>
      *
@@ -688,7 +853,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+                    v.m_map = createVariationMap();
                 } else {
                     // Clear key and entry
                     m_size -= v.m_map.size();
@@ -741,7 +906,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 allEntries.remove();
                 m_variationCache.remove(nextObject);
             }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            v.m_map = createVariationMap();
         }
         m_size = 0;
     }
@@ -824,6 +989,48 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Creates a new map to store the variations of a resource key.<p>
+     *
+     * @return a new variation map
+     */
+    private Map<String, I_CmsLruCacheObject> createVariationMap() {
+
+        if (m_concurrent) {
+            return new ConcurrentHashMap<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+        }
+        return new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+    }
+
+    /**
+     * Looks up the entry for a variation in a variation map, checking the timeout of the entry.<p>
+     *
+     * @param v the variation map of the resource
+     * @param variation the variation to look for
+     *
+     * @return the entry found for the variation, or null if no valid entry is available
+     */
+    private CmsFlexCacheEntry getEntry(CmsFlexCacheVariation v, String variation) {
+
+        Map<String, I_CmsLruCacheObject> m = v.m_map;
+        if (m == null) {
+            // the variation map has been released concurrently
+            return null;
+        }
+        CmsFlexCacheEntry entry = (CmsFlexCacheEntry)m.get(variation);
+        if (entry == null) {
+            // no cache entry available for variation
+            return null;
+        }
+        if (entry.getDateExpires() < System.currentTimeMillis()) {
+            // cache entry avaiable but expired, remove entry
+            m_variationCache.remove(entry);
+            return null;
+        }
+        // return the found cache entry
+        return entry;
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -849,6 +1056,88 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         });
     }
 
+    /**
+     * Releases all entries of a variation map that has been removed from the key cache.<p>
+     *
+     * @param v the variation map to release, may be <code>null</code>
+     */
+    private void releaseVariation(CmsFlexCacheVariation v) {
+
+        if (v == null) {
+            return;
+        }
+        Map<String, I_CmsLruCacheObject> m = v.m_map;
+        if ((m == null) || (m.size() == 0)) {
+            return;
+        }
+        // copy the entries since removing them from the LRU cache also removes them from the variation map
+        List<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(m.values());
+        synchronized (m_variationCache) {
+            for (I_CmsLruCacheObject e : entries) {
+                m_variationCache.remove(e);
+            }
+            m.clear();
+            v.m_map = null;
+            v.m_key = null;
+        }
+    }
+
+    /**
+     * Removes all online entries that depend on one of the given resources.<p>
+     *
+     * @param paths the root paths of the published resources and their parent folders
+     * @param resourceIds the resource ids of the published resources
+     * @param folders the root paths of the published folders
+     * @param count the number of published resources, used for logging
+     */
+    private synchronized void removeDependentEntries(
+        Set<String> paths,
+        Set<CmsUUID> resourceIds,
+        List<String> folders,
+        int count) {
+
+        int removedEntries = 0;
+        int removedKeys = 0;
+        // create new set to avoid ConcurrentModificationExceptions
+        Set<String> keys = new HashSet<String>(m_keyCache.keySet());
+        for (String key : keys) {
+            if (!key.endsWith(CACHE_ONLINESUFFIX)) {
+                continue;
+            }
+            CmsFlexCacheVariation v = m_keyCache.get(key);
+            if ((v == null) || (v.m_map == null)) {
+                continue;
+            }
+            String resourceName = key.substring(0, key.length() - CACHE_ONLINESUFFIX.length());
+            boolean removeKey = paths.contains(resourceName);
+            for (int i = 0; !removeKey && (i < folders.size()); i++) {
+                removeKey = resourceName.startsWith(folders.get(i));
+            }
+            List<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(v.m_map.values());
+            for (I_CmsLruCacheObject o : entries) {
+                CmsFlexCacheDependencies dependencies = ((CmsFlexCacheEntry)o).getDependencies();
+                if (removeKey || (dependencies == null) || dependencies.isAffectedBy(paths, resourceIds, folders)) {
+                    m_variationCache.remove(o);
+                    removedEntries++;
+                }
+            }
+            if (removeKey) {
+                v.m_map = null;
+                v.m_key = null;
+                m_keyCache.remove(key);
+                removedKeys++;
+            }
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_FLEXCACHE_CLEAR_DEPENDENT_3,
+                    String.valueOf(removedEntries),
+                    String.valueOf(removedKeys),
+                    String.valueOf(count)));
+        }
+    }
+
     /**
      * Save a value to the cache.<p>
      *
@@ -857,34 +1146,37 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry) {
 
-        CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
-        if (o != null) {
-            // We already have a variation map for this resource
-            Map<String, I_CmsLruCacheObject> m = o.m_map;
-            boolean wasAdded = true;
-            if (!m.containsKey(key.getVariation())) {
-                wasAdded = m_variationCache.add(theCacheEntry);
-            } else {
-                wasAdded = m_variationCache.touch(theCacheEntry);
-            }
+        // lock like releaseVariation(), so the variation map can not be released while the entry is added
+        synchronized (m_variationCache) {
+            CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
+            if ((o != null) && (o.m_map != null)) {
+                // We already have a variation map for this resource
+                Map<String, I_CmsLruCacheObject> m = o.m_map;
+                boolean wasAdded = true;
+                if (!m.containsKey(key.getVariation())) {
+                    wasAdded = m_variationCache.add(theCacheEntry);
+                } else {
+                    wasAdded = m_variationCache.touch(theCacheEntry);
+                }
 
-            if (wasAdded) {
-                theCacheEntry.setVariationData(key.getVariation(), m);
-                m.put(key.getVariation(), theCacheEntry);
-            }
-        } else {
-            // No variation map for this resource yet, so create one
-            CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
+                if (wasAdded) {
+                    theCacheEntry.setVariationData(key.getVariation(), m);
+                    m.put(key.getVariation(), theCacheEntry);
+                }
+            } else {
+                // No variation map for this resource yet, or it has been released, so create one
+                CmsFlexCacheVariation list = new CmsFlexCacheVariation(key, createVariationMap());
 
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
+                boolean wasAdded = m_variationCache.add(theCacheEntry);
 
-            if (wasAdded) {
-                theCacheEntry.setVariationData(key.getVariation(), list.m_map);
-                list.m_map.put(key.getVariation(), theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
+                if (wasAdded) {
+                    theCacheEntry.setVariationData(key.getVariation(), list.m_map);
+                    list.m_map.put(key.getVariation(), theCacheEntry);
+                    m_keyCache.put(key.getResource(), list);
+                }
             }
         }
 
@@ -30,6 +30,7 @@ package org.opencms.flex;
 import org.opencms.jsp.util.CmsJspDeviceSelectorDesktopMobileTablet;
 import org.opencms.jsp.util.I_CmsJspDeviceSelector;
 import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
 
 import org.apache.commons.logging.Log;
 
@@ -40,6 +41,12 @@ import org.apache.commons.logging.Log;
  */
 public class CmsFlexCacheConfiguration {
 
+    /** Cache engine name for concurrent key and variation maps. */
+    public static final String CACHE_ENGINE_CONCURRENT = "concurrent";
+
+    /** Cache engine name for the synchronized LRU key map (default). */
+    public static final String CACHE_ENGINE_LRU = "lru";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheConfiguration.class);
 
@@ -49,9 +56,15 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if the cache is enabled or not. */
     private boolean m_cacheEnabled;
 
+    /** The cache engine. */
+    private String m_cacheEngine;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** Indicates if the FlexCache records the resources each entry depends on. */
+    private boolean m_dependencyTracking;
+
     /** The device selector. */
     private I_CmsJspDeviceSelector m_deviceSelector;
 
@@ -79,7 +92,7 @@ public class CmsFlexCacheConfiguration {
      */
     public CmsFlexCacheConfiguration() {
 
-        // empty public constructor for digester
+        m_cacheEngine = CACHE_ENGINE_LRU;
     }
 
     /**
@@ -92,6 +105,16 @@ public class CmsFlexCacheConfiguration {
         return m_avgCacheBytes;
     }
 
+    /**
+     * Returns the cache engine, either {@link #CACHE_ENGINE_LRU} or {@link #CACHE_ENGINE_CONCURRENT}.<p>
+     *
+     * @return the cache engine
+     */
+    public String getCacheEngine() {
+
+        return m_cacheEngine;
+    }
+
     /**
      * Returns the deviceSelector.<p>
      *
@@ -181,6 +204,16 @@ public class CmsFlexCacheConfiguration {
         return m_cacheEnabled;
     }
 
+    /**
+     * Checks if the concurrent cache engine is configured.<p>
+     *
+     * @return true if the concurrent cache engine is configured; otherwise false
+     */
+    public boolean isConcurrentCacheEngine() {
+
+        return CACHE_ENGINE_CONCURRENT.equals(m_cacheEngine);
+    }
+
     /**
      * Checks the cacheOffline.<p>
      *
@@ -191,6 +224,19 @@ public class CmsFlexCacheConfiguration {
         return m_cacheOffline;
     }
 
+    /**
+     * Checks if the FlexCache records the resources each entry depends on.<p>
+     *
+     * If this is enabled, a publish only removes the online entries that depend on the published
+     * resources, instead of clearing the whole cache.<p>
+     *
+     * @return true if dependency tracking is enabled; otherwise false
+     */
+    public boolean isDependencyTracking() {
+
+        return m_dependencyTracking;
+    }
+
     /**
      * Sets the avgCacheBytes.<p>
      *
@@ -211,6 +257,18 @@ public class CmsFlexCacheConfiguration {
         m_cacheEnabled = enabled;
     }
 
+    /**
+     * Sets the cache engine.<p>
+     *
+     * @param cacheEngine the cache engine to set, either {@link #CACHE_ENGINE_LRU} or {@link #CACHE_ENGINE_CONCURRENT}
+     */
+    public void setCacheEngine(String cacheEngine) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(cacheEngine)) {
+            m_cacheEngine = cacheEngine.trim().toLowerCase();
+        }
+    }
+
     /**
      * Sets the cacheOffline.<p>
      *
@@ -221,6 +279,16 @@ public class CmsFlexCacheConfiguration {
         m_cacheOffline = cacheOffline;
     }
 
+    /**
+     * Enables or disables dependency tracking.<p>
+     *
+     * @param dependencyTracking the dependency tracking flag, parsed as <code>boolean</code>
+     */
+    public void setDependencyTracking(String dependencyTracking) {
+
+        m_dependencyTracking = Boolean.valueOf(dependencyTracking).booleanValue();
+    }
+
     /**
      * Sets the device selector configuration.<p>
      *
@@ -0,0 +1,260 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Contains the VFS resources a FlexCache entry depends on.<p>
+ *
+ * For every resource read while an entry is generated, the root path, the parent folder path
+ * and the resource id are recorded. The parent folder is recorded so that entries which list
+ * the contents of a folder are also invalidated if a new resource is published in that folder.
+ * The resource id is recorded so that the entry is also invalidated if the content is changed
+ * through a sibling.<p>
+ *
+ * If more than {@link #MAX_DEPENDENCIES} dependencies (or the number given in the constructor) are recorded,
+ * the set is marked as incomplete and the entry is treated as depending on all resources.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsFlexCacheDependencies {
+
+    /** The maximum number of recorded paths, if more are read the dependencies are considered incomplete. */
+    public static final int MAX_DEPENDENCIES = 2000;
+
+    /** Indicates if the dependencies are incomplete. */
+    private boolean m_incomplete;
+
+    /** The maximum number of recorded paths. */
+    private int m_maxDependencies;
+
+    /** The recorded root paths. */
+    private Set<String> m_paths;
+
+    /** The recorded resource ids. */
+    private Set<CmsUUID> m_resourceIds;
+
+    /**
+     * Creates a new, empty dependency set.<p>
+     */
+    public CmsFlexCacheDependencies() {
+
+        this(MAX_DEPENDENCIES);
+    }
+
+    /**
+     * Creates a copy of the given dependency set.<p>
+     *
+     * @param dependencies the dependency set to copy
+     */
+    public CmsFlexCacheDependencies(CmsFlexCacheDependencies dependencies) {
+
+        m_incomplete = dependencies.m_incomplete;
+        m_maxDependencies = dependencies.m_maxDependencies;
+        m_paths = new HashSet<String>(dependencies.m_paths);
+        m_resourceIds = new HashSet<CmsUUID>(dependencies.m_resourceIds);
+    }
+
+    /**
+     * Creates a new, empty dependency set with the given maximum number of recorded paths.<p>
+     *
+     * @param maxDependencies the maximum number of recorded paths
+     */
+    public CmsFlexCacheDependencies(int maxDependencies) {
+
+        m_maxDependencies = maxDependencies;
+        m_paths = new HashSet<String>();
+        m_resourceIds = new HashSet<CmsUUID>();
+    }
+
+    /**
+     * Adds a resource to the dependencies.<p>
+     *
+     * @param resource the resource to add
+     */
+    public void add(CmsResource resource) {
+
+        if (m_incomplete) {
+            return;
+        }
+        addPath(resource.getRootPath());
+        if (resource.getResourceId() != null) {
+            m_resourceIds.add(resource.getResourceId());
+        }
+    }
+
+    /**
+     * Adds all resources of the given dependency set to these dependencies.<p>
+     *
+     * If the given dependency set is <code>null</code> or incomplete, these dependencies become incomplete.<p>
+     *
+     * @param dependencies the dependency set to add, may be <code>null</code> if the dependencies are unknown
+     */
+    public void addAll(CmsFlexCacheDependencies dependencies) {
+
+        if (m_incomplete) {
+            return;
+        }
+        if ((dependencies == null) || dependencies.m_incomplete) {
+            setIncomplete();
+            return;
+        }
+        if ((m_paths.size() + dependencies.m_paths.size()) > m_maxDependencies) {
+            setIncomplete();
+            return;
+        }
+        m_paths.addAll(dependencies.m_paths);
+        m_resourceIds.addAll(dependencies.m_resourceIds);
+    }
+
+    /**
+     * Adds a root path and its parent folder to the dependencies.<p>
+     *
+     * @param rootPath the root path to add
+     */
+    public void addPath(String rootPath) {
+
+        if (m_incomplete || (rootPath == null)) {
+            return;
+        }
+        if (m_paths.size() >= m_maxDependencies) {
+            // too many dependencies, treat the entry as depending on everything
+            setIncomplete();
+            return;
+        }
+        m_paths.add(rootPath);
+        String parentFolder = CmsResource.getParentFolder(rootPath);
+        if (parentFolder != null) {
+            m_paths.add(parentFolder);
+        }
+    }
+
+    /**
+     * Returns the recorded root paths, including the parent folders of all recorded resources.<p>
+     *
+     * @return the recorded root paths
+     */
+    public Set<String> getPaths() {
+
+        return m_paths;
+    }
+
+    /**
+     * Returns the recorded resource ids.<p>
+     *
+     * @return the recorded resource ids
+     */
+    public Set<CmsUUID> getResourceIds() {
+
+        return m_resourceIds;
+    }
+
+    /**
+     * Checks if a change of the given resources affects an entry with these dependencies.<p>
+     *
+     * @param paths the root paths of the changed resources
+     * @param resourceIds the resource ids of the changed resources
+     * @param folders the root paths of changed folders, all resources below these folders are affected
+     *
+     * @return <code>true</code> if the entry with these dependencies is affected
+     */
+    public boolean isAffectedBy(Set<String> paths, Set<CmsUUID> resourceIds, Collection<String> folders) {
+
+        if (m_incomplete) {
+            return true;
+        }
+        if (containsAny(m_resourceIds, resourceIds) || containsAny(m_paths, paths)) {
+            return true;
+        }
+        for (String folder : folders) {
+            for (String path : m_paths) {
+                if (path.startsWith(folder)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if too many dependencies were recorded,
+     * in which case the entry must be treated as depending on all resources.<p>
+     *
+     * @return <code>true</code> if the dependencies are incomplete
+     */
+    public boolean isIncomplete() {
+
+        return m_incomplete;
+    }
+
+    /**
+     * Marks the dependencies as incomplete, so that they are treated as depending on all resources.<p>
+     */
+    public void setIncomplete() {
+
+        m_incomplete = true;
+        m_paths.clear();
+        m_resourceIds.clear();
+    }
+
+    /**
+     * Returns the number of recorded root paths.<p>
+     *
+     * @return the number of recorded root paths
+     */
+    public int size() {
+
+        return m_paths.size();
+    }
+
+    /**
+     * Checks if the two sets have a common element, iterating over the smaller set.<p>
+     *
+     * @param first the first set
+     * @param second the second set
+     *
+     * @return <code>true</code> if the two sets have a common element
+     */
+    private static <T> boolean containsAny(Set<T> first, Set<T> second) {
+
+        Set<T> small = first.size() < second.size() ? first : second;
+        Set<T> large = small == first ? second : first;
+        for (T element : small) {
+            if (large.contains(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
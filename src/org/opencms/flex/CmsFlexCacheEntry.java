@@ -93,6 +93,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
+    /** The resources this entry depends on, <code>null</code> if dependencies are not tracked. */
+    private CmsFlexCacheDependencies m_dependencies;
+
     /** The list of items for this resource. */
     private List<Object> m_elements;
 
@@ -267,6 +270,17 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the resources this entry depends on,
+     * or <code>null</code> if no dependencies have been recorded.<p>
+     *
+     * @return the resources this entry depends on
+     */
+    public CmsFlexCacheDependencies getDependencies() {
+
+        return m_dependencies;
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -403,6 +417,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
     }
 
+    /**
+     * Sets the resources this entry depends on.<p>
+     *
+     * @param dependencies the resources this entry depends on
+     */
+    public void setDependencies(CmsFlexCacheDependencies dependencies) {
+
+        m_dependencies = dependencies;
+    }
+
     /**
      * Sets the expiration date of this Flex cache entry exactly to the
      * given time.<p>
@@ -489,6 +489,21 @@ public class CmsFlexController {
         return (m_flexContextInfoList.get(pos)).getDateLastModified();
     }
 
+    /**
+     * Returns the resources read during the current include,
+     * or <code>null</code> if the FlexCache does not track dependencies.<p>
+     *
+     * @return the resources read during the current include
+     */
+    public CmsFlexCacheDependencies getDependencies() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return (m_flexContextInfoList.get(pos)).getDependencies();
+    }
+
     /**
      * Returns the size of the response stack.<p>
      *
@@ -618,7 +633,8 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        m_flexContextInfoList.add(
+            new CmsFlexRequestContextInfo((m_cache != null) && m_cache.isDependencyTracking()));
         updateRequestContextInfo();
     }
 
@@ -0,0 +1,119 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+
+/**
+ * Records the VFS resources read by the current thread.<p>
+ *
+ * The recording is started and stopped by the code that renders a resource, for example the static export,
+ * which needs to know all resources an exported page depends on. While the recording is active, the driver manager
+ * adds every resource it reads, and the Flex request dispatcher adds the dependencies of all elements
+ * it serves from the FlexCache. Elements without recorded dependencies make the recording incomplete,
+ * so the FlexCache should track dependencies if this is used.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsFlexDependencyRecorder {
+
+    /** The dependencies recorded by the current thread. */
+    private static final ThreadLocal<CmsFlexCacheDependencies> RECORDING = new ThreadLocal<CmsFlexCacheDependencies>();
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsFlexDependencyRecorder() {
+
+        // noop
+    }
+
+    /**
+     * Returns <code>true</code> if the current thread records its dependencies.<p>
+     *
+     * @return <code>true</code> if the current thread records its dependencies
+     */
+    public static boolean isRecording() {
+
+        return RECORDING.get() != null;
+    }
+
+    /**
+     * Adds the given dependencies to the recording of the current thread, if it is active.<p>
+     *
+     * @param dependencies the dependencies to add, <code>null</code> if they are unknown
+     */
+    public static void record(CmsFlexCacheDependencies dependencies) {
+
+        CmsFlexCacheDependencies current = RECORDING.get();
+        if (current != null) {
+            current.addAll(dependencies);
+        }
+    }
+
+    /**
+     * Adds the given resource to the recording of the current thread, if it is active.<p>
+     *
+     * @param resource the resource that was read
+     */
+    public static void record(CmsResource resource) {
+
+        CmsFlexCacheDependencies current = RECORDING.get();
+        if (current != null) {
+            current.add(resource);
+        }
+    }
+
+    /**
+     * Starts recording the dependencies of the current thread.<p>
+     *
+     * A recording that is already active is discarded.<p>
+     *
+     * @param maxDependencies the maximum number of recorded paths, if more are read the recording is incomplete
+     *
+     * @return the dependencies that will be recorded
+     */
+    public static CmsFlexCacheDependencies start(int maxDependencies) {
+
+        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies(maxDependencies);
+        RECORDING.set(dependencies);
+        return dependencies;
+    }
+
+    /**
+     * Stops recording the dependencies of the current thread.<p>
+     *
+     * @return the recorded dependencies, or <code>null</code> if no recording was active
+     */
+    public static CmsFlexCacheDependencies stop() {
+
+        CmsFlexCacheDependencies dependencies = RECORDING.get();
+        RECORDING.remove();
+        return dependencies;
+    }
+}
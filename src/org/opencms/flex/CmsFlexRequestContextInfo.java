@@ -36,7 +36,8 @@ import org.opencms.file.CmsResource;
  * An instance of this class is attached to every <code>CmsRequestContext</code> as
  * an attribute as soon as the request context is wrapped in a flex response.
  * Information about the "last modified" and "expire" times of VFS resources are
- * stored in this Object.<p>
+ * stored in this Object. If the FlexCache tracks dependencies, the resources read
+ * are also recorded here.<p>
  *
  * @since 6.0.0
  */
@@ -48,13 +49,29 @@ public class CmsFlexRequestContextInfo {
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The resources read in this request context, <code>null</code> if dependencies are not tracked. */
+    private CmsFlexCacheDependencies m_dependencies;
+
     /**
      * Public constructor.<p>
      */
     public CmsFlexRequestContextInfo() {
 
+        this(false);
+    }
+
+    /**
+     * Creates a new context info.<p>
+     *
+     * @param trackDependencies if <code>true</code>, the resources read in this context are recorded
+     */
+    public CmsFlexRequestContextInfo(boolean trackDependencies) {
+
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        if (trackDependencies) {
+            m_dependencies = new CmsFlexCacheDependencies();
+        }
     }
 
     /**
@@ -77,6 +94,17 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the resources read in this context,
+     * or <code>null</code> if dependencies are not tracked.<p>
+     *
+     * @return the resources read in this context
+     */
+    public CmsFlexCacheDependencies getDependencies() {
+
+        return m_dependencies;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *
@@ -150,5 +178,8 @@ public class CmsFlexRequestContextInfo {
         // now use both release and expiration date from the resource to update the expires info
         updateDateExpires(resource.getDateReleased());
         updateDateExpires(resource.getDateExpired());
+        if (m_dependencies != null) {
+            m_dependencies.add(resource);
+        }
     }
 }
@@ -315,6 +315,8 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                     m_vfsTarget));
                         }
                         controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
+                        // the resources of the cached element are not read again, so record its dependencies
+                        CmsFlexDependencyRecorder.record(entry.getDependencies());
                         entry.service(w_req, w_res);
                     } catch (CmsException e) {
                         Throwable t;
@@ -458,6 +460,13 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    if (cache.isDependencyTracking() && (controller.getDependencies() != null)) {
+                        // store the resources read while generating the entry, used for invalidation on publish
+                        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies(
+                            controller.getDependencies());
+                        dependencies.add(resource);
+                        entry.setDependencies(dependencies);
+                    }
                     cache.put(w_res.getCmsCacheKey(), entry, variation);
                 } else {
                     // result can not be cached, do not use "last modified" optimization
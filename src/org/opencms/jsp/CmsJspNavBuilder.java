@@ -455,7 +455,7 @@ public class CmsJspNavBuilder {
         List<CmsResource> resources = null;
         try {
 
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+            resources = m_cms.getResourcesInFolderWithProperties(folder, resourceFilter);
         } catch (Exception e) {
             // should never happen
             LOG.error(e.getLocalizedMessage(), e);
@@ -666,7 +666,7 @@ public class CmsJspNavBuilder {
 
         List<CmsResource> resources;
         try {
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+            resources = m_cms.getResourcesInFolderWithProperties(folder, resourceFilter);
         } catch (Exception e) {
             // should never happen
             LOG.error(e.getLocalizedMessage(), e);
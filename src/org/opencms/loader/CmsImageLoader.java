@@ -39,13 +39,23 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.scheduler.jobs.CmsImageCacheCleanupJob;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 
 /**
@@ -77,6 +87,33 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The configuration parameter for the OpenCms XML configuration to enable the image scaling. */
     public static final String CONFIGURATION_SCALING_ENABLED = "image.scaling.enabled";
 
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of queued scaling operations. */
+    public static final String CONFIGURATION_SCALING_QUEUE_SIZE = "image.scaling.queuesize";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of concurrent scaling operations. */
+    public static final String CONFIGURATION_SCALING_THREADS = "image.scaling.threads";
+
+    /** The configuration parameter for the OpenCms XML configuration to add a variant that is created for every published image, may be repeated. */
+    public static final String CONFIGURATION_VARIANTS = "image.variants";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the CPU budget for creating variants in percent of one processor. */
+    public static final String CONFIGURATION_VARIANTS_CPU_BUDGET = "image.variants.cpubudget";
+
+    /** The configuration parameter for the OpenCms XML configuration to enable the creation of variants for published images. */
+    public static final String CONFIGURATION_VARIANTS_PREGENERATE = "image.variants.pregenerate";
+
+    /** The configuration parameter for the OpenCms XML configuration to set the maximum number of recorded requested variants per image. */
+    public static final String CONFIGURATION_VARIANTS_REQUESTED = "image.variants.requested";
+
+    /** The default maximum number of queued scaling operations. */
+    public static final int DEFAULT_SCALING_QUEUE_SIZE = 1000;
+
+    /** The default CPU budget for creating variants in percent of one processor. */
+    public static final int DEFAULT_VARIANTS_CPU_BUDGET = 25;
+
+    /** The default maximum number of recorded requested variants per image. */
+    public static final int DEFAULT_VARIANTS_REQUESTED = 8;
+
     /** Default name for the image cache repository. */
     public static final String IMAGE_REPOSITORY_DEFAULT = "/WEB-INF/imagecache/";
 
@@ -98,6 +135,12 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width * height) to apply image blurring when down scaling (setting this to high may cause "out of memory" errors). */
     protected static int m_maxBlurSize = CmsImageScaler.SCALE_DEFAULT_MAX_BLUR_SIZE;
 
+    /** The executor running the image scaling operations. */
+    protected static CmsImageScalingExecutor m_scalingExecutor;
+
+    /** The generator creating the variants of published images. */
+    protected static CmsImageVariantGenerator m_variantGenerator;
+
     /** The disk cache to use for saving scaled image versions. */
     protected static CmsVfsNameBasedDiskCache m_vfsDiskCache;
 
@@ -107,6 +150,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
     /** The maximum image size (width or height) to allow when up scaling an image using request parameters. */
     protected int m_maxScaleSize = CmsImageScaler.SCALE_DEFAULT_MAX_SIZE;
 
+    /** The maximum number of queued scaling operations. */
+    protected int m_scalingQueueSize = DEFAULT_SCALING_QUEUE_SIZE;
+
+    /** The maximum number of concurrent scaling operations, 0 for the number of available processors. */
+    protected int m_scalingThreads;
+
+    /** The variants created for every published image. */
+    protected List<String> m_variants = new ArrayList<String>();
+
+    /** The CPU budget for creating variants in percent of one processor. */
+    protected int m_variantsCpuBudget = DEFAULT_VARIANTS_CPU_BUDGET;
+
+    /** Indicates if variants are created for published images. */
+    protected boolean m_variantsPregenerate;
+
+    /** The maximum number of recorded requested variants per image. */
+    protected int m_variantsRequested = DEFAULT_VARIANTS_REQUESTED;
+
     /**
      * Creates a new image loader.<p>
      */
@@ -152,6 +213,26 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         return m_maxBlurSize;
     }
 
+    /**
+     * Returns the executor running the image scaling operations, which provides the queue statistics.<p>
+     *
+     * @return the executor running the image scaling operations, or <code>null</code> if the loader is not initialized
+     */
+    public static CmsImageScalingExecutor getScalingExecutor() {
+
+        return m_scalingExecutor;
+    }
+
+    /**
+     * Returns the generator creating the variants of published images.<p>
+     *
+     * @return the variant generator, or <code>null</code> if the creation of variants is not enabled
+     */
+    public static CmsImageVariantGenerator getVariantGenerator() {
+
+        return m_variantGenerator;
+    }
+
     /**
      * Returns <code>true</code> if the image scaling and processing capabilities for the
      * OpenCms VFS images have been enabled, <code>false</code> if not.<p>
@@ -200,6 +281,24 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             if (CONFIGURATION_DOWNSCALE.equals(paramName)) {
                 m_downScaleParams = paramValue.trim();
             }
+            if (CONFIGURATION_SCALING_THREADS.equals(paramName)) {
+                m_scalingThreads = CmsStringUtil.getIntValue(paramValue, 0, paramName);
+            }
+            if (CONFIGURATION_SCALING_QUEUE_SIZE.equals(paramName)) {
+                m_scalingQueueSize = CmsStringUtil.getIntValue(paramValue, DEFAULT_SCALING_QUEUE_SIZE, paramName);
+            }
+            if (CONFIGURATION_VARIANTS.equals(paramName)) {
+                m_variants.add(paramValue.trim());
+            }
+            if (CONFIGURATION_VARIANTS_CPU_BUDGET.equals(paramName)) {
+                m_variantsCpuBudget = CmsStringUtil.getIntValue(paramValue, DEFAULT_VARIANTS_CPU_BUDGET, paramName);
+            }
+            if (CONFIGURATION_VARIANTS_PREGENERATE.equals(paramName)) {
+                m_variantsPregenerate = Boolean.valueOf(paramValue).booleanValue();
+            }
+            if (CONFIGURATION_VARIANTS_REQUESTED.equals(paramName)) {
+                m_variantsRequested = CmsStringUtil.getIntValue(paramValue, DEFAULT_VARIANTS_REQUESTED, paramName);
+            }
         }
         super.addConfigurationParameter(paramName, paramValue);
     }
@@ -212,16 +311,25 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         if (event == null) {
             return;
         }
-        // only react on the clear caches event
+        Map<String, ?> data = event.getData();
+        if (data == null) {
+            return;
+        }
         int type = event.getType();
-        if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
+        if (type == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            // create the variants of the published images
+            CmsImageVariantGenerator generator = m_variantGenerator;
+            Object publishId = data.get(I_CmsEventListener.KEY_PUBLISHID);
+            if ((generator != null) && (publishId != null)) {
+                generator.publishProject(new CmsUUID(publishId.toString()));
+            }
             return;
         }
-        // only react if the clear images cache parameter is set
-        Map<String, ?> data = event.getData();
-        if (data == null) {
+        // otherwise only react on the clear caches event
+        if (type != I_CmsEventListener.EVENT_CLEAR_CACHES) {
             return;
         }
+        // only react if the clear images cache parameter is set
         Object param = data.get(PARAM_CLEAR_IMAGES_CACHE);
         if (param == null) {
             return;
@@ -244,6 +352,14 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         m_enabled = false;
         m_imageRepositoryFolder = null;
         m_vfsDiskCache = null;
+        if (m_scalingExecutor != null) {
+            m_scalingExecutor.shutDown();
+            m_scalingExecutor = null;
+        }
+        if (m_variantGenerator != null) {
+            m_variantGenerator.shutDown();
+            m_variantGenerator = null;
+        }
     }
 
     /**
@@ -286,6 +402,17 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                 OpenCms.getSystemInfo().getWebApplicationRfsPath(),
                 m_imageRepositoryFolder);
         }
+        if (m_scalingExecutor == null) {
+            int threads = m_scalingThreads > 0 ? m_scalingThreads : Runtime.getRuntime().availableProcessors();
+            m_scalingExecutor = new CmsImageScalingExecutor(threads, m_scalingQueueSize);
+        }
+        if (m_enabled && m_variantsPregenerate && (m_variantGenerator == null)) {
+            m_variantGenerator = new CmsImageVariantGenerator(
+                this,
+                m_variants,
+                m_variantsRequested,
+                m_variantsCpuBudget);
+        }
         OpenCms.addCmsEventListener(this);
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -295,6 +422,19 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
                     m_vfsDiskCache.getRepositoryPath()));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_IMAGE_SCALING_ENABLED_1, Boolean.valueOf(m_enabled)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_IMAGE_SCALING_THREADS_2,
+                    String.valueOf(m_scalingExecutor.getThreads()),
+                    String.valueOf(m_scalingQueueSize)));
+            if (m_variantGenerator != null) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_IMAGE_VARIANTS_3,
+                        String.valueOf(m_variants.size()),
+                        String.valueOf(m_variantsRequested),
+                        String.valueOf(m_variantGenerator.getCpuBudget())));
+            }
         }
     }
 
@@ -312,16 +452,89 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
             }
             // get the scale information from the request
             CmsImageScaler scaler = new CmsImageScaler(req, m_maxScaleSize, m_maxBlurSize);
-            // load the file from the cache
-            CmsFile file = getScaledImage(cms, resource, scaler);
-            // now perform standard load operation inherited from dump loader
-            super.load(cms, file, req, res);
+            CmsImageVariantGenerator generator = m_variantGenerator;
+            if ((generator != null) && scaler.isValid() && cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+                // remember the variant, so it is created again when the image is published
+                generator.recordRequest(resource.getRootPath(), scaler.toString());
+            }
+            if (resource instanceof CmsFile) {
+                // the caller needs the scaled content in the file (required e.g. for static export)
+                CmsFile file = getScaledImage(cms, resource, scaler);
+                // now perform standard load operation inherited from dump loader
+                super.load(cms, file, req, res);
+            } else {
+                loadScaledImage(cms, resource, scaler, req, res);
+            }
         } else {
             // scaling is disabled
             super.load(cms, resource, req, res);
         }
     }
 
+    /**
+     * Creates a scaled version of the given OpenCms VFS image resource and saves it in the disk cache.<p>
+     *
+     * The scaling operation runs on the scaling executor. If the same scaled version is already being created
+     * for another request, no new scaling operation is started, instead the result of the running operation is used.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param cacheName the name of the scaled version in the disk cache
+     *
+     * @return the content of the scaled version
+     *
+     * @throws IOException in case of errors accessing the disk based cache
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected byte[] createScaledImage(
+        final CmsObject cms,
+        final CmsResource resource,
+        final CmsImageScaler scaler,
+        final String cacheName) throws IOException, CmsException {
+
+        Callable<byte[]> operation = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                // the scaled version may have been created by an operation that just finished
+                byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
+                if (content == null) {
+                    // we must read the content from the VFS (if this has not been done yet)
+                    CmsFile file = cms.readFile(resource);
+                    content = file.getContents();
+                    if (scaler.isValid()) {
+                        // valid scaling parameters found, scale the content
+                        content = scaler.scaleImage(file);
+                    }
+                    // save the content in the cache
+                    m_vfsDiskCache.saveCacheFile(cacheName, content);
+                }
+                return content;
+            }
+        };
+        try {
+            return m_scalingExecutor.scale(cacheName, operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsLoaderException(
+                Messages.get().container(Messages.ERR_UNABLE_TO_SCALE_IMAGE_2, resource.getRootPath(), scaler),
+                cause);
+        }
+    }
+
     /**
      * Returns a scaled version of the given OpenCms VFS image resource.<p>
      *
@@ -344,31 +557,68 @@ public class CmsImageLoader extends CmsDumpLoader implements I_CmsEventListener
         String cacheParam = scaler.isValid() ? scaler.toString() : null;
         String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
         byte[] content = m_vfsDiskCache.getCacheContent(cacheName);
+        if (content == null) {
+            content = createScaledImage(cms, resource, scaler, cacheName);
+        }
 
         CmsFile file;
-        if (content != null) {
-            if (resource instanceof CmsFile) {
-                // the original file content must be modified (required e.g. for static export)
-                file = (CmsFile)resource;
-            } else {
-                // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
-                file = new CmsFile(resource);
-            }
-            // save the content in the file
-            file.setContents(content);
+        if (resource instanceof CmsFile) {
+            // the original file content must be modified (required e.g. for static export)
+            file = (CmsFile)resource;
         } else {
-            // we must read the content from the VFS (if this has not been done yet)
-            file = cms.readFile(resource);
-            // upgrade the file (load the content)
-            if (scaler.isValid()) {
-                // valid scaling parameters found, scale the content
-                content = scaler.scaleImage(file);
-                // exchange the content of the file with the scaled version
-                file.setContents(content);
-            }
-            // save the file content in the cache
-            m_vfsDiskCache.saveCacheFile(cacheName, file.getContents());
+            // this is no file, but we don't want to use "upgrade" since we don't need to read the content from the VFS
+            file = new CmsFile(resource);
         }
+        // save the content in the file
+        file.setContents(content);
         return file;
     }
-}
\ No newline at end of file
+
+    /**
+     * Delivers a scaled version of the given OpenCms VFS image resource.<p>
+     *
+     * If the scaled version is found in the disk cache, it is streamed from the disk to the response
+     * without reading it into memory. Otherwise it is created with {@link #createScaledImage(CmsObject, CmsResource, CmsImageScaler, String)}.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the base VFS resource for the image
+     * @param scaler the configured image scaler
+     * @param req the current request
+     * @param res the current response
+     *
+     * @throws IOException in case of errors accessing the disk based cache or writing the response
+     * @throws CmsException in case of errors accessing the OpenCms VFS
+     */
+    protected void loadScaledImage(
+        CmsObject cms,
+        CmsResource resource,
+        CmsImageScaler scaler,
+        HttpServletRequest req,
+        HttpServletResponse res) throws IOException, CmsException {
+
+        String cacheParam = scaler.isValid() ? scaler.toString() : null;
+        String cacheName = m_vfsDiskCache.getCacheName(resource, cacheParam);
+        File cacheFile = m_vfsDiskCache.getCacheFile(cacheName);
+        FileInputStream in = null;
+        if (cacheFile != null) {
+            try {
+                in = new FileInputStream(cacheFile);
+            } catch (FileNotFoundException e) {
+                // the file has been removed from the cache in the meantime
+            }
+        }
+        if (in == null) {
+            CmsFile file = new CmsFile(resource);
+            file.setContents(createScaledImage(cms, resource, scaler, cacheName));
+            // now perform standard load operation inherited from dump loader
+            super.load(cms, file, req, res);
+            return;
+        }
+        try {
+            setResponseHeaders(resource, (int)in.getChannel().size(), req, res);
+            IOUtils.copy(in, res.getOutputStream());
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs image scaling operations on a bounded pool of threads, making sure that
+ * the same scaled image is only created once at a time.<p>
+ *
+ * Every scaling operation is identified by a key, usually the name of the scaled image in the disk cache.
+ * If a scaling operation for a key is requested while another operation for the same key is running or queued,
+ * no new operation is started, instead the caller waits for the result of the running operation.<p>
+ *
+ * At most the configured number of scaling operations run at the same time, further operations are queued.
+ * If the queue is full, the operation is run in the calling thread. The number of created and shared
+ * results as well as the current queue length can be read for monitoring.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsImageScalingExecutor {
+
+    /** The number of operations that were run in the calling thread because the queue was full. */
+    private AtomicLong m_callerRuns;
+
+    /** The thread pool running the scaling operations. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The currently running or queued scaling operations by key. */
+    private ConcurrentHashMap<String, FutureTask<byte[]>> m_inFlight;
+
+    /** The number of requests that shared the result of an operation started by another request. */
+    private AtomicLong m_shared;
+
+    /** The number of scaling operations started. */
+    private AtomicLong m_started;
+
+    /**
+     * Creates a new image scaling executor.<p>
+     *
+     * @param threads the maximum number of concurrent scaling operations
+     * @param queueSize the maximum number of queued scaling operations
+     */
+    public CmsImageScalingExecutor(int threads, int queueSize) {
+
+        threads = Math.max(1, threads);
+        m_inFlight = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+        m_started = new AtomicLong();
+        m_shared = new AtomicLong();
+        m_callerRuns = new AtomicLong();
+        m_executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)),
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Image scaling %d").setDaemon(true).build());
+        m_executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the number of scaling operations currently running.<p>
+     *
+     * @return the number of scaling operations currently running
+     */
+    public int getActiveCount() {
+
+        return m_executor.getActiveCount();
+    }
+
+    /**
+     * Returns the number of scaling operations that were run in the calling thread because the queue was full.<p>
+     *
+     * @return the number of scaling operations run in the calling thread
+     */
+    public long getCallerRunsCount() {
+
+        return m_callerRuns.get();
+    }
+
+    /**
+     * Returns the number of scaling operations waiting in the queue.<p>
+     *
+     * @return the number of queued scaling operations
+     */
+    public int getQueueLength() {
+
+        return m_executor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of requests that did not start a scaling operation,
+     * but shared the result of an identical operation started by another request.<p>
+     *
+     * @return the number of shared results
+     */
+    public long getSharedCount() {
+
+        return m_shared.get();
+    }
+
+    /**
+     * Returns the number of scaling operations started.<p>
+     *
+     * @return the number of scaling operations started
+     */
+    public long getStartedCount() {
+
+        return m_started.get();
+    }
+
+    /**
+     * Returns the maximum number of concurrent scaling operations.<p>
+     *
+     * @return the maximum number of concurrent scaling operations
+     */
+    public int getThreads() {
+
+        return m_executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the result of the scaling operation with the given key,
+     * starting the given operation only if no operation with this key is currently running or queued.<p>
+     *
+     * @param key the key identifying the scaling operation
+     * @param operation the scaling operation
+     *
+     * @return the result of the scaling operation
+     *
+     * @throws ExecutionException if the scaling operation failed, the cause is the original exception
+     * @throws InterruptedException if the calling thread was interrupted while waiting for the result
+     */
+    public byte[] scale(final String key, final Callable<byte[]> operation)
+    throws ExecutionException, InterruptedException {
+
+        FutureTask<byte[]> task = m_inFlight.get(key);
+        if (task == null) {
+            final FutureTask<?>[] self = new FutureTask<?>[1];
+            FutureTask<byte[]> newTask = new FutureTask<byte[]>(new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    try {
+                        return operation.call();
+                    } finally {
+                        // allow new operations for this key before the result is published,
+                        // waiting threads already have a reference to this task
+                        m_inFlight.remove(key, self[0]);
+                    }
+                }
+            });
+            self[0] = newTask;
+            task = m_inFlight.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                m_started.incrementAndGet();
+                try {
+                    m_executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // the queue is full or the executor has been shut down
+                    m_callerRuns.incrementAndGet();
+                    task.run();
+                }
+            } else {
+                m_shared.incrementAndGet();
+            }
+        } else {
+            m_shared.incrementAndGet();
+        }
+        return task.get();
+    }
+
+    /**
+     * Shuts down the thread pool, running operations are completed.<p>
+     */
+    public void shutDown() {
+
+        m_executor.shutdown();
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeImage;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Creates the scaled versions of published images in the background, so that the first requests
+ * after a publish do not have to wait for the image scaling.<p>
+ *
+ * For every published image, the configured variants and the variants recently requested for the image
+ * are created in the image cache, if they do not exist yet. The requested variants are recorded
+ * by the image loader, for a limited number of images and variants per image.<p>
+ *
+ * The variants are created one after another on a single background thread, using the
+ * {@link CmsImageScalingExecutor} of the image loader, so a variant that is requested while it is created
+ * is not scaled twice. After every variant the thread pauses according to the configured CPU budget:
+ * with a budget of 25 percent, it pauses three times as long as the scaling took.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsImageVariantGenerator {
+
+    /** The maximum number of images for which the requested variants are recorded. */
+    public static final int MAX_RECORDED_IMAGES = 10000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImageVariantGenerator.class);
+
+    /** The CPU budget in percent of one processor. */
+    private int m_cpuBudget;
+
+    /** The single thread executor processing the publish events. */
+    private ExecutorService m_executor;
+
+    /** The number of created variants. */
+    private AtomicLong m_generated;
+
+    /** The image loader used to create the variants. */
+    private CmsImageLoader m_loader;
+
+    /** The maximum number of recorded variants per image. */
+    private int m_maxRequestedVariants;
+
+    /** The recently requested variants by image root path. */
+    private Cache<String, Set<String>> m_requestedVariants;
+
+    /** The configured variants. */
+    private Set<String> m_variants;
+
+    /**
+     * Creates a new image variant generator.<p>
+     *
+     * @param loader the image loader used to create the variants
+     * @param variants the scale parameters of the variants to create for every published image
+     * @param maxRequestedVariants the maximum number of recorded variants per image, 0 to disable the recording
+     * @param cpuBudget the CPU budget in percent of one processor
+     */
+    public CmsImageVariantGenerator(
+        CmsImageLoader loader,
+        List<String> variants,
+        int maxRequestedVariants,
+        int cpuBudget) {
+
+        m_loader = loader;
+        m_variants = new LinkedHashSet<String>(variants);
+        m_maxRequestedVariants = Math.max(0, maxRequestedVariants);
+        m_cpuBudget = Math.min(100, Math.max(1, cpuBudget));
+        m_requestedVariants = CacheBuilder.newBuilder().maximumSize(MAX_RECORDED_IMAGES).build();
+        m_generated = new AtomicLong();
+        m_executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Image variant generator").setDaemon(true).setPriority(
+                Thread.MIN_PRIORITY).build());
+    }
+
+    /**
+     * Returns the CPU budget in percent of one processor.<p>
+     *
+     * @return the CPU budget
+     */
+    public int getCpuBudget() {
+
+        return m_cpuBudget;
+    }
+
+    /**
+     * Returns the number of variants created since startup.<p>
+     *
+     * @return the number of created variants
+     */
+    public long getGeneratedCount() {
+
+        return m_generated.get();
+    }
+
+    /**
+     * Returns the scale parameters of the variants to create for the given image.<p>
+     *
+     * These are the configured variants, followed by the recorded variants.<p>
+     *
+     * @param rootPath the root path of the image
+     *
+     * @return the scale parameters of the variants to create
+     */
+    public Set<String> getVariants(String rootPath) {
+
+        Set<String> result = new LinkedHashSet<String>(m_variants);
+        Set<String> requested = m_requestedVariants.getIfPresent(rootPath);
+        if (requested != null) {
+            result.addAll(requested);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the variants of the images published with the given publish history id in the background.<p>
+     *
+     * @param publishHistoryId the publish history id
+     */
+    public void publishProject(final CmsUUID publishHistoryId) {
+
+        m_executor.execute(new Runnable() {
+
+            public void run() {
+
+                generateVariants(publishHistoryId);
+            }
+        });
+    }
+
+    /**
+     * Records a request for a scaled version of an image.<p>
+     *
+     * @param rootPath the root path of the image
+     * @param scaleParams the scale parameters of the request
+     */
+    public void recordRequest(String rootPath, String scaleParams) {
+
+        if ((m_maxRequestedVariants == 0) || m_variants.contains(scaleParams)) {
+            // the configured variants are always created
+            return;
+        }
+        Set<String> requested = m_requestedVariants.getIfPresent(rootPath);
+        if (requested == null) {
+            Set<String> newSet = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            requested = m_requestedVariants.asMap().putIfAbsent(rootPath, newSet);
+            if (requested == null) {
+                requested = newSet;
+            }
+        }
+        if ((requested.size() < m_maxRequestedVariants) || requested.contains(scaleParams)) {
+            requested.add(scaleParams);
+        }
+    }
+
+    /**
+     * Stops the background thread, pending publish events are discarded.<p>
+     */
+    public void shutDown() {
+
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * Creates the variants of the images published with the given publish history id.<p>
+     *
+     * @param publishHistoryId the publish history id
+     */
+    protected void generateVariants(CmsUUID publishHistoryId) {
+
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+            cms.getRequestContext().setSiteRoot("/");
+            int imageType = OpenCms.getResourceManager().getResourceType(
+                CmsResourceTypeImage.getStaticTypeName()).getTypeId();
+            List<CmsPublishedResource> publishedResources = cms.readPublishedResources(publishHistoryId);
+            for (CmsPublishedResource published : publishedResources) {
+                if ((published.getType() != imageType) || published.getState().isDeleted()) {
+                    continue;
+                }
+                CmsResource resource;
+                try {
+                    resource = cms.readResource(published.getStructureId(), CmsResourceFilter.ALL);
+                } catch (CmsException e) {
+                    // the image has been deleted or moved in the meantime
+                    continue;
+                }
+                for (String variant : getVariants(resource.getRootPath())) {
+                    if (generateVariant(cms, resource, variant)) {
+                        count++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // the generator has been shut down
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_IMAGE_VARIANTS_FAILED_1, publishHistoryId.toString()),
+                e);
+        }
+        if (LOG.isInfoEnabled() && (count > 0)) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_IMAGE_VARIANTS_GENERATED_3,
+                    String.valueOf(count),
+                    publishHistoryId.toString(),
+                    String.valueOf(System.currentTimeMillis() - start)));
+        }
+    }
+
+    /**
+     * Creates the given variant of an image, if it is not already cached.<p>
+     *
+     * @param cms the OpenCms context to read the image with
+     * @param resource the image resource
+     * @param variant the scale parameters of the variant
+     *
+     * @return <code>true</code> if the variant was created
+     *
+     * @throws InterruptedException if the thread is interrupted while pausing for the CPU budget
+     */
+    private boolean generateVariant(CmsObject cms, CmsResource resource, String variant)
+    throws InterruptedException {
+
+        CmsImageScaler scaler = new CmsImageScaler(variant);
+        if (!scaler.isValid()) {
+            return false;
+        }
+        String cacheName = CmsImageLoader.m_vfsDiskCache.getCacheName(resource, scaler.toString());
+        if (CmsImageLoader.m_vfsDiskCache.hasCacheContent(cacheName)) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            m_loader.createScaledImage(cms, resource, scaler, cacheName);
+            m_generated.incrementAndGet();
+        } catch (Exception e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.ERR_UNABLE_TO_SCALE_IMAGE_2, resource.getRootPath(), variant),
+                e);
+        }
+        // pause to keep the CPU usage within the budget
+        long time = System.currentTimeMillis() - start;
+        Thread.sleep((time * (100 - m_cpuBudget)) / m_cpuBudget);
+        return true;
+    }
+}
@@ -178,6 +178,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_IMAGE_SCALING_ENABLED_1 = "INIT_IMAGE_SCALING_ENABLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_SCALING_THREADS_2 = "INIT_IMAGE_SCALING_THREADS_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_IMAGE_VARIANTS_3 = "INIT_IMAGE_VARIANTS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_CACHE_SIZE_1 = "INIT_JSP_CACHE_SIZE_1";
 
@@ -238,6 +244,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANTS_FAILED_1 = "LOG_IMAGE_VARIANTS_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_IMAGE_VARIANTS_GENERATED_3 = "LOG_IMAGE_VARIANTS_GENERATED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
@@ -126,11 +126,11 @@ public final class CmsLockManager {
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocks(resourceName).iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
                 String lockedPath = lock.getResourceName();
-                if (lockedPath.startsWith(resourceName) && !lockedPath.equals(resourceName)) {
+                if (!lockedPath.equals(resourceName)) {
                     unlockResource(lockedPath, false);
                 }
             }
@@ -231,7 +231,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getLocksToFilter(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -283,7 +283,7 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getLocksToFilter(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -358,7 +358,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getLocksToFilter(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -404,40 +404,11 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedSystemLocks(resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (lock.getSystemLock().isUnlocked()) {
-                // only system locks matter here
-                continue;
-            }
-            if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                    return true;
-                }
-                try {
-                    resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                CmsResource lockedResource;
-                try {
-                    lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                if (lockedResource.getSiblingCount() > 1) {
-                    Iterator<CmsResource> itSiblings = internalReadSiblings(dbc, lockedResource).iterator();
-                    while (itSiblings.hasNext()) {
-                        CmsResource sibling = itSiblings.next();
-                        CmsLock siblingLock = internalSiblingLock(lock, sibling.getRootPath());
-                        if (siblingLock.getResourceName().startsWith(resource.getRootPath())) {
-                            return true;
-                        }
-                    }
-                }
+            if (!lock.getSystemLock().isUnlocked()) {
+                return true;
             }
         }
         return false;
@@ -576,10 +547,10 @@ public final class CmsLockManager {
             if (resource.isFolder()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocks(resourcename).iterator();
                 while (itLocks.hasNext()) {
                     String lockedPath = (itLocks.next()).getResourceName();
-                    if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
+                    if (!lockedPath.equals(resourcename)) {
                         // remove the exclusive locked sub-resource
                         unlockResource(lockedPath, false);
                     }
@@ -593,13 +564,12 @@ public final class CmsLockManager {
         }
 
         if (lock.getType().isSharedExclusive()) {
-            List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
             // when a resource with a shared lock gets unlocked, fetch all siblings of the resource
             // to the same content record to identify the exclusive locked sibling
             List<CmsResource> siblings = internalReadSiblings(dbc, resource);
             for (int i = 0; i < siblings.size(); i++) {
                 CmsResource sibling = siblings.get(i);
-                if (locks.contains(sibling.getRootPath())) {
+                if (getDirectLock(sibling.getRootPath()) != null) {
                     // remove the exclusive locked sibling
                     if (removeSystemLock) {
                         unlockResource(sibling.getRootPath(), true);
@@ -766,12 +736,10 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
-        while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
+        String parentFolder = CmsResource.getParentFolder(resourceName);
+        while (parentFolder != null) {
+            CmsLock lock = getDirectLock(parentFolder);
+            if (lock != null) {
                 // system locks does not get inherited
                 lock = lock.getEditionLock();
                 // check the lock
@@ -779,10 +747,48 @@ public final class CmsLockManager {
                     return lock;
                 }
             }
+            parentFolder = CmsResource.getParentFolder(parentFolder);
         }
         return CmsLock.getNullLock();
     }
 
+    /**
+     * Returns the cached locks that have to be checked against the given filter for the given root path.<p>
+     *
+     * Unless the filter includes shared locks, only the locks of the subtree and/or the parent folders
+     * of the given root path are returned, as required by the filter.<p>
+     *
+     * @param rootPath the root path to filter the locks for
+     * @param filter the lock filter
+     *
+     * @return the locks to check against the filter
+     */
+    private List<CmsLock> getLocksToFilter(String rootPath, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            // siblings of any locked resource may match, so all locks have to be checked
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> locks = new ArrayList<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedLocks(rootPath));
+        }
+        if (filter.isIncludeParent()) {
+            String parentFolder = rootPath.endsWith("/") ? rootPath : CmsResource.getParentFolder(rootPath);
+            while (parentFolder != null) {
+                // the lock of the root path itself is already contained in the subtree locks
+                if (!filter.isIncludeChildren() || !parentFolder.equals(rootPath)) {
+                    CmsLock lock = getDirectLock(parentFolder);
+                    if (lock != null) {
+                        locks.add(lock);
+                    }
+                }
+                parentFolder = CmsResource.getParentFolder(parentFolder);
+            }
+        }
+        return locks;
+    }
+
     /**
      * Returns the inherited lock of a resource.<p>
      *
@@ -854,6 +860,10 @@ public final class CmsLockManager {
                 }
             } else if (currentLock.getSystemLock().isUnlocked() && !lock.getSystemLock().isUnlocked()) {
                 currentLock.setRelatedLock(lock);
+                if (locks == null) {
+                    // update the cache, since the cached lock now includes a system lock
+                    OpenCms.getMemoryMonitor().cacheLock(currentLock);
+                }
             } else {
                 throw new CmsLockException(
                     Messages.get().container(Messages.ERR_LOCK_ILLEGAL_STATE_2, currentLock, lock));
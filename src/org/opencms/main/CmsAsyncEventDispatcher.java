@@ -0,0 +1,374 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Delivers the events for a single asynchronous event listener.<p>
+ *
+ * The events are stored in a bounded queue and delivered in batches by a single worker thread, so the
+ * listener receives the events in the order they were fired. If the queue is full, the thread firing the
+ * event waits until there is free space in the queue. If the listener fails to process a batch, the events
+ * of the batch are delivered to the listener again one at a time.<p>
+ *
+ * The dispatcher records the number of delivered events and batches, the current queue size
+ * and the latency between firing an event and the end of its delivery. These statistics are written
+ * to the status log of the {@link org.opencms.monitor.CmsMemoryMonitor}.<p>
+ *
+ * @since 10.0.0
+ *
+ * @see CmsAsyncEventManager
+ */
+public class CmsAsyncEventDispatcher {
+
+    /**
+     * An event together with the time it was queued.<p>
+     */
+    private static final class CmsQueuedEvent {
+
+        /** The queued event. */
+        final CmsEvent m_event;
+
+        /** The time the event was queued. */
+        final long m_time;
+
+        /**
+         * Creates a new queued event.<p>
+         *
+         * @param event the queued event
+         */
+        CmsQueuedEvent(CmsEvent event) {
+
+            m_event = event;
+            m_time = System.currentTimeMillis();
+        }
+    }
+
+    /** The static log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsAsyncEventDispatcher.class);
+
+    /** The number of delivered batches. */
+    private AtomicLong m_batches;
+
+    /** The maximum number of events in a batch. */
+    private int m_batchSize;
+
+    /** The number of delivered events. */
+    private AtomicLong m_deliveredEvents;
+
+    /** The executor running the worker thread. */
+    private ExecutorService m_executor;
+
+    /** The number of times the queue was full when an event was fired. */
+    private AtomicLong m_fullQueueCount;
+
+    /** The listener to deliver the events to. */
+    private I_CmsAsyncEventListener m_listener;
+
+    /** The maximum latency of an event in milliseconds. */
+    private volatile long m_maxLatency;
+
+    /** The queued events. */
+    private BlockingQueue<CmsQueuedEvent> m_queue;
+
+    /** The queue capacity. */
+    private int m_queueCapacity;
+
+    /** Indicates that this dispatcher has been shut down. */
+    private volatile boolean m_shutDown;
+
+    /** The sum of the latencies of all delivered events in milliseconds. */
+    private AtomicLong m_totalLatency;
+
+    /**
+     * Creates a new dispatcher and starts its worker thread.<p>
+     *
+     * @param listener the listener to deliver the events to
+     * @param queueCapacity the maximum number of queued events
+     * @param batchSize the maximum number of events delivered in one batch
+     */
+    public CmsAsyncEventDispatcher(I_CmsAsyncEventListener listener, int queueCapacity, int batchSize) {
+
+        m_listener = listener;
+        m_queueCapacity = queueCapacity;
+        m_batchSize = Math.max(1, batchSize);
+        m_queue = new LinkedBlockingQueue<CmsQueuedEvent>(queueCapacity);
+        m_batches = new AtomicLong();
+        m_deliveredEvents = new AtomicLong();
+        m_fullQueueCount = new AtomicLong();
+        m_totalLatency = new AtomicLong();
+        m_executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat(
+                "OpenCms: Event listener " + listener.getClass().getSimpleName()).setDaemon(true).build());
+        m_executor.execute(new Runnable() {
+
+            public void run() {
+
+                deliverEvents();
+            }
+        });
+    }
+
+    /**
+     * Queues an event for delivery.<p>
+     *
+     * If the queue is full, this method waits until there is free space in the queue.<p>
+     *
+     * @param event the event to queue
+     *
+     * @return <code>true</code> if the event has been queued, <code>false</code> if the dispatcher
+     *      has been shut down or the current thread was interrupted, in this case the caller must deliver the event
+     */
+    public boolean dispatch(CmsEvent event) {
+
+        if (m_shutDown) {
+            return false;
+        }
+        CmsQueuedEvent queuedEvent = new CmsQueuedEvent(event);
+        if (m_queue.offer(queuedEvent)) {
+            return true;
+        }
+        m_fullQueueCount.incrementAndGet();
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_ASYNC_EVENT_QUEUE_FULL_2,
+                    m_listener,
+                    String.valueOf(m_queueCapacity)));
+        }
+        try {
+            m_queue.put(queuedEvent);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns the average latency between firing an event and the end of its delivery in milliseconds.<p>
+     *
+     * @return the average latency in milliseconds
+     */
+    public long getAverageLatency() {
+
+        long events = m_deliveredEvents.get();
+        return events > 0 ? m_totalLatency.get() / events : 0;
+    }
+
+    /**
+     * Returns the number of delivered batches.<p>
+     *
+     * @return the number of delivered batches
+     */
+    public long getBatchCount() {
+
+        return m_batches.get();
+    }
+
+    /**
+     * Returns the number of delivered events.<p>
+     *
+     * @return the number of delivered events
+     */
+    public long getDeliveredEventCount() {
+
+        return m_deliveredEvents.get();
+    }
+
+    /**
+     * Returns the number of times the queue was full when an event was fired.<p>
+     *
+     * @return the number of times the queue was full
+     */
+    public long getFullQueueCount() {
+
+        return m_fullQueueCount.get();
+    }
+
+    /**
+     * Returns the listener the events are delivered to.<p>
+     *
+     * @return the listener
+     */
+    public I_CmsAsyncEventListener getListener() {
+
+        return m_listener;
+    }
+
+    /**
+     * Returns the maximum latency between firing an event and the end of its delivery in milliseconds.<p>
+     *
+     * @return the maximum latency in milliseconds
+     */
+    public long getMaxLatency() {
+
+        return m_maxLatency;
+    }
+
+    /**
+     * Returns the maximum number of events waiting for delivery.<p>
+     *
+     * @return the queue capacity
+     */
+    public int getQueueCapacity() {
+
+        return m_queueCapacity;
+    }
+
+    /**
+     * Returns the number of events waiting for delivery.<p>
+     *
+     * @return the number of queued events
+     */
+    public int getQueueSize() {
+
+        return m_queue.size();
+    }
+
+    /**
+     * Shuts down this dispatcher.<p>
+     *
+     * No new events are accepted. The events already queued are delivered if this is possible
+     * within the given time, otherwise the worker thread is interrupted.<p>
+     *
+     * @param timeout the maximum time to wait for the delivery of the queued events in milliseconds
+     */
+    public void shutDown(long timeout) {
+
+        m_shutDown = true;
+        m_executor.shutdown();
+        try {
+            if (!m_executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                m_executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            m_executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_ASYNC_EVENT_STATISTICS_5,
+                    new Object[] {
+                        m_listener,
+                        String.valueOf(getDeliveredEventCount()),
+                        String.valueOf(getBatchCount()),
+                        String.valueOf(getAverageLatency()),
+                        String.valueOf(getQueueSize())}));
+        }
+    }
+
+    /**
+     * Worker loop that delivers the queued events in batches until the dispatcher is shut down
+     * and all queued events have been delivered.<p>
+     */
+    void deliverEvents() {
+
+        List<CmsQueuedEvent> batch = new ArrayList<CmsQueuedEvent>(m_batchSize);
+        while (!m_shutDown || !m_queue.isEmpty()) {
+            try {
+                CmsQueuedEvent first = m_queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                m_queue.drainTo(batch, m_batchSize - 1);
+            } catch (InterruptedException e) {
+                // forced shutdown
+                return;
+            }
+            // the listener may keep the event list, so a new list is used for every batch
+            List<CmsEvent> events = new ArrayList<CmsEvent>(batch.size());
+            for (CmsQueuedEvent queuedEvent : batch) {
+                events.add(queuedEvent.m_event);
+            }
+            try {
+                m_listener.cmsEvents(events);
+            } catch (Throwable t) {
+                // the worker thread must keep running, so errors of the listener are only logged
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_ASYNC_EVENT_LISTENER_ERROR_2,
+                        m_listener,
+                        String.valueOf(events.size())),
+                    t);
+                if (events.size() > 1) {
+                    // deliver the events one at a time, so a single bad event does not cause the loss of the batch
+                    deliverSingleEvents(events);
+                }
+            }
+            long now = System.currentTimeMillis();
+            long latency = 0;
+            for (CmsQueuedEvent queuedEvent : batch) {
+                long eventLatency = now - queuedEvent.m_time;
+                latency += eventLatency;
+                if (eventLatency > m_maxLatency) {
+                    m_maxLatency = eventLatency;
+                }
+            }
+            m_totalLatency.addAndGet(latency);
+            m_deliveredEvents.addAndGet(batch.size());
+            m_batches.incrementAndGet();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Delivers the given events one at a time, after the delivery of the events as batch has failed.<p>
+     *
+     * @param events the events to deliver
+     */
+    private void deliverSingleEvents(List<CmsEvent> events) {
+
+        for (CmsEvent event : events) {
+            try {
+                m_listener.cmsEvent(event);
+            } catch (Throwable t) {
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_ASYNC_EVENT_LISTENER_EVENT_ERROR_2,
+                        m_listener,
+                        String.valueOf(event.getType())),
+                    t);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event manager that delivers the events for asynchronous listeners on separate threads.<p>
+ *
+ * Listeners implementing {@link I_CmsAsyncEventListener} get their own {@link CmsAsyncEventDispatcher},
+ * which queues the events in a bounded queue and delivers them in batches in the order they were fired.
+ * All other listeners are notified synchronously, as with the default {@link CmsEventManager}.<p>
+ *
+ * To use this event manager, configure it in the <code>opencms-system.xml</code>:<pre>
+ * &lt;events&gt;
+ *     &lt;eventmanager class="org.opencms.main.CmsAsyncEventManager" /&gt;
+ * &lt;/events&gt;</pre>
+ *
+ * The delivery statistics of the asynchronous listeners are available with {@link #getDispatchers()}.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsAsyncEventManager extends CmsEventManager {
+
+    /** The default maximum number of events delivered in one batch. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** The default maximum number of queued events per listener. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /** The time to wait for the delivery of queued events on shutdown in milliseconds. */
+    public static final long SHUTDOWN_TIMEOUT = 10000;
+
+    /** The maximum number of events delivered in one batch. */
+    private int m_batchSize;
+
+    /** The dispatchers of the asynchronous listeners. */
+    private ConcurrentHashMap<I_CmsAsyncEventListener, CmsAsyncEventDispatcher> m_dispatchers;
+
+    /** The maximum number of queued events per listener. */
+    private int m_queueCapacity;
+
+    /** Indicates that this event manager has been shut down. */
+    private volatile boolean m_shutDown;
+
+    /**
+     * Creates a new asynchronous event manager with the default queue capacity and batch size.<p>
+     */
+    public CmsAsyncEventManager() {
+
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new asynchronous event manager.<p>
+     *
+     * @param queueCapacity the maximum number of queued events per listener
+     * @param batchSize the maximum number of events delivered in one batch
+     */
+    public CmsAsyncEventManager(int queueCapacity, int batchSize) {
+
+        super();
+        m_queueCapacity = queueCapacity;
+        m_batchSize = batchSize;
+        m_dispatchers = new ConcurrentHashMap<I_CmsAsyncEventListener, CmsAsyncEventDispatcher>();
+    }
+
+    /**
+     * Returns the dispatchers of all asynchronous listeners that have received events so far.<p>
+     *
+     * @return the dispatchers of the asynchronous listeners
+     */
+    public Collection<CmsAsyncEventDispatcher> getDispatchers() {
+
+        return Collections.unmodifiableCollection(m_dispatchers.values());
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#removeCmsEventListener(org.opencms.main.I_CmsEventListener)
+     */
+    @Override
+    public void removeCmsEventListener(I_CmsEventListener listener) {
+
+        super.removeCmsEventListener(listener);
+        CmsAsyncEventDispatcher dispatcher = m_dispatchers.remove(listener);
+        if (dispatcher != null) {
+            dispatcher.shutDown(SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    /**
+     * Shuts down the dispatchers of all asynchronous listeners, delivering the queued events.<p>
+     *
+     * Events fired after the shutdown are delivered synchronously.<p>
+     *
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        synchronized (m_dispatchers) {
+            m_shutDown = true;
+        }
+        for (CmsAsyncEventDispatcher dispatcher : m_dispatchers.values()) {
+            dispatcher.shutDown(SHUTDOWN_TIMEOUT);
+        }
+        m_dispatchers.clear();
+    }
+
+    /**
+     * Queues the event for all asynchronous listeners and notifies the other listeners synchronously.<p>
+     *
+     * @see org.opencms.main.CmsEventManager#fireEventHandler(java.util.List, org.opencms.main.CmsEvent)
+     */
+    @Override
+    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event) {
+
+        if ((listeners == null) || listeners.isEmpty()) {
+            super.fireEventHandler(listeners, event);
+            return;
+        }
+        I_CmsEventListener[] list = listeners.toArray(EVENT_LIST);
+        List<I_CmsEventListener> syncListeners = new ArrayList<I_CmsEventListener>(list.length);
+        for (int i = 0; i < list.length; i++) {
+            I_CmsEventListener listener = list[i];
+            CmsAsyncEventDispatcher dispatcher = null;
+            if (listener instanceof I_CmsAsyncEventListener) {
+                dispatcher = getDispatcher((I_CmsAsyncEventListener)listener);
+            }
+            if ((dispatcher == null) || !dispatcher.dispatch(event)) {
+                syncListeners.add(listener);
+            }
+        }
+        super.fireEventHandler(syncListeners, event);
+    }
+
+    /**
+     * Returns the dispatcher for the given listener, creating it if required.<p>
+     *
+     * @param listener the asynchronous listener
+     *
+     * @return the dispatcher for the listener, or <code>null</code> if the event manager has been shut down
+     */
+    private CmsAsyncEventDispatcher getDispatcher(I_CmsAsyncEventListener listener) {
+
+        CmsAsyncEventDispatcher dispatcher = m_dispatchers.get(listener);
+        if ((dispatcher == null) && !m_shutDown) {
+            synchronized (m_dispatchers) {
+                dispatcher = m_dispatchers.get(listener);
+                if ((dispatcher == null) && !m_shutDown) {
+                    dispatcher = new CmsAsyncEventDispatcher(listener, m_queueCapacity, m_batchSize);
+                    m_dispatchers.put(listener, dispatcher);
+                }
+            }
+        }
+        return dispatcher;
+    }
+}
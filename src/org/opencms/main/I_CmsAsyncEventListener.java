@@ -0,0 +1,57 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.List;
+
+/**
+ * An event listener that can be notified asynchronously and with batches of events.<p>
+ *
+ * If the {@link CmsAsyncEventManager} is configured as event manager, events for listeners implementing this
+ * interface are not delivered on the thread that fires the event. Instead they are queued and delivered in
+ * the order they were fired by a separate thread for each listener, where all events queued since the last
+ * delivery are passed to {@link #cmsEvents(List)} as one batch. This allows the listener to combine
+ * the work for many events, e.g. for a large number of {@link I_CmsEventListener#EVENT_RESOURCE_MODIFIED} events.<p>
+ *
+ * With the default {@link CmsEventManager}, the events are delivered synchronously using
+ * {@link I_CmsEventListener#cmsEvent(CmsEvent)}, so implementations must support both methods.<p>
+ *
+ * Only listeners that do not need to finish their work before the method firing the event returns
+ * should implement this interface.<p>
+ *
+ * @since 10.0.0
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    /**
+     * Handles a batch of events, in the order they have been fired.<p>
+     *
+     * @param events the events to handle
+     */
+    void cmsEvents(List<CmsEvent> events);
+}
@@ -345,6 +345,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBINF_PATH_1 = "INIT_WEBINF_PATH_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_LISTENER_ERROR_2 = "LOG_ASYNC_EVENT_LISTENER_ERROR_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_LISTENER_EVENT_ERROR_2 = "LOG_ASYNC_EVENT_LISTENER_EVENT_ERROR_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_QUEUE_FULL_2 = "LOG_ASYNC_EVENT_QUEUE_FULL_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_STATISTICS_5 = "LOG_ASYNC_EVENT_STATISTICS_5";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CONSOLE_TOTAL_RUNTIME_1 = "LOG_CONSOLE_TOTAL_RUNTIME_1";
 
@@ -381,6 +393,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1 = "LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1 = "LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_EXPORT_1 = "LOG_ERROR_EXPORT_1";
 
@@ -106,6 +106,7 @@ import org.opencms.workplace.CmsWorkplace;
 import org.opencms.workplace.CmsWorkplaceManager;
 import org.opencms.xml.CmsXmlContentTypeManager;
 import org.opencms.xml.containerpage.CmsFormatterConfiguration;
+import org.opencms.xml.content.CmsXmlContentCache;
 
 import java.io.IOException;
 import java.security.Security;
@@ -1195,6 +1196,7 @@ public final class OpenCmsCore {
                 e);
         }
         m_memoryMonitor.initialize(systemConfiguration);
+        CmsXmlContentCache.getInstance().initialize(systemConfiguration.getCacheSettings());
 
         // get the event manager from the configuration and initialize it with the events already registered
         CmsEventManager configuredEventManager = systemConfiguration.getEventManager();
@@ -1826,6 +1828,16 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // deliver the events queued for asynchronous event listeners
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     // search manager must be shut down early since there may be background indexing still ongoing
                     if (m_searchManager != null) {
@@ -1934,6 +1946,7 @@ public final class OpenCmsCore {
                     if (m_memoryMonitor != null) {
                         m_memoryMonitor.shutdown();
                     }
+                    CmsXmlContentCache.getInstance().shutDown();
                 } catch (Throwable e) {
                     CmsLog.INIT.error(
                         Messages.get().getBundle().key(Messages.LOG_ERROR_MEMORY_MONITOR_SHUTDOWN_1, e.getMessage()),
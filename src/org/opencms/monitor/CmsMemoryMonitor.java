@@ -27,6 +27,9 @@
 
 package org.opencms.monitor;
 
+import org.opencms.cache.CmsCacheBudget;
+import org.opencms.cache.CmsClockCacheMap;
+import org.opencms.cache.CmsConcurrentCacheMap;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
@@ -35,6 +38,8 @@ import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
+import org.opencms.db.CmsSqlStatistics;
+import org.opencms.db.CmsSqlStatistics.CmsTimingStatistic;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
@@ -49,6 +54,10 @@ import org.opencms.lock.CmsLock;
 import org.opencms.lock.CmsLockManager;
 import org.opencms.mail.CmsMailTransport;
 import org.opencms.mail.CmsSimpleMail;
+import org.opencms.loader.CmsImageLoader;
+import org.opencms.loader.CmsImageScalingExecutor;
+import org.opencms.main.CmsAsyncEventDispatcher;
+import org.opencms.main.CmsAsyncEventManager;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSessionManager;
@@ -70,6 +79,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.content.CmsXmlContentCache;
+import org.opencms.xml.content.CmsXmlContentCacheEntry;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -80,6 +91,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.mail.internet.InternetAddress;
 
@@ -102,7 +116,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         /** Access Control Lists cache. */
         ACL, /** Content Definition cache. */
         CONTENT_DEFINITION, /** Group cache. */
-        GROUP, /** Has Role cache. */
+        GROUP, /** Online guest permission cache. */
+        GUEST_PERMISSION, /** Has Role cache. */
         HAS_ROLE, /** Locale cache. */
         LOCALE, /** Lock cache. */
         LOCK, /** Memory Object cache. */
@@ -111,7 +126,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         PERMISSION, /** Offline Project cache. */
         PROJECT, /** Project resources cache. */
         PROJECT_RESOURCES, /** Property cache. */
-        PROPERTY, /** Property List cache. */
+        PROPERTY, /** Property List cache, including the effective property maps. */
         PROPERTY_LIST, /** Publish history cache. */
         PUBLISH_HISTORY, /** Publish queue cache. */
         PUBLISH_QUEUE, /** Published resources cache. */
@@ -122,11 +137,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         USER, /** User list cache. */
         USER_LIST, /** User Groups cache. */
         USERGROUPS, /** VFS Object cache. */
-        VFS_OBJECT, /** XML Entity Permanent cache. */
+        VFS_OBJECT, /** Parsed XML content cache. */
+        XML_CONTENT, /** XML Entity Permanent cache. */
         XML_ENTITY_PERM, /** XML Entity Temporary cache. */
         XML_ENTITY_TEMP;
     }
 
+    /** The default share of the cache budget a single cache may use, in percent. */
+    public static final int DEFAULT_CACHE_QUOTA = 10;
+
     /** Set interval for clearing the caches to 10 minutes. */
     private static final int INTERVAL_CLEAR = 1000 * 60 * 10;
 
@@ -139,23 +158,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Maximum depth for object size recursion. */
     private static final int MAX_DEPTH = 5;
 
+    /** The maximum number of query timings written to the log. */
+    private static final int MAX_LOGGED_QUERIES = 20;
+
     /** Cache for access control lists. */
     private Map<String, CmsAccessControlList> m_cacheAccessControlList;
 
+    /** The memory budget of the caches, or <code>null</code> if no budget is configured. */
+    private CmsCacheBudget m_cacheBudget;
+
     /** A temporary cache for XML content definitions. */
     private Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
 
     /** Cache for groups. */
     private Map<String, CmsGroup> m_cacheGroup;
 
+    /** Cache for the permissions of the guest user in the online project, by structure id. */
+    private Map<CmsUUID, Integer> m_cacheGuestPermission;
+
     /** Cache for roles. */
     private Map<String, Boolean> m_cacheHasRoles;
 
     /** A cache for accelerated locale lookup. */
     private Map<String, Locale> m_cacheLocale;
 
-    /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    /** Cache for the resource locks, sorted by root path. */
+    private ConcurrentNavigableMap<String, CmsLock> m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
@@ -164,7 +192,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
     /** Cache for permission checks. */
-    private Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
+    private Map<Object, I_CmsPermissionHandler.CmsPermissionCheckResult> m_cachePermission;
 
     /** Cache for offline projects. */
     private Map<String, CmsProject> m_cacheProject;
@@ -178,6 +206,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for property lists. */
     private Map<String, List<CmsProperty>> m_cachePropertyList;
 
+    /** Cache for effective (inherited) property maps, flushed together with the property lists. */
+    private Map<String, Map<String, CmsProperty>> m_cachePropertyMap;
+
     /** Cache for published resources. */
     private Map<String, List<CmsPublishedResource>> m_cachePublishedResources;
 
@@ -190,6 +221,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for role lists. */
     private Map<String, List<CmsRole>> m_cacheRoleLists;
 
+    /** Index of the cached locks that include a system lock, sorted by root path. */
+    private ConcurrentNavigableMap<String, CmsLock> m_cacheSystemLock;
+
     /** Cache for user data. */
     private Map<String, CmsUser> m_cacheUser;
 
@@ -202,6 +236,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The vfs memory cache map. */
     private Map<String, Object> m_cacheVfsObject;
 
+    /** Cache for parsed XML contents of the online project. */
+    private Map<String, CmsXmlContentCacheEntry> m_cacheXmlContent;
+
     /** A permanent cache to avoid multiple readings of often used files from the VFS. */
     private Map<String, byte[]> m_cacheXmlPermanentEntity;
 
@@ -570,6 +607,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheLock.put(lock.getResourceName(), lock);
+        if (lock.getSystemLock().isUnlocked()) {
+            m_cacheSystemLock.remove(lock.getResourceName());
+        } else {
+            m_cacheSystemLock.put(lock.getResourceName(), lock);
+        }
     }
 
     /**
@@ -600,13 +642,27 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheOrgUnit.put(orgUnit.getName(), orgUnit);
     }
 
+    /**
+     * Caches the permissions of the guest user in the online project for the given resource.<p>
+     *
+     * @param structureId the structure id of the resource
+     * @param permissions the effective permission bits of the guest user
+     */
+    public void cacheGuestPermission(CmsUUID structureId, Integer permissions) {
+
+        if (m_disabled.get(CacheType.GUEST_PERMISSION) != null) {
+            return;
+        }
+        m_cacheGuestPermission.put(structureId, permissions);
+    }
+
     /**
      * Caches the given permission check result under the given cache key.<p>
      *
-     * @param key the cache key
+     * @param key the cache key, a {@link org.opencms.security.CmsPermissionCacheKey} or a String key
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(Object key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
@@ -670,6 +726,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cachePropertyList.put(key, propertyList);
     }
 
+    /**
+     * Caches the given effective property map under the given cache key.<p>
+     *
+     * The effective property maps are part of the {@link CacheType#PROPERTY_LIST} cache.<p>
+     *
+     * @param key the cache key
+     * @param propertyMap the property map to cache, mapping property names to properties
+     */
+    public void cachePropertyMap(String key, Map<String, CmsProperty> propertyMap) {
+
+        if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
+            return;
+        }
+        m_cachePropertyMap.put(key, propertyMap);
+    }
+
     /**
      * Caches the given published resources list under the given cache key.<p>
      *
@@ -824,6 +896,20 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheVfsObject.put(key, obj);
     }
 
+    /**
+     * Caches the given parsed XML content under the given cache key.<p>
+     *
+     * @param key the cache key
+     * @param entry the parsed XML content to cache
+     */
+    public void cacheXmlContent(String key, CmsXmlContentCacheEntry entry) {
+
+        if (m_disabled.get(CacheType.XML_CONTENT) != null) {
+            return;
+        }
+        m_cacheXmlContent.put(key, entry);
+    }
+
     /**
      * Caches the given xml entity under the given system id.<p>
      *
@@ -876,6 +962,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.PROPERTY_LIST);
         flushCache(CacheType.PROJECT_RESOURCES);
         flushCache(CacheType.PUBLISHED_RESOURCES);
+        flushCache(CacheType.GUEST_PERMISSION);
     }
 
     /**
@@ -980,6 +1067,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 case GROUP:
                     m_cacheGroup.clear();
                     break;
+                case GUEST_PERMISSION:
+                    m_cacheGuestPermission.clear();
+                    break;
                 case HAS_ROLE:
                     m_cacheHasRoles.clear();
                     break;
@@ -988,6 +1078,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case LOCK:
                     m_cacheLock.clear();
+                    m_cacheSystemLock.clear();
                     break;
                 case MEMORY_OBJECT:
                     m_cacheMemObject.clear();
@@ -1009,6 +1100,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case PROPERTY_LIST:
                     m_cachePropertyList.clear();
+                    m_cachePropertyMap.clear();
                     break;
                 case PUBLISHED_RESOURCES:
                     m_cachePublishedResources.clear();
@@ -1040,6 +1132,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 case VFS_OBJECT:
                     m_cacheVfsObject.clear();
                     break;
+                case XML_CONTENT:
+                    m_cacheXmlContent.clear();
+                    break;
                 case XML_ENTITY_PERM:
                     m_cacheXmlPermanentEntity.clear();
                     break;
@@ -1097,13 +1192,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         // initialize new lock cache
-        Map<String, CmsLock> newLockCache = Collections.synchronizedMap(newLocks);
+        ConcurrentNavigableMap<String, CmsLock> newLockCache = new ConcurrentSkipListMap<String, CmsLock>(newLocks);
+        ConcurrentNavigableMap<String, CmsLock> newSystemLockCache = new ConcurrentSkipListMap<String, CmsLock>();
+        for (CmsLock lock : newLockCache.values()) {
+            if (!lock.getSystemLock().isUnlocked()) {
+                newSystemLockCache.put(lock.getResourceName(), lock);
+            }
+        }
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
         Map<String, CmsLock> oldCache = m_cacheLock;
+        Map<String, CmsLock> oldSystemCache = m_cacheSystemLock;
         // replace the old by the new cache
         m_cacheLock = newLockCache;
+        m_cacheSystemLock = newSystemLockCache;
+        oldSystemCache.clear();
         // clean up the old cache
         oldCache.clear();
     }
@@ -1424,6 +1528,31 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLock.get(rootPath);
     }
 
+    /**
+     * Returns all cached locks for the given root path and all resources below it, ordered by root path.<p>
+     *
+     * @param rootPath the root path of the subtree, folders must end with a slash
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedLocks(String rootPath) {
+
+        return new ArrayList<CmsLock>(getSubtree(m_cacheLock, rootPath).values());
+    }
+
+    /**
+     * Returns all cached locks that include a system lock for the given root path
+     * and all resources below it, ordered by root path.<p>
+     *
+     * @param rootPath the root path of the subtree, folders must end with a slash
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedSystemLocks(String rootPath) {
+
+        return new ArrayList<CmsLock>(getSubtree(m_cacheSystemLock, rootPath).values());
+    }
+
     /**
      * Returns the memory object cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1448,14 +1577,37 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheOrgUnit.get(key);
     }
 
+    /**
+     * Returns the cached permissions of the guest user in the online project for the given resource,
+     * or <code>null</code> if not found.<p>
+     *
+     * @param structureId the structure id of the resource
+     *
+     * @return the effective permission bits of the guest user
+     */
+    public Integer getCachedGuestPermission(CmsUUID structureId) {
+
+        return m_cacheGuestPermission.get(structureId);
+    }
+
+    /**
+     * Returns the structure ids of all resources with cached permissions of the guest user.<p>
+     *
+     * @return the structure ids of all resources with cached guest permissions
+     */
+    public List<CmsUUID> getCachedGuestPermissionIds() {
+
+        return new ArrayList<CmsUUID>(m_cacheGuestPermission.keySet());
+    }
+
     /**
      * Returns the permission check result cached with the given cache key or <code>null</code> if not found.<p>
      *
-     * @param key the cache key to look for
+     * @param key the cache key to look for, a {@link org.opencms.security.CmsPermissionCacheKey} or a String key
      *
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(Object key) {
 
         return m_cachePermission.get(key);
     }
@@ -1508,6 +1660,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cachePropertyList.get(key);
     }
 
+    /**
+     * Returns the effective property map cached with the given cache key or <code>null</code> if not found.<p>
+     *
+     * @param key the cache key to look for
+     *
+     * @return the effective property map cached with the given cache key
+     */
+    public Map<String, CmsProperty> getCachedPropertyMap(String key) {
+
+        return m_cachePropertyMap.get(key);
+    }
+
     /**
      * Returns the published resources list cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1657,6 +1821,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheVfsObject.get(key);
     }
 
+    /**
+     * Returns the parsed XML content cached with the given key or <code>null</code> if not found.<p>
+     *
+     * @param key the cache key to look for
+     *
+     * @return the parsed XML content cached with the given cache key
+     */
+    public CmsXmlContentCacheEntry getCachedXmlContent(String key) {
+
+        return m_cacheXmlContent.get(key);
+    }
+
     /**
      * Returns the xml permanent entity content cached with the given systemId or <code>null</code> if not found.<p>
      *
@@ -1775,6 +1951,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     new Integer(m_intervalWarning / 1000)));
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.LOG_MM_INTERVAL_MAX_USAGE_1, new Integer(m_maxUsagePercent)));
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(Messages.LOG_MM_CACHE_ENGINE_1, m_configuration.getCacheEngine()));
 
             if ((m_configuration.getEmailReceiver() == null) || (m_configuration.getEmailSender() == null)) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.LOG_MM_EMAIL_DISABLED_0));
@@ -1791,78 +1969,93 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             }
         }
 
+        long cacheBudgetSize = isConcurrentCacheEngine() ? m_configuration.getCacheBudgetSize() : 0;
+        m_cacheBudget = cacheBudgetSize > 0 ? new CmsCacheBudget(cacheBudgetSize) : null;
+        if ((m_cacheBudget != null) && CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(Messages.LOG_MM_CACHE_BUDGET_1, String.valueOf(cacheBudgetSize)));
+        }
+
         // create and register all system caches
 
         // temporary xml entities cache
-        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createLRUMap(128);
-        m_cacheXmlTemporaryEntity = Collections.synchronizedMap(xmlTemporaryCache);
-        register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
+        m_cacheXmlTemporaryEntity = createLruCache(
+            CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache",
+            128);
 
         // permanent xml entities cache
-        Map<String, byte[]> xmlPermanentCache = new HashMap<String, byte[]>(32);
-        m_cacheXmlPermanentEntity = Collections.synchronizedMap(xmlPermanentCache);
-        register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
+        m_cacheXmlPermanentEntity = createUnboundedCache(
+            CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache",
+            32);
 
         // xml content definitions cache
-        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = CmsCollectionsGenericWrapper.createLRUMap(64);
-        m_cacheContentDefinitions = Collections.synchronizedMap(contentDefinitionsCache);
-        register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
-
-        // lock cache
-        Map<String, CmsLock> lockCache = new HashMap<String, CmsLock>();
-        m_cacheLock = Collections.synchronizedMap(lockCache);
-        register(CmsLockManager.class.getName(), lockCache);
+        m_cacheContentDefinitions = createLruCache(
+            CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache",
+            64,
+            m_configuration.getCacheQuota(CacheType.CONTENT_DEFINITION),
+            CmsCacheBudget.PRIORITY_HIGH);
+
+        // parsed xml contents cache
+        m_cacheXmlContent = createLruCache(
+            CmsXmlContentCache.class.getName(),
+            cacheSettings.getXmlContentCacheSize(),
+            m_configuration.getCacheQuota(CacheType.XML_CONTENT),
+            CmsCacheBudget.PRIORITY_LOW);
+
+        // lock cache, always sorted by root path to allow fast subtree lookups
+        m_cacheLock = new ConcurrentSkipListMap<String, CmsLock>();
+        m_cacheSystemLock = new ConcurrentSkipListMap<String, CmsLock>();
+        register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
-        Map<String, Locale> map = new HashMap<String, Locale>();
-        m_cacheLocale = Collections.synchronizedMap(map);
-        register(CmsLocaleManager.class.getName(), map);
+        m_cacheLocale = createUnboundedCache(CmsLocaleManager.class.getName(), 16);
+
+        // permissions cache, read for every permission check, so reading it must not lock or allocate memory
+        m_cachePermission = new CmsClockCacheMap<Object, I_CmsPermissionHandler.CmsPermissionCheckResult>(
+            cacheSettings.getPermissionCacheSize(),
+            m_configuration.getCacheConcurrencyLevel());
+        register(CmsSecurityManager.class.getName(), m_cachePermission);
 
-        // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getPermissionCacheSize());
-        m_cachePermission = Collections.synchronizedMap(lruPermissions);
-        register(CmsSecurityManager.class.getName(), lruPermissions);
+        // online guest permissions cache, only flushed if the permissions of the guest user may have changed
+        m_cacheGuestPermission = new CmsClockCacheMap<CmsUUID, Integer>(
+            cacheSettings.getPermissionCacheSize(),
+            m_configuration.getCacheConcurrencyLevel());
+        register(CmsSecurityManager.class.getName() + ".guestPermissionCache", m_cacheGuestPermission);
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUser = Collections.synchronizedMap(lruUsers);
-        register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
+        m_cacheUser = createLruCache(CmsDriverManager.class.getName() + ".userCache", cacheSettings.getUserCacheSize());
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheUserList = createLruCache(
+            CmsDriverManager.class.getName() + ".userListCache",
             cacheSettings.getUserCacheSize());
-        m_cacheUserList = Collections.synchronizedMap(lruUserList);
-        register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
-        m_cacheGroup = Collections.synchronizedMap(lruGroup);
-        register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
+        m_cacheGroup = createLruCache(
+            CmsDriverManager.class.getName() + ".groupCache",
+            cacheSettings.getGroupCacheSize());
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheOrgUnit = createLruCache(
+            CmsDriverManager.class.getName() + ".orgUnitCache",
             cacheSettings.getOrgUnitCacheSize());
-        m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
-        register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheUserGroups = createLruCache(
+            CmsDriverManager.class.getName() + ".userGroupsCache",
             cacheSettings.getUserGroupsCacheSize());
-        m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
-        register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheProject = createLruCache(
+            CmsDriverManager.class.getName() + ".projectCache",
             cacheSettings.getProjectCacheSize());
-        m_cacheProject = Collections.synchronizedMap(lruProjects);
-        register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getProjectResourcesCacheSize());
-        m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
-        register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
+        m_cacheProjectResources = createLruCache(
+            CmsDriverManager.class.getName() + ".projectResourcesCache",
+            cacheSettings.getProjectResourcesCacheSize(),
+            m_configuration.getCacheQuota(CacheType.PROJECT_RESOURCES),
+            CmsCacheBudget.PRIORITY_LOW);
 
         // publish history
         int size = configuration.getPublishManager().getPublishHistorySize();
@@ -1876,60 +2069,67 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getResourceCacheSize());
-        m_cacheResource = Collections.synchronizedMap(lruResources);
-        register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
+        m_cacheResource = createLruCache(
+            CmsDriverManager.class.getName() + ".resourceCache",
+            cacheSettings.getResourceCacheSize(),
+            m_configuration.getCacheQuota(CacheType.RESOURCE, 25),
+            CmsCacheBudget.PRIORITY_HIGH);
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
-        register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
+        m_cacheHasRoles = createLruCache(
+            CmsDriverManager.class.getName() + ".rolesCache",
+            cacheSettings.getRolesCacheSize());
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheRoleLists = createLruCache(
+            CmsDriverManager.class.getName() + ".roleListsCache",
             cacheSettings.getRolesCacheSize());
-        m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
-        register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getResourcelistCacheSize());
-        m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
-        register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
+        m_cacheResourceList = createLruCache(
+            CmsDriverManager.class.getName() + ".resourceListCache",
+            cacheSettings.getResourcelistCacheSize(),
+            m_configuration.getCacheQuota(CacheType.RESOURCE_LIST, 20),
+            CmsCacheBudget.PRIORITY_LOW);
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(
+        m_cacheProperty = createLruCache(
+            CmsDriverManager.class.getName() + ".propertyCache",
             cacheSettings.getPropertyCacheSize());
-        m_cacheProperty = Collections.synchronizedMap(lruProperty);
-        register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getPropertyListsCacheSize());
-        m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
-        register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
+        m_cachePropertyList = createLruCache(
+            CmsDriverManager.class.getName() + ".propertyListCache",
+            cacheSettings.getPropertyListsCacheSize(),
+            m_configuration.getCacheQuota(CacheType.PROPERTY_LIST, 20),
+            CmsCacheBudget.PRIORITY_NORMAL);
+
+        // effective property map cache
+        m_cachePropertyMap = createLruCache(
+            CmsDriverManager.class.getName() + ".propertyMapCache",
+            cacheSettings.getPropertyListsCacheSize(),
+            m_configuration.getCacheQuota(CacheType.PROPERTY_LIST, 20),
+            CmsCacheBudget.PRIORITY_NORMAL);
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
-        m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
-        register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
+        m_cachePublishedResources = createLruCache(
+            CmsDriverManager.class.getName() + ".publishedResourcesCache",
+            5,
+            m_configuration.getCacheQuota(CacheType.PUBLISHED_RESOURCES),
+            CmsCacheBudget.PRIORITY_LOW);
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(
-            cacheSettings.getAclCacheSize());
-        m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
-        register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
+        m_cacheAccessControlList = createLruCache(
+            CmsDriverManager.class.getName() + ".accessControlListCache",
+            cacheSettings.getAclCacheSize(),
+            m_configuration.getCacheQuota(CacheType.ACL, 15),
+            CmsCacheBudget.PRIORITY_NORMAL);
 
         // vfs object cache
-        Map<String, Object> vfsObjectCache = new HashMap<String, Object>();
-        m_cacheVfsObject = Collections.synchronizedMap(vfsObjectCache);
-        register(CmsVfsMemoryObjectCache.class.getName(), vfsObjectCache);
+        m_cacheVfsObject = createUnboundedCache(CmsVfsMemoryObjectCache.class.getName(), 16);
 
         // memory object cache
-        Map<String, Object> memObjectCache = new HashMap<String, Object>();
-        m_cacheMemObject = Collections.synchronizedMap(memObjectCache);
-        register(CmsMemoryObjectCache.class.getName(), memObjectCache);
+        m_cacheMemObject = createUnboundedCache(CmsMemoryObjectCache.class.getName(), 16);
 
         if (LOG.isDebugEnabled()) {
             // this will happen only once during system startup
@@ -1989,6 +2189,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return isEnabled(CacheType.RESOURCE_LIST);
     }
 
+    /**
+     * Checks if the concurrent cache engine is configured for the core caches.<p>
+     *
+     * @return <code>true</code> if the concurrent cache engine is configured
+     */
+    public boolean isConcurrentCacheEngine() {
+
+        return (m_configuration != null) && m_configuration.isConcurrentCacheEngine();
+    }
+
     /**
      * Checks if the given cache is enabled.<p>
      *
@@ -2031,6 +2241,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             // update the memory status
             monitor.updateStatus();
 
+            // evict cache entries if the cache budget is exceeded
+            if (monitor.m_cacheBudget != null) {
+                monitor.m_cacheBudget.enforce();
+            }
+
             // check if the system is in a low memory condition
             if (monitor.lowMemory()) {
                 // log warning
@@ -2205,6 +2420,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public void uncacheLock(String rootPath) {
 
         m_cacheLock.remove(rootPath);
+        m_cacheSystemLock.remove(rootPath);
     }
 
     /**
@@ -2276,6 +2492,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheVfsObject.remove(key);
     }
 
+    /**
+     * Removes the given parsed XML content from the cache.<p>
+     *
+     * @param key the cache key to remove from cache
+     */
+    public void uncacheXmlContent(String key) {
+
+        m_cacheXmlContent.remove(key);
+    }
+
     /**
      * Removes the given xml temporary entity from the cache.<p>
      *
@@ -2306,6 +2532,91 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         System.gc();
     }
 
+    /**
+     * Creates a new cache bounded by the given number of entries and registers it for monitoring.<p>
+     *
+     * Depending on the configured cache engine, this is either a synchronized {@link LRUMap}
+     * or a {@link CmsConcurrentCacheMap}.<p>
+     *
+     * @param <V> the value type of the cache
+     * @param monitorName the name to register the cache under
+     * @param maxSize the maximum number of entries
+     *
+     * @return the new cache
+     */
+    protected <V> Map<String, V> createLruCache(String monitorName, int maxSize) {
+
+        return createLruCache(
+            monitorName,
+            maxSize,
+            m_configuration.getDefaultCacheQuota(),
+            CmsCacheBudget.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Creates a new cache bounded by the given number of entries and registers it for monitoring.<p>
+     *
+     * If a cache budget is configured, the concurrent cache is bounded by its quota of the budget
+     * instead of the number of entries, and entries are evicted from it according to its priority
+     * if the budget is exceeded.<p>
+     *
+     * @param <V> the value type of the cache
+     * @param monitorName the name to register the cache under
+     * @param maxSize the maximum number of entries
+     * @param quotaPercent the share of the cache budget the cache may use, in percent
+     * @param priority the eviction priority of the cache, see {@link CmsCacheBudget}
+     *
+     * @return the new cache
+     */
+    protected <V> Map<String, V> createLruCache(String monitorName, int maxSize, int quotaPercent, int priority) {
+
+        if (isConcurrentCacheEngine()) {
+            long maxWeight = m_configuration.getCacheMaxWeight();
+            if (m_cacheBudget != null) {
+                long quota = m_cacheBudget.getQuota(quotaPercent);
+                maxWeight = maxWeight > 0 ? Math.min(maxWeight, quota) : quota;
+            }
+            CmsConcurrentCacheMap<String, V> cache = new CmsConcurrentCacheMap<String, V>(
+                maxSize,
+                maxWeight,
+                m_configuration.getCacheConcurrencyLevel(),
+                null,
+                m_cacheBudget);
+            if (m_cacheBudget != null) {
+                m_cacheBudget.register(monitorName, cache, priority);
+            }
+            register(monitorName, cache);
+            return cache;
+        }
+        Map<String, V> lruMap = CmsCollectionsGenericWrapper.createLRUMap(maxSize);
+        register(monitorName, lruMap);
+        return Collections.synchronizedMap(lruMap);
+    }
+
+    /**
+     * Creates a new cache without size limit and registers it for monitoring.<p>
+     *
+     * Depending on the configured cache engine, this is either a synchronized {@link HashMap}
+     * or a {@link ConcurrentHashMap}.<p>
+     *
+     * @param <V> the value type of the cache
+     * @param monitorName the name to register the cache under
+     * @param initialSize the initial capacity
+     *
+     * @return the new cache
+     */
+    protected <V> Map<String, V> createUnboundedCache(String monitorName, int initialSize) {
+
+        if (isConcurrentCacheEngine()) {
+            Map<String, V> cache = new ConcurrentHashMap<String, V>(initialSize);
+            register(monitorName, cache);
+            return cache;
+        }
+        Map<String, V> map = new HashMap<String, V>(initialSize);
+        register(monitorName, map);
+        return Collections.synchronizedMap(map);
+    }
+
     /**
      * Returns the cache costs of a monitored object.<p>
      *
@@ -2417,7 +2728,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      *
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap}, {@link CmsClockCacheMap}
+     * or {@link CmsConcurrentCacheMap}.<p>
      *
      * @param obj the object
      *
@@ -2431,6 +2743,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsClockCacheMap) {
+            return Integer.toString(((CmsClockCacheMap<?, ?>)obj).getMaxSize());
+        }
+        if (obj instanceof CmsConcurrentCacheMap) {
+            CmsConcurrentCacheMap<?, ?> cache = (CmsConcurrentCacheMap<?, ?>)obj;
+            if (cache.getMaxWeight() > 0) {
+                return Long.toString(cache.getMaxWeight());
+            }
+            return Integer.toString(cache.getMaxSize());
+        }
 
         return "-";
     }
@@ -2543,9 +2865,46 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 + "Size: "
                 + form.sprintf(Long.toString(size))
                 + "\n";
+            if (obj instanceof CmsConcurrentCacheMap) {
+                CmsConcurrentCacheMap<?, ?> cache = (CmsConcurrentCacheMap<?, ?>)obj;
+                content += new PrintfFormat("%-42.42s").sprintf("")
+                    + "  "
+                    + "Hits:    "
+                    + form.sprintf(Long.toString(cache.getHitCount()))
+                    + "   "
+                    + "Misses:"
+                    + form.sprintf(Long.toString(cache.getMissCount()))
+                    + "   "
+                    + "Evictions: "
+                    + form.sprintf(Long.toString(cache.getEvictionCount()))
+                    + "\n";
+            }
         }
         content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n\n";
 
+        if (OpenCms.getEventManager() instanceof CmsAsyncEventManager) {
+            CmsAsyncEventManager eventManager = (CmsAsyncEventManager)OpenCms.getEventManager();
+            content += "Current status of the asynchronous event listeners:\n\n";
+            PrintfFormat form = new PrintfFormat("%9s");
+            for (CmsAsyncEventDispatcher dispatcher : eventManager.getDispatchers()) {
+                content += new PrintfFormat("%-42.42s").sprintf(dispatcher.getListener().getClass().getSimpleName())
+                    + "  "
+                    + "Queued:  "
+                    + form.sprintf(Integer.toString(dispatcher.getQueueSize()))
+                    + "   "
+                    + "Delivered:"
+                    + form.sprintf(Long.toString(dispatcher.getDeliveredEventCount()))
+                    + "   "
+                    + "Avg. latency: "
+                    + form.sprintf(Long.toString(dispatcher.getAverageLatency()))
+                    + " ms   "
+                    + "Max. latency: "
+                    + form.sprintf(Long.toString(dispatcher.getMaxLatency()))
+                    + " ms\n";
+            }
+            content += "\n\n";
+        }
+
         String from = m_configuration.getEmailSender();
         List<InternetAddress> receivers = new ArrayList<InternetAddress>();
         List<String> receiverEmails = m_configuration.getEmailReceiver();
@@ -2653,6 +3012,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                             form.sprintf(getItems(obj)),
                             form.sprintf(getLimit(obj)),
                             form.sprintf(Long.toString(size))}));
+                if (obj instanceof CmsConcurrentCacheMap) {
+                    CmsConcurrentCacheMap<?, ?> cache = (CmsConcurrentCacheMap<?, ?>)obj;
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_MM_CACHE_STATS_4,
+                            new Object[] {
+                                name1.sprintf(key),
+                                form.sprintf(Long.toString(cache.getHitCount())),
+                                form.sprintf(Long.toString(cache.getMissCount())),
+                                form.sprintf(Long.toString(cache.getEvictionCount()))}));
+                }
+            }
+            if (m_cacheBudget != null) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_CACHE_BUDGET_STATUS_3,
+                        Long.toString(m_cacheBudget.getSize()),
+                        Long.toString(m_cacheBudget.getMaxSize()),
+                        Long.toString(m_cacheBudget.getExceededCount())));
             }
 
             LOG.info(
@@ -2711,6 +3089,56 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 }
             }
 
+            CmsImageScalingExecutor scalingExecutor = CmsImageLoader.getScalingExecutor();
+            if (scalingExecutor != null) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_IMAGE_SCALING_6,
+                        new Object[] {
+                            String.valueOf(scalingExecutor.getThreads()),
+                            String.valueOf(scalingExecutor.getActiveCount()),
+                            String.valueOf(scalingExecutor.getQueueLength()),
+                            String.valueOf(scalingExecutor.getStartedCount()),
+                            String.valueOf(scalingExecutor.getSharedCount()),
+                            String.valueOf(scalingExecutor.getCallerRunsCount())}));
+            }
+
+            if (OpenCms.getEventManager() instanceof CmsAsyncEventManager) {
+                CmsAsyncEventManager eventManager = (CmsAsyncEventManager)OpenCms.getEventManager();
+                for (CmsAsyncEventDispatcher dispatcher : eventManager.getDispatchers()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_MM_ASYNC_EVENTS_8,
+                            new Object[] {
+                                dispatcher.getListener().getClass().getName(),
+                                String.valueOf(dispatcher.getQueueSize()),
+                                String.valueOf(dispatcher.getQueueCapacity()),
+                                String.valueOf(dispatcher.getDeliveredEventCount()),
+                                String.valueOf(dispatcher.getBatchCount()),
+                                String.valueOf(dispatcher.getAverageLatency()),
+                                String.valueOf(dispatcher.getMaxLatency()),
+                                String.valueOf(dispatcher.getFullQueueCount())}));
+                }
+            }
+
+            CmsSqlStatistics sqlStatistics = OpenCms.getSqlManager().getSqlStatistics();
+            if (sqlStatistics != null) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_SQL_STATISTICS_1,
+                        String.valueOf(sqlStatistics.getExecutedStatements())));
+                for (String checkout : sqlStatistics.getPoolCheckouts()) {
+                    LOG.info(checkout);
+                }
+                List<CmsTimingStatistic> queries = sqlStatistics.getQueryStatistics();
+                for (CmsTimingStatistic query : queries.subList(0, Math.min(queries.size(), MAX_LOGGED_QUERIES))) {
+                    LOG.info(query.toString());
+                }
+                for (String statement : sqlStatistics.getSlowStatements()) {
+                    LOG.info(statement);
+                }
+            }
+
             LOG.info(
                 Messages.get().getBundle().key(
                     Messages.LOG_MM_STARTUP_TIME_2,
@@ -2727,4 +3155,22 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Returns the view of a map sorted by root path that contains the given path and all paths below it.<p>
+     *
+     * @param <V> the value type
+     * @param map the map sorted by root path
+     * @param rootPath the root path of the subtree
+     *
+     * @return the subtree view
+     */
+    private static <V> ConcurrentNavigableMap<String, V> getSubtree(
+        ConcurrentNavigableMap<String, V> map,
+        String rootPath) {
+
+        // all paths starting with the given root path are sorted between the path itself
+        // and the path followed by the highest possible character
+        return map.subMap(rootPath, true, rootPath + Character.MAX_VALUE, false);
+    }
 }
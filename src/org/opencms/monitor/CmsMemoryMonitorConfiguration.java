@@ -27,11 +27,14 @@
 
 package org.opencms.monitor;
 
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.util.CmsStringUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Memory Monitor configuration class.<p>
@@ -40,9 +43,36 @@ import java.util.List;
  */
 public class CmsMemoryMonitorConfiguration {
 
+    /** Cache engine name for concurrent, size or weight bounded caches. */
+    public static final String CACHE_ENGINE_CONCURRENT = "concurrent";
+
+    /** Cache engine name for synchronized LRU maps (default). */
+    public static final String CACHE_ENGINE_LRU = "lru";
+
+    /** Cache type name used to configure the quota of all caches without an explicit quota. */
+    public static final String CACHE_QUOTA_DEFAULT = "default";
+
+    /** The memory budget of all caches as configured, either in bytes or as percentage of the maximum heap size. */
+    private String m_cacheBudget;
+
+    /** The concurrency level used by the concurrent cache engine. */
+    private int m_cacheConcurrencyLevel;
+
+    /** The cache engine to use. */
+    private String m_cacheEngine;
+
+    /** The maximum weight in bytes of a single cache, 0 means caches are bounded by entry count only. */
+    private long m_cacheMaxWeight;
+
+    /** The configured shares of the cache budget in percent, by cache type. */
+    private Map<CacheType, Integer> m_cacheQuotas;
+
     /** The memory monitor class name. */
     private String m_className;
 
+    /** The share of the cache budget in percent for caches without an explicit quota. */
+    private int m_defaultCacheQuota;
+
     /** The interval to use for sending emails. */
     private int m_emailInterval;
 
@@ -67,6 +97,9 @@ public class CmsMemoryMonitorConfiguration {
     public CmsMemoryMonitorConfiguration() {
 
         m_emailReceiver = new ArrayList<String>();
+        m_cacheEngine = CACHE_ENGINE_LRU;
+        m_cacheQuotas = new EnumMap<CacheType, Integer>(CacheType.class);
+        m_defaultCacheQuota = CmsMemoryMonitor.DEFAULT_CACHE_QUOTA;
     }
 
     /**
@@ -79,6 +112,102 @@ public class CmsMemoryMonitorConfiguration {
         m_emailReceiver.add(emailReceiver);
     }
 
+    /**
+     * Returns the memory budget of all caches as configured.<p>
+     *
+     * @return the memory budget of all caches, either in bytes or as percentage of the maximum heap size,
+     *      or <code>null</code> if no budget is configured
+     */
+    public String getCacheBudget() {
+
+        return m_cacheBudget;
+    }
+
+    /**
+     * Returns the memory budget of all caches in bytes.<p>
+     *
+     * If the budget is configured as percentage, e.g. <code>25%</code>, it is calculated from the maximum heap size.<p>
+     *
+     * @return the memory budget of all caches in bytes, or 0 if no budget is configured
+     */
+    public long getCacheBudgetSize() {
+
+        if (m_cacheBudget == null) {
+            return 0;
+        }
+        if (m_cacheBudget.endsWith("%")) {
+            int percent = Integer.parseInt(m_cacheBudget.substring(0, m_cacheBudget.length() - 1).trim());
+            return (Runtime.getRuntime().maxMemory() / 100) * percent;
+        }
+        return Long.parseLong(m_cacheBudget);
+    }
+
+    /**
+     * Returns the concurrency level used by the concurrent cache engine.<p>
+     *
+     * @return the concurrency level, or 0 if the default should be used
+     */
+    public int getCacheConcurrencyLevel() {
+
+        return m_cacheConcurrencyLevel;
+    }
+
+    /**
+     * Returns the name of the cache engine.<p>
+     *
+     * @return the name of the cache engine
+     */
+    public String getCacheEngine() {
+
+        return m_cacheEngine;
+    }
+
+    /**
+     * Returns the maximum weight in bytes of a single cache.<p>
+     *
+     * @return the maximum weight of a single cache, or 0 if caches are only bounded by entry count
+     */
+    public long getCacheMaxWeight() {
+
+        return m_cacheMaxWeight;
+    }
+
+    /**
+     * Returns the share of the cache budget the cache of the given type may use.<p>
+     *
+     * @param type the cache type
+     *
+     * @return the configured quota in percent, or the default quota if none is configured for the type
+     */
+    public int getCacheQuota(CacheType type) {
+
+        return getCacheQuota(type, m_defaultCacheQuota);
+    }
+
+    /**
+     * Returns the share of the cache budget the cache of the given type may use.<p>
+     *
+     * @param type the cache type
+     * @param defaultQuota the quota in percent to use if none is configured for the type
+     *
+     * @return the configured quota in percent, or the given default quota if none is configured for the type
+     */
+    public int getCacheQuota(CacheType type, int defaultQuota) {
+
+        Integer quota = m_cacheQuotas.get(type);
+        return quota != null ? quota.intValue() : defaultQuota;
+    }
+
+    /**
+     * Returns the configured shares of the cache budget by cache type.<p>
+     *
+     * @return the configured quotas in percent, by cache type
+     */
+    public Map<CacheType, Integer> getCacheQuotas() {
+
+        return Collections.unmodifiableMap(m_cacheQuotas);
+    }
+
     /**
      * Returns the name of the memory monitor class.<p>
      *
@@ -89,6 +218,16 @@ public class CmsMemoryMonitorConfiguration {
         return m_className;
     }
 
+    /**
+     * Returns the share of the cache budget in percent for caches without an explicit quota.<p>
+     *
+     * @return the default cache quota in percent
+     */
+    public int getDefaultCacheQuota() {
+
+        return m_defaultCacheQuota;
+    }
+
     /**
      * Returns the intervalEmail.<p>
      *
@@ -180,6 +319,86 @@ public class CmsMemoryMonitorConfiguration {
         m_warningInterval = Integer.parseInt(warningInterval);
     }
 
+    /**
+     * Returns if the concurrent cache engine should be used.<p>
+     *
+     * @return <code>true</code> if the concurrent cache engine should be used
+     */
+    public boolean isConcurrentCacheEngine() {
+
+        return CACHE_ENGINE_CONCURRENT.equals(m_cacheEngine);
+    }
+
+    /**
+     * Sets the memory budget of all caches.<p>
+     *
+     * The budget is either a number of bytes, or a percentage of the maximum heap size, e.g. <code>25%</code>.<p>
+     *
+     * @param cacheBudget the memory budget to set
+     */
+    public void setCacheBudget(String cacheBudget) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(cacheBudget)) {
+            m_cacheBudget = cacheBudget.trim();
+            // fail early on invalid values
+            getCacheBudgetSize();
+        }
+    }
+
+    /**
+     * Sets the concurrency level used by the concurrent cache engine.<p>
+     *
+     * @param concurrencyLevel the concurrency level to set
+     */
+    public void setCacheConcurrencyLevel(String concurrencyLevel) {
+
+        m_cacheConcurrencyLevel = Integer.parseInt(concurrencyLevel.trim());
+    }
+
+    /**
+     * Sets the cache engine.<p>
+     *
+     * @param cacheEngine the cache engine to set, either {@link #CACHE_ENGINE_LRU} or {@link #CACHE_ENGINE_CONCURRENT}
+     */
+    public void setCacheEngine(String cacheEngine) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(cacheEngine)) {
+            m_cacheEngine = cacheEngine.trim().toLowerCase();
+        }
+    }
+
+    /**
+     * Sets the maximum weight in bytes of a single cache.<p>
+     *
+     * @param maxWeight the maximum weight to set
+     */
+    public void setCacheMaxWeight(String maxWeight) {
+
+        m_cacheMaxWeight = Long.parseLong(maxWeight.trim());
+    }
+
+    /**
+     * Sets the share of the cache budget the caches of the given type may use.<p>
+     *
+     * The type is either the name of a {@link CacheType}, or {@link #CACHE_QUOTA_DEFAULT}
+     * to set the quota of all caches without an explicit quota.<p>
+     *
+     * @param type the cache type
+     * @param quota the quota in percent, between 1 and 100
+     */
+    public void setCacheQuota(String type, String quota) {
+
+        int percent = Integer.parseInt(quota.trim());
+        if ((percent < 1) || (percent > 100)) {
+            throw new IllegalArgumentException(quota);
+        }
+        if (CACHE_QUOTA_DEFAULT.equalsIgnoreCase(type.trim())) {
+            m_defaultCacheQuota = percent;
+        } else {
+            m_cacheQuotas.put(CacheType.valueOf(type.trim().toUpperCase()), Integer.valueOf(percent));
+        }
+    }
+
     /**
      * Sets the emailSender.<p>
      *
@@ -43,6 +43,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLEAR_CACHE_MEM_CONS_0 = "LOG_CLEAR_CACHE_MEM_CONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_ASYNC_EVENTS_8 = "LOG_MM_ASYNC_EVENTS_8";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_BUDGET_1 = "LOG_MM_CACHE_BUDGET_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_BUDGET_STATUS_3 = "LOG_MM_CACHE_BUDGET_STATUS_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_ENGINE_1 = "LOG_MM_CACHE_ENGINE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_STATS_4 = "LOG_MM_CACHE_STATS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
@@ -58,6 +73,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_EMAIL_SENDER_1 = "LOG_MM_EMAIL_SENDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_IMAGE_SCALING_6 = "LOG_MM_IMAGE_SCALING_6";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_INTERVAL_EMAIL_1 = "LOG_MM_INTERVAL_EMAIL_1";
 
@@ -79,6 +97,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_SESSION_STAT_3 = "LOG_MM_SESSION_STAT_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_SQL_STATISTICS_1 = "LOG_MM_SQL_STATISTICS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STARTUP_TIME_2 = "LOG_MM_STARTUP_TIME_2";
 
@@ -69,6 +69,12 @@ public class CmsPublishManager {
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default number of resources in a parallel publish batch. */
+    public static final int DEFAULT_PUBLISH_BATCH_SIZE = 100;
+
+    /** The default number of publish worker threads, 1 means resources are published serially. */
+    public static final int DEFAULT_PUBLISH_WORKERS = 1;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
@@ -84,6 +90,9 @@ public class CmsPublishManager {
     /** The underlying publish engine. */
     private CmsPublishEngine m_publishEngine;
 
+    /** The number of resources in a parallel publish batch. */
+    private int m_publishBatchSize = DEFAULT_PUBLISH_BATCH_SIZE;
+
     /** The maximum size of the publish history. */
     private int m_publishHistorySize;
 
@@ -99,6 +108,9 @@ public class CmsPublishManager {
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The number of publish worker threads. */
+    private int m_publishWorkers = DEFAULT_PUBLISH_WORKERS;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -262,6 +274,17 @@ public class CmsPublishManager {
         return m_publishHistorySize;
     }
 
+    /**
+     * Returns the number of resources that are published together in one batch
+     * if files are published in parallel.<p>
+     *
+     * @return the number of resources in a parallel publish batch
+     */
+    public int getPublishBatchSize() {
+
+        return m_publishBatchSize;
+    }
+
     /**
      * Gets the publish job verifier.<p>
      *
@@ -413,6 +436,18 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the number of worker threads used to publish the files of a publish job.<p>
+     *
+     * A value of 1 means that all resources are published serially.<p>
+     *
+     * @return the number of publish worker threads
+     */
+    public int getPublishWorkers() {
+
+        return m_publishWorkers;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -660,6 +695,19 @@ public class CmsPublishManager {
         m_publishEngine = publishEngine;
     }
 
+    /**
+     * Sets the number of resources in a parallel publish batch.<p>
+     *
+     * @param publishBatchSize the batch size to set, parsed as <code>int</code>
+     */
+    public void setPublishBatchSize(String publishBatchSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishBatchSize = Math.max(1, Integer.parseInt(publishBatchSize));
+    }
+
     /**
      * Sets the publish History Size.<p>
      *
@@ -712,6 +760,19 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the number of worker threads used to publish the files of a publish job.<p>
+     *
+     * @param publishWorkers the number of worker threads to set, parsed as <code>int</code>
+     */
+    public void setPublishWorkers(String publishWorkers) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishWorkers = Math.max(1, Integer.parseInt(publishWorkers));
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      *
@@ -0,0 +1,347 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import org.opencms.i18n.CmsMessageContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Report that buffers all output and writes it to another report in one block.<p>
+ *
+ * This is used if several threads write to the same report, e.g. during a parallel publish,
+ * so that the output lines written for one resource are not mixed up with the output of other threads.
+ * The buffered output is written to the target report with {@link #flush()}, which synchronizes on the target report.<p>
+ *
+ * All methods that only read information, like {@link #getLocale()}, are delegated to the target report.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsBufferedReport implements I_CmsReport {
+
+    /**
+     * A single buffered report entry.<p>
+     */
+    private static final class CmsReportEntry {
+
+        /** The entry type for an error. */
+        static final int ERROR = 0;
+
+        /** The entry type for a print call. */
+        static final int PRINT = 1;
+
+        /** The entry type for a println call. */
+        static final int PRINTLN = 2;
+
+        /** The entry type for an exception. */
+        static final int THROWABLE = 3;
+
+        /** The entry type for a warning. */
+        static final int WARNING = 4;
+
+        /** The output format. */
+        int m_format;
+
+        /** The entry object, either a message container, a throwable or an error / warning object. */
+        Object m_object;
+
+        /** The entry type. */
+        int m_type;
+
+        /**
+         * Creates a new report entry.<p>
+         *
+         * @param type the entry type
+         * @param object the entry object
+         * @param format the output format
+         */
+        CmsReportEntry(int type, Object object, int format) {
+
+            m_type = type;
+            m_object = object;
+            m_format = format;
+        }
+    }
+
+    /** The buffered entries. */
+    private List<CmsReportEntry> m_entries;
+
+    /** The report to write the buffered output to. */
+    private I_CmsReport m_report;
+
+    /**
+     * Creates a new buffered report for the given target report.<p>
+     *
+     * @param report the report to write the buffered output to
+     */
+    public CmsBufferedReport(I_CmsReport report) {
+
+        m_report = report;
+        m_entries = new ArrayList<CmsReportEntry>();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#addError(java.lang.Object)
+     */
+    public void addError(Object obj) {
+
+        m_entries.add(new CmsReportEntry(CmsReportEntry.ERROR, obj, FORMAT_DEFAULT));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#addWarning(java.lang.Object)
+     */
+    public void addWarning(Object obj) {
+
+        m_entries.add(new CmsReportEntry(CmsReportEntry.WARNING, obj, FORMAT_DEFAULT));
+    }
+
+    /**
+     * Writes all buffered output to the target report and clears the buffer.<p>
+     */
+    public void flush() {
+
+        if (m_entries.isEmpty()) {
+            return;
+        }
+        synchronized (m_report) {
+            for (CmsReportEntry entry : m_entries) {
+                switch (entry.m_type) {
+                    case CmsReportEntry.ERROR:
+                        m_report.addError(entry.m_object);
+                        break;
+                    case CmsReportEntry.WARNING:
+                        m_report.addWarning(entry.m_object);
+                        break;
+                    case CmsReportEntry.THROWABLE:
+                        m_report.println((Throwable)entry.m_object);
+                        break;
+                    case CmsReportEntry.PRINT:
+                        m_report.print((CmsMessageContainer)entry.m_object, entry.m_format);
+                        break;
+                    case CmsReportEntry.PRINTLN:
+                    default:
+                        if (entry.m_object == null) {
+                            m_report.println();
+                        } else {
+                            m_report.println((CmsMessageContainer)entry.m_object, entry.m_format);
+                        }
+                }
+            }
+        }
+        m_entries.clear();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#formatRuntime()
+     */
+    public String formatRuntime() {
+
+        return m_report.formatRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getErrors()
+     */
+    public List<Object> getErrors() {
+
+        return m_report.getErrors();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getLastEntryTime()
+     */
+    public long getLastEntryTime() {
+
+        return m_report.getLastEntryTime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getLocale()
+     */
+    public Locale getLocale() {
+
+        return m_report.getLocale();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return m_report.getReportUpdate();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getRuntime()
+     */
+    public long getRuntime() {
+
+        return m_report.getRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getSiteRoot()
+     */
+    public String getSiteRoot() {
+
+        return m_report.getSiteRoot();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getWarnings()
+     */
+    public List<Object> getWarnings() {
+
+        return m_report.getWarnings();
+    }
+
+    /**
+     * Returns <code>true</code> if this report or the target report contains an error.<p>
+     *
+     * @see org.opencms.report.I_CmsReport#hasError()
+     */
+    public boolean hasError() {
+
+        return hasEntry(CmsReportEntry.ERROR) || m_report.hasError();
+    }
+
+    /**
+     * Returns <code>true</code> if this report or the target report contains a warning.<p>
+     *
+     * @see org.opencms.report.I_CmsReport#hasWarning()
+     */
+    public boolean hasWarning() {
+
+        return hasEntry(CmsReportEntry.WARNING) || m_report.hasWarning();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#print(org.opencms.i18n.CmsMessageContainer)
+     */
+    public void print(CmsMessageContainer container) {
+
+        print(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    public void print(CmsMessageContainer container, int format) {
+
+        m_entries.add(new CmsReportEntry(CmsReportEntry.PRINT, container, format));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        m_entries.add(new CmsReportEntry(CmsReportEntry.PRINTLN, null, FORMAT_DEFAULT));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+     */
+    public void println(CmsMessageContainer container) {
+
+        println(container, FORMAT_DEFAULT);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    public void println(CmsMessageContainer container, int format) {
+
+        m_entries.add(new CmsReportEntry(CmsReportEntry.PRINTLN, container, format));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(Throwable t) {
+
+        m_entries.add(new CmsReportEntry(CmsReportEntry.THROWABLE, t, FORMAT_DEFAULT));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#printMessageWithParam(org.opencms.i18n.CmsMessageContainer, java.lang.Object)
+     */
+    public void printMessageWithParam(CmsMessageContainer container, Object param) {
+
+        print(container, I_CmsReport.FORMAT_NOTE);
+        print(Messages.get().container(Messages.RPT_ARGUMENT_1, param));
+        print(Messages.get().container(Messages.RPT_DOTS_0));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#printMessageWithParam(int, int, org.opencms.i18n.CmsMessageContainer, java.lang.Object)
+     */
+    public void printMessageWithParam(int m, int n, CmsMessageContainer container, Object param) {
+
+        print(
+            Messages.get().container(Messages.RPT_SUCCESSION_2, String.valueOf(m), String.valueOf(n)),
+            I_CmsReport.FORMAT_NOTE);
+        printMessageWithParam(container, param);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#removeSiteRoot(java.lang.String)
+     */
+    public String removeSiteRoot(String resourcename) {
+
+        return m_report.removeSiteRoot(resourcename);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#resetRuntime()
+     */
+    public void resetRuntime() {
+
+        m_report.resetRuntime();
+    }
+
+    /**
+     * Checks if an entry of the given type has been buffered.<p>
+     *
+     * @param type the entry type
+     *
+     * @return <code>true</code> if an entry of the given type has been buffered
+     */
+    private boolean hasEntry(int type) {
+
+        for (CmsReportEntry entry : m_entries) {
+            if (entry.m_type == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
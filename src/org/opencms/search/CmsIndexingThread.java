@@ -118,7 +118,7 @@ public class CmsIndexingThread extends Thread {
             docOk = true;
 
             // check if the thread was interrupted
-            if (isInterrupted() && LOG.isDebugEnabled()) {
+            if (Thread.currentThread().isInterrupted() && LOG.isDebugEnabled()) {
                 LOG.debug(
                     Messages.get().getBundle().key(Messages.LOG_ABANDONED_THREAD_FINISHED_1, m_res.getRootPath()));
             }
@@ -31,26 +31,134 @@ import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsLog;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implements the management of indexing threads.<p>
  *
+ * The documents for the resources are created concurrently by a bounded number of worker threads,
+ * which are reused for many resources. The created documents are written to the index writer
+ * by the thread that calls {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)},
+ * so the index writer is only ever used by a single thread.<p>
+ *
+ * If a document is not created within the timeout, its worker thread is interrupted and abandoned,
+ * and the resource is removed from the index. An abandoned worker thread no longer counts against the
+ * number of workers, so a hanging document extraction does not reduce the indexing throughput.<p>
+ *
  * @since 6.0.0
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A document creation task for a single resource.<p>
+     */
+    private class CmsIndexingTask implements Runnable {
+
+        /** The indexer the task belongs to. */
+        CmsVfsIndexer m_indexer;
+
+        /** The report buffering the output of the task. */
+        CmsBufferedReport m_report;
+
+        /** The resource to index. */
+        CmsResource m_resource;
+
+        /** The time the task was submitted, in nanoseconds. */
+        long m_submitTime;
+
+        /** The indexing thread that creates the document, executed by a worker thread. */
+        CmsIndexingThread m_thread;
+
+        /** The worker thread currently executing the task. */
+        Thread m_worker;
+
+        /** The index writer to write the document to. */
+        I_CmsIndexWriter m_writer;
+
+        /**
+         * Creates a new indexing task.<p>
+         *
+         * @param indexer the indexer the task belongs to
+         * @param writer the index writer to write the document to
+         * @param resource the resource to index
+         * @param count the report count
+         */
+        CmsIndexingTask(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource resource, int count) {
+
+            m_indexer = indexer;
+            m_writer = writer;
+            m_resource = resource;
+            I_CmsReport report = indexer.getReport();
+            m_report = report != null ? new CmsBufferedReport(report) : null;
+            m_thread = newIndexingThread(indexer, resource, count, m_report);
+            m_submitTime = System.nanoTime();
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            synchronized (this) {
+                m_worker = Thread.currentThread();
+            }
+            try {
+                m_thread.run();
+            } finally {
+                synchronized (this) {
+                    m_worker = null;
+                    // clear a pending interrupt, so that it does not affect the next task of the worker
+                    Thread.interrupted();
+                }
+                if (m_report != null) {
+                    m_report.flush();
+                }
+                m_finished.add(this);
+            }
+        }
+
+        /**
+         * Interrupts the worker thread executing the task, if any.<p>
+         */
+        synchronized void interrupt() {
+
+            if (m_worker != null) {
+                m_worker.interrupt();
+            }
+        }
+    }
+
+    /** The time in seconds an idle worker thread is kept. */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The executor running the indexing tasks. */
+    private ThreadPoolExecutor m_executor;
+
+    /** The tasks that have finished creating their document, but have not been written yet. */
+    private BlockingQueue<CmsIndexingTask> m_finished;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,34 +168,72 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The submitted tasks that have not been written or abandoned yet. */
+    private Set<CmsIndexingTask> m_pending;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
     /** Overall number of threads started. */
     private int m_startedCounter;
 
+    /** The time the first indexing task was started. */
+    private long m_startTime;
+
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** The number of worker threads creating documents concurrently. */
+    private int m_workers;
+
     /**
      * Creates and starts a thread manager for indexing threads.<p>
      *
+     * Documents are created by a single worker thread.<p>
+     *
      * @param timeout timeout after a thread is abandoned
      * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     *
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param workers the number of worker threads, if <code>0</code> the number of available processors is used
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int workers) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        m_pending = new LinkedHashSet<CmsIndexingTask>();
+        m_finished = new LinkedBlockingQueue<CmsIndexingTask>();
+        // the number of running tasks is limited by the number of pending tasks, but abandoned
+        // threads keep running, so the pool must be able to create additional threads
+        m_executor = new ThreadPoolExecutor(
+            0,
+            Integer.MAX_VALUE,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(),
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Indexing worker %d").setDaemon(true).setPriority(
+                Thread.MIN_PRIORITY).build());
     }
 
     /**
-     * Creates and starts a new indexing thread for a resource.<p>
+     * Creates a document for a resource on one of the worker threads.<p>
      *
-     * After an indexing thread was started, the manager suspends itself
-     * and waits for an amount of time specified by the <code>timeout</code>
-     * value. If the timeout value is reached, the indexing thread is
-     * aborted by an interrupt signal.<p>
+     * If all worker threads are busy, the manager waits until a worker becomes available.
+     * While waiting, the documents created by the other workers are written to the index writer.
+     * If a document is not created within the <code>timeout</code>, its worker thread is aborted
+     * by an interrupt signal and abandoned.<p>
+     *
+     * Call {@link #isRunning()} after the last resource to write all remaining documents.<p>
      *
      * @param indexer the VFS indexer to create the index thread for
      * @param writer the index writer that can update the index
@@ -95,71 +241,69 @@ public class CmsIndexingThreadManager {
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
-        I_CmsReport report = indexer.getReport();
-        m_startedCounter++;
-        CmsIndexingThread thread = new CmsIndexingThread(
-            indexer.getCms(),
-            res,
-            indexer.getIndex(),
-            m_startedCounter,
-            report);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
-        try {
-            thread.join(m_timeout);
-        } catch (InterruptedException e) {
-            // ignore
-        }
-        if (thread.isAlive()) {
-            // the thread has not finished - so it must be marked as an abandoned thread
-            m_abandonedCounter++;
-            thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
-        } else {
-            // the thread finished normally
-            m_returnedCounter++;
-        }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
-            }
+        if (m_startTime == 0) {
+            m_startTime = System.currentTimeMillis();
         }
+        // wait until a worker is available
+        writeDocuments(m_workers - 1);
+        m_startedCounter++;
+        CmsIndexingTask task = new CmsIndexingTask(indexer, writer, res, m_startedCounter);
+        m_pending.add(task);
+        m_executor.execute(task);
+    }
+
+    /**
+     * Returns the number of indexing threads abandoned because they reached the timeout.<p>
+     *
+     * @return the number of abandoned indexing threads
+     */
+    public int getAbandonedCounter() {
+
+        return m_abandonedCounter;
+    }
+
+    /**
+     * Returns the number of indexing threads that returned within the timeout.<p>
+     *
+     * @return the number of returned indexing threads
+     */
+    public int getReturnedCounter() {
+
+        return m_returnedCounter;
+    }
+
+    /**
+     * Returns the number of indexing threads started.<p>
+     *
+     * @return the number of started indexing threads
+     */
+    public int getStartedCounter() {
+
+        return m_startedCounter;
+    }
+
+    /**
+     * Returns the number of worker threads creating documents concurrently.<p>
+     *
+     * @return the number of worker threads
+     */
+    public int getWorkers() {
+
+        return m_workers;
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      *
+     * All documents created so far are written to their index writers before this method returns.<p>
+     *
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        // write all remaining documents
+        writeDocuments(0);
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -217,9 +361,147 @@ public class CmsIndexingThreadManager {
                     report.formatRuntime()});
 
             report.println(message);
+            long duration = m_startTime > 0 ? Math.max(1, System.currentTimeMillis() - m_startTime) : 0;
+            long documents = m_returnedCounter + m_abandonedCounter;
+            CmsMessageContainer throughput = Messages.get().container(
+                Messages.RPT_SEARCH_INDEXING_THROUGHPUT_3,
+                String.valueOf(duration > 0 ? (documents * 1000) / duration : 0),
+                String.valueOf(m_workers),
+                String.valueOf(duration));
+            report.println(throughput);
             if (!(report instanceof CmsLogReport) && LOG.isInfoEnabled()) {
                 // only write to the log if report is not already a log report
                 LOG.info(message.key());
+                LOG.info(throughput.key());
+            }
+        }
+    }
+
+    /**
+     * Creates the indexing thread that creates the document for a resource.<p>
+     *
+     * The returned thread is not started, its {@link CmsIndexingThread#run()} method is executed by a worker thread.<p>
+     *
+     * @param indexer the VFS indexer the resource is indexed for
+     * @param resource the resource to index
+     * @param count the report count
+     * @param report the report to write the output to
+     *
+     * @return the indexing thread
+     */
+    protected CmsIndexingThread newIndexingThread(
+        CmsVfsIndexer indexer,
+        CmsResource resource,
+        int count,
+        I_CmsReport report) {
+
+        return new CmsIndexingThread(indexer.getCms(), resource, indexer.getIndex(), count, report);
+    }
+
+    /**
+     * Abandons a task that has not created its document within the timeout.<p>
+     *
+     * @param task the task to abandon
+     */
+    private void abandon(CmsIndexingTask task) {
+
+        // the thread has not finished - so it must be marked as an abandoned thread
+        m_abandonedCounter++;
+        task.interrupt();
+        String rootPath = task.m_resource.getRootPath();
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, rootPath));
+        }
+        I_CmsReport report = task.m_indexer.getReport();
+        if (report != null) {
+            synchronized (report) {
+                report.println();
+                report.print(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                    I_CmsReport.FORMAT_WARNING);
+                report.println(
+                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, rootPath),
+                    I_CmsReport.FORMAT_WARNING);
+            }
+        }
+        writeDocument(task, null);
+    }
+
+    /**
+     * Writes the document of a task to the index writer, or deletes the resource from the index if
+     * no document was created.<p>
+     *
+     * @param task the task
+     * @param doc the document created by the task, or <code>null</code>
+     */
+    private void writeDocument(CmsIndexingTask task, I_CmsSearchDocument doc) {
+
+        CmsVfsIndexer indexer = task.m_indexer;
+        if (doc != null) {
+            // write the document to the index
+            indexer.updateResource(task.m_writer, task.m_resource.getRootPath(), doc);
+        } else {
+            indexer.deleteResource(task.m_writer, new CmsPublishedResource(task.m_resource));
+        }
+        if (((m_returnedCounter + m_abandonedCounter) % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                task.m_writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            indexer.getIndex().getName(),
+                            indexer.getIndex().getPath()),
+                        e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the documents of finished tasks until no more than the given number of tasks is pending.<p>
+     *
+     * Tasks that exceed the timeout while waiting are abandoned.<p>
+     *
+     * @param maxPending the maximum number of pending tasks
+     */
+    private void writeDocuments(int maxPending) {
+
+        long timeout = TimeUnit.MILLISECONDS.toNanos(m_timeout);
+        while (m_pending.size() > maxPending) {
+            // the oldest pending task has the earliest deadline
+            CmsIndexingTask oldest = m_pending.iterator().next();
+            long wait = (oldest.m_submitTime + timeout) - System.nanoTime();
+            CmsIndexingTask task = null;
+            if (wait > 0) {
+                try {
+                    task = m_finished.poll(wait, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    // ignore, the timeouts are checked below
+                }
+            } else {
+                task = m_finished.poll();
+            }
+            if (task != null) {
+                if (m_pending.remove(task)) {
+                    // the thread finished normally
+                    m_returnedCounter++;
+                    writeDocument(task, task.m_thread.getResult());
+                }
+                // otherwise the task has already been abandoned
+                continue;
+            }
+            long now = System.nanoTime();
+            Iterator<CmsIndexingTask> i = m_pending.iterator();
+            while (i.hasNext()) {
+                CmsIndexingTask pending = i.next();
+                if ((now - pending.m_submitTime) < timeout) {
+                    // all later tasks have been submitted after this one
+                    break;
+                }
+                i.remove();
+                abandon(pending);
             }
         }
     }
@@ -45,6 +45,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsAsyncEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.main.OpenCmsSolrHandler;
@@ -154,7 +155,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /**
      * Handles offline index generation.<p>
      */
-    protected class CmsSearchOfflineHandler implements I_CmsEventListener {
+    protected class CmsSearchOfflineHandler implements I_CmsAsyncEventListener {
 
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
@@ -175,46 +176,27 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
          *
          * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
          */
-        @SuppressWarnings("unchecked")
         public void cmsEvent(CmsEvent event) {
 
-            switch (event.getType()) {
-                case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
-                case I_CmsEventListener.EVENT_RESOURCE_CREATED:
-                case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
-                case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
-                    Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
-                    if ((change != null) && change.equals(new Integer(CmsDriverManager.NOTHING_CHANGED))) {
-                        // skip lock & unlock
-                        return;
-                    }
-                    // a resource has been modified - offline indexes require (re)indexing
-                    List<CmsResource> resources = Collections.singletonList(
-                        (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
-                    reIndexResources(resources);
-                    break;
-                case I_CmsEventListener.EVENT_RESOURCE_DELETED:
-                    List<CmsResource> eventResources = (List<CmsResource>)event.getData().get(
-                        I_CmsEventListener.KEY_RESOURCES);
-                    List<CmsResource> resourcesToDelete = new ArrayList<CmsResource>(eventResources);
-                    for (CmsResource res : resourcesToDelete) {
-                        if (res.getState().isNew()) {
-                            // if the resource is new and a delete action was performed
-                            // --> set the state of the resource to deleted
-                            res.setState(CmsResourceState.STATE_DELETED);
-                        }
-                    }
-                    reIndexResources(resourcesToDelete);
-                    break;
-                case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
-                case I_CmsEventListener.EVENT_RESOURCE_MOVED:
-                case I_CmsEventListener.EVENT_RESOURCE_COPIED:
-                case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
-                    // a list of resources has been modified - offline indexes require (re)indexing
-                    reIndexResources((List<CmsResource>)event.getData().get(I_CmsEventListener.KEY_RESOURCES));
-                    break;
-                default:
-                    // no operation
+            List<CmsResource> resources = getResourcesToReindex(event);
+            if (!resources.isEmpty()) {
+                reIndexResources(resources);
+            }
+        }
+
+        /**
+         * Collects the resources of all given events and updates the offline indexes for them at once.<p>
+         *
+         * @see org.opencms.main.I_CmsAsyncEventListener#cmsEvents(java.util.List)
+         */
+        public void cmsEvents(List<CmsEvent> events) {
+
+            List<CmsResource> resources = new ArrayList<CmsResource>();
+            for (CmsEvent event : events) {
+                resources.addAll(getResourcesToReindex(event));
+            }
+            if (!resources.isEmpty()) {
+                reIndexResources(resources);
             }
         }
 
@@ -294,6 +276,52 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
         }
 
+        /**
+         * Returns the resources of the given event that require (re)indexing in the offline indexes.<p>
+         *
+         * @param event the event
+         *
+         * @return the resources to reindex, or an empty list if the event does not require reindexing
+         */
+        @SuppressWarnings("unchecked")
+        protected List<CmsResource> getResourcesToReindex(CmsEvent event) {
+
+            switch (event.getType()) {
+                case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+                case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+                case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+                case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                    Object change = event.getData().get(I_CmsEventListener.KEY_CHANGE);
+                    if ((change != null) && change.equals(new Integer(CmsDriverManager.NOTHING_CHANGED))) {
+                        // skip lock & unlock
+                        return Collections.emptyList();
+                    }
+                    // a resource has been modified - offline indexes require (re)indexing
+                    return Collections.singletonList((CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE));
+                case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+                    List<CmsResource> eventResources = (List<CmsResource>)event.getData().get(
+                        I_CmsEventListener.KEY_RESOURCES);
+                    List<CmsResource> resourcesToDelete = new ArrayList<CmsResource>(eventResources);
+                    for (CmsResource res : resourcesToDelete) {
+                        if (res.getState().isNew()) {
+                            // if the resource is new and a delete action was performed
+                            // --> set the state of the resource to deleted
+                            res.setState(CmsResourceState.STATE_DELETED);
+                        }
+                    }
+                    return resourcesToDelete;
+                case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+                case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+                case I_CmsEventListener.EVENT_RESOURCE_COPIED:
+                case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                    // a list of resources has been modified - offline indexes require (re)indexing
+                    return (List<CmsResource>)event.getData().get(I_CmsEventListener.KEY_RESOURCES);
+                default:
+                    // no operation
+                    return Collections.emptyList();
+            }
+        }
+
         /**
          * Updates all offline indexes for the given list of {@link CmsResource} objects.<p>
          *
@@ -619,6 +647,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The default value used for keeping the extraction results in the cache (672 hours = 4 weeks). */
     public static final float DEFAULT_EXTRACTION_CACHE_MAX_AGE = 672.0f;
 
+    /** The default number of threads creating index documents concurrently. */
+    public static final int DEFAULT_INDEXING_THREADS = 1;
+
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
@@ -667,6 +698,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The max age for extraction results to remain in the cache. */
     private float m_extractionCacheMaxAge;
 
+    /** The maximum size of the extraction result cache in megabytes, 0 for the default size. */
+    private int m_extractionCacheMaxSize;
+
     /** The cache for the extraction results. */
     private CmsExtractionResultCache m_extractionResultCache;
 
@@ -685,6 +719,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Seconds to wait for an index lock. */
     private int m_indexLockMaxWaitSeconds = 10;
 
+    /** The number of threads creating index documents concurrently, <code>0</code> for the number of processors. */
+    private int m_indexingThreads = DEFAULT_INDEXING_THREADS;
+
     /** Configured index sources. */
     private Map<String, CmsSearchIndexSource> m_indexSources;
 
@@ -1179,6 +1216,26 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_extractionCacheMaxAge;
     }
 
+    /**
+     * Returns the maximum size of the extraction result cache in megabytes.<p>
+     *
+     * @return the maximum size of the extraction result cache in megabytes, <code>0</code> for the default size
+     */
+    public int getExtractionCacheMaxSize() {
+
+        return m_extractionCacheMaxSize;
+    }
+
+    /**
+     * Returns the cache for the text extraction results.<p>
+     *
+     * @return the cache for the text extraction results, <code>null</code> if the search manager is not initialized
+     */
+    public CmsExtractionResultCache getExtractionResultCache() {
+
+        return m_extractionResultCache;
+    }
+
     /**
      * Returns the search field configuration with the given name.<p>
      *
@@ -1340,6 +1397,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_maxExcerptLength;
     }
 
+    /**
+     * Returns the number of threads creating index documents concurrently.<p>
+     *
+     * @return the number of threads creating index documents concurrently, <code>0</code> for the number of processors
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the maximum number of modifications before a commit in the search index is triggered.<p>
      *
@@ -1474,7 +1541,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         // create the extraction result cache
         m_extractionResultCache = new CmsExtractionResultCache(
             OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(getDirectory()),
-            "/extractCache");
+            "/extractCache",
+            m_extractionCacheMaxSize * 1024L * 1024L);
         initializeIndexes();
         initOfflineIndexes();
 
@@ -2012,6 +2080,36 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum size of the extraction result cache in megabytes.<p>
+     *
+     * @param extractionCacheMaxSize the maximum size in megabytes, <code>0</code> for the default size
+     */
+    public void setExtractionCacheMaxSize(int extractionCacheMaxSize) {
+
+        m_extractionCacheMaxSize = Math.max(0, extractionCacheMaxSize);
+    }
+
+    /**
+     * Sets the maximum size of the extraction result cache in megabytes as a String.<p>
+     *
+     * @param value the maximum size in megabytes, <code>0</code> for the default size
+     */
+    public void setExtractionCacheMaxSize(String value) {
+
+        try {
+            setExtractionCacheMaxSize(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_EXTRACTION_CACHE_SIZE_FAILED_2,
+                    value,
+                    new Long(CmsExtractionResultCache.DEFAULT_MAX_SIZE / (1024 * 1024))),
+                e);
+            setExtractionCacheMaxSize(0);
+        }
+    }
+
     /**
      * Sets the unlock mode during indexing.<p>
      *
@@ -2049,6 +2147,36 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_indexLockMaxWaitSeconds = value;
     }
 
+    /**
+     * Sets the number of threads creating index documents concurrently.<p>
+     *
+     * @param indexingThreads the number of threads, <code>0</code> for the number of processors
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = Math.max(0, indexingThreads);
+    }
+
+    /**
+     * Sets the number of threads creating index documents concurrently as a string.<p>
+     *
+     * @param value the number of threads, <code>0</code> for the number of processors
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            setIndexingThreads(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    new Integer(DEFAULT_INDEXING_THREADS)),
+                e);
+            setIndexingThreads(DEFAULT_INDEXING_THREADS);
+        }
+    }
+
     /**
      * Sets the max. excerpt length.<p>
      *
@@ -2202,6 +2330,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
         shutDownSolrContainer();
 
+        if (m_extractionResultCache != null) {
+            m_extractionResultCache.shutDown();
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_MANAGER_0));
         }
@@ -2369,7 +2501,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, m_indexingThreads);
     }
 
     /**
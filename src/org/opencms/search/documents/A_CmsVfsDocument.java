@@ -113,45 +113,46 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
         if (index.isExtractingContent()) {
             // do full text content extraction only if required
 
-            // check if caching is enabled for this document type
-            CmsExtractionResultCache cache = getCache();
-            String cacheName = null;
-            if ((cache != null) && (resource.getSiblingCount() > 1)) {
-                // hard drive based caching only makes sense for resources that have siblings,
-                // because the index will also store the content as a blob
-                cacheName = cache.getCacheName(
-                    resource,
-                    isLocaleDependend() ? index.getLocaleForResource(cms, resource, null) : null,
-                    getName());
-                content = cache.getCacheObject(cacheName);
-            }
-
-            if (content == null) {
-                // extraction result has not been found in the cache
-                // compare "date of last modification of content" from Lucene index and OpenCms VFS
-                // if this is identical, then the data from the Lucene index can be re-used
-                I_CmsSearchDocument oldDoc = index.getDocument(CmsSearchField.FIELD_PATH, resource.getRootPath());
-                // first check if the document is already in the index
-                if ((oldDoc != null) && (oldDoc.getFieldValueAsDate(CmsSearchField.FIELD_DATE_CONTENT) != null)) {
-                    long contentDateIndex = oldDoc.getFieldValueAsDate(CmsSearchField.FIELD_DATE_CONTENT).getTime();
-                    // now compare the date with the date stored in the resource
-                    if (contentDateIndex == resource.getDateContent()) {
-                        // extract stored content blob from index
-                        content = CmsExtractionResult.fromBytes(oldDoc.getContentBlob());
-                    }
+            // compare "date of last modification of content" from Lucene index and OpenCms VFS
+            // if this is identical, then the data from the Lucene index can be re-used
+            I_CmsSearchDocument oldDoc = index.getDocument(CmsSearchField.FIELD_PATH, resource.getRootPath());
+            // first check if the document is already in the index
+            if ((oldDoc != null) && (oldDoc.getFieldValueAsDate(CmsSearchField.FIELD_DATE_CONTENT) != null)) {
+                long contentDateIndex = oldDoc.getFieldValueAsDate(CmsSearchField.FIELD_DATE_CONTENT).getTime();
+                // now compare the date with the date stored in the resource
+                if (contentDateIndex == resource.getDateContent()) {
+                    // extract stored content blob from index
+                    content = CmsExtractionResult.fromBytes(oldDoc.getContentBlob());
                 }
             }
 
             if (content == null) {
                 // extraction result has not been attached to the resource
                 try {
-                    content = extractContent(cms, resource, index);
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Extracting content for '" + resource.getRootPath() + "' successful.");
+                    // check if caching is enabled for this document type
+                    CmsExtractionResultCache cache = getCache();
+                    String contentKey = null;
+                    CmsResource source = resource;
+                    if (cache != null) {
+                        // the cache is content based, so the result is shared by all resources with the same content
+                        CmsFile file = readFile(cms, resource);
+                        contentKey = cache.getContentKey(
+                            file.getContents(),
+                            isLocaleDependend() ? index.getLocaleForResource(cms, resource, null) : null,
+                            getName());
+                        content = cache.getContentCacheObject(contentKey);
+                        // the extractors read the file again, this returns the already read file
+                        source = file;
                     }
-                    if ((cache != null) && (resource.getSiblingCount() > 1)) {
-                        // save extracted content to the cache
-                        cache.saveCacheObject(cacheName, content);
+                    if (content == null) {
+                        content = extractContent(cms, source, index);
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Extracting content for '" + resource.getRootPath() + "' successful.");
+                        }
+                        if (cache != null) {
+                            // save extracted content to the cache
+                            cache.saveContentCacheObject(contentKey, content);
+                        }
                     }
                 } catch (CmsIndexNoContentException e) {
                     // there was no content found for the resource
@@ -0,0 +1,482 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.documents;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Memory mapped index of the entries of the content based extraction result cache.<p>
+ *
+ * The index is a hash table with open addressing stored in a single file. Every record consists of
+ * the 64 bit key of the entry, the time of the last access and the size of the cached file.
+ * Since the file is memory mapped, looking up and touching an entry does not require any file system access,
+ * and the index survives restarts without having to scan the cache directory.<p>
+ *
+ * The table is grown if it becomes too full. All methods are synchronized and only work on the mapped buffer,
+ * the cached files themselves are read and written by the caller outside of the lock.<p>
+ *
+ * @since 10.0.0
+ */
+class CmsExtractionCacheIndex {
+
+    /** The initial number of records in a new index. */
+    static final int INITIAL_CAPACITY = 4096;
+
+    /** The size of the index file header in bytes. */
+    private static final int HEADER_SIZE = 16;
+
+    /** The maximum load factor of the table. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** The magic number identifying an index file. */
+    private static final int MAGIC = 0x4F434549;
+
+    /** The offset of the last access time in a record. */
+    private static final int OFFSET_ACCESS = 8;
+
+    /** The offset of the file size in a record. */
+    private static final int OFFSET_SIZE = 16;
+
+    /** The size of a record in bytes. */
+    private static final int RECORD_SIZE = 24;
+
+    /** The version of the index file format. */
+    private static final int VERSION = 1;
+
+    /** The mapped index file. */
+    private MappedByteBuffer m_buffer;
+
+    /** The number of records in the table. */
+    private int m_capacity;
+
+    /** The channel of the index file. */
+    private FileChannel m_channel;
+
+    /** The number of entries in the table. */
+    private int m_count;
+
+    /** Indicates if the index file had to be created, so existing cache files are unknown. */
+    private boolean m_created;
+
+    /** The index file. */
+    private RandomAccessFile m_file;
+
+    /** The total size of all indexed files. */
+    private long m_totalSize;
+
+    /**
+     * Opens the given index file, creating a new index if the file does not exist or is not a valid index.<p>
+     *
+     * @param file the index file
+     *
+     * @throws IOException if the index file could not be opened
+     */
+    CmsExtractionCacheIndex(File file)
+    throws IOException {
+
+        boolean exists = file.exists() && (file.length() >= HEADER_SIZE);
+        m_file = new RandomAccessFile(file, "rw");
+        m_channel = m_file.getChannel();
+        int capacity = 0;
+        if (exists) {
+            MappedByteBuffer header = m_channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if ((header.getInt(0) == MAGIC) && (header.getInt(4) == VERSION)) {
+                capacity = header.getInt(8);
+                if ((capacity <= 0)
+                    || (Integer.bitCount(capacity) != 1)
+                    || (m_file.length() < (HEADER_SIZE + ((long)capacity * RECORD_SIZE)))) {
+                    capacity = 0;
+                }
+            }
+        }
+        if (capacity > 0) {
+            m_capacity = capacity;
+            m_buffer = m_channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + ((long)capacity * RECORD_SIZE));
+            // recount the entries instead of trusting a header that may be out of date after a crash
+            for (int slot = 0; slot < m_capacity; slot++) {
+                if (getKey(slot) != 0) {
+                    m_count++;
+                    m_totalSize += getSize(slot);
+                }
+            }
+        } else {
+            m_created = true;
+            init(INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Returns the number of records in the table.<p>
+     *
+     * @return the number of records in the table
+     */
+    synchronized int getCapacity() {
+
+        return m_capacity;
+    }
+
+    /**
+     * Returns the number of entries in the index.<p>
+     *
+     * @return the number of entries in the index
+     */
+    synchronized int getCount() {
+
+        return m_count;
+    }
+
+    /**
+     * Returns the total size of all indexed files.<p>
+     *
+     * @return the total size of all indexed files
+     */
+    synchronized long getTotalSize() {
+
+        return m_totalSize;
+    }
+
+    /**
+     * Returns <code>true</code> if the index file had to be newly created.<p>
+     *
+     * @return <code>true</code> if the index file had to be newly created
+     */
+    boolean isCreated() {
+
+        return m_created;
+    }
+
+    /**
+     * Adds an entry to the index, or updates the size and access time if the entry already exists.<p>
+     *
+     * @param key the key of the entry, must not be 0
+     * @param size the size of the cached file
+     * @param time the access time
+     *
+     * @throws IOException if the index file has to be grown and this fails
+     */
+    synchronized void put(long key, long size, long time) throws IOException {
+
+        int slot = findSlot(key);
+        if (getKey(slot) == key) {
+            m_totalSize += size - getSize(slot);
+        } else {
+            if ((m_count + 1) > (m_capacity * LOAD_FACTOR)) {
+                grow();
+                slot = findSlot(key);
+            }
+            m_buffer.putLong(offset(slot), key);
+            m_count++;
+            m_totalSize += size;
+        }
+        m_buffer.putLong(offset(slot) + OFFSET_ACCESS, time);
+        m_buffer.putLong(offset(slot) + OFFSET_SIZE, size);
+    }
+
+    /**
+     * Removes the entry with the given key from the index.<p>
+     *
+     * @param key the key of the entry to remove
+     *
+     * @return <code>true</code> if the entry was found in the index
+     */
+    synchronized boolean remove(long key) {
+
+        int slot = findSlot(key);
+        if (getKey(slot) != key) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes all entries that have not been accessed since the given time.<p>
+     *
+     * @param time the oldest access time to keep
+     *
+     * @return the keys of the removed entries
+     */
+    synchronized List<Long> removeOlderThan(long time) {
+
+        List<Long> result = new ArrayList<Long>();
+        int slot = 0;
+        while (slot < m_capacity) {
+            long key = getKey(slot);
+            if ((key != 0) && (getAccess(slot) < time)) {
+                result.add(Long.valueOf(key));
+                // removing shifts a later record into this slot, so check the same slot again
+                removeSlot(slot);
+            } else {
+                slot++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes the least recently accessed entries until the total size is not larger than the given size.<p>
+     *
+     * @param size the maximum total size
+     *
+     * @return the keys of the removed entries
+     */
+    synchronized List<Long> shrink(long size) {
+
+        List<Long> result = new ArrayList<Long>();
+        if (m_totalSize <= size) {
+            return result;
+        }
+        long[][] entries = new long[m_count][];
+        int i = 0;
+        for (int slot = 0; slot < m_capacity; slot++) {
+            long key = getKey(slot);
+            if (key != 0) {
+                entries[i++] = new long[] {getAccess(slot), key};
+            }
+        }
+        Arrays.sort(entries, new Comparator<long[]>() {
+
+            public int compare(long[] o1, long[] o2) {
+
+                return o1[0] < o2[0] ? -1 : (o1[0] == o2[0] ? 0 : 1);
+            }
+        });
+        for (i = 0; (i < entries.length) && (m_totalSize > size); i++) {
+            Long key = Long.valueOf(entries[i][1]);
+            remove(key.longValue());
+            result.add(key);
+        }
+        return result;
+    }
+
+    /**
+     * Writes all changes to the index file and closes it.<p>
+     *
+     * @throws IOException if closing the file fails
+     */
+    synchronized void shutDown() throws IOException {
+
+        if (m_buffer != null) {
+            m_buffer.force();
+            m_buffer = null;
+        }
+        m_channel.close();
+        m_file.close();
+    }
+
+    /**
+     * Looks up the entry with the given key and updates its access time.<p>
+     *
+     * @param key the key of the entry
+     * @param time the access time
+     *
+     * @return <code>true</code> if the entry was found in the index
+     */
+    synchronized boolean touch(long key, long time) {
+
+        int slot = findSlot(key);
+        if (getKey(slot) != key) {
+            return false;
+        }
+        m_buffer.putLong(offset(slot) + OFFSET_ACCESS, time);
+        return true;
+    }
+
+    /**
+     * Returns the slot of the entry with the given key, or the empty slot where it would be inserted.<p>
+     *
+     * @param key the key to look up
+     *
+     * @return the slot of the key
+     */
+    private int findSlot(long key) {
+
+        int mask = m_capacity - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            long current = getKey(slot);
+            if ((current == 0) || (current == key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the last access time stored in the given slot.<p>
+     *
+     * @param slot the slot
+     *
+     * @return the last access time
+     */
+    private long getAccess(int slot) {
+
+        return m_buffer.getLong(offset(slot) + OFFSET_ACCESS);
+    }
+
+    /**
+     * Returns the key stored in the given slot, 0 means the slot is empty.<p>
+     *
+     * @param slot the slot
+     *
+     * @return the key
+     */
+    private long getKey(int slot) {
+
+        return m_buffer.getLong(offset(slot));
+    }
+
+    /**
+     * Returns the file size stored in the given slot.<p>
+     *
+     * @param slot the slot
+     *
+     * @return the file size
+     */
+    private long getSize(int slot) {
+
+        return m_buffer.getLong(offset(slot) + OFFSET_SIZE);
+    }
+
+    /**
+     * Doubles the capacity of the table and re-inserts all entries.<p>
+     *
+     * @throws IOException if mapping the larger file fails
+     */
+    private void grow() throws IOException {
+
+        long[] records = new long[m_count * 3];
+        int i = 0;
+        for (int slot = 0; slot < m_capacity; slot++) {
+            long key = getKey(slot);
+            if (key != 0) {
+                records[i++] = key;
+                records[i++] = getAccess(slot);
+                records[i++] = getSize(slot);
+            }
+        }
+        init(m_capacity * 2);
+        for (i = 0; i < records.length; i += 3) {
+            int slot = findSlot(records[i]);
+            m_buffer.putLong(offset(slot), records[i]);
+            m_buffer.putLong(offset(slot) + OFFSET_ACCESS, records[i + 1]);
+            m_buffer.putLong(offset(slot) + OFFSET_SIZE, records[i + 2]);
+            m_count++;
+            m_totalSize += records[i + 2];
+        }
+    }
+
+    /**
+     * Spreads the bits of the key, since the keys are taken from a digest this is mainly a safety measure.<p>
+     *
+     * @param key the key
+     *
+     * @return the hash of the key
+     */
+    private int hash(long key) {
+
+        int h = (int)(key ^ (key >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Maps the index file with the given capacity and clears all records.<p>
+     *
+     * @param capacity the number of records, must be a power of 2
+     *
+     * @throws IOException if mapping the file fails
+     */
+    private void init(int capacity) throws IOException {
+
+        m_capacity = capacity;
+        m_count = 0;
+        m_totalSize = 0;
+        m_buffer = m_channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + ((long)capacity * RECORD_SIZE));
+        int size = m_buffer.capacity();
+        for (int pos = 0; pos < size; pos += 8) {
+            m_buffer.putLong(pos, 0);
+        }
+        m_buffer.putInt(0, MAGIC);
+        m_buffer.putInt(4, VERSION);
+        m_buffer.putInt(8, capacity);
+    }
+
+    /**
+     * Returns the position of the given slot in the mapped file.<p>
+     *
+     * @param slot the slot
+     *
+     * @return the position of the slot
+     */
+    private int offset(int slot) {
+
+        return HEADER_SIZE + (slot * RECORD_SIZE);
+    }
+
+    /**
+     * Clears the given slot and moves following records of the same probe sequence back,
+     * so that lookups do not stop early at the cleared slot.<p>
+     *
+     * @param slot the slot to clear
+     */
+    private void removeSlot(int slot) {
+
+        m_count--;
+        m_totalSize -= getSize(slot);
+        int mask = m_capacity - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (true) {
+            long key = getKey(next);
+            if (key == 0) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // move the record if its home slot is not cyclically between the hole and its current slot
+            boolean move = (hole <= next) ? ((home <= hole) || (home > next)) : ((home <= hole) && (home > next));
+            if (move) {
+                m_buffer.putLong(offset(hole), key);
+                m_buffer.putLong(offset(hole) + OFFSET_ACCESS, getAccess(next));
+                m_buffer.putLong(offset(hole) + OFFSET_SIZE, getSize(next));
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        m_buffer.putLong(offset(hole), 0);
+        m_buffer.putLong(offset(hole) + OFFSET_ACCESS, 0);
+        m_buffer.putLong(offset(hole) + OFFSET_SIZE, 0);
+    }
+}
@@ -35,48 +35,123 @@ import org.opencms.search.extractors.I_CmsExtractionResult;
 import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.logging.Log;
 
 /**
  * Implements a disk cache that stores text extraction results in the RFS.<p>
  *
- * This cache operates on resource file names, plus a hash code calculated from
- * {@link org.opencms.file.CmsResource#getDateLastModified()}
- * and {@link org.opencms.file.CmsResource#getLength()}. Optional a locale can be appended to this name.<p>
+ * The cache is content addressed: the key of an extraction result is a SHA-1 digest of the binary content
+ * of the resource, the name of the search document type and the locale, see
+ * {@link #getContentKey(byte[], Locale, String)}. This means that a document is extracted only once,
+ * no matter how many resources (siblings, copies or versions in the online and the offline project)
+ * share the same content.<p>
  *
- * Since text extraction is done only on the content of a resource, all siblings must have the same content.
- * The difference can be only by the locale setting in case of an XML content or XML page. However,
- * the most problematic contents to extract for the search are in fact the MS Office and PDF formats.
- * For these documents, all siblings must produce the exact same text extraction result.<p>
+ * The entries are tracked in a memory mapped index file in the cache folder,
+ * which stores the size and the last access time of every cached file. The index is used to keep the
+ * total size of the cache below the configured maximum, by removing the least recently used entries,
+ * and to remove expired entries without having to scan the cache folder.
+ * The number of cache hits, misses and evicted entries is counted for the search administration.<p>
  *
- * This cache is usable for resources from the online AND the offline project at the same time,
- * because any change to a resource will result in a changed hash code. This means a resource changed in the offline
- * project will have a new hash code compared to the online project. If the resource is identical in the online and
- * the offline project, the generated hash codes will be the same.<p>
+ * The name based methods {@link #getCacheName(CmsResource, Locale, String)}, {@link #getCacheObject(String)}
+ * and {@link #saveCacheObject(String, I_CmsExtractionResult)} are still supported for compatibility,
+ * files stored with these methods are not tracked by the index and only removed by {@link #cleanCache(float)}.<p>
  *
  * @since 6.2.0
  */
 public class CmsExtractionResultCache {
 
+    /** The default maximum size of the content based cache in bytes. */
+    public static final long DEFAULT_MAX_SIZE = 512L * 1024L * 1024L;
+
+    /** The name of the index file in the cache folder. */
+    public static final String INDEX_FILE_NAME = "index.dat";
+
+    /** The length of the content digest in bytes. */
+    private static final int DIGEST_LENGTH = 20;
+
+    /** The ratio of the maximum size the cache is shrunk to if the maximum size is exceeded. */
+    private static final float SHRINK_RATIO = 0.9f;
+
+    /** The file name suffix for cached extraction results. */
+    private static final String SUFFIX = ".ext";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExtractionResultCache.class);
 
+    /** The number of entries removed from the content based cache. */
+    private AtomicLong m_evictions;
+
+    /** The number of content based lookups that found a cached extraction result. */
+    private AtomicLong m_hits;
+
+    /** The index of the content based cache entries, <code>null</code> if the index could not be opened. */
+    private CmsExtractionCacheIndex m_index;
+
+    /** The maximum size of the content based cache in bytes. */
+    private long m_maxSize;
+
+    /** The number of content based lookups that did not find a cached extraction result. */
+    private AtomicLong m_misses;
+
     /** The name of the cache base repository folder in the RFS. */
     private String m_rfsRepository;
 
     /**
-     * Creates a new disk cache.<p>
+     * Creates a new disk cache with the default maximum size.<p>
      *
      * @param basepath the base path for the cache in the RFS
      * @param foldername the folder name for this cache, to be used a subfolder for the base folder
      */
     public CmsExtractionResultCache(String basepath, String foldername) {
 
+        this(basepath, foldername, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new disk cache.<p>
+     *
+     * @param basepath the base path for the cache in the RFS
+     * @param foldername the folder name for this cache, to be used a subfolder for the base folder
+     * @param maxSize the maximum size of the content based cache in bytes
+     */
+    public CmsExtractionResultCache(String basepath, String foldername, long maxSize) {
+
         // normalize the given folder name
         m_rfsRepository = CmsFileUtil.normalizePath(basepath + foldername + File.separatorChar);
+        m_maxSize = maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE;
+        m_hits = new AtomicLong();
+        m_misses = new AtomicLong();
+        m_evictions = new AtomicLong();
+        File basedir = new File(m_rfsRepository);
+        basedir.mkdirs();
+        try {
+            m_index = new CmsExtractionCacheIndex(new File(basedir, INDEX_FILE_NAME));
+            if (m_index.isCreated()) {
+                // files from a previous index are unknown, they would never be evicted
+                deleteContentFiles(basedir);
+            }
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXTRACTION_CACHE_INDEX_OPENED_3,
+                    m_rfsRepository,
+                    String.valueOf(m_index.getCount()),
+                    String.valueOf(m_index.getTotalSize())));
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EXTRACTION_CACHE_INDEX_FAILED_1, m_rfsRepository), e);
+            m_index = null;
+        }
     }
 
     /**
@@ -86,19 +161,23 @@ public class CmsExtractionResultCache {
      *
      * @return the total number of deleted resources
      */
-    public synchronized int cleanCache(float maxAge) {
+    public int cleanCache(float maxAge) {
 
         // calculate oldest possible date for the cache files
         long expireDate = System.currentTimeMillis() - (long)(maxAge * 60.0f * 60.0f * 1000.0f);
-        File basedir = new File(m_rfsRepository);
-        // perform the cache cleanup
         int count = 0;
+        if (m_index != null) {
+            // the content based entries are found with the index
+            count += deleteEntries(m_index.removeOlderThan(expireDate));
+        }
+        File basedir = new File(m_rfsRepository);
+        // remove the expired files stored with the name based methods
         if (basedir.canRead() && basedir.isDirectory()) {
             File[] files = basedir.listFiles();
             if (files != null) {
                 for (int i = 0; i < files.length; i++) {
                     File f = files[i];
-                    if (f.canWrite()) {
+                    if (f.isFile() && f.canWrite() && !INDEX_FILE_NAME.equals(f.getName())) {
                         if (f.lastModified() < expireDate) {
                             try {
                                 f.delete();
@@ -155,7 +234,7 @@ public class CmsExtractionResultCache {
         buf.append(resource.getDateContent());
 
         // finally append the extension
-        buf.append(".ext");
+        buf.append(SUFFIX);
         return buf.toString();
     }
 
@@ -187,6 +266,118 @@ public class CmsExtractionResultCache {
         return null;
     }
 
+    /**
+     * Returns the cached extraction result for the given content key, or <code>null</code>
+     * if no extraction result is cached for the key.<p>
+     *
+     * @param contentKey the content key, as returned by {@link #getContentKey(byte[], Locale, String)}
+     *
+     * @return the cached extraction result, or <code>null</code>
+     */
+    public CmsExtractionResult getContentCacheObject(String contentKey) {
+
+        CmsExtractionResult result = null;
+        if (m_index != null) {
+            long key = getIndexKey(contentKey);
+            if (m_index.touch(key, System.currentTimeMillis())) {
+                result = readContentFile(key, contentKey);
+                if (result == null) {
+                    // the file is missing or belongs to another content with the same index key
+                    m_index.remove(key);
+                }
+            }
+        }
+        if (result != null) {
+            m_hits.incrementAndGet();
+        } else {
+            m_misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key used for caching the text extraction result of the given content.<p>
+     *
+     * @param content the binary content of the resource
+     * @param locale the locale to generate the key for (may be <code>null</code>)
+     * @param docTypeName the name of the search document type
+     *
+     * @return the key used for caching the text extraction result of the given content
+     */
+    public String getContentKey(byte[] content, Locale locale, String docTypeName) {
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(content);
+            digest.update((byte)0);
+            if (docTypeName != null) {
+                digest.update(docTypeName.getBytes("UTF-8"));
+            }
+            digest.update((byte)0);
+            if (locale != null) {
+                digest.update(locale.toString().getBytes("UTF-8"));
+            }
+            return new String(Hex.encodeHex(digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is available in every Java runtime
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is available in every Java runtime
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the number of entries in the content based cache.<p>
+     *
+     * @return the number of entries in the content based cache
+     */
+    public int getEntryCount() {
+
+        return m_index != null ? m_index.getCount() : 0;
+    }
+
+    /**
+     * Returns the number of entries removed from the content based cache since startup,
+     * either because the maximum size was exceeded or because the entries expired.<p>
+     *
+     * @return the number of removed entries
+     */
+    public long getEvictions() {
+
+        return m_evictions.get();
+    }
+
+    /**
+     * Returns the number of content based lookups that found a cached extraction result since startup.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the maximum size of the content based cache in bytes.<p>
+     *
+     * @return the maximum size of the content based cache in bytes
+     */
+    public long getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of content based lookups that did not find a cached extraction result since startup.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
     /**
      * Returns the absolute path of the cache repository in the RFS.<p>
      *
@@ -197,6 +388,16 @@ public class CmsExtractionResultCache {
         return m_rfsRepository;
     }
 
+    /**
+     * Returns the total size of all files in the content based cache in bytes.<p>
+     *
+     * @return the total size of the content based cache
+     */
+    public long getSize() {
+
+        return m_index != null ? m_index.getTotalSize() : 0;
+    }
+
     /**
      * Serializes the given extraction result and saves it in the disk cache.<p>
      *
@@ -212,4 +413,168 @@ public class CmsExtractionResultCache {
             CmsVfsDiskCache.saveFile(rfsName, byteContent);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Serializes the given extraction result and saves it in the content based cache.<p>
+     *
+     * If the maximum size of the cache is exceeded, the least recently used entries are removed.<p>
+     *
+     * @param contentKey the content key, as returned by {@link #getContentKey(byte[], Locale, String)}
+     * @param content the extraction result to serialize and save
+     *
+     * @throws IOException in case of disk access errors
+     */
+    public void saveContentCacheObject(String contentKey, I_CmsExtractionResult content) throws IOException {
+
+        byte[] byteContent = content.getBytes();
+        if ((byteContent == null) || (m_index == null)) {
+            return;
+        }
+        long key = getIndexKey(contentKey);
+        File f = getContentFile(key);
+        File parent = f.getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        // write to a temporary file first, so concurrent readers never see a partially written file
+        File tmp = new File(parent, f.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(Hex.decodeHex(contentKey.toCharArray()));
+                out.write(byteContent);
+            } finally {
+                // the stream must be closed before the temporary file can be deleted
+                out.close();
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        } catch (DecoderException e) {
+            tmp.delete();
+            throw new IOException(e);
+        }
+        f.delete();
+        if (!tmp.renameTo(f)) {
+            tmp.delete();
+            return;
+        }
+        m_index.put(key, f.length(), System.currentTimeMillis());
+        if (m_index.getTotalSize() > m_maxSize) {
+            deleteEntries(m_index.shrink((long)(m_maxSize * SHRINK_RATIO)));
+        }
+    }
+
+    /**
+     * Writes the index of the content based cache to disk and closes it.<p>
+     */
+    public void shutDown() {
+
+        if (m_index != null) {
+            try {
+                m_index.shutDown();
+            } catch (IOException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            m_index = null;
+        }
+    }
+
+    /**
+     * Deletes all files of the content based cache in the given cache folder.<p>
+     *
+     * @param basedir the cache folder
+     */
+    private void deleteContentFiles(File basedir) {
+
+        File[] folders = basedir.listFiles();
+        if (folders == null) {
+            return;
+        }
+        for (File folder : folders) {
+            if (folder.isDirectory() && (folder.getName().length() == 2)) {
+                CmsFileUtil.purgeDirectory(folder);
+            }
+        }
+    }
+
+    /**
+     * Deletes the files of the given removed index entries.<p>
+     *
+     * @param keys the index keys of the removed entries
+     *
+     * @return the number of deleted files
+     */
+    private int deleteEntries(List<Long> keys) {
+
+        int count = 0;
+        for (Long key : keys) {
+            File f = getContentFile(key.longValue());
+            if (f.delete()) {
+                count++;
+            } else if (f.exists() && LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_EXCERPT_CACHE_DELETE_ERROR_1, f.getAbsolutePath()));
+            }
+        }
+        m_evictions.addAndGet(keys.size());
+        return count;
+    }
+
+    /**
+     * Returns the file used to store the content based cache entry with the given index key.<p>
+     *
+     * @param key the index key
+     *
+     * @return the file for the index key
+     */
+    private File getContentFile(long key) {
+
+        String name = String.format("%016x", Long.valueOf(key));
+        return new File(m_rfsRepository + name.substring(0, 2) + File.separatorChar + name + SUFFIX);
+    }
+
+    /**
+     * Returns the 64 bit index key for the given content key.<p>
+     *
+     * @param contentKey the content key
+     *
+     * @return the index key, never 0
+     */
+    private long getIndexKey(String contentKey) {
+
+        long key = (Long.parseLong(contentKey.substring(0, 8), 16) << 32)
+            | Long.parseLong(contentKey.substring(8, 16), 16);
+        // 0 marks an empty slot in the index
+        return key != 0 ? key : 1;
+    }
+
+    /**
+     * Reads the cached extraction result for the given keys.<p>
+     *
+     * @param key the index key
+     * @param contentKey the full content key, used to verify the file
+     *
+     * @return the cached extraction result, or <code>null</code> if the file does not exist or does not match
+     */
+    private CmsExtractionResult readContentFile(long key, String contentKey) {
+
+        try {
+            File f = getContentFile(key);
+            if (!f.exists()) {
+                return null;
+            }
+            byte[] data = CmsFileUtil.readFile(f);
+            if (data.length <= DIGEST_LENGTH) {
+                return null;
+            }
+            byte[] digest = Hex.decodeHex(contentKey.toCharArray());
+            if (!Arrays.equals(digest, Arrays.copyOf(data, DIGEST_LENGTH))) {
+                return null;
+            }
+            return CmsExtractionResult.fromBytes(Arrays.copyOfRange(data, DIGEST_LENGTH, data.length));
+        } catch (Exception e) {
+            // unable to read content
+            return null;
+        }
+    }
+}
@@ -73,6 +73,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXTRACT_VALUE_2 = "LOG_EXTRACT_VALUE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXTRACTION_CACHE_INDEX_FAILED_1 = "LOG_EXTRACTION_CACHE_INDEX_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXTRACTION_CACHE_INDEX_OPENED_3 = "LOG_EXTRACTION_CACHE_INDEX_OPENED_3";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.search.documents.messages";
 
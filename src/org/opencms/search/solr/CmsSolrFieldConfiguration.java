@@ -41,6 +41,7 @@ import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.file.types.CmsResourceTypeXmlPage;
+import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
@@ -86,9 +87,6 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSolrFieldConfiguration.class);
 
-    /** The content locale for the indexed document is stored in order to save performance. */
-    private Collection<Locale> m_contentLocales;
-
     /** A list of Solr fields. */
     private Map<String, CmsSolrField> m_solrFields = new HashMap<String, CmsSolrField>();
 
@@ -263,6 +261,44 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         List<CmsProperty> properties,
         List<CmsProperty> propertiesSearched) {
 
+        return appendFieldMapping(
+            document,
+            sfield,
+            cms,
+            resource,
+            extractionResult,
+            properties,
+            propertiesSearched,
+            readContentLocales(document));
+    }
+
+    /**
+     * Appends the value of the given field mapping to the document.<p>
+     *
+     * The content locales are passed as parameter, because this field configuration is shared
+     * by all documents of the index, which may be created concurrently.<p>
+     *
+     * @param document the document to append the field to
+     * @param sfield the field to append
+     * @param cms the current CmsObject
+     * @param resource the resource the document is created for
+     * @param extractionResult the extraction result of the resource
+     * @param properties the properties of the resource
+     * @param propertiesSearched the properties of the resource, including inherited properties
+     * @param contentLocales the content locales of the document
+     *
+     * @return the document with the field appended
+     */
+    protected I_CmsSearchDocument appendFieldMapping(
+        I_CmsSearchDocument document,
+        CmsSearchField sfield,
+        CmsObject cms,
+        CmsResource resource,
+        I_CmsExtractionResult extractionResult,
+        List<CmsProperty> properties,
+        List<CmsProperty> propertiesSearched,
+        Collection<Locale> contentLocales) {
+
         CmsSolrField field = (CmsSolrField)sfield;
         try {
             StringBuffer text = new StringBuffer();
@@ -278,7 +314,7 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
                             if (!(CmsResourceTypeXmlContent.isXmlContent(resource)
                                 || CmsResourceTypeXmlPage.isXmlPage(resource))) {
                                 // the resource is no XML content nor an XML page
-                                if ((m_contentLocales != null) && m_contentLocales.contains(field.getLocale())) {
+                                if ((contentLocales != null) && contentLocales.contains(field.getLocale())) {
                                     // the resource to get the extracted content for has the locale of this field,
                                     // so store the extraction content into this field
                                     mapResult = extractionResult.getContent();
@@ -345,6 +381,8 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         List<CmsProperty> properties,
         List<CmsProperty> propertiesSearched) {
 
+        // the content locales have been added to the document by appendLocales
+        Collection<Locale> contentLocales = readContentLocales(document);
         Set<CmsSearchField> mappedFields = getXSDMappings(cms, resource);
         if (mappedFields != null) {
             for (CmsSearchField field : mappedFields) {
@@ -355,7 +393,8 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
                     resource,
                     extractionResult,
                     properties,
-                    propertiesSearched);
+                    propertiesSearched,
+                    contentLocales);
             }
         }
 
@@ -373,7 +412,8 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
                 resource,
                 extractionResult,
                 properties,
-                propertiesSearched);
+                propertiesSearched,
+                contentLocales);
         }
 
         // append field mappings directly stored in the extraction result
@@ -444,6 +484,7 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
 
         // append the resource locales
         Collection<Locale> resourceLocales = new ArrayList<Locale>();
+        Collection<Locale> contentLocales;
         if ((extraction != null) && (!extraction.getLocales().isEmpty())) {
 
             CmsResourceManager resMan = OpenCms.getResourceManager();
@@ -459,9 +500,9 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
             }
             if (isGroup) {
                 // groups are locale independent, so they have to have *all* locales so they are found for each one
-                m_contentLocales = OpenCms.getLocaleManager().getAvailableLocales();
+                contentLocales = OpenCms.getLocaleManager().getAvailableLocales();
             } else {
-                m_contentLocales = resourceLocales;
+                contentLocales = resourceLocales;
             }
         } else {
             // For all other resources add all default locales
@@ -497,11 +538,11 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
                     }
                 }
             }
-            m_contentLocales = getContentLocales(cms, resource, extraction);
+            contentLocales = getContentLocales(cms, resource, extraction);
         }
 
         document.addResourceLocales(resourceLocales);
-        document.addContentLocales(m_contentLocales);
+        document.addContentLocales(contentLocales);
 
         // append document dependencies if configured
         if (hasLocaleDependencies()) {
@@ -791,4 +832,23 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
         }
         return false;
     }
+
+    /**
+     * Returns the content locales that have been added to the given document.<p>
+     *
+     * @param document the document
+     *
+     * @return the content locales of the document
+     */
+    private List<Locale> readContentLocales(I_CmsSearchDocument document) {
+
+        List<Locale> result = new ArrayList<Locale>();
+        List<String> localeNames = document.getMultivaluedFieldAsStringList(CmsSearchField.FIELD_CONTENT_LOCALES);
+        if (localeNames != null) {
+            for (String localeName : localeNames) {
+                result.add(CmsLocaleManager.getLocale(localeName));
+            }
+        }
+        return result;
+    }
 }
@@ -28,6 +28,7 @@
 package org.opencms.security;
 
 import org.opencms.configuration.CmsSystemConfiguration;
+import org.opencms.db.CmsCacheKey;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
@@ -43,6 +44,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsInitException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 
 import java.util.Iterator;
 
@@ -58,6 +60,16 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsDefaultPermissionHandler.class);
 
+    /** The permission cache key of the current thread, used to look up the cache without creating a new key. */
+    private static final ThreadLocal<CmsPermissionCacheKey> LOOKUP_KEY = new ThreadLocal<CmsPermissionCacheKey>() {
+
+        @Override
+        protected CmsPermissionCacheKey initialValue() {
+
+            return new CmsPermissionCacheKey();
+        }
+    };
+
     /** Driver Manager instance. */
     protected CmsDriverManager m_driverManager;
 
@@ -67,6 +79,9 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** Indicates if the default key generator is configured, which is replaced by typed permission cache keys. */
+    private boolean m_typedCacheKeys;
+
     /**
      * @see org.opencms.security.I_CmsPermissionHandler#hasPermissions(org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet, boolean, org.opencms.file.CmsResourceFilter)
      */
@@ -83,19 +98,22 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             return I_CmsPermissionHandler.PERM_FILTERED;
         }
 
+        if (isOnlineGuestCheck(dbc, requiredPermissions)) {
+            // the permissions of the guest user in the online project are cached until the next publish
+            return hasGuestPermissions(dbc, resource, requiredPermissions, filter);
+        }
+
         // checking the filter is less cost intensive then checking the cache,
         // this is why basic filter results are not cached
-        String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
-            filter.requireVisible() && checkLock
-            ? "11"
-            : (!filter.requireVisible() && checkLock ? "01" : (filter.requireVisible() && !checkLock ? "10" : "00")),
-            dbc,
-            resource,
-            requiredPermissions);
+        Object cacheKey = getCacheKey(dbc, resource, requiredPermissions, checkLock, filter);
         CmsPermissionCheckResult cacheResult = OpenCms.getMemoryMonitor().getCachedPermission(cacheKey);
         if (cacheResult != null) {
             return cacheResult;
         }
+        if (cacheKey instanceof CmsPermissionCacheKey) {
+            // the lookup key of this thread is reused by nested permission checks
+            cacheKey = ((CmsPermissionCacheKey)cacheKey).copy();
+        }
 
         int denied = 0;
 
@@ -235,6 +253,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
         try {
             // initialize the key generator
             m_keyGenerator = (I_CmsCacheKey)Class.forName(className).newInstance();
+            m_typedCacheKeys = m_keyGenerator.getClass() == CmsCacheKey.class;
         } catch (Exception e) {
             throw new CmsInitException(
                 org.opencms.main.Messages.get().container(
@@ -242,5 +261,138 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
                     className),
                 e);
         }
+
+        // calculate the cached permissions of the guest user again after a publish
+        CmsGuestPermissionUpdater.register();
+    }
+
+    /**
+     * Returns the key to look up the result of a permission check in the permission cache.<p>
+     *
+     * If the default key generator is configured, the key is the {@link CmsPermissionCacheKey} instance
+     * of the current thread, initialized for the given check. Otherwise the String key of the configured
+     * key generator is returned.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to check the permissions for
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param checkLock if true, a lock for the current user is required for all write operations
+     * @param filter the resource filter to use
+     *
+     * @return the key to look up the permission cache
+     */
+    private Object getCacheKey(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        boolean checkLock,
+        CmsResourceFilter filter) {
+
+        if (m_typedCacheKeys) {
+            if (!dbc.getProjectId().isNullUUID()) {
+                // results are not cached if the database context uses its own project
+                return "";
+            }
+            return LOOKUP_KEY.get().set(
+                dbc.currentUser().getId(),
+                dbc.currentProject().isOnlineProject(),
+                requiredPermissions,
+                checkLock,
+                filter.requireVisible(),
+                resource.getStructureId());
+        }
+        return m_keyGenerator.getCacheKeyForUserPermissions(
+            filter.requireVisible() && checkLock
+            ? "11"
+            : (!filter.requireVisible() && checkLock ? "01" : (filter.requireVisible() && !checkLock ? "10" : "00")),
+            dbc,
+            resource,
+            requiredPermissions);
+    }
+
+    /**
+     * Checks the permissions of the guest user in the online project.<p>
+     *
+     * The effective permissions of the guest user for the resource are cached by the memory monitor
+     * and only flushed if the access control entries, the principals or the online project change,
+     * so in general no access control list is evaluated for the requests of visitors.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource to check the permissions for
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param filter the resource filter to use
+     *
+     * @return the result of the permission check
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsPermissionCheckResult hasGuestPermissions(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        CmsResourceFilter filter) throws CmsException {
+
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        Integer cachedPermissions = monitor.getCachedGuestPermission(resource.getStructureId());
+        int permissions;
+        if (cachedPermissions != null) {
+            permissions = cachedPermissions.intValue();
+        } else {
+            if (m_securityManager.hasRoleForResource(dbc, dbc.currentUser(), CmsRole.VFS_MANAGER, resource)) {
+                permissions = ~0;
+            } else {
+                permissions = m_driverManager.getPermissions(dbc, resource, dbc.currentUser()).getPermissions();
+            }
+            // write is rejected in the online project
+            permissions &= ~CmsPermissionSet.PERMISSION_WRITE;
+            monitor.cacheGuestPermission(resource.getStructureId(), Integer.valueOf(permissions));
+        }
+
+        int required = requiredPermissions.getPermissions();
+        if ((permissions & CmsPermissionSet.PERMISSION_VIEW) == 0) {
+            // resource "invisible" flag is set for the guest user
+            if (filter.requireVisible()) {
+                required |= CmsPermissionSet.PERMISSION_VIEW;
+            } else {
+                permissions |= CmsPermissionSet.PERMISSION_VIEW;
+            }
+        }
+        if ((required & permissions) == required) {
+            return I_CmsPermissionHandler.PERM_ALLOWED;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_NO_PERMISSION_RESOURCE_USER_4,
+                    new Object[] {
+                        dbc.getRequestContext().removeSiteRoot(resource.getRootPath()),
+                        dbc.currentUser().getName(),
+                        new CmsPermissionSet(required, 0).getPermissionString(),
+                        new CmsPermissionSet(permissions, 0).getPermissionString()}));
+        }
+        return I_CmsPermissionHandler.PERM_DENIED;
+    }
+
+    /**
+     * Checks if the permission check can use the cached permissions of the guest user in the online project.<p>
+     *
+     * This is the case for checks of the guest user in the online project,
+     * that do not require write, control or direct publish permissions,
+     * as long as the guest permission cache is enabled.<p>
+     *
+     * @param dbc the current database context
+     * @param requiredPermissions the set of permissions required for the operation
+     *
+     * @return <code>true</code> if the cached permissions of the guest user can be used
+     */
+    private boolean isOnlineGuestCheck(CmsDbContext dbc, CmsPermissionSet requiredPermissions) {
+
+        return dbc.getProjectId().isNullUUID()
+            && dbc.currentProject().isOnlineProject()
+            && !requiredPermissions.requiresWritePermission()
+            && !requiredPermissions.requiresControlPermission()
+            && !requiredPermissions.requiresDirectPublishPermission()
+            && dbc.currentUser().isGuestUser()
+            && OpenCms.getMemoryMonitor().isEnabled(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
     }
 }
@@ -0,0 +1,205 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.security;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Restores the permissions of the guest user in the online project after a publish.<p>
+ *
+ * The permissions of the guest user are cached by the memory monitor for every resource
+ * read in the online project. A publish flushes this cache, so before a publish the cached resources
+ * are remembered, and after the publish their permissions are calculated again in a background thread
+ * by reading the resources as guest user. Like this, the requests of visitors following a publish
+ * do not have to evaluate the access control lists again.<p>
+ *
+ * Updates are coalesced: the resources of all publish jobs finished while an update is running or waiting
+ * are collected, and read only once by the next update.<p>
+ *
+ * The listener must be registered after the driver manager, so the caches of the driver manager
+ * are flushed before the permissions are calculated again.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsGuestPermissionUpdater implements I_CmsEventListener {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsGuestPermissionUpdater.class);
+
+    /** The registered instance. */
+    private static CmsGuestPermissionUpdater m_instance;
+
+    /** The single thread executor calculating the permissions. */
+    private ExecutorService m_executor;
+
+    /** The structure ids of the resources waiting for an update, guarded by this object. */
+    private Set<CmsUUID> m_pendingIds;
+
+    /** The structure ids of the resources with cached guest permissions before the current publish. */
+    private volatile List<CmsUUID> m_structureIds;
+
+    /** Indicates if an update is running or waiting, guarded by this object. */
+    private boolean m_updateScheduled;
+
+    /**
+     * Creates a new guest permission updater.<p>
+     */
+    private CmsGuestPermissionUpdater() {
+
+        m_structureIds = Collections.emptyList();
+        m_pendingIds = new LinkedHashSet<CmsUUID>();
+        m_executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Guest permission updater").setDaemon(true).setPriority(
+                Thread.MIN_PRIORITY).build());
+    }
+
+    /**
+     * Registers the guest permission updater as event listener, if this has not already been done.<p>
+     */
+    public static synchronized void register() {
+
+        if (m_instance == null) {
+            m_instance = new CmsGuestPermissionUpdater();
+            OpenCms.addCmsEventListener(
+                m_instance,
+                new int[] {I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT, I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+        }
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                m_structureIds = OpenCms.getMemoryMonitor().getCachedGuestPermissionIds();
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                List<CmsUUID> structureIds = m_structureIds;
+                m_structureIds = Collections.emptyList();
+                scheduleUpdate(structureIds);
+                break;
+            default:
+                // noop
+        }
+    }
+
+    /**
+     * Reads the pending resources until no more resources are waiting for an update.<p>
+     */
+    protected void runUpdates() {
+
+        while (true) {
+            List<CmsUUID> structureIds;
+            synchronized (this) {
+                if (m_pendingIds.isEmpty()) {
+                    m_updateScheduled = false;
+                    return;
+                }
+                structureIds = new ArrayList<CmsUUID>(m_pendingIds);
+                m_pendingIds.clear();
+            }
+            updatePermissions(structureIds);
+        }
+    }
+
+    /**
+     * Calculates the permissions of the guest user in the online project for the given resources.<p>
+     *
+     * @param structureIds the structure ids of the resources
+     */
+    protected void updatePermissions(List<CmsUUID> structureIds) {
+
+        long start = System.currentTimeMillis();
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            for (CmsUUID structureId : structureIds) {
+                try {
+                    // reading the resource checks the permissions, which caches them
+                    cms.readResource(structureId, CmsResourceFilter.ALL);
+                } catch (CmsException e) {
+                    // the resource has been deleted, or the guest user is not allowed to read it
+                }
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_GUEST_PERMISSIONS_UPDATED_2,
+                    String.valueOf(structureIds.size()),
+                    String.valueOf(System.currentTimeMillis() - start)));
+        }
+    }
+
+    /**
+     * Adds the given resources to the pending updates, and starts an update if none is running or waiting.<p>
+     *
+     * @param structureIds the structure ids of the resources to update
+     */
+    private synchronized void scheduleUpdate(List<CmsUUID> structureIds) {
+
+        if (structureIds.isEmpty()) {
+            return;
+        }
+        m_pendingIds.addAll(structureIds);
+        if (!m_updateScheduled) {
+            m_updateScheduled = true;
+            m_executor.execute(new Runnable() {
+
+                public void run() {
+
+                    runUpdates();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import org.opencms.util.CmsUUID;
+
+/**
+ * Key of the permission cache, identifying a permission check of a user for a resource.<p>
+ *
+ * Unlike the String keys created by {@link org.opencms.db.I_CmsCacheKey}, the key holds the ids
+ * of the user and the resource and the checked permissions as numbers, so it can be created,
+ * hashed and compared without creating any other objects.<p>
+ *
+ * The permission handler looks up the cache with a mutable key instance per thread, so a cache hit
+ * does not allocate any memory. Only immutable copies of this key are stored in the cache.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsPermissionCacheKey {
+
+    /** Flag for a permission check that considers the lock state. */
+    private static final int FLAG_CHECK_LOCK = 1;
+
+    /** Flag for a permission check in the online project. */
+    private static final int FLAG_ONLINE = 2;
+
+    /** Flag for a permission check with a filter that requires the view permission. */
+    private static final int FLAG_REQUIRE_VISIBLE = 4;
+
+    /** The allowed permissions of the checked permission set. */
+    private int m_allowedPermissions;
+
+    /** The denied permissions of the checked permission set. */
+    private int m_deniedPermissions;
+
+    /** The flags of the check. */
+    private int m_flags;
+
+    /** The cached hash code. */
+    private int m_hashCode;
+
+    /** The structure id of the resource. */
+    private CmsUUID m_structureId;
+
+    /** The id of the user. */
+    private CmsUUID m_userId;
+
+    /**
+     * Creates a new permission cache key.<p>
+     *
+     * @param userId the id of the user
+     * @param online <code>true</code> if the permissions are checked in the online project
+     * @param permissions the checked permissions
+     * @param checkLock <code>true</code> if the lock state is considered
+     * @param requireVisible <code>true</code> if the filter requires the view permission
+     * @param structureId the structure id of the resource
+     */
+    public CmsPermissionCacheKey(
+        CmsUUID userId,
+        boolean online,
+        CmsPermissionSet permissions,
+        boolean checkLock,
+        boolean requireVisible,
+        CmsUUID structureId) {
+
+        set(userId, online, permissions, checkLock, requireVisible, structureId);
+    }
+
+    /**
+     * Creates an empty key, to be initialized with a call of <code>set</code>.<p>
+     */
+    CmsPermissionCacheKey() {
+
+        // empty
+    }
+
+    /**
+     * Returns an immutable copy of this key, that can be stored in the cache.<p>
+     *
+     * @return a copy of this key
+     */
+    public CmsPermissionCacheKey copy() {
+
+        CmsPermissionCacheKey result = new CmsPermissionCacheKey();
+        result.m_allowedPermissions = m_allowedPermissions;
+        result.m_deniedPermissions = m_deniedPermissions;
+        result.m_flags = m_flags;
+        result.m_hashCode = m_hashCode;
+        result.m_structureId = m_structureId;
+        result.m_userId = m_userId;
+        return result;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsPermissionCacheKey)) {
+            return false;
+        }
+        CmsPermissionCacheKey other = (CmsPermissionCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_flags == other.m_flags)
+            && (m_allowedPermissions == other.m_allowedPermissions)
+            && (m_deniedPermissions == other.m_deniedPermissions)
+            && m_structureId.equals(other.m_structureId)
+            && m_userId.equals(other.m_userId);
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_userId
+            + "_"
+            + m_flags
+            + "_"
+            + new CmsPermissionSet(m_allowedPermissions, m_deniedPermissions).getPermissionString()
+            + "_"
+            + m_structureId;
+    }
+
+    /**
+     * Initializes this key for another permission check.<p>
+     *
+     * @param userId the id of the user
+     * @param online <code>true</code> if the permissions are checked in the online project
+     * @param permissions the checked permissions
+     * @param checkLock <code>true</code> if the lock state is considered
+     * @param requireVisible <code>true</code> if the filter requires the view permission
+     * @param structureId the structure id of the resource
+     *
+     * @return this key
+     */
+    CmsPermissionCacheKey set(
+        CmsUUID userId,
+        boolean online,
+        CmsPermissionSet permissions,
+        boolean checkLock,
+        boolean requireVisible,
+        CmsUUID structureId) {
+
+        m_userId = userId;
+        m_structureId = structureId;
+        m_allowedPermissions = permissions.getAllowedPermissions();
+        m_deniedPermissions = permissions.getDeniedPermissions();
+        m_flags = (checkLock ? FLAG_CHECK_LOCK : 0)
+            | (online ? FLAG_ONLINE : 0)
+            | (requireVisible ? FLAG_REQUIRE_VISIBLE : 0);
+        int hash = structureId.hashCode();
+        hash = (31 * hash) + userId.hashCode();
+        hash = (31 * hash) + m_allowedPermissions;
+        hash = (31 * hash) + m_deniedPermissions;
+        m_hashCode = (31 * hash) + m_flags;
+        return this;
+    }
+}
\ No newline at end of file
@@ -226,6 +226,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_AUTHENTICATE_PROPERTY_2 = "LOG_AUTHENTICATE_PROPERTY_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_GUEST_PERMISSIONS_UPDATED_2 = "LOG_GUEST_PERMISSIONS_UPDATED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_CONFIG_CALLED_1 = "LOG_INIT_CONFIG_CALLED_1";
 
@@ -95,7 +95,7 @@ public abstract class A_CmsOnDemandStaticExportHandler extends A_CmsStaticExport
                 public void run() {
 
                     try {
-                        scrubExportFolders(id);
+                        purgeDependentFiles(scrubExportFolders(id));
                     } finally {
                         m_busy = false;
                     }
@@ -27,6 +27,7 @@
 
 package org.opencms.staticexport;
 
+import org.opencms.ade.configuration.CmsADEManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
@@ -51,12 +52,14 @@ import org.opencms.util.CmsUUID;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -265,6 +268,58 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
         return publishedResources;
     }
 
+    /**
+     * Returns the exported files that depend on the given published resources.<p>
+     *
+     * The dependencies are read from the dependency graph of the static export manager.
+     * <code>null</code> is returned if the dependencies are not tracked or not complete, or if a published resource
+     * may affect all exported files, i.e. if a resource below <code>/system/</code>, an ADE configuration file
+     * or the properties of a folder were published. In this case all exported files must be considered as affected.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return a map from the RFS names (without prefix) of the dependent files to the root paths
+     *      of the exported resources, or <code>null</code> if the dependent files are unknown
+     */
+    protected Map<String, String> getDependentFiles(List<CmsPublishedResource> publishedResources) {
+
+        CmsStaticExportDependencyGraph graph = OpenCms.getStaticExportManager().getDependencyGraph();
+        if ((graph == null) || !graph.isComplete()) {
+            return null;
+        }
+        if (publishedResources.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<String> keys = new HashSet<String>();
+        for (CmsPublishedResource res : publishedResources) {
+            String rootPath = res.getRootPath();
+            if (rootPath.startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")
+                || CmsADEManager.CONFIG_FILE_NAME.equals(CmsResource.getName(rootPath))
+                || (res.isFolder() && res.getState().isChanged())) {
+                // templates, configuration or inherited properties changed, everything may be affected
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(Messages.LOG_DEPENDENCIES_FALLBACK_1, rootPath));
+                }
+                return null;
+            }
+            keys.addAll(CmsStaticExportDependencyGraph.getKeys(res));
+        }
+        try {
+            Map<String, String> result = graph.getDependentFiles(keys);
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_DEPENDENT_FILES_2,
+                        String.valueOf(result.size()),
+                        String.valueOf(publishedResources.size())));
+            }
+            return result;
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_DEPENDENCIES_READ_FAILED_0), e);
+            return null;
+        }
+    }
+
     /**
      * Returns a list of related files to purge.<p>
      *
@@ -310,6 +365,37 @@ public abstract class A_CmsStaticExportHandler implements I_CmsStaticExportHandl
         return siblings;
     }
 
+    /**
+     * Deletes the exported files that depend on the given published resources,
+     * so that they are newly created after the next request.<p>
+     *
+     * Nothing is deleted if the dependent files are unknown, see {@link #getDependentFiles(List)}.<p>
+     *
+     * @param publishedResources the published resources
+     */
+    protected void purgeDependentFiles(List<CmsPublishedResource> publishedResources) {
+
+        Map<String, String> dependentFiles = getDependentFiles(publishedResources);
+        if (dependentFiles == null) {
+            return;
+        }
+        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        for (Map.Entry<String, String> entry : dependentFiles.entrySet()) {
+            String vfsName = entry.getValue();
+            String rfsExportFileName = CmsFileUtil.normalizePath(manager.getExportPath(vfsName) + entry.getKey());
+            File rfsExportFile = new File(rfsExportFileName);
+            if (rfsExportFile.isDirectory()) {
+                // folders and detail pages are exported to a default file in the folder
+                purgeFile(
+                    new File(rfsExportFile, CmsStaticExportManager.EXPORT_DEFAULT_FILE).getAbsolutePath(),
+                    vfsName);
+                purgeFile(new File(rfsExportFile, CmsStaticExportManager.DEFAULT_FILE).getAbsolutePath(), vfsName);
+            } else {
+                purgeFile(rfsExportFileName, vfsName);
+            }
+        }
+    }
+
     /**
      * Deletes the given file from the RFS if it exists,
      * also deletes all parameter variations of the file.<p>
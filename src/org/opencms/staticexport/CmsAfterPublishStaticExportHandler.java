@@ -37,6 +37,7 @@ import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
@@ -46,6 +47,7 @@ import org.opencms.workplace.CmsWorkplace;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
@@ -57,12 +59,21 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
  * Implementation for the <code>{@link I_CmsStaticExportHandler}</code> interface.<p>
  *
@@ -99,19 +110,47 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
     public void doExportAfterPublish(List<CmsPublishedResource> resources, I_CmsReport report)
     throws CmsException, IOException, ServletException {
 
+        doExportAfterPublish(resources, null, report);
+    }
+
+    /**
+     * Does the actual static export, also exporting the given files that depend on the published resources.<p>
+     *
+     * If the dependent files are known, they are exported instead of all resources, which are
+     * otherwise exported if a published resource does not match any export rule.<p>
+     *
+     * @param resources a list of CmsPublishedREsources to start the static export with
+     * @param dependentFiles the RFS names (without prefix) of the exported files depending on the published resources,
+     *      or <code>null</code> if they are unknown
+     * @param report an <code>{@link I_CmsReport}</code> instance to print output message, or <code>null</code> to write messages to the log file
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    public void doExportAfterPublish(
+        List<CmsPublishedResource> resources,
+        Collection<String> dependentFiles,
+        I_CmsReport report) throws CmsException, IOException, ServletException {
+
         boolean templatesFound;
 
         // export must be done in the context of the export user
         // this will always use the root site
         CmsObject cmsExportObject = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
 
-        List<CmsPublishedResource> resourcesToExport = getRelatedResources(cmsExportObject, resources);
+        List<CmsPublishedResource> resourcesToExport = getRelatedResources(
+            cmsExportObject,
+            resources,
+            dependentFiles == null);
         // first export all non-template resources
         templatesFound = exportNonTemplateResources(cmsExportObject, resourcesToExport, report);
         LOG.warn("finished exporting non-template resources. ");
 
         // export template resources (check "plainoptimization" setting)
-        if ((templatesFound) || (!OpenCms.getStaticExportManager().getQuickPlainExport())) {
+        if ((templatesFound)
+            || (!OpenCms.getStaticExportManager().getQuickPlainExport())
+            || ((dependentFiles != null) && !dependentFiles.isEmpty())) {
             CmsStaticExportManager manager = OpenCms.getStaticExportManager();
 
             // build resource filter set
@@ -120,6 +159,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 String rfsName = manager.getRfsName(cmsExportObject, pubResource.getRootPath());
                 resourceFilter.add(rfsName.substring(manager.getRfsPrefixForRfsName(rfsName).length()));
             }
+            if (dependentFiles != null) {
+                resourceFilter.addAll(dependentFiles);
+            }
 
             long timestamp = 0;
             List<String> publishedTemplateResources;
@@ -147,7 +189,8 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                         Iterator<String> itPubTemplates = publishedTemplateResources.iterator();
                         while (itPubTemplates.hasNext()) {
                             String rfsName = itPubTemplates.next();
-                            if (!resourceFilter.contains(rfsName.substring(0, rfsName.lastIndexOf('_')))) {
+                            if (!resourceFilter.contains(rfsName.substring(0, rfsName.lastIndexOf('_')))
+                                && !resourceFilter.contains(rfsName)) {
                                 itPubTemplates.remove();
                             }
                         }
@@ -271,12 +314,82 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             // delete all resources deleted during the publish process, and retrieve the list of resources to actually export
             List<CmsPublishedResource> publishedResources = scrubExportFolders(publishHistoryId);
 
+            // the exported files depending on the published resources, if the dependencies are tracked
+            Map<String, String> dependentFiles = getDependentFiles(publishedResources);
+
             // do the export
-            doExportAfterPublish(publishedResources, report);
+            doExportAfterPublish(
+                publishedResources,
+                dependentFiles != null ? dependentFiles.keySet() : null,
+                report);
         }
 
     }
 
+    /**
+     * Exports a single non template resource and writes the result to the report.<p>
+     *
+     * @param cms the current cms object
+     * @param exportData the export data of the resource
+     * @param report the report to write the result to
+     * @param count the counter for the number of the resource in the report
+     * @param size the total number of resources
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected void exportNonTemplateResource(
+        CmsObject cms,
+        CmsStaticExportData exportData,
+        I_CmsReport report,
+        AtomicInteger count,
+        int size) throws CmsException, IOException, ServletException {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_FILE_2,
+                    exportData.getVfsName(),
+                    exportData.getRfsName()));
+        }
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count.getAndIncrement()),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                exportData.getVfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        long start = System.currentTimeMillis();
+        int status = OpenCms.getStaticExportManager().export(null, null, cms, exportData);
+        long time = System.currentTimeMillis() - start;
+        report.print(Messages.get().container(Messages.RPT_EXPORT_TIME_1, new Long(time)), I_CmsReport.FORMAT_NOTE);
+        if (status == HttpServletResponse.SC_OK) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        } else {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                I_CmsReport.FORMAT_NOTE);
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EXPORT_FILE_STATUS_TIME_4,
+                    new Object[] {
+                        exportData.getVfsName(),
+                        exportData.getRfsName(),
+                        new Integer(status),
+                        new Long(time)}));
+        }
+    }
+
     /**
      * Exports all non template resources found in a list of published resources.<p>
      *
@@ -291,9 +404,9 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      * @throws ServletException in case of errors accessing the servlet
      */
     protected boolean exportNonTemplateResources(
-        CmsObject cms,
+        final CmsObject cms,
         List<CmsPublishedResource> publishedResources,
-        I_CmsReport report) throws CmsException, IOException, ServletException {
+        final I_CmsReport report) throws CmsException, IOException, ServletException {
 
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_BEGIN_0),
@@ -306,60 +419,32 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     new Integer(publishedResources.size())));
         }
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
-        int size = resourcesToExport.size();
+        final AtomicInteger count = new AtomicInteger(1);
+        final int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
         }
         // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_EXPORT_FILE_2,
-                        exportData.getVfsName(),
-                        exportData.getRfsName()));
-            }
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(size);
+        for (final CmsStaticExportData exportData : resourcesToExport) {
+            tasks.add(new Callable<Void>() {
 
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
+                public Void call() throws Exception {
 
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
-            }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+                    CmsBufferedReport resourceReport = new CmsBufferedReport(report);
+                    try {
+                        exportNonTemplateResource(OpenCms.initCmsObject(cms), exportData, resourceReport, count, size);
+                    } finally {
+                        resourceReport.flush();
+                    }
+                    return null;
+                }
+            });
         }
+        runExportTasks(tasks);
 
         resourcesToExport = null;
 
@@ -599,6 +684,78 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         return status;
     }
 
+    /**
+     * Exports a single template resource and its detail pages and writes the result to the report.<p>
+     *
+     * @param data the export data of the resource
+     * @param detailData the export data of the detail pages showing the resource
+     * @param cookies cookies to keep the session
+     * @param report the report to write the result to
+     * @param count the counter for the number of the resource in the report
+     * @param size the total number of resources
+     */
+    protected void exportTemplateResource(
+        CmsStaticExportData data,
+        List<CmsStaticExportData> detailData,
+        StringBuffer cookies,
+        I_CmsReport report,
+        AtomicInteger count,
+        int size) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                new Integer(count.getAndIncrement()),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                data.getRfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        try {
+            long start = System.currentTimeMillis();
+            for (CmsStaticExportData detail : detailData) {
+                exportTemplateResource(detail, cookies);
+            }
+            int status = exportTemplateResource(data, cookies);
+            long time = System.currentTimeMillis() - start;
+            report.print(
+                Messages.get().container(Messages.RPT_EXPORT_TIME_1, new Long(time)),
+                I_CmsReport.FORMAT_NOTE);
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_EXPORT_FILE_STATUS_TIME_4,
+                        new Object[] {data.getVfsName(), data.getRfsName(), new Integer(status), new Long(time)}));
+            }
+        } catch (IOException e) {
+            report.println(e);
+        }
+    }
+
     /**
      * Exports all template resources found in a list of published resources.<p>
      *
@@ -606,11 +763,13 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
      * @param publishedTemplateResources list of potential candidates to export
      * @param report an I_CmsReport instance to print output message, or null to write messages to the log file
      */
-    protected void exportTemplateResources(CmsObject cms, List<String> publishedTemplateResources, I_CmsReport report) {
+    protected void exportTemplateResources(
+        CmsObject cms,
+        List<String> publishedTemplateResources,
+        final I_CmsReport report) {
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
-        int size = publishedTemplateResources.size();
-        int count = 1;
+        final int size = publishedTemplateResources.size();
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
@@ -619,8 +778,10 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
+        final StringBuffer cookies = new StringBuffer();
+        final AtomicInteger count = new AtomicInteger(1);
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(size);
+        // the export data is read in this thread, only the requests are sent by the export threads
         Iterator<String> i = publishedTemplateResources.iterator();
         while (i.hasNext()) {
             String rfsName = i.next();
@@ -644,67 +805,52 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     }
                 }
             }
-            if (data != null) {
-                data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
+            if (data == null) {
                 // no valid resource found for rfs name (already deleted), skip it
                 continue;
             }
-
+            data.setRfsName(rfsName);
+            final CmsStaticExportData exportData = data;
+            final List<CmsStaticExportData> detailData = new ArrayList<CmsStaticExportData>();
             try {
-                CmsResource resource = data.getResource();
-                try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
-                    for (String detailPageUri : detailPages) {
-                        String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
+                Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(
+                    cms,
+                    data.getResource());
+                for (String detailPageUri : detailPages) {
+                    String altRfsName = manager.getRfsName(cms, detailPageUri);
+                    detailData.add(
+                        new CmsStaticExportData(
                             data.getVfsName(),
                             altRfsName,
                             data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
-                    }
-                } catch (CmsException e) {
-                    LOG.error(e.getLocalizedMessage(), e);
+                            data.getParameters()));
                 }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            tasks.add(new Callable<Void>() {
+
+                public Void call() {
 
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
+                    CmsBufferedReport resourceReport = new CmsBufferedReport(report);
+                    try {
+                        exportTemplateResource(exportData, detailData, cookies, resourceReport, count, size);
+                    } finally {
+                        resourceReport.flush();
+                    }
+                    return null;
                 }
-            } catch (IOException e) {
-                report.println(e);
+            });
+        }
+        if (!tasks.isEmpty()) {
+            try {
+                // the first request is sent alone, so that all other requests use the same session
+                tasks.get(0).call();
+                runExportTasks(tasks.subList(1, tasks.size()));
+            } catch (Exception e) {
+                // the tasks report their errors themselves
+                LOG.error(e.getLocalizedMessage(), e);
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
         }
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
@@ -737,6 +883,29 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         CmsObject cms,
         List<CmsPublishedResource> publishedResources) throws CmsException {
 
+        return getRelatedResources(cms, publishedResources, true);
+    }
+
+    /**
+     * Creates a list of <code>{@link org.opencms.db.CmsPublishedResource}</code> objects containing all related resources of the VFS tree.<p>
+     *
+     * If the static export has been triggered by the OpenCms workplace, publishedResources is null and all resources in the VFS tree are returned.<p>
+     * If really an after publish static export is triggered, then only the related resources are returned.<p>
+     *
+     * @param cms the current cms object
+     * @param publishedResources the list of published resources
+     * @param exportAllIfUnmatched if <code>true</code>, all resources are returned if a published resource
+     *      does not match any export rule
+     *
+     * @return list of CmsPulishedResource objects containing all resources of the VFS tree
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     */
+    protected List<CmsPublishedResource> getRelatedResources(
+        CmsObject cms,
+        List<CmsPublishedResource> publishedResources,
+        boolean exportAllIfUnmatched) throws CmsException {
+
         String storedSiteRoot = cms.getRequestContext().getSiteRoot();
         try {
             // switch to root site
@@ -783,7 +952,7 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                         }
                     }
                     // if one res does not match any rule, then export all files
-                    if (!match) {
+                    if (!match && exportAllIfUnmatched) {
                         return getAllResources(cms);
                     }
                 }
@@ -895,4 +1064,90 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
+
+    /**
+     * Runs the given export tasks.<p>
+     *
+     * If more than one export thread is configured, the tasks are run on a pool of that many threads,
+     * otherwise they are run one after the other in the calling thread.
+     * As in the serial case, the first failed task stops all tasks that have not been started yet.<p>
+     *
+     * @param tasks the export tasks to run
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    protected void runExportTasks(List<Callable<Void>> tasks) throws CmsException, IOException, ServletException {
+
+        int threads = Math.min(OpenCms.getStaticExportManager().getExportThreads(), tasks.size());
+        if (threads <= 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    throwExportException(e);
+                }
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: Static export %d").setDaemon(true).build());
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            Throwable failure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (CancellationException e) {
+                    // the task was not started because another task failed
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                        for (Future<Void> other : futures) {
+                            other.cancel(false);
+                        }
+                    }
+                }
+            }
+            if (failure != null) {
+                throwExportException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Throws the given exception of an export task, wrapped if it is not one of the declared exception types.<p>
+     *
+     * @param t the exception of the export task
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet
+     */
+    private void throwExportException(Throwable t) throws CmsException, IOException, ServletException {
+
+        if (t instanceof CmsException) {
+            throw (CmsException)t;
+        } else if (t instanceof IOException) {
+            throw (IOException)t;
+        } else if (t instanceof ServletException) {
+            throw (ServletException)t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        } else if (t instanceof Error) {
+            throw (Error)t;
+        }
+        throw new CmsStaticExportException(Messages.get().container(Messages.LOG_STATIC_EXPORT_ERROR_0), t);
+    }
+
 }
\ No newline at end of file
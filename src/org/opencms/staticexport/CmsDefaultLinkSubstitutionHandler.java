@@ -228,8 +228,7 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             // check if we need relative links in the exported pages
             if (exportManager.relativeLinksInExport(cms.getRequestContext().getSiteRoot() + oriUri)) {
                 // try to get base URI from cache
-                String cacheKey = exportManager.getCacheKey(targetSiteRoot, oriUri);
-                uriBaseName = exportManager.getCachedOnlineLink(cacheKey);
+                uriBaseName = exportManager.getCachedOnlineLink(targetSiteRoot, oriUri);
                 if (uriBaseName == null) {
                     // base not cached, check if we must export it
                     if (exportManager.isExportLink(cms, oriUri)) {
@@ -240,7 +239,7 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
                         uriBaseName = exportManager.getVfsPrefix() + oriUri;
                     }
                     // cache export base URI
-                    exportManager.cacheOnlineLink(cacheKey, uriBaseName);
+                    exportManager.cacheOnlineLink(targetSiteRoot, oriUri, uriBaseName);
                 }
                 // use relative links only on pages that get exported
                 useRelativeLinks = uriBaseName.startsWith(
@@ -250,15 +249,11 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
             String detailPagePart = detailPage == null ? "" : detailPage + ":";
             // check if we have the absolute VFS name for the link target cached
             // (We really need the target site root in the cache key, because different resources with the same site paths
-            // but in different sites may have different export settings. It seems we don't really need the site root
-            // from the request context as part of the key, but we'll leave it in to make sure we don't break anything.)
-            String cacheKey = cms.getRequestContext().getSiteRoot()
-                + ":"
-                + targetSiteRoot
-                + ":"
-                + detailPagePart
-                + absoluteLink;
-            resultLink = exportManager.getCachedOnlineLink(cacheKey);
+            // but in different sites may have different export settings, so the links are cached per target site.
+            // It seems we don't really need the site root from the request context as part of the key,
+            // but we'll leave it in to make sure we don't break anything.)
+            String cacheKey = cms.getRequestContext().getSiteRoot() + ":" + detailPagePart + absoluteLink;
+            resultLink = exportManager.getCachedOnlineLink(targetSiteRoot, cacheKey);
             if (resultLink == null) {
                 String storedSiteRoot = cms.getRequestContext().getSiteRoot();
                 try {
@@ -281,7 +276,7 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
                     cms.getRequestContext().setSiteRoot(storedSiteRoot);
                 }
                 // cache the result
-                exportManager.cacheOnlineLink(cacheKey, resultLink);
+                exportManager.cacheOnlineLink(targetSiteRoot, cacheKey, resultLink);
             }
 
             // now check for the secure settings
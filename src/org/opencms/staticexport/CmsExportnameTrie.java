@@ -0,0 +1,174 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.util.CmsStringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable lookup structure for the "exportname" folders of the static export.<p>
+ *
+ * The export names are stored in a prefix tree with one node per path segment, so all export names
+ * that are a prefix of a RFS name are found in a single walk over the RFS name.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsExportnameTrie {
+
+    /**
+     * A node of the prefix tree.<p>
+     */
+    private static class Node {
+
+        /** The child nodes by path segment, <code>null</code> if the node has no children. */
+        Map<String, Node> m_children;
+
+        /** The root path of the VFS folder with this export name, <code>null</code> if this is no export name. */
+        String m_folder;
+
+        /**
+         * Returns the child node for the given segment, creating it if required.<p>
+         *
+         * @param segment the path segment
+         *
+         * @return the child node
+         */
+        Node addChild(String segment) {
+
+            if (m_children == null) {
+                m_children = new HashMap<String, Node>();
+            }
+            Node child = m_children.get(segment);
+            if (child == null) {
+                child = new Node();
+                m_children.put(segment, child);
+            }
+            return child;
+        }
+
+        /**
+         * Returns the child node for the given segment.<p>
+         *
+         * @param segment the path segment
+         *
+         * @return the child node, or <code>null</code> if there is none
+         */
+        Node getChild(String segment) {
+
+            return m_children == null ? null : m_children.get(segment);
+        }
+    }
+
+    /** The export names sorted with the slash comparator. */
+    private Map<String, String> m_exportnames;
+
+    /** The root node, representing the export name "/". */
+    private Node m_root;
+
+    /**
+     * Creates a new export name trie.<p>
+     *
+     * @param exportnames the map of export names to VFS folder root paths, the export names must start and end with a "/"
+     */
+    public CmsExportnameTrie(Map<String, String> exportnames) {
+
+        TreeMap<String, String> sortedMap = new TreeMap<String, String>(new CmsStringUtil.CmsSlashComparator());
+        sortedMap.putAll(exportnames);
+        m_exportnames = Collections.unmodifiableMap(sortedMap);
+        m_root = new Node();
+        for (Map.Entry<String, String> entry : exportnames.entrySet()) {
+            String exportname = entry.getKey();
+            Node node = m_root;
+            int pos = 0;
+            int next;
+            while ((next = exportname.indexOf('/', pos + 1)) > 0) {
+                node = node.addChild(exportname.substring(pos + 1, next));
+                pos = next;
+            }
+            node.m_folder = entry.getValue();
+        }
+    }
+
+    /**
+     * Returns the export names with the VFS folder root paths, sorted with the slash comparator.<p>
+     *
+     * @return the unmodifiable map of export names
+     */
+    public Map<String, String> getExportnames() {
+
+        return m_exportnames;
+    }
+
+    /**
+     * Returns the VFS names the given RFS name may be mapped to by the export names.<p>
+     *
+     * For every export name that is a prefix of the folder of the RFS name, the VFS name is built by replacing
+     * the prefix with the VFS folder. The VFS names are ordered from the longest to the shortest export name.<p>
+     *
+     * @param rfsName the RFS name, without the RFS prefix
+     *
+     * @return the possible VFS names, may be empty
+     */
+    public List<String> getVfsNames(String rfsName) {
+
+        if (!rfsName.startsWith("/")) {
+            return Collections.emptyList();
+        }
+        int lastSlash = rfsName.lastIndexOf('/');
+        List<String> result = null;
+        Node node = m_root;
+        // the position of the slash that ends the matched prefix
+        int pos = 0;
+        while (node != null) {
+            if (node.m_folder != null) {
+                if (result == null) {
+                    result = new ArrayList<String>(2);
+                }
+                // longer matches are tried first
+                result.add(0, node.m_folder + rfsName.substring(pos + 1));
+            }
+            if (pos == lastSlash) {
+                break;
+            }
+            int next = rfsName.indexOf('/', pos + 1);
+            node = node.getChild(rfsName.substring(pos + 1, next));
+            pos = next;
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,626 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.cache.CmsVfsDiskCache;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.flex.CmsFlexCacheDependencies;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Stores which VFS resources the exported files depend on, so that only the exported files
+ * which depend on a published resource have to be exported again.<p>
+ *
+ * For every exported file, the dependency keys recorded while rendering it are stored. The keys are the root
+ * paths and parent folders of all resources read, and their resource ids (see {@link CmsFlexCacheDependencies}).
+ * A file with too many dependencies depends on {@link #KEY_ALL}, which matches every lookup.<p>
+ *
+ * The graph is stored in text files in two sets of {@link #BUCKETS} buckets, so that it scales to millions of
+ * exported files without being held in memory. The file buckets contain one line per export of a file, with the
+ * RFS name, the VFS name and the keys; only the last line of a file is valid. The key buckets contain one line
+ * per key and exported file, and are used to find the candidate files for a lookup, which are then verified against
+ * the file buckets. Both kinds of buckets are only appended to, {@link #compactIfRequired()} rewrites them once the
+ * key buckets have doubled in size.<p>
+ *
+ * The graph is only complete if all existing export files have been written while the dependencies were tracked,
+ * i.e. after the export folders have been purged or after a full static export. Callers must fall back to the
+ * export of all resources if the graph is not complete.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsStaticExportDependencyGraph {
+
+    /** The number of buckets for the files and for the keys. */
+    public static final int BUCKETS = 1024;
+
+    /** The key matching every lookup, used for files with too many dependencies. */
+    public static final String KEY_ALL = "*";
+
+    /** The maximum number of recorded paths per exported file. */
+    public static final int MAX_DEPENDENCIES = 10000;
+
+    /** The minimum size of the key buckets in bytes before they are compacted. */
+    public static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    /** The encoding of the bucket files. */
+    private static final String ENCODING = "UTF-8";
+
+    /** The name of the marker file indicating that the graph is complete. */
+    private static final String FILE_COMPLETE = "complete";
+
+    /** The name of the folder containing the file buckets. */
+    private static final String FOLDER_FILES = "files";
+
+    /** The name of the folder containing the key buckets. */
+    private static final String FOLDER_KEYS = "keys";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportDependencyGraph.class);
+
+    /** The size of the buffers used to write the key buckets during compaction. */
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    /** The size of the key buckets after the last compaction. */
+    private volatile long m_compactedSize;
+
+    /** The locks for the file buckets. */
+    private Object[] m_fileLocks;
+
+    /** The base folder of the graph. */
+    private File m_folder;
+
+    /** The locks for the key buckets. */
+    private Object[] m_keyLocks;
+
+    /** The lock for the whole graph, exclusively held while the graph is compacted or cleared. */
+    private ReadWriteLock m_lock;
+
+    /** The current size of the key buckets in bytes. */
+    private AtomicLong m_size;
+
+    /**
+     * Creates a new dependency graph stored in the given folder.<p>
+     *
+     * @param folder the absolute path of the folder to store the graph in
+     */
+    public CmsStaticExportDependencyGraph(String folder) {
+
+        m_folder = new File(folder);
+        m_lock = new ReentrantReadWriteLock();
+        m_fileLocks = new Object[BUCKETS];
+        m_keyLocks = new Object[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            m_fileLocks[i] = new Object();
+            m_keyLocks[i] = new Object();
+        }
+        new File(m_folder, FOLDER_FILES).mkdirs();
+        new File(m_folder, FOLDER_KEYS).mkdirs();
+        long size = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            size += getBucketFile(FOLDER_KEYS, i).length();
+        }
+        m_size = new AtomicLong(size);
+        m_compactedSize = size;
+    }
+
+    /**
+     * Returns the dependency keys for the given recorded dependencies.<p>
+     *
+     * @param dependencies the recorded dependencies
+     *
+     * @return the dependency keys
+     */
+    public static Set<String> getKeys(CmsFlexCacheDependencies dependencies) {
+
+        if (dependencies.isIncomplete()) {
+            return Collections.singleton(KEY_ALL);
+        }
+        Set<String> keys = new LinkedHashSet<String>(dependencies.getPaths());
+        for (CmsUUID resourceId : dependencies.getResourceIds()) {
+            keys.add(resourceId.toString());
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the dependency keys affected by the publication of the given resource.<p>
+     *
+     * These are the root path of the resource, the root path of its parent folder and its resource id.<p>
+     *
+     * @param resource the published resource
+     *
+     * @return the affected dependency keys
+     */
+    public static Set<String> getKeys(CmsPublishedResource resource) {
+
+        Set<String> keys = new LinkedHashSet<String>();
+        keys.add(resource.getRootPath());
+        String parentFolder = CmsResource.getParentFolder(resource.getRootPath());
+        if (parentFolder != null) {
+            keys.add(parentFolder);
+        }
+        if (resource.getResourceId() != null) {
+            keys.add(resource.getResourceId().toString());
+        }
+        return keys;
+    }
+
+    /**
+     * Marks the graph stored in the given folder as incomplete, if it exists.<p>
+     *
+     * This must be called if files may be exported without tracking their dependencies.<p>
+     *
+     * @param folder the absolute path of the folder the graph is stored in
+     */
+    public static void invalidate(String folder) {
+
+        File complete = new File(folder, FILE_COMPLETE);
+        if (complete.exists()) {
+            complete.delete();
+        }
+    }
+
+    /**
+     * Stores the dependencies of an exported file, replacing its previous dependencies.<p>
+     *
+     * @param rfsName the RFS name of the exported file, without the RFS prefix
+     * @param vfsName the root path of the exported resource
+     * @param keys the dependency keys
+     *
+     * @throws IOException if the graph could not be written
+     */
+    public void addDependencies(String rfsName, String vfsName, Collection<String> keys) throws IOException {
+
+        if (!isValid(rfsName) || !isValid(vfsName)) {
+            throw new IOException(Messages.get().getBundle().key(Messages.ERR_DEPENDENCIES_INVALID_NAME_1, rfsName));
+        }
+        StringBuffer fileLine = new StringBuffer(rfsName.length() + vfsName.length() + (keys.size() * 64));
+        fileLine.append(rfsName).append('\t').append(vfsName);
+        Map<Integer, StringBuffer> keyLines = new HashMap<Integer, StringBuffer>();
+        for (String key : keys) {
+            if (!isValid(key)) {
+                // this key can not be stored, so the file may depend on everything
+                key = KEY_ALL;
+            }
+            fileLine.append('\t').append(key);
+            Integer bucket = Integer.valueOf(getBucket(key));
+            StringBuffer keyLine = keyLines.get(bucket);
+            if (keyLine == null) {
+                keyLine = new StringBuffer();
+                keyLines.put(bucket, keyLine);
+            }
+            keyLine.append(key).append('\t').append(rfsName).append('\n');
+        }
+        fileLine.append('\n');
+
+        m_lock.readLock().lock();
+        try {
+            int fileBucket = getBucket(rfsName);
+            synchronized (m_fileLocks[fileBucket]) {
+                append(getBucketFile(FOLDER_FILES, fileBucket), fileLine);
+            }
+            for (Map.Entry<Integer, StringBuffer> entry : keyLines.entrySet()) {
+                int keyBucket = entry.getKey().intValue();
+                synchronized (m_keyLocks[keyBucket]) {
+                    m_size.addAndGet(append(getBucketFile(FOLDER_KEYS, keyBucket), entry.getValue()));
+                }
+            }
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all dependencies and marks the graph as complete.<p>
+     *
+     * This must be called after the export folders have been purged.<p>
+     *
+     * @throws IOException if the graph could not be cleared
+     */
+    public void clear() throws IOException {
+
+        m_lock.writeLock().lock();
+        try {
+            CmsFileUtil.purgeDirectory(m_folder);
+            new File(m_folder, FOLDER_FILES).mkdirs();
+            new File(m_folder, FOLDER_KEYS).mkdirs();
+            m_size.set(0);
+            m_compactedSize = 0;
+            setComplete();
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the buckets, removing all outdated lines.<p>
+     *
+     * @throws IOException if the graph could not be compacted
+     */
+    public void compact() throws IOException {
+
+        long start = System.currentTimeMillis();
+        m_lock.writeLock().lock();
+        try {
+            File newKeysFolder = new File(m_folder, FOLDER_KEYS + ".new");
+            CmsFileUtil.purgeDirectory(newKeysFolder);
+            newKeysFolder.mkdirs();
+            StringBuffer[] keyLines = new StringBuffer[BUCKETS];
+            long size = 0;
+            for (int fileBucket = 0; fileBucket < BUCKETS; fileBucket++) {
+                File bucketFile = getBucketFile(FOLDER_FILES, fileBucket);
+                if (!bucketFile.exists()) {
+                    continue;
+                }
+                Map<String, String[]> records = readRecords(bucketFile, null);
+                StringBuffer fileLines = new StringBuffer();
+                for (String[] record : records.values()) {
+                    String rfsName = record[0];
+                    fileLines.append(rfsName);
+                    for (int i = 1; i < record.length; i++) {
+                        fileLines.append('\t').append(record[i]);
+                        if (i > 1) {
+                            int keyBucket = getBucket(record[i]);
+                            if (keyLines[keyBucket] == null) {
+                                keyLines[keyBucket] = new StringBuffer();
+                            }
+                            keyLines[keyBucket].append(record[i]).append('\t').append(rfsName).append('\n');
+                            if (keyLines[keyBucket].length() > WRITE_BUFFER_SIZE) {
+                                size += append(new File(newKeysFolder, getBucketName(keyBucket)), keyLines[keyBucket]);
+                                keyLines[keyBucket] = null;
+                            }
+                        }
+                    }
+                    fileLines.append('\n');
+                }
+                CmsVfsDiskCache.saveFile(bucketFile.getAbsolutePath(), fileLines.toString().getBytes(ENCODING));
+            }
+            for (int keyBucket = 0; keyBucket < BUCKETS; keyBucket++) {
+                if (keyLines[keyBucket] != null) {
+                    size += append(new File(newKeysFolder, getBucketName(keyBucket)), keyLines[keyBucket]);
+                }
+            }
+            File keysFolder = new File(m_folder, FOLDER_KEYS);
+            CmsFileUtil.purgeDirectory(keysFolder);
+            if (!newKeysFolder.renameTo(keysFolder)) {
+                throw new IOException(
+                    Messages.get().getBundle().key(Messages.ERR_DEPENDENCIES_RENAME_1, keysFolder.getAbsolutePath()));
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_DEPENDENCIES_COMPACTED_3,
+                        String.valueOf(m_size.get()),
+                        String.valueOf(size),
+                        String.valueOf(System.currentTimeMillis() - start)));
+            }
+            m_size.set(size);
+            m_compactedSize = size;
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the graph if the key buckets have at least doubled in size since the last compaction.<p>
+     *
+     * @return <code>true</code> if the graph was compacted
+     *
+     * @throws IOException if the graph could not be compacted
+     */
+    public boolean compactIfRequired() throws IOException {
+
+        if (m_size.get() > Math.max(MIN_COMPACTION_SIZE, 2 * m_compactedSize)) {
+            compact();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the exported files that depend on at least one of the given keys.<p>
+     *
+     * The files depending on {@link #KEY_ALL} are always included.<p>
+     *
+     * @param keys the dependency keys to look up
+     *
+     * @return a map from the RFS names of the dependent files to the root paths of the exported resources
+     *
+     * @throws IOException if the graph could not be read
+     */
+    public Map<String, String> getDependentFiles(Collection<String> keys) throws IOException {
+
+        Set<String> lookupKeys = new LinkedHashSet<String>(keys);
+        lookupKeys.add(KEY_ALL);
+        Map<Integer, Set<String>> keysByBucket = new HashMap<Integer, Set<String>>();
+        for (String key : lookupKeys) {
+            Integer bucket = Integer.valueOf(getBucket(key));
+            Set<String> bucketKeys = keysByBucket.get(bucket);
+            if (bucketKeys == null) {
+                bucketKeys = new LinkedHashSet<String>();
+                keysByBucket.put(bucket, bucketKeys);
+            }
+            bucketKeys.add(key);
+        }
+
+        Map<String, String> result = new LinkedHashMap<String, String>();
+        m_lock.readLock().lock();
+        try {
+            // find the candidates in the key buckets
+            Map<Integer, Set<String>> candidatesByBucket = new HashMap<Integer, Set<String>>();
+            for (Map.Entry<Integer, Set<String>> entry : keysByBucket.entrySet()) {
+                for (String rfsName : readCandidates(entry.getKey().intValue(), entry.getValue())) {
+                    Integer bucket = Integer.valueOf(getBucket(rfsName));
+                    Set<String> candidates = candidatesByBucket.get(bucket);
+                    if (candidates == null) {
+                        candidates = new LinkedHashSet<String>();
+                        candidatesByBucket.put(bucket, candidates);
+                    }
+                    candidates.add(rfsName);
+                }
+            }
+            // the key buckets may contain outdated lines, so check the current dependencies of the candidates
+            for (Map.Entry<Integer, Set<String>> entry : candidatesByBucket.entrySet()) {
+                File bucketFile = getBucketFile(FOLDER_FILES, entry.getKey().intValue());
+                Map<String, String[]> records;
+                synchronized (m_fileLocks[entry.getKey().intValue()]) {
+                    records = readRecords(bucketFile, entry.getValue());
+                }
+                for (String[] record : records.values()) {
+                    for (int i = 2; i < record.length; i++) {
+                        if (lookupKeys.contains(record[i])) {
+                            result.put(record[0], record[1]);
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            m_lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current size of the key buckets in bytes.<p>
+     *
+     * @return the current size of the key buckets
+     */
+    public long getSize() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Returns <code>true</code> if the dependencies of all existing export files are stored in this graph.<p>
+     *
+     * @return <code>true</code> if the graph is complete
+     */
+    public boolean isComplete() {
+
+        return new File(m_folder, FILE_COMPLETE).exists();
+    }
+
+    /**
+     * Marks the graph as complete.<p>
+     *
+     * This must be called after a full static export.<p>
+     *
+     * @throws IOException if the marker file could not be written
+     */
+    public void setComplete() throws IOException {
+
+        CmsVfsDiskCache.saveFile(
+            new File(m_folder, FILE_COMPLETE).getAbsolutePath(),
+            String.valueOf(System.currentTimeMillis()).getBytes(ENCODING));
+    }
+
+    /**
+     * Appends the given lines to a bucket file.<p>
+     *
+     * @param file the bucket file
+     * @param lines the lines to append
+     *
+     * @return the number of bytes written
+     *
+     * @throws IOException if the file could not be written
+     */
+    private long append(File file, StringBuffer lines) throws IOException {
+
+        byte[] bytes = lines.toString().getBytes(ENCODING);
+        OutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+        return bytes.length;
+    }
+
+    /**
+     * Returns the bucket index for the given RFS name or key.<p>
+     *
+     * @param name the RFS name or key
+     *
+     * @return the bucket index
+     */
+    private int getBucket(String name) {
+
+        return (name.hashCode() & Integer.MAX_VALUE) % BUCKETS;
+    }
+
+    /**
+     * Returns the bucket file with the given index.<p>
+     *
+     * @param folder the name of the folder containing the buckets
+     * @param bucket the bucket index
+     *
+     * @return the bucket file
+     */
+    private File getBucketFile(String folder, int bucket) {
+
+        return new File(new File(m_folder, folder), getBucketName(bucket));
+    }
+
+    /**
+     * Returns the file name of the bucket with the given index.<p>
+     *
+     * @param bucket the bucket index
+     *
+     * @return the file name of the bucket
+     */
+    private String getBucketName(int bucket) {
+
+        return Integer.toHexString(bucket) + ".txt";
+    }
+
+    /**
+     * Checks if the given name can be stored in the bucket files.<p>
+     *
+     * @param name the name to check
+     *
+     * @return <code>true</code> if the name can be stored
+     */
+    private boolean isValid(String name) {
+
+        return (name.length() > 0) && (name.indexOf('\t') < 0) && (name.indexOf('\n') < 0) && (name.indexOf('\r') < 0);
+    }
+
+    /**
+     * Opens a reader for a bucket file.<p>
+     *
+     * @param file the bucket file
+     *
+     * @return the reader, or <code>null</code> if the file does not exist
+     *
+     * @throws IOException if the file could not be opened
+     */
+    private BufferedReader openReader(File file) throws IOException {
+
+        if (!file.exists()) {
+            return null;
+        }
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+    }
+
+    /**
+     * Reads the RFS names of the files stored for the given keys from a key bucket.<p>
+     *
+     * @param bucket the index of the key bucket
+     * @param keys the keys to look up
+     *
+     * @return the RFS names of the files stored for the keys
+     *
+     * @throws IOException if the bucket could not be read
+     */
+    private Set<String> readCandidates(int bucket, Set<String> keys) throws IOException {
+
+        Set<String> result = new LinkedHashSet<String>();
+        synchronized (m_keyLocks[bucket]) {
+            BufferedReader reader = openReader(getBucketFile(FOLDER_KEYS, bucket));
+            if (reader == null) {
+                return result;
+            }
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int pos = line.indexOf('\t');
+                    if ((pos > 0) && keys.contains(line.substring(0, pos))) {
+                        result.add(line.substring(pos + 1));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the current records of a file bucket.<p>
+     *
+     * A record consists of the RFS name, the VFS name and the dependency keys. If a file was exported
+     * more than once, only its last record is returned.<p>
+     *
+     * @param file the bucket file
+     * @param rfsNames the RFS names of the records to return, or <code>null</code> to return all records
+     *
+     * @return the records by RFS name
+     *
+     * @throws IOException if the file could not be read
+     */
+    private Map<String, String[]> readRecords(File file, Set<String> rfsNames) throws IOException {
+
+        Map<String, String[]> result = new LinkedHashMap<String, String[]>();
+        BufferedReader reader = openReader(file);
+        if (reader == null) {
+            return result;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int pos = line.indexOf('\t');
+                if (pos < 0) {
+                    continue;
+                }
+                String rfsName = line.substring(0, pos);
+                if ((rfsNames == null) || rfsNames.contains(rfsName)) {
+                    // remove first to keep the records ordered by their last export
+                    result.remove(rfsName);
+                    result.put(rfsName, line.split("\t"));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.cache.CmsConcurrentCacheMap;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent cache for the link decisions of the static export manager, partitioned by site root.<p>
+ *
+ * Every site root gets its own {@link CmsConcurrentCacheMap}, bounded by the configured number of entries,
+ * so a site with many links can not evict the cached links of the other sites. The partitions are created
+ * on first use and registered with the memory monitor, which reports their size, hits and misses.<p>
+ *
+ * Lookups do not acquire a global lock.<p>
+ *
+ * @param <V> the type of the cached values
+ *
+ * @since 10.0.0
+ */
+public class CmsStaticExportLinkCache<V> {
+
+    /** The number of lookups in site roots without a partition. */
+    private AtomicLong m_emptyMisses;
+
+    /** The maximum number of entries per site root. */
+    private int m_maxSize;
+
+    /** The name under which the partitions are registered with the memory monitor. */
+    private String m_monitorName;
+
+    /** The partitions by site root. */
+    private ConcurrentMap<String, CmsConcurrentCacheMap<String, V>> m_partitions;
+
+    /**
+     * Creates a new link cache.<p>
+     *
+     * @param monitorName the name under which the partitions are registered with the memory monitor
+     * @param maxSize the maximum number of entries per site root
+     */
+    public CmsStaticExportLinkCache(String monitorName, int maxSize) {
+
+        m_monitorName = monitorName;
+        m_maxSize = Math.max(1, maxSize);
+        m_partitions = new ConcurrentHashMap<String, CmsConcurrentCacheMap<String, V>>();
+        m_emptyMisses = new AtomicLong();
+    }
+
+    /**
+     * Removes all cached entries.<p>
+     *
+     * The partitions are kept, so the statistics are not reset.<p>
+     */
+    public void clear() {
+
+        for (CmsConcurrentCacheMap<String, V> partition : m_partitions.values()) {
+            partition.clear();
+        }
+    }
+
+    /**
+     * Returns the value cached for the given key in the given site root.<p>
+     *
+     * @param siteRoot the site root
+     * @param key the key
+     *
+     * @return the cached value, or <code>null</code> if nothing is cached for the key
+     */
+    public V get(String siteRoot, String key) {
+
+        CmsConcurrentCacheMap<String, V> partition = m_partitions.get(siteRoot);
+        if (partition == null) {
+            m_emptyMisses.incrementAndGet();
+            return null;
+        }
+        return partition.get(key);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached value, summed over all site roots.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+
+        long result = 0;
+        for (CmsConcurrentCacheMap<String, V> partition : m_partitions.values()) {
+            result += partition.getHitCount();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of entries per site root.<p>
+     *
+     * @return the maximum number of entries per site root
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that did not find a cached value, summed over all site roots.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+
+        long result = m_emptyMisses.get();
+        for (CmsConcurrentCacheMap<String, V> partition : m_partitions.values()) {
+            result += partition.getMissCount();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of site roots with a partition.<p>
+     *
+     * @return the number of partitions
+     */
+    public int getPartitionCount() {
+
+        return m_partitions.size();
+    }
+
+    /**
+     * Caches a value for the given key in the given site root.<p>
+     *
+     * @param siteRoot the site root
+     * @param key the key
+     * @param value the value to cache
+     */
+    public void put(String siteRoot, String key, V value) {
+
+        CmsConcurrentCacheMap<String, V> partition = m_partitions.get(siteRoot);
+        if (partition == null) {
+            CmsConcurrentCacheMap<String, V> newPartition = new CmsConcurrentCacheMap<String, V>(m_maxSize);
+            partition = m_partitions.putIfAbsent(siteRoot, newPartition);
+            if (partition == null) {
+                partition = newPartition;
+                register(m_monitorName + "[" + siteRoot + "]", partition);
+            }
+        }
+        partition.put(key, value);
+    }
+
+    /**
+     * Returns the number of cached entries, summed over all site roots.<p>
+     *
+     * @return the number of cached entries
+     */
+    public int size() {
+
+        int result = 0;
+        for (CmsConcurrentCacheMap<String, V> partition : m_partitions.values()) {
+            result += partition.size();
+        }
+        return result;
+    }
+
+    /**
+     * Registers a new partition with the memory monitor.<p>
+     *
+     * @param name the name of the partition
+     * @param partition the partition
+     */
+    protected void register(String name, CmsConcurrentCacheMap<String, V> partition) {
+
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        if (monitor != null) {
+            monitor.register(name, partition);
+        }
+    }
+}
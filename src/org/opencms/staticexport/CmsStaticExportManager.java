@@ -29,6 +29,8 @@ package org.opencms.staticexport;
 
 import org.opencms.ade.detailpage.CmsDetailPageUtil;
 import org.opencms.ade.detailpage.I_CmsDetailPageFinder;
+import org.opencms.cache.CmsConcurrentCacheMap;
+import org.opencms.cache.CmsVfsDiskCache;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
@@ -36,6 +38,8 @@ import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.flex.CmsFlexCacheDependencies;
+import org.opencms.flex.CmsFlexDependencyRecorder;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
 import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
@@ -61,7 +65,6 @@ import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -72,7 +75,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TreeMap;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -88,6 +90,12 @@ import org.apache.commons.logging.Log;
  */
 public class CmsStaticExportManager implements I_CmsEventListener {
 
+    /** The default number of threads exporting resources after a publish. */
+    public static final int DEFAULT_EXPORT_THREADS = 1;
+
+    /** The default maximum number of entries of the link caches, per site for the site dependent caches. */
+    public static final int DEFAULT_LINK_CACHE_SIZE = 2048;
+
     /** Name for the default file. */
     public static final String DEFAULT_FILE = "index.html";
 
@@ -115,6 +123,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
+    /** Name of the folder storing the dependencies of the exported files. */
+    public static final String EXPORT_DEPENDENCIES_FOLDER = CmsSystemInfo.FOLDER_WEBINF + "exportdependencies";
+
     /** Flag value for links without parameters. */
     public static final int EXPORT_LINK_WITH_PARAMETER = 2;
 
@@ -149,16 +160,31 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     private CmsObject m_adminCms;
 
     /** Cache for the export links. */
-    private Map<String, Boolean> m_cacheExportLinks;
+    private CmsStaticExportLinkCache<Boolean> m_cacheExportLinks;
 
     /** Cache for the export uris. */
     private Map<String, CmsStaticExportData> m_cacheExportUris;
 
     /** Cache for the online links. */
-    private Map<String, String> m_cacheOnlineLinks;
+    private CmsStaticExportLinkCache<String> m_cacheOnlineLinks;
 
     /** Cache for the secure links. */
-    private Map<String, String> m_cacheSecureLinks;
+    private CmsStaticExportLinkCache<String> m_cacheSecureLinks;
+
+    /** The maximum number of entries of the export link cache per site. */
+    private int m_cacheSizeExportLinks = DEFAULT_LINK_CACHE_SIZE;
+
+    /** The maximum number of entries of the export uri cache. */
+    private int m_cacheSizeExportUris = DEFAULT_LINK_CACHE_SIZE;
+
+    /** The maximum number of entries of the online link cache per site. */
+    private int m_cacheSizeOnlineLinks = DEFAULT_LINK_CACHE_SIZE;
+
+    /** The maximum number of entries of the secure link cache per site. */
+    private int m_cacheSizeSecureLinks = DEFAULT_LINK_CACHE_SIZE;
+
+    /** Cache for the RFS names that could not be resolved to a VFS resource in the Online project, by user. */
+    private Map<String, Boolean> m_cacheVfsNameMisses;
 
     /** OpenCms default charset header. */
     private String m_defaultAcceptCharsetHeader;
@@ -166,6 +192,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** OpenCms default locale header. */
     private String m_defaultAcceptLanguageHeader;
 
+    /** The dependencies of the exported files, <code>null</code> if the dependencies are not tracked. */
+    private CmsStaticExportDependencyGraph m_dependencyGraph;
+
     /** Matcher for  selecting those resources which should be part of the static export. */
     private CmsExportFolderMatcher m_exportFolderMatcher;
 
@@ -175,8 +204,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The additional http headers for the static export. */
     private List<String> m_exportHeaders;
 
-    /** List of all resources that have the "exportname" property set: &lt;system-wide unique export name, root path&gt;. */
-    private Map<String, String> m_exportnameResources;
+    /** All resources that have the "exportname" property set: &lt;system-wide unique export name, root path&gt;. */
+    private volatile CmsExportnameTrie m_exportnames;
 
     /** Indicates if <code>true</code> is the default value for the property "export". */
     private boolean m_exportPropertyDefault;
@@ -190,6 +219,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** List of export suffixes where the "export" property default is always <code>true</code>. */
     private List<String> m_exportSuffixes;
 
+    /** The number of threads exporting resources after a publish. */
+    private int m_exportThreads = DEFAULT_EXPORT_THREADS;
+
     /** Temporary variable for reading the xml config file. */
     private CmsStaticExportExportRule m_exportTmpRule;
 
@@ -217,7 +249,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Lock object for export folder deletion in {@link #scrubExportFolders(I_CmsReport)}. */
     private Object m_lockScrubExportFolders;
 
-    /** Lock object for write access to the {@link #m_exportnameResources} map in {@link #computeVfsExportnames()}. */
+    /** Lock object for write access to the {@link #m_exportnames} trie in {@link #computeVfsExportnames()}. */
     private Object m_lockSetExportnames;
 
     /** Indicates if the quick static export for plain resources is enabled. */
@@ -259,6 +291,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Vfs Name of a resource used to do a "static export required" test. */
     private String m_testResource;
 
+    /** Indicates if the dependencies of the exported files are tracked. */
+    private boolean m_trackDependencies;
+
     /** If there are several identical export paths the usage of temporary directories has to be disabled. */
     private boolean m_useTempDirs = true;
 
@@ -439,12 +474,27 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /**
      * Caches a calculated online link.<p>
      *
+     * The link is cached in the partition of the root site,
+     * use {@link #cacheOnlineLink(String, String, String)} for links depending on a site.<p>
+     *
      * @param linkName the link
      * @param vfsName the name of the VFS resource
      */
     public void cacheOnlineLink(String linkName, String vfsName) {
 
-        m_cacheOnlineLinks.put(linkName, vfsName);
+        cacheOnlineLink("", linkName, vfsName);
+    }
+
+    /**
+     * Caches a calculated online link for the given site.<p>
+     *
+     * @param siteRoot the root of the site the link belongs to
+     * @param linkName the link
+     * @param vfsName the name of the VFS resource
+     */
+    public void cacheOnlineLink(String siteRoot, String linkName, String vfsName) {
+
+        m_cacheOnlineLinks.put(siteRoot, linkName, vfsName);
     }
 
     /**
@@ -490,6 +540,13 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 synchronized (m_lockCmsEvent) {
                     getHandler().performEventPublishProject(publishHistoryId, report);
                 }
+                if (m_dependencyGraph != null) {
+                    try {
+                        m_dependencyGraph.compactIfRequired();
+                    } catch (IOException e) {
+                        LOG.error(e.getLocalizedMessage(), e);
+                    }
+                }
                 clearCaches(event);
 
                 if (LOG.isDebugEnabled()) {
@@ -623,46 +680,73 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         List<Locale> locales = OpenCms.getLocaleManager().getDefaultLocales(exportCms, vfsName);
         boolean exported = false;
         boolean matched = false;
-        // iterate over all rules
-        Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
-        while (it.hasNext()) {
-            CmsStaticExportRfsRule rule = it.next();
-            // normal case
-            boolean export = rule.getSource().matcher(siteRoot + vfsName).matches();
-            matched |= export;
-            // system folder case
-            export |= (vfsName.startsWith(CmsWorkplace.VFS_PATH_SYSTEM) && rule.match(vfsName));
-            if (export) {
-                // the resource has to exported for this rule
-                CmsObject locCms = exportCms;
-                Locale locale = CmsLocaleManager.getLocale(rule.getName());
-                if (locales.contains(locale)) {
-                    // if the locale is in the default locales for the resource
-                    // so adjust the locale to use for exporting
-                    CmsContextInfo ctxInfo = new CmsContextInfo(exportCms.getRequestContext());
-                    ctxInfo.setLocale(locale);
-                    locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
+        CmsFlexCacheDependencies dependencies = null;
+        if (m_dependencyGraph != null) {
+            // record the resources read while the file is exported
+            dependencies = CmsFlexDependencyRecorder.start(CmsStaticExportDependencyGraph.MAX_DEPENDENCIES);
+        }
+        try {
+            // iterate over all rules
+            Iterator<CmsStaticExportRfsRule> it = getRfsRules().iterator();
+            while (it.hasNext()) {
+                CmsStaticExportRfsRule rule = it.next();
+                // normal case
+                boolean export = rule.getSource().matcher(siteRoot + vfsName).matches();
+                matched |= export;
+                // system folder case
+                export |= (vfsName.startsWith(CmsWorkplace.VFS_PATH_SYSTEM) && rule.match(vfsName));
+                if (export) {
+                    // the resource has to exported for this rule
+                    CmsObject locCms = exportCms;
+                    Locale locale = CmsLocaleManager.getLocale(rule.getName());
+                    if (locales.contains(locale)) {
+                        // if the locale is in the default locales for the resource
+                        // so adjust the locale to use for exporting
+                        CmsContextInfo ctxInfo = new CmsContextInfo(exportCms.getRequestContext());
+                        ctxInfo.setLocale(locale);
+                        locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
+                    }
+                    // read the content in the matching locale
+                    byte[] content = loader.export(locCms, file, req, wrapRes);
+                    if (content != null) {
+                        // write to rfs
+                        exported = true;
+                        String locRfsName = rfsName;
+                        if (locales.contains(locale)) {
+                            locRfsName = rule.getLocalizedRfsName(rfsName, "/");
+                        }
+                        writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+                    }
                 }
-                // read the content in the matching locale
-                byte[] content = loader.export(locCms, file, req, wrapRes);
+            }
+            if (!matched) {
+                // no rule matched
+                String exportPath = getExportPath(siteRoot + vfsName);
+                byte[] content = loader.export(exportCms, file, req, wrapRes);
                 if (content != null) {
-                    // write to rfs
                     exported = true;
-                    String locRfsName = rfsName;
-                    if (locales.contains(locale)) {
-                        locRfsName = rule.getLocalizedRfsName(rfsName, "/");
-                    }
-                    writeResource(req, rule.getExportPath(), locRfsName, resource, content);
+                    writeResource(req, exportPath, rfsName, resource, content);
                 }
             }
+        } finally {
+            if (dependencies != null) {
+                CmsFlexDependencyRecorder.stop();
+            }
         }
-        if (!matched) {
-            // no rule matched
-            String exportPath = getExportPath(siteRoot + vfsName);
-            byte[] content = loader.export(exportCms, file, req, wrapRes);
-            if (content != null) {
-                exported = true;
-                writeResource(req, exportPath, rfsName, resource, content);
+        if (exported && (dependencies != null)) {
+            dependencies.add(file);
+            try {
+                m_dependencyGraph.addDependencies(
+                    data.getRfsName(),
+                    file.getRootPath(),
+                    CmsStaticExportDependencyGraph.getKeys(dependencies));
+            } catch (IOException e) {
+                // the file would not be exported again if one of its dependencies is published
+                LOG.error(
+                    Messages.get().getBundle().key(Messages.LOG_DEPENDENCIES_WRITE_FAILED_1, data.getRfsName()),
+                    e);
+                CmsStaticExportDependencyGraph.invalidate(
+                    OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebApplication(EXPORT_DEPENDENCIES_FOLDER));
             }
         }
 
@@ -759,6 +843,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         } else if (report.hasError()) {
             report.println(Messages.get().container(Messages.ERR_EXPORT_NOT_SUCCESSFUL_0), I_CmsReport.FORMAT_WARNING);
         }
+        if ((m_dependencyGraph != null) && !report.hasError()) {
+            // all files have been exported with their dependencies
+            m_dependencyGraph.setComplete();
+        }
     }
 
     /**
@@ -790,7 +878,60 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     public String getCachedOnlineLink(String vfsName) {
 
-        return m_cacheOnlineLinks.get(vfsName);
+        return getCachedOnlineLink("", vfsName);
+    }
+
+    /**
+     * Returns a cached link for the given vfs name in the given site.<p>
+     *
+     * @param siteRoot the root of the site the link belongs to
+     * @param vfsName the name of the vfs resource to get the cached link for
+     *
+     * @return a cached link for the given vfs name, or null
+     */
+    public String getCachedOnlineLink(String siteRoot, String vfsName) {
+
+        return m_cacheOnlineLinks.get(siteRoot, vfsName);
+    }
+
+    /**
+     * Returns the maximum number of entries of the export link cache per site.<p>
+     *
+     * @return the maximum number of entries of the export link cache per site
+     */
+    public int getCacheSizeExportLinks() {
+
+        return m_cacheSizeExportLinks;
+    }
+
+    /**
+     * Returns the maximum number of entries of the export uri cache.<p>
+     *
+     * @return the maximum number of entries of the export uri cache
+     */
+    public int getCacheSizeExportUris() {
+
+        return m_cacheSizeExportUris;
+    }
+
+    /**
+     * Returns the maximum number of entries of the online link cache per site.<p>
+     *
+     * @return the maximum number of entries of the online link cache per site
+     */
+    public int getCacheSizeOnlineLinks() {
+
+        return m_cacheSizeOnlineLinks;
+    }
+
+    /**
+     * Returns the maximum number of entries of the secure link cache per site.<p>
+     *
+     * @return the maximum number of entries of the secure link cache per site
+     */
+    public int getCacheSizeSecureLinks() {
+
+        return m_cacheSizeSecureLinks;
     }
 
     /**
@@ -846,6 +987,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_rfsPrefix;
     }
 
+    /**
+     * Returns the dependencies of the exported files.<p>
+     *
+     * @return the dependencies of the exported files, or <code>null</code> if the dependencies are not tracked
+     */
+    public CmsStaticExportDependencyGraph getDependencyGraph() {
+
+        return m_dependencyGraph;
+    }
+
     /**
      * Returns the number of stored backups.<p>
      *
@@ -974,20 +1125,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
 
     public Map<String, String> getExportnames() {
 
-        Map<String, String> exportnames = new HashMap<String, String>();
-        if (m_exportnameResources == null) {
-            m_exportnameResources = Collections.unmodifiableMap(computeVfsExportnames());
-            exportnames.putAll(m_exportnameResources);
-        } else {
-            exportnames.putAll(m_exportnameResources);
-        }
-        TreeMap<String, String> sortedMap = new TreeMap<String, String>(new CmsStringUtil.CmsSlashComparator());
-        sortedMap.putAll(exportnames);
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_UPDATE_EXPORTNAME_PROP_FINISHED_0));
-        }
-        return Collections.unmodifiableMap(sortedMap);
+        return getExportnameTrie().getExportnames();
     }
 
     /**
@@ -1073,6 +1211,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_exportSuffixes;
     }
 
+    /**
+     * Returns the number of threads exporting resources after a publish.<p>
+     *
+     * @return the number of export threads
+     */
+    public int getExportThreads() {
+
+        return m_exportThreads;
+    }
+
     /**
      * Returns the export URL used for internal requests for exporting resources that require a
      * request / response (like JSP).<p>
@@ -1469,39 +1617,28 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     public CmsStaticExportData getVfsNameInternal(CmsObject cms, String rfsName)
     throws CmsVfsResourceNotFoundException {
 
+        // misses are only cached for the Online project, where the cache is cleared after every publish
+        String missKey = null;
+        if (cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+            missKey = cms.getRequestContext().getCurrentUser().getId() + rfsName;
+            if (m_cacheVfsNameMisses.containsKey(missKey)) {
+                throw new CmsVfsResourceNotFoundException(
+                    org.opencms.db.generic.Messages.get().container(
+                        org.opencms.db.generic.Messages.ERR_READ_RESOURCE_1,
+                        rfsName));
+            }
+        }
         String storedSiteRoot = cms.getRequestContext().getSiteRoot();
         try {
             cms.getRequestContext().setSiteRoot("/");
 
-            // try to find a match with the "exportname" folders
-            String path = rfsName;
-            // in case of folders, remove the trailing slash
-            // in case of files, remove the filename and trailing slash
-            path = path.substring(0, path.lastIndexOf('/'));
-            // cache the export names
-            Map<String, String> exportnameResources = getExportnames();
-            while (true) {
-                // exportnameResources are only folders!
-                String expName = exportnameResources.get(path + '/');
-                if (expName == null) {
-                    if (path.length() == 0) {
-                        break;
-                    }
-                    path = path.substring(0, path.lastIndexOf('/'));
-                    continue;
-                }
-                // this will be a root path!
-                String vfsName = expName + rfsName.substring(path.length() + 1);
+            // try to find a match with the "exportname" folders,
+            // the VFS names are ordered from the longest to the shortest matching export name
+            for (String vfsName : getExportnameTrie().getVfsNames(rfsName)) {
                 try {
                     return readResource(cms, vfsName);
                 } catch (CmsVfsResourceNotFoundException e) {
-                    // if already checked all parts of the path we can stop here.
-                    // This is the case if the "/" is set as "exportname" on any vfs resource
-                    if (path.length() == 0) {
-                        break;
-                    }
                     // continue with trying out the other exportname to find a match (may be a multiple prefix)
-                    path = path.substring(0, path.lastIndexOf('/'));
                     continue;
                 } catch (CmsException e) {
                     // should never happen
@@ -1539,6 +1676,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         } finally {
             cms.getRequestContext().setSiteRoot(storedSiteRoot);
         }
+        if (missKey != null) {
+            m_cacheVfsNameMisses.put(missKey, Boolean.TRUE);
+        }
         throw new CmsVfsResourceNotFoundException(
             org.opencms.db.generic.Messages.get().container(
                 org.opencms.db.generic.Messages.ERR_READ_RESOURCE_1,
@@ -1627,25 +1767,34 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
         }
 
-        Map<String, String> lruMap1 = CmsCollectionsGenericWrapper.createLRUMap(2048);
-        m_cacheOnlineLinks = Collections.synchronizedMap(lruMap1);
-        // map must be of type "LRUMap" so that memory monitor can acecss all information
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheOnlineLinks", lruMap1);
+        // the link caches are read for every link on every page, so they must not be synchronized,
+        // the site dependent caches register one partition per site with the memory monitor
+        m_cacheOnlineLinks = new CmsStaticExportLinkCache<String>(
+            this.getClass().getName() + ".m_cacheOnlineLinks",
+            m_cacheSizeOnlineLinks);
+        m_cacheSecureLinks = new CmsStaticExportLinkCache<String>(
+            this.getClass().getName() + ".m_cacheSecureLinks",
+            m_cacheSizeSecureLinks);
+        m_cacheExportLinks = new CmsStaticExportLinkCache<Boolean>(
+            this.getClass().getName() + ".m_cacheExportLinks",
+            m_cacheSizeExportLinks);
 
-        Map<String, CmsStaticExportData> lruMap2 = CmsCollectionsGenericWrapper.createLRUMap(2048);
-        m_cacheExportUris = Collections.synchronizedMap(lruMap2);
-        // map must be of type "LRUMap" so that memory monitor can acecss all information
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportUris", lruMap2);
+        m_cacheExportUris = new CmsConcurrentCacheMap<String, CmsStaticExportData>(m_cacheSizeExportUris);
+        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportUris", m_cacheExportUris);
 
-        Map<String, String> lruMap3 = CmsCollectionsGenericWrapper.createLRUMap(2048);
-        m_cacheSecureLinks = Collections.synchronizedMap(lruMap3);
+        Map<String, Boolean> lruMap5 = CmsCollectionsGenericWrapper.createLRUMap(2048);
+        m_cacheVfsNameMisses = Collections.synchronizedMap(lruMap5);
         // map must be of type "LRUMap" so that memory monitor can acecss all information
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheSecureLinks", lruMap3);
+        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheVfsNameMisses", lruMap5);
 
-        Map<String, Boolean> lruMap4 = CmsCollectionsGenericWrapper.createLRUMap(2048);
-        m_cacheExportLinks = Collections.synchronizedMap(lruMap4);
-        // map must be of type "LRUMap" so that memory monitor can acecss all information
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportLinks", lruMap4);
+        String dependencyFolder = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebApplication(
+            EXPORT_DEPENDENCIES_FOLDER);
+        if (m_trackDependencies && m_staticExportEnabled) {
+            m_dependencyGraph = new CmsStaticExportDependencyGraph(dependencyFolder);
+        } else {
+            // files exported from now on are not tracked, so stored dependencies can not be used later
+            CmsStaticExportDependencyGraph.invalidate(dependencyFolder);
+        }
 
         // register this object as event listener
         OpenCms.addCmsEventListener(
@@ -1733,6 +1882,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EXPORT_URL_1, getExportUrl()));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_OPTIMIZATION_1, getPlainExportOptimization()));
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_EXPORT_DEPENDENCIES_1,
+                        String.valueOf(isTrackDependencies())));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_TESTRESOURCE_1, getTestResource()));
                 CmsLog.INIT.info(Messages.get().getBundle().key(
@@ -1762,7 +1915,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     public boolean isExportLink(CmsObject cms, String vfsName) {
 
-        LOG.info("isExportLink? " + vfsName);
+        if (LOG.isInfoEnabled()) {
+            LOG.info("isExportLink? " + vfsName);
+        }
         if (!isStaticExportEnabled()) {
             return false;
         }
@@ -1773,8 +1928,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             siteRoot = site.getSiteRoot();
             vfsName = CmsStringUtil.joinPaths("/", vfsName.substring(siteRoot.length()));
         }
-        String cacheKey = getCacheKey(siteRoot, vfsName);
-        Boolean exportResource = getCacheExportLinks().get(cacheKey);
+        Boolean exportResource = getCacheExportLinks().get(siteRoot, vfsName);
         if (exportResource != null) {
             return exportResource.booleanValue();
         }
@@ -1808,7 +1962,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             // no export required (probably security issues, e.g. no access for export user)
             LOG.debug(e.getLocalizedMessage(), e);
         }
-        getCacheExportLinks().put(cacheKey, Boolean.valueOf(result));
+        getCacheExportLinks().put(siteRoot, vfsName, Boolean.valueOf(result));
 
         return result;
     }
@@ -1867,8 +2021,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return false;
         }
 
-        String cacheKey = OpenCms.getStaticExportManager().getCacheKey(cms.getRequestContext().getSiteRoot(), vfsName);
-        String secureResource = OpenCms.getStaticExportManager().getCacheSecureLinks().get(cacheKey);
+        String siteRoot = cms.getRequestContext().getSiteRoot();
+        String secureResource = OpenCms.getStaticExportManager().getCacheSecureLinks().get(siteRoot, vfsName);
         if (secureResource == null) {
             CmsObject cmsForReadingProperties = cms;
             try {
@@ -1891,10 +2045,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     secureResource = "false";
                 }
                 // only cache result if read was successfull
-                OpenCms.getStaticExportManager().getCacheSecureLinks().put(cacheKey, secureResource);
+                OpenCms.getStaticExportManager().getCacheSecureLinks().put(siteRoot, vfsName, secureResource);
             } catch (CmsVfsResourceNotFoundException e) {
                 secureResource = SECURE_PROPERTY_VALUE_BOTH;
-                OpenCms.getStaticExportManager().getCacheSecureLinks().put(cacheKey, secureResource);
+                OpenCms.getStaticExportManager().getCacheSecureLinks().put(siteRoot, vfsName, secureResource);
             } catch (Exception e) {
                 // no secure link required (probably security issues, e.g. no access for current user)
                 // however other users may be allowed to read the resource, so the result can't be cached
@@ -1985,6 +2139,17 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return false;
     }
 
+    /**
+     * Returns <code>true</code> if the dependencies of the exported files are tracked,
+     * so that only the files depending on the published resources are exported again after a publish.<p>
+     *
+     * @return <code>true</code> if the dependencies of the exported files are tracked
+     */
+    public boolean isTrackDependencies() {
+
+        return m_trackDependencies;
+    }
+
     /**
      * Checks if we have to use temporary directories during export.<p>
      *
@@ -2038,6 +2203,46 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_acceptLanguageHeader = value;
     }
 
+    /**
+     * Sets the maximum number of entries of the export link cache per site.<p>
+     *
+     * @param size the maximum number of entries, parsed as <code>int</code>
+     */
+    public void setCacheSizeExportLinks(String size) {
+
+        m_cacheSizeExportLinks = Math.max(1, Integer.parseInt(size.trim()));
+    }
+
+    /**
+     * Sets the maximum number of entries of the export uri cache.<p>
+     *
+     * @param size the maximum number of entries, parsed as <code>int</code>
+     */
+    public void setCacheSizeExportUris(String size) {
+
+        m_cacheSizeExportUris = Math.max(1, Integer.parseInt(size.trim()));
+    }
+
+    /**
+     * Sets the maximum number of entries of the online link cache per site.<p>
+     *
+     * @param size the maximum number of entries, parsed as <code>int</code>
+     */
+    public void setCacheSizeOnlineLinks(String size) {
+
+        m_cacheSizeOnlineLinks = Math.max(1, Integer.parseInt(size.trim()));
+    }
+
+    /**
+     * Sets the maximum number of entries of the secure link cache per site.<p>
+     *
+     * @param size the maximum number of entries, parsed as <code>int</code>
+     */
+    public void setCacheSizeSecureLinks(String size) {
+
+        m_cacheSizeSecureLinks = Math.max(1, Integer.parseInt(size.trim()));
+    }
+
     /**
      * Sets the default property value.<p>
      *
@@ -2119,6 +2324,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportSuffixes.add(suffix.toLowerCase());
     }
 
+    /**
+     * Sets the number of threads exporting resources after a publish.<p>
+     *
+     * @param exportThreads the number of export threads, parsed as <code>int</code>
+     */
+    public void setExportThreads(String exportThreads) {
+
+        m_exportThreads = Math.max(1, Integer.parseInt(exportThreads.trim()));
+    }
+
     /**
      * Sets the export url.<p>
      *
@@ -2220,6 +2435,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_testResource = testResource;
     }
 
+    /**
+     * Sets if the dependencies of the exported files are tracked.<p>
+     *
+     * @param value must be <code>true</code> or <code>false</code>
+     */
+    public void setTrackDependencies(String value) {
+
+        m_trackDependencies = Boolean.valueOf(value.trim()).booleanValue();
+    }
+
     /**
      * Sets the prefix for internal links in the vfs.<p>
      *
@@ -2270,7 +2495,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      */
     protected void clearCaches(CmsEvent event) {
 
-        // synchronization of this method is not required as the individual maps are all synchronized maps anyway,
+        // synchronization of this method is not required as the individual maps are all thread safe anyway,
         // and setExportnames() is doing it's own synchronization
 
         // flush all caches
@@ -2278,7 +2503,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheExportUris.clear();
         m_cacheSecureLinks.clear();
         m_cacheExportLinks.clear();
-        m_exportnameResources = null;
+        m_cacheVfsNameMisses.clear();
+        // the export names are read again on the next lookup
+        m_exportnames = null;
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLUSHED_CACHES_1, new Integer(event.getType())));
         }
@@ -2354,7 +2581,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      *
      * @return the cacheExportLinks
      */
-    protected Map<String, Boolean> getCacheExportLinks() {
+    protected CmsStaticExportLinkCache<Boolean> getCacheExportLinks() {
 
         return m_cacheExportLinks;
     }
@@ -2364,7 +2591,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      *
      * @return the cacheSecureLinks
      */
-    protected Map<String, String> getCacheSecureLinks() {
+    protected CmsStaticExportLinkCache<String> getCacheSecureLinks() {
 
         return m_cacheSecureLinks;
     }
@@ -2714,6 +2941,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 I_CmsReport.FORMAT_HEADLINE);
         }
         synchronized (m_lockScrubExportFolders) {
+            boolean purged = true;
             int count = 0;
             Integer size = new Integer(m_rfsRules.size() + 1);
             // default case
@@ -2741,6 +2969,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 }
             } catch (Throwable t) {
                 // ignore, nothing to do about the
+                purged = false;
                 if (LOG.isWarnEnabled()) {
                     LOG.warn(
                         Messages.get().getBundle().key(Messages.LOG_FOLDER_DELETION_FAILED_1, exportFolderName),
@@ -2776,6 +3005,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     }
                 } catch (Throwable t) {
                     // ignore, nothing to do about the
+                    purged = false;
                     if (LOG.isWarnEnabled()) {
                         LOG.warn(
                             Messages.get().getBundle().key(Messages.LOG_FOLDER_DELETION_FAILED_1, exportFolderName),
@@ -2783,6 +3013,14 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     }
                 }
             }
+            if ((m_dependencyGraph != null) && purged) {
+                // no exported files are left, so the dependencies of all files will be known again
+                try {
+                    m_dependencyGraph.clear();
+                } catch (IOException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
         }
         if (report != null) {
             report.println(
@@ -2813,13 +3051,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
 
         // make sure all required parent folder exist
         createExportFolder(exportPath, rfsName);
-        // generate export file instance and output stream
-        File exportFile = new File(exportFileName);
-        // write new exported file content
+        File exportFile;
+        // write new exported file content, the file is replaced atomically
+        // so that the web server never delivers a partially written file
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            exportFile = CmsVfsDiskCache.saveFile(exportFileName, content);
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2906,4 +3142,27 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Returns the trie of the export names, reading the export names if required.<p>
+     *
+     * @return the trie of the export names
+     */
+    private CmsExportnameTrie getExportnameTrie() {
+
+        CmsExportnameTrie exportnames = m_exportnames;
+        if (exportnames == null) {
+            synchronized (m_lockSetExportnames) {
+                exportnames = m_exportnames;
+                if (exportnames == null) {
+                    exportnames = new CmsExportnameTrie(computeVfsExportnames());
+                    m_exportnames = exportnames;
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(Messages.get().getBundle().key(Messages.LOG_UPDATE_EXPORTNAME_PROP_FINISHED_0));
+                    }
+                }
+            }
+        }
+        return exportnames;
+    }
 }
@@ -40,6 +40,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CREATE_FOLDER_1 = "ERR_CREATE_FOLDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_DEPENDENCIES_INVALID_NAME_1 = "ERR_DEPENDENCIES_INVALID_NAME_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_DEPENDENCIES_RENAME_1 = "ERR_DEPENDENCIES_RENAME_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_EMPTY_EVENT_DATA_0 = "ERR_EMPTY_EVENT_DATA_0";
 
@@ -73,6 +79,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_DEFAULT_1 = "INIT_EXPORT_DEFAULT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EXPORT_DEPENDENCIES_1 = "INIT_EXPORT_DEPENDENCIES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_EXPORT_HANDLER_1 = "INIT_EXPORT_EXPORT_HANDLER_1";
 
@@ -154,6 +163,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEL_MAIN_SE_FOLDER_1 = "LOG_DEL_MAIN_SE_FOLDER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCIES_COMPACTED_3 = "LOG_DEPENDENCIES_COMPACTED_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCIES_FALLBACK_1 = "LOG_DEPENDENCIES_FALLBACK_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCIES_READ_FAILED_0 = "LOG_DEPENDENCIES_READ_FAILED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENCIES_WRITE_FAILED_1 = "LOG_DEPENDENCIES_WRITE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEPENDENT_FILES_2 = "LOG_DEPENDENT_FILES_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EVENT_PUBLISH_PROJECT_1 = "LOG_EVENT_PUBLISH_PROJECT_1";
 
@@ -166,6 +190,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_FILE_STATUS_3 = "LOG_EXPORT_FILE_STATUS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_FILE_STATUS_TIME_4 = "LOG_EXPORT_FILE_STATUS_TIME_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_RFSNAME_1 = "LOG_EXPORT_RFSNAME_1";
 
@@ -316,6 +343,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_DELETING_EXPORT_FOLDERS_END_0 = "RPT_DELETING_EXPORT_FOLDERS_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_EXPORT_TIME_1 = "RPT_EXPORT_TIME_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORTING_0 = "RPT_EXPORTING_0";
 
@@ -0,0 +1,488 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.dom4j.Attribute;
+import org.dom4j.CDATA;
+import org.dom4j.Comment;
+import org.dom4j.Document;
+import org.dom4j.DocumentFactory;
+import org.dom4j.Element;
+import org.dom4j.Namespace;
+import org.dom4j.Node;
+import org.dom4j.ProcessingInstruction;
+import org.dom4j.QName;
+
+/**
+ * Compact binary representation of a parsed XML content document.<p>
+ *
+ * The binary form is written for the online version of an XML content when it is published,
+ * reading it creates the dom4j document of the content without parsing the XML. All names,
+ * namespaces and attribute values are stored only once in a string table and all numbers are
+ * written in variable length encoding, so the binary form is usually smaller than the XML source.<p>
+ *
+ * The header of the binary form contains the structure id and the date of the last modification
+ * of the content it was created for, it is only read for exactly this version of the content.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsXmlContentBinaryFormat {
+
+    /** The magic number at the start of the binary form. */
+    private static final int MAGIC = 0x4f435843;
+
+    /** Node type for a CDATA section. */
+    private static final byte NODE_CDATA = 2;
+
+    /** Node type for a comment. */
+    private static final byte NODE_COMMENT = 3;
+
+    /** Node type for an element. */
+    private static final byte NODE_ELEMENT = 0;
+
+    /** Marks the end of the content of an element or the document. */
+    private static final byte NODE_END = -1;
+
+    /** Node type for a namespace declaration. */
+    private static final byte NODE_NAMESPACE = 4;
+
+    /** Node type for a processing instruction. */
+    private static final byte NODE_PROCESSING_INSTRUCTION = 5;
+
+    /** Node type for a text node. */
+    private static final byte NODE_TEXT = 1;
+
+    /** The version of the binary form, to be increased if the format changes. */
+    private static final int VERSION = 1;
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsXmlContentBinaryFormat() {
+
+        // noop
+    }
+
+    /**
+     * Creates the binary form of the parsed XML document of a content.<p>
+     *
+     * @param resource the XML content resource the document was parsed from
+     * @param document the parsed XML document
+     *
+     * @return the binary form of the document
+     *
+     * @throws IOException if something goes wrong
+     */
+    public static byte[] marshal(CmsResource resource, Document document) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(resource.getStructureId().toString());
+        out.writeLong(resource.getDateLastModified());
+        DocumentWriter writer = new DocumentWriter(out);
+        writer.writeString(document.getXMLEncoding());
+        writer.writeContent(document.content());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Creates the XML document from its binary form.<p>
+     *
+     * @param resource the XML content resource to read the document for
+     * @param data the binary form of the document
+     *
+     * @return the XML document, or <code>null</code> if the binary form was created for another version
+     *      of the resource or with another version of this format
+     *
+     * @throws IOException if the binary form is corrupt
+     */
+    public static Document unmarshal(CmsResource resource, byte[] data) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+            return null;
+        }
+        CmsUUID structureId = new CmsUUID(in.readUTF());
+        if (!structureId.equals(resource.getStructureId()) || (in.readLong() != resource.getDateLastModified())) {
+            return null;
+        }
+        DocumentReader reader = new DocumentReader(in);
+        Document document = reader.m_factory.createDocument();
+        String encoding = reader.readString();
+        if (encoding != null) {
+            document.setXMLEncoding(encoding);
+        }
+        reader.readContent(document, null);
+        return document;
+    }
+
+    /**
+     * Reads the nodes of a document from the binary form.<p>
+     */
+    private static class DocumentReader {
+
+        /** The factory to create the nodes with. */
+        private DocumentFactory m_factory;
+
+        /** The input to read from. */
+        private DataInputStream m_in;
+
+        /** The strings read so far, by their index. */
+        private List<String> m_strings;
+
+        /**
+         * Creates a new reader.<p>
+         *
+         * @param in the input to read from
+         */
+        DocumentReader(DataInputStream in) {
+
+            m_in = in;
+            m_factory = DocumentFactory.getInstance();
+            m_strings = new ArrayList<String>();
+        }
+
+        /**
+         * Reads the content nodes of the given element or document.<p>
+         *
+         * @param document the document
+         * @param parent the parent element, or <code>null</code> to read the content of the document
+         *
+         * @throws IOException if the binary form is corrupt
+         */
+        void readContent(Document document, Element parent) throws IOException {
+
+            byte type;
+            while ((type = m_in.readByte()) != NODE_END) {
+                switch (type) {
+                    case NODE_ELEMENT:
+                        Element element = m_factory.createElement(readQName());
+                        int attributes = readInt();
+                        for (int i = 0; i < attributes; i++) {
+                            element.addAttribute(readQName(), readString());
+                        }
+                        if (parent == null) {
+                            document.add(element);
+                        } else {
+                            parent.add(element);
+                        }
+                        readContent(document, element);
+                        break;
+                    case NODE_TEXT:
+                        parent.add(m_factory.createText(readText()));
+                        break;
+                    case NODE_CDATA:
+                        parent.add(m_factory.createCDATA(readText()));
+                        break;
+                    case NODE_COMMENT:
+                        Comment comment = m_factory.createComment(readText());
+                        if (parent == null) {
+                            document.add(comment);
+                        } else {
+                            parent.add(comment);
+                        }
+                        break;
+                    case NODE_NAMESPACE:
+                        parent.add(readNamespace());
+                        break;
+                    case NODE_PROCESSING_INSTRUCTION:
+                        ProcessingInstruction pi = m_factory.createProcessingInstruction(readString(), readText());
+                        if (parent == null) {
+                            document.add(pi);
+                        } else {
+                            parent.add(pi);
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown node type " + type);
+                }
+            }
+        }
+
+        /**
+         * Reads a non negative integer in variable length encoding.<p>
+         *
+         * @return the integer
+         *
+         * @throws IOException if the binary form is corrupt
+         */
+        int readInt() throws IOException {
+
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = m_in.readByte();
+                result |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Invalid integer");
+        }
+
+        /**
+         * Reads a namespace.<p>
+         *
+         * @return the namespace
+         *
+         * @throws IOException if the binary form is corrupt
+         */
+        Namespace readNamespace() throws IOException {
+
+            String prefix = readString();
+            String uri = readString();
+            return Namespace.get(prefix, uri);
+        }
+
+        /**
+         * Reads a qualified name.<p>
+         *
+         * @return the qualified name
+         *
+         * @throws IOException if the binary form is corrupt
+         */
+        QName readQName() throws IOException {
+
+            String name = readString();
+            return m_factory.createQName(name, readNamespace());
+        }
+
+        /**
+         * Reads a string from the string table, or a new string which is added to the table.<p>
+         *
+         * @return the string, may be <code>null</code>
+         *
+         * @throws IOException if the binary form is corrupt
+         */
+        String readString() throws IOException {
+
+            int index = readInt() - 1;
+            if (index == -1) {
+                return null;
+            }
+            if (index == m_strings.size()) {
+                m_strings.add(readText());
+            } else if ((index < 0) || (index > m_strings.size())) {
+                throw new IOException("Invalid string index " + index);
+            }
+            return m_strings.get(index);
+        }
+
+        /**
+         * Reads a text that is not stored in the string table.<p>
+         *
+         * @return the text
+         *
+         * @throws IOException if the binary form is corrupt
+         */
+        String readText() throws IOException {
+
+            int length = readInt();
+            if ((length < 0) || (length > m_in.available())) {
+                throw new IOException("Invalid text length " + length);
+            }
+            byte[] bytes = new byte[length];
+            m_in.readFully(bytes);
+            return new String(bytes, "UTF-8");
+        }
+    }
+
+    /**
+     * Writes the nodes of a document to the binary form.<p>
+     */
+    private static class DocumentWriter {
+
+        /** The output to write to. */
+        private DataOutputStream m_out;
+
+        /** The index of the strings written so far. */
+        private Map<String, Integer> m_strings;
+
+        /**
+         * Creates a new writer.<p>
+         *
+         * @param out the output to write to
+         */
+        DocumentWriter(DataOutputStream out) {
+
+            m_out = out;
+            m_strings = new HashMap<String, Integer>();
+        }
+
+        /**
+         * Writes the given content nodes of an element or document.<p>
+         *
+         * @param content the content nodes
+         *
+         * @throws IOException if something goes wrong
+         */
+        void writeContent(List<?> content) throws IOException {
+
+            Iterator<?> i = content.iterator();
+            while (i.hasNext()) {
+                Node node = (Node)i.next();
+                switch (node.getNodeType()) {
+                    case Node.ELEMENT_NODE:
+                        Element element = (Element)node;
+                        m_out.writeByte(NODE_ELEMENT);
+                        writeQName(element.getQName());
+                        writeInt(element.attributeCount());
+                        for (int j = 0; j < element.attributeCount(); j++) {
+                            Attribute attribute = element.attribute(j);
+                            writeQName(attribute.getQName());
+                            writeString(attribute.getValue());
+                        }
+                        writeContent(element.content());
+                        break;
+                    case Node.CDATA_SECTION_NODE:
+                        m_out.writeByte(NODE_CDATA);
+                        writeText(((CDATA)node).getText());
+                        break;
+                    case Node.COMMENT_NODE:
+                        m_out.writeByte(NODE_COMMENT);
+                        writeText(node.getText());
+                        break;
+                    case Node.NAMESPACE_NODE:
+                        m_out.writeByte(NODE_NAMESPACE);
+                        writeNamespace((Namespace)node);
+                        break;
+                    case Node.PROCESSING_INSTRUCTION_NODE:
+                        m_out.writeByte(NODE_PROCESSING_INSTRUCTION);
+                        writeString(((ProcessingInstruction)node).getTarget());
+                        writeText(node.getText());
+                        break;
+                    case Node.DOCUMENT_TYPE_NODE:
+                        // the document type is not required to read the content
+                        break;
+                    default:
+                        // text and entity reference nodes
+                        m_out.writeByte(NODE_TEXT);
+                        writeText(node.getText());
+                }
+            }
+            m_out.writeByte(NODE_END);
+        }
+
+        /**
+         * Writes a non negative integer in variable length encoding, using 7 bits per byte.<p>
+         *
+         * @param value the integer to write
+         *
+         * @throws IOException if something goes wrong
+         */
+        void writeInt(int value) throws IOException {
+
+            while ((value & ~0x7f) != 0) {
+                m_out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            m_out.writeByte(value);
+        }
+
+        /**
+         * Writes a namespace.<p>
+         *
+         * @param namespace the namespace
+         *
+         * @throws IOException if something goes wrong
+         */
+        void writeNamespace(Namespace namespace) throws IOException {
+
+            writeString(namespace.getPrefix());
+            writeString(namespace.getURI());
+        }
+
+        /**
+         * Writes a qualified name.<p>
+         *
+         * @param qname the qualified name
+         *
+         * @throws IOException if something goes wrong
+         */
+        void writeQName(QName qname) throws IOException {
+
+            writeString(qname.getName());
+            writeNamespace(qname.getNamespace());
+        }
+
+        /**
+         * Writes a string using the string table.<p>
+         *
+         * A string that has already been written is only stored as index into the table.<p>
+         *
+         * @param value the string to write, may be <code>null</code>
+         *
+         * @throws IOException if something goes wrong
+         */
+        void writeString(String value) throws IOException {
+
+            if (value == null) {
+                writeInt(0);
+                return;
+            }
+            Integer index = m_strings.get(value);
+            if (index != null) {
+                writeInt(index.intValue() + 1);
+            } else {
+                writeInt(m_strings.size() + 1);
+                writeText(value);
+                m_strings.put(value, Integer.valueOf(m_strings.size()));
+            }
+        }
+
+        /**
+         * Writes a text that is not stored in the string table.<p>
+         *
+         * @param text the text to write
+         *
+         * @throws IOException if something goes wrong
+         */
+        void writeText(String text) throws IOException {
+
+            byte[] bytes = text.getBytes("UTF-8");
+            writeInt(bytes.length);
+            m_out.write(bytes);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,350 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.cache.CmsVfsDiskCache;
+import org.opencms.db.CmsCacheSettings;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
+import org.opencms.file.types.CmsResourceTypeXmlContent;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.logging.Log;
+import org.dom4j.Document;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Node wide cache of parsed XML contents of the online project.<p>
+ *
+ * The entries are stored in the memory monitor, which bounds the cache according to the configured size
+ * and the cache budget. They are keyed by the structure id of the content and are only used if the date of
+ * the last modification of the cached content matches the requested resource.<p>
+ *
+ * If a project is published, the entries of the published resources are removed. If a changed folder or
+ * an XML schema has been published, all entries are removed, since the encoding property may be inherited
+ * from a folder and the parsed contents depend on their schema.<p>
+ *
+ * Optionally, the published XML contents are also stored in a disk cache in the
+ * {@link CmsXmlContentBinaryFormat binary form} by a background thread. If a content is not found in
+ * the memory cache, its document is created from the binary form instead of parsing the XML.
+ * The binary form only depends on the XML source of the content, so it stays valid until the content
+ * itself is published again.<p>
+ *
+ * @since 10.0.0
+ */
+public final class CmsXmlContentCache implements I_CmsEventListener {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsXmlContentCache.class);
+
+    /** The singleton instance. */
+    private static CmsXmlContentCache m_instance;
+
+    /** The disk cache for the binary form of the contents, <code>null</code> if disabled. */
+    private CmsVfsDiskCache m_diskCache;
+
+    /** The single thread executor writing the binary form of published contents. */
+    private ExecutorService m_executor;
+
+    /**
+     * Creates the cache and registers it as event listener.<p>
+     */
+    private CmsXmlContentCache() {
+
+        OpenCms.addCmsEventListener(
+            this,
+            new int[] {
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES});
+    }
+
+    /**
+     * Returns the XML content cache.<p>
+     *
+     * @return the XML content cache
+     */
+    public static synchronized CmsXmlContentCache getInstance() {
+
+        if (m_instance == null) {
+            m_instance = new CmsXmlContentCache();
+        }
+        return m_instance;
+    }
+
+    /**
+     * Checks if the parsed XML content of the given resource may be read from and stored in the cache.<p>
+     *
+     * This is the case for resources read in the online project. Files are not cached, since their contents
+     * may have been changed in memory, this also excludes historical versions.<p>
+     *
+     * @param cms the current OpenCms context
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the parsed XML content of the resource may be cached
+     */
+    public static boolean isCacheable(CmsObject cms, CmsResource resource) {
+
+        return (OpenCms.getMemoryMonitor() != null)
+            && cms.getRequestContext().getCurrentProject().isOnlineProject()
+            && !(resource instanceof CmsFile);
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishHistoryId = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishHistoryId == null) {
+                    flush();
+                } else {
+                    uncachePublishedResources(new CmsUUID(publishHistoryId));
+                }
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                flush();
+                break;
+            default:
+                // no operation
+        }
+    }
+
+    /**
+     * Returns the XML document of the given resource read from its binary form in the disk cache.<p>
+     *
+     * @param resource the resource to read the document for
+     *
+     * @return the XML document, or <code>null</code> if the disk cache is disabled
+     *      or contains no binary form for the current version of the resource
+     */
+    public Document getBinaryDocument(CmsResource resource) {
+
+        if (m_diskCache == null) {
+            return null;
+        }
+        String rfsName = m_diskCache.getCacheName(true, resource.getRootPath(), null);
+        byte[] data = m_diskCache.getCacheContent(rfsName, resource.getDateLastModified());
+        if (data == null) {
+            return null;
+        }
+        try {
+            return CmsXmlContentBinaryFormat.unmarshal(resource, data);
+        } catch (IOException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_BINARY_READ_1, rfsName), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the cache entry for the given resource.<p>
+     *
+     * @param resource the resource to look up
+     *
+     * @return the cache entry, or <code>null</code> if no entry for the current version of the resource is cached
+     */
+    public CmsXmlContentCacheEntry getEntry(CmsResource resource) {
+
+        CmsXmlContentCacheEntry entry = OpenCms.getMemoryMonitor().getCachedXmlContent(
+            resource.getStructureId().toString());
+        if ((entry != null) && !entry.isValid(resource)) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Initializes the disk cache for the binary form of the contents, if configured.<p>
+     *
+     * @param settings the cache settings
+     */
+    public synchronized void initialize(CmsCacheSettings settings) {
+
+        if ((settings.getXmlContentDiskCache() == null) || (m_diskCache != null)) {
+            return;
+        }
+        m_diskCache = new CmsVfsDiskCache(
+            OpenCms.getSystemInfo().getWebApplicationRfsPath(),
+            settings.getXmlContentDiskCache());
+        m_executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("OpenCms: XML content disk cache").setDaemon(true).setPriority(
+                Thread.MIN_PRIORITY).build());
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_XMLCONTENT_DISKCACHE_1,
+                    m_diskCache.getRepositoryPath()));
+        }
+    }
+
+    /**
+     * Stores the parsed XML content of a file in the cache.<p>
+     *
+     * @param file the file the content was parsed from
+     * @param entry the cache entry
+     */
+    public void putEntry(CmsFile file, CmsXmlContentCacheEntry entry) {
+
+        OpenCms.getMemoryMonitor().cacheXmlContent(file.getStructureId().toString(), entry);
+    }
+
+    /**
+     * Stops the background thread writing the disk cache, pending publish events are discarded.<p>
+     */
+    public synchronized void shutDown() {
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.<p>
+     */
+    private void flush() {
+
+        OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.XML_CONTENT);
+    }
+
+    /**
+     * Removes the entries of the resources published with the given publish history id.<p>
+     *
+     * @param publishHistoryId the publish history id
+     */
+    private void uncachePublishedResources(CmsUUID publishHistoryId) {
+
+        List<CmsPublishedResource> publishedResources;
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+            publishedResources = cms.readPublishedResources(publishHistoryId);
+        } catch (CmsException e) {
+            LOG.warn(e.getLocalizedMessage(), e);
+            flush();
+            return;
+        }
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        final List<CmsPublishedResource> publishedFiles = new ArrayList<CmsPublishedResource>();
+        boolean flush = false;
+        for (CmsPublishedResource published : publishedResources) {
+            if (published.isFolder()) {
+                flush |= published.getState().isChanged();
+                continue;
+            }
+            if (published.getRootPath().toLowerCase().endsWith(".xsd")) {
+                flush = true;
+            }
+            monitor.uncacheXmlContent(published.getStructureId().toString());
+            publishedFiles.add(published);
+        }
+        if (flush) {
+            flush();
+        }
+        if ((m_executor != null) && !m_executor.isShutdown() && !publishedFiles.isEmpty()) {
+            m_executor.execute(new Runnable() {
+
+                public void run() {
+
+                    writeBinaryContents(publishedFiles);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the binary form of the published XML contents to the disk cache.<p>
+     *
+     * The binary form of deleted contents is removed.<p>
+     *
+     * @param publishedResources the published resources
+     */
+    private void writeBinaryContents(List<CmsPublishedResource> publishedResources) {
+
+        CmsObject cms;
+        try {
+            cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        for (CmsPublishedResource published : publishedResources) {
+            if (Thread.currentThread().isInterrupted()) {
+                // the cache has been shut down
+                return;
+            }
+            String rfsName = m_diskCache.getCacheName(true, published.getRootPath(), null);
+            if (published.getState().isDeleted()) {
+                new File(rfsName).delete();
+                continue;
+            }
+            try {
+                CmsResource resource = cms.readResource(published.getStructureId(), CmsResourceFilter.ALL);
+                if (!CmsResourceTypeXmlContent.isXmlContent(resource)
+                    || CmsResourceTypeXmlContainerPage.isContainerPage(resource)) {
+                    continue;
+                }
+                // use the current path, the resource may have been moved after it was published
+                rfsName = m_diskCache.getCacheName(true, resource.getRootPath(), null);
+                CmsFile file = cms.readFile(resource);
+                if (file.getContents().length == 0) {
+                    continue;
+                }
+                Document document = CmsXmlUtils.unmarshalHelper(file.getContents(), null);
+                m_diskCache.saveCacheFile(
+                    rfsName,
+                    CmsXmlContentBinaryFormat.marshal(file, document),
+                    file.getDateLastModified());
+            } catch (Exception e) {
+                // the resource has been deleted in the meantime or is invalid
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_XMLCONTENT_BINARY_WRITE_1, rfsName), e);
+            }
+        }
+    }
+}
\ No newline at end of file
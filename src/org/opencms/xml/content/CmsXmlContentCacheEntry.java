@@ -0,0 +1,141 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+
+import org.dom4j.Document;
+
+/**
+ * A parsed XML content in the {@link CmsXmlContentCache}.<p>
+ *
+ * The entry holds the parsed XML document of the content, the raw file contents and the encoding.
+ * The cached document is never handed out, since an XML content modifies its document,
+ * every user of the entry gets its own copy of the document and of the file contents.<p>
+ *
+ * @since 10.0.0
+ */
+public class CmsXmlContentCacheEntry implements I_CmsMemoryMonitorable {
+
+    /** The estimated memory size of a parsed document in relation to the size of the XML source. */
+    private static final int DOCUMENT_SIZE_FACTOR = 6;
+
+    /** The raw file contents. */
+    private byte[] m_contents;
+
+    /** The date of the last modification of the file. */
+    private long m_dateLastModified;
+
+    /** The parsed XML document. */
+    private Document m_document;
+
+    /** The encoding of the XML content. */
+    private String m_encoding;
+
+    /**
+     * Creates a new cache entry.<p>
+     *
+     * The given document is copied, so it can be used to create an XML content afterwards.<p>
+     *
+     * @param file the file the document was parsed from
+     * @param document the parsed XML document
+     * @param encoding the encoding of the XML content
+     */
+    public CmsXmlContentCacheEntry(CmsFile file, Document document, String encoding) {
+
+        m_contents = file.getContents().clone();
+        m_dateLastModified = file.getDateLastModified();
+        m_encoding = encoding;
+        m_document = (Document)document.clone();
+        // the entity resolver of the parser refers to the OpenCms context of the request that read the content
+        m_document.setEntityResolver(null);
+        // dom4j creates the attribute and content lists of the elements lazily while reading them,
+        // copying the document once creates all of them, so that later copies only read the cached document
+        m_document.clone();
+    }
+
+    /**
+     * Returns a copy of the parsed XML document.<p>
+     *
+     * @return a copy of the parsed XML document
+     */
+    public Document getDocument() {
+
+        return (Document)m_document.clone();
+    }
+
+    /**
+     * Returns the encoding of the XML content.<p>
+     *
+     * @return the encoding of the XML content
+     */
+    public String getEncoding() {
+
+        return m_encoding;
+    }
+
+    /**
+     * Returns a new file for the given resource with a copy of the cached file contents.<p>
+     *
+     * @param resource the resource to create the file for
+     *
+     * @return the file
+     */
+    public CmsFile getFile(CmsResource resource) {
+
+        CmsFile file = new CmsFile(resource);
+        file.setContents(m_contents);
+        return file;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        return (int)Math.min(
+            Integer.MAX_VALUE,
+            ((long)CmsMemoryMonitor.getMemorySize(m_contents) * (DOCUMENT_SIZE_FACTOR + 1)) + 64);
+    }
+
+    /**
+     * Checks if this entry is up to date for the given resource.<p>
+     *
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the entry was created for the current version of the resource
+     */
+    public boolean isValid(CmsResource resource) {
+
+        return m_dateLastModified == resource.getDateLastModified();
+    }
+}
@@ -210,24 +210,7 @@ public final class CmsXmlContentFactory {
 
         byte[] contentBytes = file.getContents();
         String filename = cms.getSitePath(file);
-
-        String encoding = null;
-        try {
-            encoding = cms.readPropertyObject(
-                filename,
-                CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
-                true).getValue();
-        } catch (@SuppressWarnings("unused") CmsException e) {
-            // encoding will be null
-        }
-        if (encoding == null) {
-            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
-        } else {
-            encoding = CmsEncoder.lookupEncoding(encoding, null);
-            if (encoding == null) {
-                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
-            }
-        }
+        String encoding = readEncoding(cms, file);
 
         CmsXmlContent content;
         if (contentBytes.length > 0) {
@@ -288,9 +271,14 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
-            content = unmarshal(cms, file);
+            if (CmsXmlContentCache.isCacheable(cms, resource)) {
+                // use the parsed XML document of the node wide cache
+                content = unmarshalCached(cms, resource);
+            } else {
+                // unmarshal XML structure from the file content
+                CmsFile file = resource instanceof CmsFile ? (CmsFile)resource : cms.readFile(resource);
+                content = unmarshal(cms, file);
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -376,4 +364,79 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
+
+    /**
+     * Reads the encoding of an XML content file from its content encoding property.<p>
+     *
+     * @param cms the current OpenCms context
+     * @param file the XML content file
+     *
+     * @return the encoding of the file, or the default encoding if the property is not set
+     *
+     * @throws CmsXmlException if the encoding of the property is not supported
+     */
+    private static String readEncoding(CmsObject cms, CmsFile file) throws CmsXmlException {
+
+        String filename = cms.getSitePath(file);
+        String encoding = null;
+        try {
+            encoding = cms.readPropertyObject(
+                filename,
+                CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
+                true).getValue();
+        } catch (@SuppressWarnings("unused") CmsException e) {
+            // encoding will be null
+        }
+        if (encoding == null) {
+            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+        } else {
+            encoding = CmsEncoder.lookupEncoding(encoding, null);
+            if (encoding == null) {
+                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Unmarshals an XML content of the online project using the {@link CmsXmlContentCache}.<p>
+     *
+     * If the parsed document is cached, neither the file is read nor its XML parsed. Otherwise the document
+     * is created from the binary form in the disk cache if available, and only parsed if not.
+     * Every call returns a new XML content instance with its own copy of the document.<p>
+     *
+     * @param cms the current OpenCms context
+     * @param resource the resource to unmarshal
+     *
+     * @return the unmarshalled XML content
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private static CmsXmlContent unmarshalCached(CmsObject cms, CmsResource resource) throws CmsException {
+
+        CmsXmlContentCache cache = CmsXmlContentCache.getInstance();
+        CmsXmlContentCacheEntry entry = cache.getEntry(resource);
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(cms);
+        CmsFile file;
+        CmsXmlContent content;
+        if (entry != null) {
+            file = entry.getFile(resource);
+            content = unmarshal(cms, entry.getDocument(), entry.getEncoding(), resolver);
+        } else {
+            file = cms.readFile(resource);
+            if (file.getContents().length == 0) {
+                // empty contents are not cached
+                return unmarshal(cms, file);
+            }
+            String encoding = readEncoding(cms, file);
+            Document document = cache.getBinaryDocument(resource);
+            if (document == null) {
+                document = CmsXmlUtils.unmarshalHelper(file.getContents(), resolver);
+            }
+            cache.putEntry(file, new CmsXmlContentCacheEntry(file, document, encoding));
+            content = unmarshal(cms, document, encoding, resolver);
+        }
+        content.setFile(file);
+        return content.getHandler().prepareForUse(cms, content);
+    }
 }
\ No newline at end of file
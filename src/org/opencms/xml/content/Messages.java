@@ -163,6 +163,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_XMLCONTENT_CHECK_WARNING_NOT_RELEASED_0 = "GUI_XMLCONTENT_CHECK_WARNING_NOT_RELEASED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_XMLCONTENT_DISKCACHE_1 = "INIT_XMLCONTENT_DISKCACHE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_XMLCONTENT_BINARY_READ_1 = "LOG_XMLCONTENT_BINARY_READ_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_XMLCONTENT_BINARY_WRITE_1 = "LOG_XMLCONTENT_BINARY_WRITE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_XMLCONTENT_CHECK_PARENT_2 = "LOG_XMLCONTENT_CHECK_PARENT_2";
 
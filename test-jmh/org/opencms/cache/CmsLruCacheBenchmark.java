@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the {@link CmsLruCache} operations used by the FlexCache for its entries.<p>
+ *
+ * The cache is filled with {@link #ENTRIES} objects. The "touch" benchmarks move random cached objects
+ * to the head of the list, like a FlexCache hit does. The "churn" benchmark adds new objects to a full cache,
+ * so that every operation also removes the least recently used object.<p>
+ *
+ * Run with <code>gradle jmh -PjmhInclude=CmsLruCacheBenchmark</code>.<p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsLruCacheBenchmark {
+
+    /**
+     * A cache object with constant costs.<p>
+     */
+    static class CmsBenchmarkObject implements I_CmsLruCacheObject {
+
+        /** The next object in the list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return 1;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            // nothing to do
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /**
+     * Per thread state that generates the positions of the touched objects.<p>
+     */
+    @State(Scope.Thread)
+    public static class CmsPositionState {
+
+        /** The state of the pseudo random generator. */
+        private int m_seed;
+
+        /**
+         * Initializes the pseudo random generator with a different seed for every thread.<p>
+         */
+        @Setup
+        public void setup() {
+
+            m_seed = System.identityHashCode(this) | 1;
+        }
+
+        /**
+         * Returns the next pseudo random position.<p>
+         *
+         * @param bound the exclusive upper bound
+         *
+         * @return the next position
+         */
+        int next(int bound) {
+
+            // xorshift, avoids the contention of a shared java.util.Random
+            m_seed ^= m_seed << 13;
+            m_seed ^= m_seed >>> 17;
+            m_seed ^= m_seed << 5;
+            return (m_seed & Integer.MAX_VALUE) % bound;
+        }
+    }
+
+    /** The number of cached objects. */
+    public static final int ENTRIES = 10000;
+
+    /** The cache. */
+    private CmsLruCache m_cache;
+
+    /** The cached objects. */
+    private CmsBenchmarkObject[] m_objects;
+
+    /**
+     * Adds a new object to the full cache, removing the least recently used object.<p>
+     *
+     * @return <code>true</code> if the object was added
+     */
+    @Benchmark
+    @Threads(1)
+    public boolean churn() {
+
+        return m_cache.add(new CmsBenchmarkObject());
+    }
+
+    /**
+     * Creates and fills the cache.<p>
+     */
+    @Setup
+    public void setup() {
+
+        m_cache = new CmsLruCache(ENTRIES, ENTRIES / 2, -1);
+        m_objects = new CmsBenchmarkObject[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            m_objects[i] = new CmsBenchmarkObject();
+            m_cache.add(m_objects[i]);
+        }
+    }
+
+    /**
+     * Touches a random cached object with a single thread.<p>
+     *
+     * @param state the position state of the current thread
+     *
+     * @return <code>true</code> if the object was found
+     */
+    @Benchmark
+    @Threads(1)
+    public boolean touch1Thread(CmsPositionState state) {
+
+        return m_cache.touch(m_objects[state.next(ENTRIES)]);
+    }
+
+    /**
+     * Touches a random cached object with 8 concurrent threads.<p>
+     *
+     * @param state the position state of the current thread
+     *
+     * @return <code>true</code> if the object was found
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean touch8Threads(CmsPositionState state) {
+
+        return m_cache.touch(m_objects[state.next(ENTRIES)]);
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the most frequent VFS read operations.<p>
+ *
+ * The benchmark starts OpenCms on the embedded HSQLDB of the test cases and imports the "simpletest" data,
+ * so it needs the same system properties as the tests; the <code>jmh</code> Gradle task sets them.
+ * All operations are served from the warm OpenCms caches, which is what matters for the delivery of pages.
+ * The permission check is done for the guest user in the online project, since the administrator
+ * skips most of the permission evaluation.<p>
+ *
+ * Run with <code>gradle jmh -PjmhInclude=CmsVfsBenchmark</code>, the GC profiler of the task reports the allocation
+ * rate in <code>gc.alloc.rate.norm</code> (bytes per operation).<p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsVfsBenchmark {
+
+    /**
+     * Per thread state with the OpenCms contexts of the current thread, since a CmsObject must not be
+     * shared between threads.<p>
+     */
+    @State(Scope.Thread)
+    public static class CmsContextState {
+
+        /** The administrator context in the offline project. */
+        CmsObject m_cms;
+
+        /** The guest context in the online project. */
+        CmsObject m_guestCms;
+
+        /**
+         * Creates the contexts of the current thread.<p>
+         *
+         * @param benchmark the benchmark state holding the initial contexts
+         *
+         * @throws Exception if something goes wrong
+         */
+        @Setup
+        public void setup(CmsVfsBenchmark benchmark) throws Exception {
+
+            m_cms = OpenCms.initCmsObject(benchmark.m_cms);
+            m_guestCms = OpenCms.initCmsObject(benchmark.m_guestCms);
+        }
+    }
+
+    /** The site relative path of the resource to read. */
+    @Param({"/index.html", "/folder1/subfolder11/subsubfolder111/jsp.jsp"})
+    public String m_path;
+
+    /** The administrator context in the offline project. */
+    private CmsObject m_cms;
+
+    /** The guest context in the online project. */
+    private CmsObject m_guestCms;
+
+    /** The resource read in the online project. */
+    private CmsResource m_resource;
+
+    /**
+     * Checks the read permission of the guest user on the resource.<p>
+     *
+     * @param state the contexts of the current thread
+     *
+     * @return <code>true</code> if the guest user may read the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    @Threads(1)
+    public boolean hasPermissions(CmsContextState state) throws Exception {
+
+        return state.m_guestCms.hasPermissions(m_resource, CmsPermissionSet.ACCESS_READ);
+    }
+
+    /**
+     * Checks the read permission of the guest user on the resource with 8 concurrent threads.<p>
+     *
+     * @param state the contexts of the current thread
+     *
+     * @return <code>true</code> if the guest user may read the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    @Threads(8)
+    public boolean hasPermissions8Threads(CmsContextState state) throws Exception {
+
+        return state.m_guestCms.hasPermissions(m_resource, CmsPermissionSet.ACCESS_READ);
+    }
+
+    /**
+     * Reads the properties directly attached to the resource.<p>
+     *
+     * @param state the contexts of the current thread
+     *
+     * @return the properties of the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    @Threads(1)
+    public List<CmsProperty> readPropertyObjects(CmsContextState state) throws Exception {
+
+        return state.m_cms.readPropertyObjects(m_path, false);
+    }
+
+    /**
+     * Reads the properties of the resource, including the properties inherited from the parent folders.<p>
+     *
+     * @param state the contexts of the current thread
+     *
+     * @return the properties of the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    @Threads(1)
+    public List<CmsProperty> readPropertyObjectsSearch(CmsContextState state) throws Exception {
+
+        return state.m_cms.readPropertyObjects(m_path, true);
+    }
+
+    /**
+     * Reads the resource by its path.<p>
+     *
+     * @param state the contexts of the current thread
+     *
+     * @return the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    @Threads(1)
+    public CmsResource readResource(CmsContextState state) throws Exception {
+
+        return state.m_cms.readResource(m_path, CmsResourceFilter.ALL);
+    }
+
+    /**
+     * Reads the resource by its path with 8 concurrent threads.<p>
+     *
+     * @param state the contexts of the current thread
+     *
+     * @return the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    @Threads(8)
+    public CmsResource readResource8Threads(CmsContextState state) throws Exception {
+
+        return state.m_cms.readResource(m_path, CmsResourceFilter.ALL);
+    }
+
+    /**
+     * Starts OpenCms and imports the test data.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+
+        // initializes the test configuration, like a test suite does
+        new OpenCmsTestCase(getClass().getName());
+        m_cms = OpenCmsTestCase.setupOpenCms("simpletest", "/");
+        m_cms.getRequestContext().setSiteRoot("/sites/default/");
+        m_guestCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        m_guestCms.getRequestContext().setSiteRoot("/sites/default/");
+        m_resource = m_guestCms.readResource(m_path);
+    }
+
+    /**
+     * Shuts down OpenCms and removes the test database.<p>
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        OpenCmsTestCase.removeOpenCms(getClass().getName());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of FlexCache hits with the "lru" and the "concurrent" cache engine.<p>
+ *
+ * The cache is filled with {@link #RESOURCES} resource keys with {@link #VARIATIONS} variations each,
+ * and every benchmark thread looks up random entries that are all contained in the cache.<p>
+ *
+ * Run with <code>gradle jmh -PjmhInclude=CmsFlexCacheBenchmark</code>.<p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CmsFlexCacheBenchmark {
+
+    /**
+     * Per thread state that generates the lookup positions.<p>
+     */
+    @State(Scope.Thread)
+    public static class CmsLookupState {
+
+        /** The state of the pseudo random generator. */
+        private int m_seed;
+
+        /**
+         * Initializes the pseudo random generator with a different seed for every thread.<p>
+         */
+        @Setup
+        public void setup() {
+
+            m_seed = System.identityHashCode(this) | 1;
+        }
+
+        /**
+         * Returns the next pseudo random position.<p>
+         *
+         * @param bound the exclusive upper bound
+         *
+         * @return the next position
+         */
+        int next(int bound) {
+
+            // xorshift, avoids the contention of a shared java.util.Random
+            m_seed ^= m_seed << 13;
+            m_seed ^= m_seed >>> 17;
+            m_seed ^= m_seed << 5;
+            return (m_seed & Integer.MAX_VALUE) % bound;
+        }
+    }
+
+    /** The number of cached resource keys. */
+    public static final int RESOURCES = 1000;
+
+    /** The number of cached variations per resource key. */
+    public static final int VARIATIONS = 4;
+
+    /** The cache engine to benchmark. */
+    @Param({CmsFlexCacheConfiguration.CACHE_ENGINE_LRU, CmsFlexCacheConfiguration.CACHE_ENGINE_CONCURRENT})
+    public String m_engine;
+
+    /** The FlexCache. */
+    private CmsFlexCache m_cache;
+
+    /** The cached resource names. */
+    private String[] m_resources;
+
+    /** The cached variations. */
+    private String[] m_variations;
+
+    /**
+     * Looks up an entry with a single thread.<p>
+     *
+     * @param state the lookup state of the current thread
+     *
+     * @return the entry found
+     */
+    @Benchmark
+    @Threads(1)
+    public CmsFlexCacheEntry hit1Thread(CmsLookupState state) {
+
+        return lookup(state);
+    }
+
+    /**
+     * Looks up an entry with 32 concurrent threads.<p>
+     *
+     * @param state the lookup state of the current thread
+     *
+     * @return the entry found
+     */
+    @Benchmark
+    @Threads(32)
+    public CmsFlexCacheEntry hit32Threads(CmsLookupState state) {
+
+        return lookup(state);
+    }
+
+    /**
+     * Looks up an entry with 8 concurrent threads.<p>
+     *
+     * @param state the lookup state of the current thread
+     *
+     * @return the entry found
+     */
+    @Benchmark
+    @Threads(8)
+    public CmsFlexCacheEntry hit8Threads(CmsLookupState state) {
+
+        return lookup(state);
+    }
+
+    /**
+     * Creates and fills the FlexCache.<p>
+     */
+    @Setup
+    public void setup() {
+
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.initialize("true", "false", "67108864", "50331648", "400000", String.valueOf(RESOURCES * 2));
+        configuration.setCacheEngine(m_engine);
+        m_cache = new CmsFlexCache(configuration);
+
+        m_resources = new String[RESOURCES];
+        m_variations = new String[VARIATIONS];
+        for (int v = 0; v < VARIATIONS; v++) {
+            m_variations[v] = "variation" + v;
+        }
+        for (int i = 0; i < RESOURCES; i++) {
+            String rootPath = "/sites/default/benchmark/page" + i + ".jsp";
+            m_resources[i] = CmsFlexCacheKey.getKeyName(rootPath, true);
+            for (int v = 0; v < VARIATIONS; v++) {
+                CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+                entry.add(new byte[256]);
+                entry.complete();
+                m_cache.put(new CmsFlexCacheKey(rootPath, "always", true), entry, m_variations[v]);
+            }
+        }
+        if (m_cache.size() != (RESOURCES * VARIATIONS)) {
+            throw new IllegalStateException("Unexpected cache size " + m_cache.size());
+        }
+    }
+
+    /**
+     * Looks up a random cached entry.<p>
+     *
+     * @param state the lookup state of the current thread
+     *
+     * @return the entry found
+     */
+    private CmsFlexCacheEntry lookup(CmsLookupState state) {
+
+        return m_cache.get(m_resources[state.next(RESOURCES)], m_variations[state.next(VARIATIONS)]);
+    }
+}
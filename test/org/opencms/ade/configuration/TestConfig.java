@@ -27,6 +27,7 @@
 
 package org.opencms.ade.configuration;
 
+import org.opencms.ade.configuration.formatters.CmsFormatterChangeSet;
 import org.opencms.ade.detailpage.CmsDetailPageInfo;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
@@ -838,6 +839,105 @@ public class TestConfig extends OpenCmsTestCase {
         assertEquals(typeConf2.getTypeName(), resourceTypeConfig.get(0).getTypeName());
     }
 
+    /**
+     * Tests that the merged resource types of configurations belonging to a configuration cache state are only
+     * computed once, and that they are the same as the resource types of configurations without a cache state.<p>
+     *
+     * @throws Exception -
+     */
+    public void testMemoizedResourceTypes() throws Exception {
+
+        CmsObject cms = rootCms();
+        String parentPath = "/sites/default/memo";
+        String discardPath = parentPath + "/discard";
+        String localPath = parentPath + "/local";
+        String deepPath = localPath + "/deep";
+
+        // configurations without a cache state, which compute their resource types on every call
+        CmsTestConfigData parent = new CmsTestConfigData(
+            parentPath,
+            createInheritedTypes(parentPath),
+            NO_PROPERTIES,
+            NO_DETAILPAGES,
+            NO_MODEL_PAGES);
+        CmsTestConfigData discard = new CmsTestConfigData(
+            discardPath,
+            list(new CmsResourceTypeConfig("baz", false, null, null)),
+            NO_PROPERTIES,
+            NO_DETAILPAGES,
+            NO_MODEL_PAGES);
+        discard.setIsDiscardInheritedTypes(true);
+        CmsTestConfigData local = new CmsTestConfigData(
+            localPath,
+            NO_TYPES,
+            NO_PROPERTIES,
+            NO_DETAILPAGES,
+            NO_MODEL_PAGES);
+        local.setCreateContentsLocally(true);
+        CmsTestConfigData deep = new CmsTestConfigData(
+            deepPath,
+            list(new CmsResourceTypeConfig("deep", false, null, null)),
+            NO_PROPERTIES,
+            NO_DETAILPAGES,
+            NO_MODEL_PAGES);
+        for (CmsTestConfigData config : list(parent, discard, local, deep)) {
+            config.initialize(cms);
+        }
+        discard.setParent(parent);
+        local.setParent(parent);
+        deep.setParent(local);
+
+        // the same configurations in a cache state, which compute their resource types only once
+        Map<CmsUUID, CmsADEConfigDataInternal> siteConfigurations = new HashMap<CmsUUID, CmsADEConfigDataInternal>();
+        siteConfigurations.put(
+            new CmsUUID(),
+            createInternalConfig(parentPath, createInheritedTypes(parentPath), false, false));
+        siteConfigurations.put(
+            new CmsUUID(),
+            createInternalConfig(discardPath, list(new CmsResourceTypeConfig("baz", false, null, null)), true, false));
+        siteConfigurations.put(new CmsUUID(), createInternalConfig(localPath, NO_TYPES, false, true));
+        siteConfigurations.put(
+            new CmsUUID(),
+            createInternalConfig(deepPath, list(new CmsResourceTypeConfig("deep", false, null, null)), false, false));
+        CmsADEConfigCacheState cacheState = new CmsADEConfigCacheState(
+            cms,
+            siteConfigurations,
+            new ArrayList<CmsADEConfigDataInternal>(),
+            new HashMap<CmsUUID, CmsElementView>());
+
+        Map<String, CmsTestConfigData> expectedConfigs = new HashMap<String, CmsTestConfigData>();
+        expectedConfigs.put(parentPath, parent);
+        expectedConfigs.put(discardPath, discard);
+        expectedConfigs.put(localPath, local);
+        expectedConfigs.put(deepPath, deep);
+        for (Map.Entry<String, CmsTestConfigData> entry : expectedConfigs.entrySet()) {
+            CmsADEConfigData config = cacheState.lookupConfiguration(entry.getKey());
+            assertSame(config, cacheState.lookupConfiguration(entry.getKey()));
+
+            List<CmsResourceTypeConfig> types = config.getResourceTypes();
+            List<CmsResourceTypeConfig> typesAgain = cacheState.lookupConfiguration(entry.getKey()).getResourceTypes();
+            assertEquals(types.size(), typesAgain.size());
+            for (int i = 0; i < types.size(); i++) {
+                assertSame(types.get(i), typesAgain.get(i));
+            }
+            assertResourceTypesEqual(cms, entry.getValue().getResourceTypes(), types);
+            try {
+                types.add(new CmsResourceTypeConfig("other", false, null, null));
+                fail("The resource types of a configuration must not be modifiable");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+
+        assertEquals(list("baz"), getTypeNames(cacheState.lookupConfiguration(discardPath).getResourceTypes()));
+        assertEquals(
+            list("deep", "foo", "bar"),
+            getTypeNames(cacheState.lookupConfiguration(deepPath).getResourceTypes()));
+        assertPathEquals(
+            localPath + "/.content/foo",
+            cacheState.lookupConfiguration(deepPath).getResourceType("foo").getFolderPath(cms, null));
+    }
+
     /**
      * Tests inheritance of model pages.<p>
      *
@@ -1176,6 +1276,28 @@ public class TestConfig extends OpenCmsTestCase {
         assertEquals(CmsStringUtil.joinPaths("/", path1, "/"), CmsStringUtil.joinPaths("/", path2, "/"));
     }
 
+    /**
+     * Helper method for checking that two lists of resource type configurations are equivalent.<p>
+     *
+     * @param cms the CMS context used to compute the folder paths
+     * @param expected the expected resource type configurations
+     * @param actual the actual resource type configurations
+     */
+    protected void assertResourceTypesEqual(
+        CmsObject cms,
+        List<CmsResourceTypeConfig> expected,
+        List<CmsResourceTypeConfig> actual) {
+
+        assertEquals(getTypeNames(expected), getTypeNames(actual));
+        for (int i = 0; i < expected.size(); i++) {
+            CmsResourceTypeConfig expectedType = expected.get(i);
+            CmsResourceTypeConfig actualType = actual.get(i);
+            assertEquals(expectedType.isDisabled(), actualType.isDisabled());
+            assertEquals(expectedType.getNamePattern(false), actualType.getNamePattern(false));
+            assertPathEquals(expectedType.getFolderPath(cms, null), actualType.getFolderPath(cms, null));
+        }
+    }
+
     /**
      * Helper method for creating a disabled property configuration.<p>
      *
@@ -1189,6 +1311,66 @@ public class TestConfig extends OpenCmsTestCase {
         return new CmsPropertyConfig(prop, true);
     }
 
+    /**
+     * Helper method for creating the resource type configurations inherited by the sub-sitemaps
+     * in the memoization test.<p>
+     *
+     * @param basePath the base path of the sitemap
+     *
+     * @return a new list of resource type configurations
+     */
+    protected List<CmsResourceTypeConfig> createInheritedTypes(String basePath) {
+
+        String contentPath = basePath + "/.content";
+        return list(
+            new CmsResourceTypeConfig(
+                "foo",
+                false,
+                new CmsContentFolderDescriptor(contentPath, "foo"),
+                "foo_%(number)"),
+            new CmsResourceTypeConfig(
+                "bar",
+                false,
+                new CmsContentFolderDescriptor(contentPath, "bar"),
+                "bar_%(number)"),
+            new CmsResourceTypeConfig("qux", true, new CmsContentFolderDescriptor(contentPath, "qux"), null));
+    }
+
+    /**
+     * Helper method for creating an internal configuration data bean as it is stored in the
+     * configuration cache state.<p>
+     *
+     * @param basePath the base path
+     * @param resourceTypes the resource type configurations
+     * @param discardInheritedTypes the "discard inherited types" flag
+     * @param createContentsLocally the "create contents locally" flag
+     *
+     * @return the internal configuration data bean
+     */
+    protected CmsADEConfigDataInternal createInternalConfig(
+        String basePath,
+        List<CmsResourceTypeConfig> resourceTypes,
+        boolean discardInheritedTypes,
+        boolean createContentsLocally) {
+
+        return new CmsADEConfigDataInternal(
+            null,
+            false,
+            basePath,
+            null,
+            resourceTypes,
+            discardInheritedTypes,
+            NO_PROPERTIES,
+            false,
+            NO_DETAILPAGES,
+            NO_MODEL_PAGES,
+            new ArrayList<CmsFunctionReference>(),
+            false,
+            createContentsLocally,
+            false,
+            new CmsFormatterChangeSet());
+    }
+
     /**
      * Helper method for creating a property configuration object.<p>
      *
@@ -1260,6 +1442,22 @@ public class TestConfig extends OpenCmsTestCase {
         return cms.readResource(rootPath).getStructureId();
     }
 
+    /**
+     * Helper method for getting the type names of a list of resource type configurations.<p>
+     *
+     * @param types the resource type configurations
+     *
+     * @return the list of type names
+     */
+    protected List<String> getTypeNames(List<CmsResourceTypeConfig> types) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsResourceTypeConfig type : types) {
+            result.add(type.getTypeName());
+        }
+        return result;
+    }
+
     /**
      * Helper method for creating a list of elements.<p>
      *
@@ -27,6 +27,11 @@
 
 package org.opencms.ade.configuration.formatters;
 
+import org.opencms.ade.configuration.CmsADEConfigCacheState;
+import org.opencms.ade.configuration.CmsADEConfigData;
+import org.opencms.ade.configuration.CmsADEConfigDataInternal;
+import org.opencms.ade.configuration.CmsElementView;
+import org.opencms.ade.configuration.CmsFunctionReference;
 import org.opencms.ade.configuration.CmsTestConfigData;
 import org.opencms.ade.configuration.TestConfig;
 import org.opencms.file.CmsFile;
@@ -47,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -289,6 +295,121 @@ public class TestFormatterConfiguration extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Tests that the active formatters of configurations belonging to a configuration cache state are only
+     * computed once per formatter cache state, and that they are the same as for configurations without
+     * a cache state.<p>
+     *
+     * @throws Exception -
+     */
+    public void testMemoizedActiveFormatters() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        String parentPath = "/sites/default/memo";
+        String childPath = parentPath + "/child";
+        try {
+            // a formatter which is not auto-enabled, but enabled by the child configuration
+            CmsResource added = cms.createResource(
+                "/system/memoadded.fc",
+                getTypeId("formatter_config"),
+                createFormatterConfigXml(TYPE_A, "memoadded", false, 100).getBytes("UTF-8"),
+                new ArrayList<CmsProperty>());
+            OpenCms.getADEManager().waitForFormatterCache(false);
+            CmsFormatterChangeSet changeSet = new CmsFormatterChangeSet(
+                Collections.<String> emptyList(),
+                Arrays.asList("" + added.getStructureId()));
+
+            Map<CmsUUID, CmsADEConfigDataInternal> siteConfigurations = Maps.newHashMap();
+            siteConfigurations.put(new CmsUUID(), CmsADEConfigDataInternal.emptyConfiguration(parentPath));
+            siteConfigurations.put(
+                new CmsUUID(),
+                new CmsADEConfigDataInternal(
+                    null,
+                    false,
+                    childPath,
+                    null,
+                    TestConfig.NO_TYPES,
+                    false,
+                    TestConfig.NO_PROPERTIES,
+                    false,
+                    TestConfig.NO_DETAILPAGES,
+                    TestConfig.NO_MODEL_PAGES,
+                    new ArrayList<CmsFunctionReference>(),
+                    false,
+                    false,
+                    false,
+                    changeSet));
+            CmsADEConfigCacheState cacheState = new CmsADEConfigCacheState(
+                cms,
+                siteConfigurations,
+                new ArrayList<CmsADEConfigDataInternal>(),
+                new HashMap<CmsUUID, CmsElementView>());
+
+            // the same configurations without a cache state, which compute their active formatters on every call
+            CmsTestConfigData parent = new CmsTestConfigData(
+                parentPath,
+                TestConfig.NO_TYPES,
+                TestConfig.NO_PROPERTIES,
+                TestConfig.NO_DETAILPAGES,
+                TestConfig.NO_MODEL_PAGES);
+            parent.initialize(cms);
+            CmsTestConfigData child = new CmsTestConfigData(
+                childPath,
+                TestConfig.NO_TYPES,
+                TestConfig.NO_PROPERTIES,
+                TestConfig.NO_DETAILPAGES,
+                TestConfig.NO_MODEL_PAGES);
+            child.setFormatterChangeSet(changeSet);
+            child.initialize(cms);
+            child.setParent(parent);
+
+            CmsADEConfigData parentConfig = cacheState.lookupConfiguration(parentPath);
+            CmsADEConfigData childConfig = cacheState.lookupConfiguration(childPath);
+            Map<CmsUUID, I_CmsFormatterBean> parentFormatters = parentConfig.getActiveFormatters();
+            Map<CmsUUID, I_CmsFormatterBean> childFormatters = childConfig.getActiveFormatters();
+            assertSame(parentFormatters, cacheState.lookupConfiguration(parentPath).getActiveFormatters());
+            assertSame(childFormatters, cacheState.lookupConfiguration(childPath).getActiveFormatters());
+            assertEquals(parent.getActiveFormatters().keySet(), parentFormatters.keySet());
+            assertEquals(child.getActiveFormatters().keySet(), childFormatters.keySet());
+            assertFalse(getFormatterNames(parentFormatters.values()).contains("memoadded"));
+            assertTrue(getFormatterNames(childFormatters.values()).contains("memoadded"));
+            try {
+                childFormatters.clear();
+                fail("The active formatters of a configuration must not be modifiable");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+
+            // changing a formatter replaces the formatter cache state, so the active formatters have to be recomputed
+            cms.createResource(
+                "/system/memoauto.fc",
+                getTypeId("formatter_config"),
+                createFormatterConfigXml(TYPE_A, "memoauto", true, 100).getBytes("UTF-8"),
+                new ArrayList<CmsProperty>());
+            OpenCms.getADEManager().waitForFormatterCache(false);
+            Map<CmsUUID, I_CmsFormatterBean> newParentFormatters = parentConfig.getActiveFormatters();
+            Map<CmsUUID, I_CmsFormatterBean> newChildFormatters = childConfig.getActiveFormatters();
+            assertNotSame(parentFormatters, newParentFormatters);
+            assertNotSame(childFormatters, newChildFormatters);
+            assertSame(newChildFormatters, childConfig.getActiveFormatters());
+            assertEquals(parent.getActiveFormatters().keySet(), newParentFormatters.keySet());
+            assertEquals(child.getActiveFormatters().keySet(), newChildFormatters.keySet());
+            assertTrue(getFormatterNames(newParentFormatters.values()).contains("memoauto"));
+            assertTrue(getFormatterNames(newChildFormatters.values()).containsAll(names("memoauto", "memoadded")));
+            assertFalse(getFormatterNames(childFormatters.values()).contains("memoauto"));
+
+            // the formatters for a single resource type are taken from the recomputed active formatters as well
+            Set<String> typeFormatterNames = new HashSet<String>();
+            for (I_CmsFormatterBean formatter : childConfig.getFormatters(cms, m_exampleResourceA).getAllFormatters()) {
+                typeFormatterNames.add(formatter.getNiceName());
+            }
+            assertTrue(typeFormatterNames.containsAll(names("memoauto", "memoadded")));
+        } finally {
+            delete("/system/memoadded.fc");
+            delete("/system/memoauto.fc");
+        }
+    }
+
     /**
      * Tests that the formatter cache is updated correctly.
      *
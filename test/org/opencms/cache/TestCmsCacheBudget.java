@@ -0,0 +1,139 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for CmsCacheBudget.<p>
+ */
+public class TestCmsCacheBudget extends TestCase {
+
+    /**
+     * Tests that the budget is enforced by evicting from the cache with the lowest priority first.<p>
+     */
+    public void testEvictionByPriority() {
+
+        CmsCacheBudget budget = new CmsCacheBudget(1000000);
+        CmsConcurrentCacheMap<String, String> low = new CmsConcurrentCacheMap<String, String>(
+            0,
+            budget.getMaxSize(),
+            4,
+            null,
+            budget);
+        CmsConcurrentCacheMap<String, String> high = new CmsConcurrentCacheMap<String, String>(
+            0,
+            budget.getMaxSize(),
+            4,
+            null,
+            budget);
+        budget.register("low", low, CmsCacheBudget.PRIORITY_LOW);
+        budget.register("high", high, CmsCacheBudget.PRIORITY_HIGH);
+
+        int i = 0;
+        while (budget.getSize() < (budget.getMaxSize() / 2)) {
+            high.put("high" + i, "value" + i);
+            i++;
+        }
+        int highSize = high.size();
+        i = 0;
+        while (budget.getExceededCount() == 0) {
+            low.put("low" + i, "value" + i);
+            i++;
+        }
+        assertTrue(budget.getSize() <= budget.getMaxSize());
+        assertEquals(highSize, high.size());
+        assertTrue(low.getBudgetEvictionCount() > 0);
+        assertEquals(0, high.getBudgetEvictionCount());
+        assertEquals(budget.getSize(), low.getWeight() + high.getWeight());
+    }
+
+    /**
+     * Tests that entries are evicted from a cache in the order of their last access.<p>
+     */
+    public void testEvictionOrder() {
+
+        CmsCacheBudget budget = new CmsCacheBudget(1000000);
+        CmsConcurrentCacheMap<String, String> cache = new CmsConcurrentCacheMap<String, String>(
+            0,
+            budget.getMaxSize(),
+            4,
+            null,
+            budget);
+        budget.register("cache", cache, CmsCacheBudget.PRIORITY_NORMAL);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        // access the oldest entries, so the entries added later are now the least recently used
+        for (int i = 0; i < 5; i++) {
+            assertEquals("value" + i, cache.get("key" + i));
+        }
+        long weight = cache.getWeight();
+        long freed = cache.evict(weight / 2);
+        assertTrue(freed >= (weight / 2));
+        assertEquals(weight - freed, cache.getWeight());
+        assertEquals(5, cache.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cache.containsKey("key" + i));
+        }
+    }
+
+    /**
+     * Tests that the tracked size follows puts, replacements and removals.<p>
+     */
+    public void testSizeTracking() {
+
+        CmsCacheBudget budget = new CmsCacheBudget(1000000);
+        CmsConcurrentCacheMap<String, String> cache = new CmsConcurrentCacheMap<String, String>(
+            0,
+            budget.getMaxSize(),
+            4,
+            null,
+            budget);
+        budget.register("cache", cache, CmsCacheBudget.PRIORITY_NORMAL);
+
+        assertEquals(0, budget.getSize());
+        cache.put("a", "1");
+        long weight = budget.getSize();
+        assertTrue(weight > 0);
+        assertEquals(weight, cache.getWeight());
+
+        // replacing a value with one of the same size must not change the size
+        cache.put("a", "2");
+        assertEquals(weight, budget.getSize());
+
+        cache.put("b", "3");
+        assertEquals(2 * weight, budget.getSize());
+        cache.remove("a");
+        assertEquals(weight, budget.getSize());
+        cache.clear();
+        assertEquals(0, budget.getSize());
+        assertEquals(0, cache.getWeight());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.security.CmsPermissionCacheKey;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for CmsClockCacheMap.<p>
+ */
+public class TestCmsClockCacheMap extends TestCase {
+
+    /**
+     * Tests that recently read entries survive the eviction.<p>
+     */
+    public void testEviction() {
+
+        CmsClockCacheMap<String, String> cache = new CmsClockCacheMap<String, String>(10, 1);
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        for (int i = 10; i < 100; i++) {
+            // keep the first entry in use
+            assertEquals("value0", cache.get("key0"));
+            cache.put("key" + i, "value" + i);
+            assertTrue(cache.size() <= 10);
+        }
+        assertEquals("value0", cache.get("key0"));
+        assertEquals("value99", cache.get("key99"));
+        assertEquals(90, cache.getEvictionCount());
+        assertEquals(10, cache.getMaxSize());
+    }
+
+    /**
+     * Tests the basic map operations.<p>
+     */
+    public void testMapOperations() {
+
+        CmsClockCacheMap<String, String> cache = new CmsClockCacheMap<String, String>(10);
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        cache.put("b", "3");
+        assertEquals(2, cache.size());
+        assertTrue(cache.containsKey("b"));
+        assertEquals("3", cache.remove("b"));
+        assertFalse(cache.containsKey("b"));
+        assertNull(cache.get(null));
+        assertNull(cache.remove("b"));
+        for (Map.Entry<String, String> entry : cache.entrySet()) {
+            assertEquals("a", entry.getKey());
+            assertEquals("2", entry.getValue());
+        }
+        assertEquals("2", cache.values().iterator().next());
+        cache.clear();
+        assertTrue(cache.isEmpty());
+    }
+
+    /**
+     * Tests that permission cache keys find the entries stored with copies of them.<p>
+     */
+    public void testPermissionCacheKeys() {
+
+        CmsUUID userId = new CmsUUID();
+        CmsUUID structureId = new CmsUUID();
+        CmsClockCacheMap<Object, Boolean> cache = new CmsClockCacheMap<Object, Boolean>(10);
+        CmsPermissionCacheKey key = new CmsPermissionCacheKey(
+            userId,
+            true,
+            CmsPermissionSet.ACCESS_READ,
+            false,
+            true,
+            structureId);
+        cache.put(key.copy(), Boolean.TRUE);
+
+        // equal ids with other instances
+        assertEquals(
+            Boolean.TRUE,
+            cache.get(
+                new CmsPermissionCacheKey(
+                    new CmsUUID(userId.toString()),
+                    true,
+                    CmsPermissionSet.ACCESS_READ,
+                    false,
+                    true,
+                    new CmsUUID(structureId.toString()))));
+        CmsPermissionSet read = CmsPermissionSet.ACCESS_READ;
+        assertNull(cache.get(new CmsPermissionCacheKey(userId, false, read, false, true, structureId)));
+        CmsPermissionSet write = CmsPermissionSet.ACCESS_WRITE;
+        assertNull(cache.get(new CmsPermissionCacheKey(userId, true, write, false, true, structureId)));
+        assertNull(cache.get(new CmsPermissionCacheKey(userId, true, read, true, true, structureId)));
+        assertNull(cache.get(new CmsPermissionCacheKey(userId, true, read, false, false, structureId)));
+        assertNull(cache.get(new CmsPermissionCacheKey(new CmsUUID(), true, read, false, true, structureId)));
+        assertNull(cache.get(new CmsPermissionCacheKey(userId, true, read, false, true, new CmsUUID())));
+    }
+}
\ No newline at end of file
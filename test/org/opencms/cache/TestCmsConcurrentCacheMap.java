@@ -0,0 +1,97 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for CmsConcurrentCacheMap.<p>
+ */
+public class TestCmsConcurrentCacheMap extends TestCase {
+
+    /**
+     * Tests that hits and misses are counted.<p>
+     */
+    public void testHitMissCounters() {
+
+        CmsConcurrentCacheMap<String, String> cache = new CmsConcurrentCacheMap<String, String>(10);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    /**
+     * Tests the basic map operations.<p>
+     */
+    public void testMapOperations() {
+
+        CmsConcurrentCacheMap<String, String> cache = new CmsConcurrentCacheMap<String, String>(10);
+        assertNull(cache.put("a", "1"));
+        assertEquals("1", cache.put("a", "2"));
+        cache.put("b", "3");
+        assertEquals(2, cache.size());
+        assertTrue(cache.containsKey("b"));
+        assertEquals("3", cache.remove("b"));
+        assertFalse(cache.containsKey("b"));
+        assertNull(cache.get(null));
+        cache.clear();
+        assertTrue(cache.isEmpty());
+    }
+
+    /**
+     * Tests that the cache is bounded by the number of entries.<p>
+     */
+    public void testSizeBound() {
+
+        CmsConcurrentCacheMap<String, String> cache = new CmsConcurrentCacheMap<String, String>(10, 0, 1);
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        assertTrue(cache.size() <= 10);
+        assertEquals(90, cache.getEvictionCount());
+        assertEquals(10, cache.getMaxSize());
+    }
+
+    /**
+     * Tests that the cache is bounded by the estimated memory size of its entries.<p>
+     */
+    public void testWeightBound() {
+
+        CmsConcurrentCacheMap<String, byte[]> cache = new CmsConcurrentCacheMap<String, byte[]>(1000, 4096, 1);
+        for (int i = 0; i < 20; i++) {
+            cache.put("key" + i, new byte[1024]);
+        }
+        assertTrue(cache.size() < 4);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertEquals(4096, cache.getMaxWeight());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the atomic writing of files in the RFS disk cache.<p>
+ */
+public class TestCmsVfsDiskCache extends TestCase {
+
+    /** The temporary base folder for the files. */
+    private File m_basedir;
+
+    /**
+     * Tests that concurrent writes of the same file always leave one complete version of the file.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentSave() throws Exception {
+
+        File target = new File(m_basedir, "concurrent/file.html");
+        final String rfsName = target.getAbsolutePath();
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final byte[] content = createContent(i, 100000);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int j = 0; j < 20; j++) {
+                            CmsVfsDiskCache.saveFile(rfsName, content);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Saving failed: " + errors, errors.isEmpty());
+
+        byte[] saved = CmsFileUtil.readFile(target);
+        assertEquals(100000, saved.length);
+        for (int i = 1; i < saved.length; i++) {
+            assertEquals("The saved file mixes the content of different writes", saved[0], saved[i]);
+        }
+        assertNoTemporaryFiles(target.getParentFile());
+    }
+
+    /**
+     * Tests that a failed move of the written file leaves no temporary file behind.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedMove() throws Exception {
+
+        // a folder which is not empty can not be replaced by a file
+        File target = new File(m_basedir, "move/file.html");
+        File child = new File(target, "child.html");
+        CmsVfsDiskCache.saveFile(child.getAbsolutePath(), "child".getBytes());
+        try {
+            CmsVfsDiskCache.saveFile(target.getAbsolutePath(), "content".getBytes());
+            fail("Replacing a folder which is not empty must fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(target.isDirectory());
+        assertEquals("child", new String(CmsFileUtil.readFile(child)));
+        assertNoTemporaryFiles(target.getParentFile());
+    }
+
+    /**
+     * Tests that a failed write leaves neither a partially written file nor a temporary file behind.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedWrite() throws Exception {
+
+        File target = new File(m_basedir, "write/file.html");
+        try {
+            // writing the null content fails after the temporary file has been created
+            CmsVfsDiskCache.saveFile(target.getAbsolutePath(), null);
+            fail("Saving null content must fail");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertFalse(target.exists());
+        assertNoTemporaryFiles(target.getParentFile());
+
+        // a failed write must not touch an existing file either
+        CmsVfsDiskCache.saveFile(target.getAbsolutePath(), "old content".getBytes());
+        try {
+            CmsVfsDiskCache.saveFile(target.getAbsolutePath(), null);
+            fail("Saving null content must fail");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertEquals("old content", new String(CmsFileUtil.readFile(target)));
+        assertNoTemporaryFiles(target.getParentFile());
+    }
+
+    /**
+     * Tests that saving a file creates the parent folders and replaces an existing file.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSaveFile() throws Exception {
+
+        File target = new File(m_basedir, "a/b/file.html");
+        File saved = CmsVfsDiskCache.saveFile(target.getAbsolutePath(), "first".getBytes());
+        assertEquals(target.getAbsolutePath(), saved.getAbsolutePath());
+        assertEquals("first", new String(CmsFileUtil.readFile(target)));
+
+        CmsVfsDiskCache.saveFile(target.getAbsolutePath(), "second content".getBytes());
+        assertEquals("second content", new String(CmsFileUtil.readFile(target)));
+        assertNoTemporaryFiles(target.getParentFile());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_basedir = File.createTempFile("diskcache", "");
+        m_basedir.delete();
+        m_basedir.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        CmsFileUtil.purgeDirectory(m_basedir);
+    }
+
+    /**
+     * Asserts that no temporary file is left in the given folder.<p>
+     *
+     * @param folder the folder to check
+     */
+    private void assertNoTemporaryFiles(File folder) {
+
+        for (File file : folder.listFiles()) {
+            assertFalse("Temporary file left: " + file.getName(), file.getName().endsWith(".tmp"));
+        }
+    }
+
+    /**
+     * Creates content in which every byte has the same value.<p>
+     *
+     * @param value the value of the bytes
+     * @param size the size of the content
+     *
+     * @return the content
+     */
+    private byte[] createContent(int value, int size) {
+
+        byte[] result = new byte[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (byte)value;
+        }
+        return result;
+    }
+}
@@ -65,6 +65,11 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(TestReadChildren.suite());
+        suite.addTest(new TestSuite(TestParallelPublishBatches.class));
+        suite.addTest(TestParallelPublish.suite());
+        suite.addTest(new TestSuite(TestSqlStatistics.class));
+        suite.addTest(new TestSuite(TestSqlBatch.class));
         // $JUnit-END$
         return suite;
     }
@@ -0,0 +1,326 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.OpenCms;
+import org.opencms.publish.CmsPublishJobBase;
+import org.opencms.report.CmsStringBufferReport;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Compares publishing a project with several worker threads to publishing it serially.<p>
+ */
+public class TestParallelPublish extends OpenCmsTestCase {
+
+    /**
+     * Report that records the publish statistics.<p>
+     */
+    private static class CmsStatisticsReport extends CmsStringBufferReport {
+
+        /** The published files, published folders and deleted folders. */
+        List<Object> m_statistics;
+
+        /**
+         * Creates a new statistics report.<p>
+         */
+        CmsStatisticsReport() {
+
+            super(Locale.ENGLISH);
+        }
+
+        /**
+         * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+         */
+        @Override
+        public void println(CmsMessageContainer container) {
+
+            if (org.opencms.db.generic.Messages.RPT_PUBLISH_STAT_4.equals(container.getKey())) {
+                // the last argument is the runtime, which differs between the publish jobs
+                m_statistics = Arrays.asList(container.getArgs()).subList(0, 3);
+            }
+            super.println(container);
+        }
+    }
+
+    /** The number of new files created for the test. */
+    private static final int NEW_FILES = 20;
+
+    /** The online resources after the serial publish. */
+    private static Map<String, String> m_serialOnlineState;
+
+    /** The published resources of the serial publish. */
+    private static List<String> m_serialPublishedResources;
+
+    /** The statistics of the serial publish. */
+    private static List<Object> m_serialStatistics;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestParallelPublish(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * The serial publish runs with the default configuration,
+     * the parallel publish with a configuration that uses several publish workers.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestParallelPublish.class.getName());
+
+        TestSuite serial = new TestSuite();
+        serial.addTest(new TestParallelPublish("testSerialPublish"));
+        suite.addTest(new TestSetup(serial) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        });
+
+        TestSuite parallel = new TestSuite();
+        parallel.addTest(new TestParallelPublish("testParallelPublish"));
+        suite.addTest(new TestSetup(parallel) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/", "/../org/opencms/db");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        });
+
+        return suite;
+    }
+
+    /**
+     * Publishes the test changes with several workers and compares the result to the serial publish.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testParallelPublish() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing with several publish workers");
+
+        assertTrue(OpenCms.getPublishManager().getPublishWorkers() > 1);
+        assertNotNull("the serial publish must run first", m_serialOnlineState);
+
+        createChanges(cms);
+        CmsStatisticsReport report = new CmsStatisticsReport();
+        CmsUUID publishHistoryId = publish(cms, report);
+
+        assertFalse(report.toString(), report.hasError());
+        assertEquals(m_serialStatistics, report.m_statistics);
+        assertEquals(m_serialPublishedResources, readPublishedResources(cms, publishHistoryId));
+        assertEquals(m_serialOnlineState, readOnlineState(cms));
+    }
+
+    /**
+     * Publishes the test changes serially and stores the result.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testSerialPublish() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing with a single publish worker");
+
+        assertEquals(1, OpenCms.getPublishManager().getPublishWorkers());
+
+        createChanges(cms);
+        CmsStatisticsReport report = new CmsStatisticsReport();
+        CmsUUID publishHistoryId = publish(cms, report);
+
+        assertFalse(report.toString(), report.hasError());
+        assertNotNull(report.m_statistics);
+        m_serialStatistics = report.m_statistics;
+        m_serialPublishedResources = readPublishedResources(cms, publishHistoryId);
+        m_serialOnlineState = readOnlineState(cms);
+        assertTrue(m_serialPublishedResources.size() > NEW_FILES);
+    }
+
+    /**
+     * Creates the changes to publish: new files, changed files, siblings, moved and deleted files.<p>
+     *
+     * @param cms the CmsObject
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createChanges(CmsObject cms) throws Exception {
+
+        cms.createResource("/parallel/", CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        for (int i = 0; i < NEW_FILES; i++) {
+            cms.createResource(
+                "/parallel/file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                ("content " + i).getBytes(),
+                null);
+        }
+        // siblings must be published by the same worker
+        cms.createSibling("/parallel/file0.txt", "/parallel/sibling0.txt", null);
+        cms.createSibling("/folder1/page1.html", "/parallel/sibling1.html", null);
+
+        // change existing files
+        String[] changed = {"/folder1/page2.html", "/folder1/page3.html", "/folder2/page1.html"};
+        for (String path : changed) {
+            cms.lockResource(path);
+            CmsFile file = cms.readFile(path);
+            file.setContents((new String(file.getContents()) + "<!-- changed -->").getBytes());
+            cms.writeFile(file);
+        }
+
+        // move and delete files
+        cms.lockResource("/folder1/page4.html");
+        cms.moveResource("/folder1/page4.html", "/parallel/page4.html");
+        cms.lockResource("/folder2/page2.html");
+        cms.deleteResource("/folder2/page2.html", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.lockResource("/parallel/file1.txt");
+        cms.deleteResource("/parallel/file1.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+    }
+
+    /**
+     * Publishes the current project and waits until the publish job has finished.<p>
+     *
+     * @param cms the CmsObject
+     * @param report the report to write the publish output to
+     *
+     * @return the publish history id of the publish job
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsUUID publish(CmsObject cms, CmsStatisticsReport report) throws Exception {
+
+        CmsUUID publishHistoryId = OpenCms.getPublishManager().publishProject(cms, report);
+        OpenCms.getPublishManager().waitWhileRunning();
+        CmsPublishJobBase job = OpenCms.getPublishManager().getJobByPublishHistoryId(publishHistoryId);
+        assertNotNull(job);
+        return publishHistoryId;
+    }
+
+    /**
+     * Returns the online resources with their type, state, sibling count and content.<p>
+     *
+     * The dates and ids of the resources differ between the test runs, so they are not included.<p>
+     *
+     * @param cms the CmsObject
+     *
+     * @return the online resources by root path
+     *
+     * @throws Exception if something goes wrong
+     */
+    private Map<String, String> readOnlineState(CmsObject cms) throws Exception {
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        try {
+            Map<String, String> state = new TreeMap<String, String>();
+            for (CmsResource resource : cms.readResources("/", CmsResourceFilter.ALL, true)) {
+                String value = resource.getTypeId()
+                    + ":"
+                    + resource.getState()
+                    + ":"
+                    + resource.getSiblingCount()
+                    + ":"
+                    + resource.getLength();
+                if (resource.isFile()) {
+                    value += ":" + Arrays.hashCode(cms.readFile(resource).getContents());
+                }
+                state.put(resource.getRootPath(), value);
+            }
+            return state;
+        } finally {
+            cms.getRequestContext().setCurrentProject(offlineProject);
+        }
+    }
+
+    /**
+     * Returns the sorted root paths and states of the resources in the publish history of a publish job.<p>
+     *
+     * @param cms the CmsObject
+     * @param publishHistoryId the publish history id
+     *
+     * @return the published resources
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readPublishedResources(CmsObject cms, CmsUUID publishHistoryId) throws Exception {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsPublishedResource resource : cms.readPublishedResources(publishHistoryId)) {
+            result.add(resource.getRootPath() + ":" + resource.getState() + ":" + resource.getMovedState());
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
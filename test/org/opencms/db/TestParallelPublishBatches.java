@@ -0,0 +1,136 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsParallelFilePublisher;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the partitioning of the publish list files into batches for parallel publishing.<p>
+ */
+public class TestParallelPublishBatches extends TestCase {
+
+    /**
+     * Tests that files are split into batches of the configured size, keeping their order.<p>
+     */
+    public void testBatchSize() {
+
+        List<CmsResource> files = new ArrayList<CmsResource>();
+        for (int i = 0; i < 7; i++) {
+            files.add(createFile("/sites/default/file" + i + ".txt", "res" + i));
+        }
+        List<List<CmsResource>> batches = CmsParallelFilePublisher.createBatches(files, 3);
+        assertEquals(3, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals(3, batches.get(1).size());
+        assertEquals(1, batches.get(2).size());
+        assertEquals(files.subList(0, 3), batches.get(0));
+        assertEquals(files.get(6), batches.get(2).get(0));
+    }
+
+    /**
+     * Tests that files with the same root path are put in the same batch.<p>
+     */
+    public void testSamePathInSameBatch() {
+
+        List<CmsResource> files = new ArrayList<CmsResource>();
+        CmsResource deleted = createFile("/sites/default/a.txt", "res1");
+        CmsResource other = createFile("/sites/default/b.txt", "res2");
+        CmsResource created = createFile("/sites/default/a.txt", "res3");
+        files.add(deleted);
+        files.add(other);
+        files.add(created);
+        List<List<CmsResource>> batches = CmsParallelFilePublisher.createBatches(files, 1);
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertSame(deleted, batches.get(0).get(0));
+        assertSame(created, batches.get(0).get(1));
+        assertSame(other, batches.get(1).get(0));
+    }
+
+    /**
+     * Tests that siblings are put in the same batch, also if they are connected indirectly.<p>
+     */
+    public void testSiblingsInSameBatch() {
+
+        List<CmsResource> files = new ArrayList<CmsResource>();
+        files.add(createFile("/sites/default/a.txt", "res1"));
+        files.add(createFile("/sites/default/b.txt", "res2"));
+        files.add(createFile("/sites/default/c.txt", "res3"));
+        // sibling of a.txt
+        files.add(createFile("/sites/default/d.txt", "res1"));
+        // sibling of c.txt, but at the path of b.txt, so b, c and e belong together
+        files.add(createFile("/sites/default/b.txt", "res3"));
+        List<List<CmsResource>> batches = CmsParallelFilePublisher.createBatches(files, 2);
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals("/sites/default/a.txt", batches.get(0).get(0).getRootPath());
+        assertEquals("/sites/default/d.txt", batches.get(0).get(1).getRootPath());
+        assertEquals(3, batches.get(1).size());
+        assertEquals("/sites/default/b.txt", batches.get(1).get(0).getRootPath());
+        assertEquals("/sites/default/c.txt", batches.get(1).get(1).getRootPath());
+        assertEquals("/sites/default/b.txt", batches.get(1).get(2).getRootPath());
+    }
+
+    /**
+     * Creates a dummy file resource.<p>
+     *
+     * @param path the root path
+     * @param resourceKey the key used to generate the resource id
+     *
+     * @return the dummy resource
+     */
+    private CmsResource createFile(String path, String resourceKey) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            CmsUUID.getConstantUUID(resourceKey),
+            path,
+            1,
+            false,
+            0,
+            null,
+            null,
+            0,
+            null,
+            0,
+            null,
+            0,
+            0,
+            1,
+            0,
+            0,
+            0);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Test;
+
+/**
+ * Tests that reading the properties and access control entries of all children of a folder at once
+ * gives the same result as reading them for each child separately.<p>
+ */
+public class TestReadChildren extends OpenCmsTestCase {
+
+    /**
+     * Test constructor.<p>
+     *
+     * @param arg0 the name of the test
+     */
+    public TestReadChildren(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Returns the test suite.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+        return generateSetupTestWrapper(TestReadChildren.class, "simpletest", "/");
+    }
+
+    /**
+     * Tests the bulk reads of child properties and access control entries in the offline and online project.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testReadChildPropertiesAndAces() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        String folder = "/bulkread/";
+        String group = OpenCms.getDefaultUsers().getGroupUsers();
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+
+        // a file with structure and resource values, and a sibling sharing the resource values
+        cms.createResource(
+            folder + "properties.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            "content".getBytes(),
+            Arrays.asList(
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "structure title", "resource title"),
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "shared description")));
+        cms.createSibling(
+            folder + "properties.txt",
+            folder + "sibling.txt",
+            Arrays.asList(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "sibling title", null)));
+        cms.chacc(folder + "sibling.txt", I_CmsPrincipal.PRINCIPAL_GROUP, group, "+r+w+v");
+
+        // a file without properties and access control entries
+        cms.createResource(folder + "empty.txt", CmsResourceTypePlain.getStaticTypeId());
+
+        // a file with access control entries only
+        cms.createResource(folder + "acl.txt", CmsResourceTypePlain.getStaticTypeId());
+        cms.chacc(folder + "acl.txt", I_CmsPrincipal.PRINCIPAL_GROUP, group, "+r+v-w");
+        cms.chacc(
+            folder + "acl.txt",
+            I_CmsPrincipal.PRINCIPAL_USER,
+            cms.getRequestContext().getCurrentUser().getName(),
+            "+r+w+v+c");
+
+        // a sub folder with inherited entries, and a nested file which is not a direct child
+        cms.createResource(
+            folder + "sub/",
+            CmsResourceTypeFolder.getStaticTypeId(),
+            null,
+            Collections.singletonList(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "sub title", null)));
+        cms.chacc(folder + "sub/", I_CmsPrincipal.PRINCIPAL_GROUP, group, "+r+v+i");
+        cms.createResource(
+            folder + "sub/nested.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            "nested".getBytes(),
+            Collections.singletonList(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "nested title", null)));
+        cms.chacc(folder + "sub/nested.txt", I_CmsPrincipal.PRINCIPAL_GROUP, group, "+r");
+
+        cms.unlockResource(folder);
+        assertBulkReadsMatch(cms, folder, 5);
+
+        // the online project is read from other tables
+        OpenCms.getPublishManager().publishResource(cms, folder);
+        OpenCms.getPublishManager().waitWhileRunning();
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertBulkReadsMatch(onlineCms, folder, 5);
+
+        // an empty folder
+        cms.createResource(folder + "sub/empty/", CmsResourceTypeFolder.getStaticTypeId());
+        assertBulkReadsMatch(cms, folder + "sub/empty/", 0);
+    }
+
+    /**
+     * Checks that the bulk reads of the properties and access control entries of the children of a folder
+     * return the same data as the reads for every single child.<p>
+     *
+     * @param cms the CMS context
+     * @param folderName the name of the folder
+     * @param expectedChildren the expected number of children
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void assertBulkReadsMatch(CmsObject cms, String folderName, int expectedChildren) throws Exception {
+
+        CmsDriverManager driverManager = getDriverManager(cms);
+        CmsResource folder = cms.readResource(folderName);
+        List<CmsResource> children = cms.getResourcesInFolder(folderName, CmsResourceFilter.ALL);
+        assertEquals(expectedChildren, children.size());
+
+        CmsDbContext dbc = new CmsDbContext(cms.getRequestContext());
+        try {
+            CmsProject project = dbc.currentProject();
+            Map<CmsUUID, List<CmsProperty>> bulkProperties = driverManager.getVfsDriver(
+                dbc).readChildPropertyObjects(dbc, project, folder);
+            Map<CmsUUID, List<CmsAccessControlEntry>> bulkAces = driverManager.getUserDriver(
+                dbc).readChildAccessControlEntries(dbc, project, folder);
+
+            Set<CmsUUID> structureIds = new HashSet<CmsUUID>();
+            Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+            for (CmsResource child : children) {
+                structureIds.add(child.getStructureId());
+                resourceIds.add(child.getResourceId());
+
+                List<CmsProperty> properties = driverManager.getVfsDriver(dbc).readPropertyObjects(
+                    dbc,
+                    project,
+                    child);
+                List<CmsProperty> childProperties = bulkProperties.get(child.getStructureId());
+                if (properties.isEmpty()) {
+                    assertNull(child.getRootPath(), childProperties);
+                } else {
+                    assertNotNull(child.getRootPath(), childProperties);
+                    assertEquals(child.getRootPath(), propertyValues(properties), propertyValues(childProperties));
+                }
+
+                List<CmsAccessControlEntry> aces = driverManager.getUserDriver(dbc).readAccessControlEntries(
+                    dbc,
+                    project,
+                    child.getResourceId(),
+                    false);
+                List<CmsAccessControlEntry> childAces = bulkAces.get(child.getResourceId());
+                if (aces.isEmpty()) {
+                    assertNull(child.getRootPath(), childAces);
+                } else {
+                    assertNotNull(child.getRootPath(), childAces);
+                    assertEquals(child.getRootPath(), aces.size(), childAces.size());
+                    assertEquals(
+                        child.getRootPath(),
+                        new HashSet<CmsAccessControlEntry>(aces),
+                        new HashSet<CmsAccessControlEntry>(childAces));
+                }
+            }
+            // only the direct children are read
+            assertTrue(structureIds.containsAll(bulkProperties.keySet()));
+            assertTrue(resourceIds.containsAll(bulkAces.keySet()));
+        } finally {
+            dbc.clear();
+        }
+    }
+
+    /**
+     * Returns the driver manager used by the given CMS context.<p>
+     *
+     * The driver manager is not available through the public API, so it is read from the security manager.<p>
+     *
+     * @param cms the CMS context
+     *
+     * @return the driver manager
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsDriverManager getDriverManager(CmsObject cms) throws Exception {
+
+        Field field = CmsObject.class.getDeclaredField("m_securityManager");
+        field.setAccessible(true);
+        return ((CmsSecurityManager)field.get(cms)).m_driverManager;
+    }
+
+    /**
+     * Returns the names and values of the given properties in a comparable form.<p>
+     *
+     * @param properties the properties
+     *
+     * @return the set of names and values
+     */
+    private Set<String> propertyValues(List<CmsProperty> properties) {
+
+        Set<String> result = new HashSet<String>();
+        for (CmsProperty property : properties) {
+            result.add(property.getName() + "=" + property.getStructureValue() + "|" + property.getResourceValue());
+        }
+        assertEquals(properties.size(), result.size());
+        return result;
+    }
+}
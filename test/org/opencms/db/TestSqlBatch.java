@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlBatch;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the execution of JDBC batch updates by the SQL batch.<p>
+ */
+public class TestSqlBatch extends TestCase {
+
+    /**
+     * Records the statements executed on a connection.<p>
+     */
+    private static class TestConnection implements InvocationHandler {
+
+        /** The sizes of the executed batches, as "query:size". */
+        List<String> m_batches = new ArrayList<String>();
+
+        /** The number of closed statements. */
+        int m_closed;
+
+        /** If set, executing a batch fails. */
+        boolean m_fail;
+
+        /** The executed single statements, as "query:parameter". */
+        List<String> m_updates = new ArrayList<String>();
+
+        /**
+         * Returns a proxy connection using this handler.<p>
+         *
+         * @return the connection
+         */
+        Connection getConnection() {
+
+            return (Connection)Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {Connection.class},
+                this);
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) {
+
+            if ("prepareStatement".equals(method.getName())) {
+                final String query = (String)args[0];
+                return Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class},
+                    new InvocationHandler() {
+
+                        /** The number of statements added to the current batch. */
+                        private int m_pending;
+
+                        /** The last parameter value set. */
+                        private Object m_value;
+
+                        public Object invoke(Object stmt, Method stmtMethod, Object[] stmtArgs) throws SQLException {
+
+                            String name = stmtMethod.getName();
+                            if ("setString".equals(name) || "setInt".equals(name)) {
+                                m_value = stmtArgs[1];
+                            } else if ("addBatch".equals(name)) {
+                                m_pending++;
+                            } else if ("executeBatch".equals(name)) {
+                                if (m_fail) {
+                                    throw new SQLException("batch failed");
+                                }
+                                m_batches.add(query + ":" + m_pending);
+                                int[] result = new int[m_pending];
+                                m_pending = 0;
+                                return result;
+                            } else if ("executeUpdate".equals(name)) {
+                                m_updates.add(query + ":" + m_value);
+                                return Integer.valueOf(1);
+                            } else if ("close".equals(name)) {
+                                m_closed++;
+                            }
+                            return null;
+                        }
+                    });
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Tests that a failed batch is cleared and its statement closed.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testClearAfterFailure() throws Exception {
+
+        CmsSqlBatch batch = new CmsSqlBatch(createSqlManager(true, 10));
+        batch.add("Q1", "a");
+        batch.add("Q1", "b");
+        TestConnection conn = new TestConnection();
+        conn.m_fail = true;
+        try {
+            batch.execute(new CmsDbContext(), conn.getConnection());
+            fail("executing the batch should fail");
+        } catch (SQLException e) {
+            // expected
+        }
+        assertTrue(batch.isEmpty());
+        assertEquals(0, batch.size());
+        assertEquals(1, conn.m_closed);
+
+        // the batch can be reused after the failure
+        batch.add("Q2", "c");
+        conn.m_fail = false;
+        batch.execute(new CmsDbContext(), conn.getConnection());
+        assertEquals("[Q2:1]", conn.m_batches.toString());
+    }
+
+    /**
+     * Tests that the statements are executed in batches of at most the maximum batch size.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testExecuteInChunks() throws Exception {
+
+        CmsSqlBatch batch = new CmsSqlBatch(createSqlManager(true, 3));
+        for (int i = 0; i < 7; i++) {
+            batch.add("Q1", "a" + i);
+            if (i < 2) {
+                batch.add("Q2", Integer.valueOf(i));
+            }
+        }
+        assertEquals(9, batch.size());
+        assertTrue(batch.isFull());
+
+        TestConnection conn = new TestConnection();
+        batch.execute(new CmsDbContext(), conn.getConnection());
+        // the queries are executed in the order they were first added
+        assertEquals("[Q1:3, Q1:3, Q1:1, Q2:2]", conn.m_batches.toString());
+        assertTrue(conn.m_updates.isEmpty());
+        assertEquals(2, conn.m_closed);
+        assertTrue(batch.isEmpty());
+        assertFalse(batch.isFull());
+    }
+
+    /**
+     * Tests that the statements are executed one by one if the driver does not support batch updates.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testExecuteWithoutBatchSupport() throws Exception {
+
+        CmsSqlBatch batch = new CmsSqlBatch(createSqlManager(false, 2));
+        batch.add("Q1", "a");
+        batch.add("Q2", Integer.valueOf(1));
+        batch.add("Q1", "b");
+        batch.add("Q1", "c");
+
+        TestConnection conn = new TestConnection();
+        batch.execute(new CmsDbContext(), conn.getConnection());
+        assertTrue(conn.m_batches.isEmpty());
+        assertEquals("[Q1:a, Q1:b, Q1:c, Q2:1]", conn.m_updates.toString());
+        assertEquals(2, conn.m_closed);
+        assertTrue(batch.isEmpty());
+    }
+
+    /**
+     * Creates a SQL manager that uses the query keys as queries.<p>
+     *
+     * @param batchSupported if the JDBC driver supports batch updates
+     * @param maxBatchSize the maximum batch size
+     *
+     * @return the SQL manager
+     */
+    private CmsSqlManager createSqlManager(final boolean batchSupported, final int maxBatchSize) {
+
+        return new CmsSqlManager() {
+
+            @Override
+            public int getMaxBatchSize() {
+
+                return maxBatchSize;
+            }
+
+            @Override
+            public boolean isBatchSupported(Connection con) {
+
+                return batchSupported;
+            }
+
+            @Override
+            public String readQuery(CmsUUID projectId, String queryKey) {
+
+                return queryKey;
+            }
+        };
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.CmsSqlStatistics.CmsSlowStatement;
+import org.opencms.db.CmsSqlStatistics.CmsTimingStatistic;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the recording of the SQL statistics.<p>
+ */
+public class TestSqlStatistics extends TestCase {
+
+    /**
+     * Prepared statement stub that records the invoked methods and fails on <code>executeUpdate</code>.<p>
+     */
+    private static class TestStatement implements InvocationHandler {
+
+        /** The names of the invoked methods. */
+        List<String> m_invoked = new ArrayList<String>();
+
+        /**
+         * Creates a prepared statement backed by this handler.<p>
+         *
+         * @return the prepared statement
+         */
+        PreparedStatement createStatement() {
+
+            return (PreparedStatement)Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] {PreparedStatement.class},
+                this);
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+
+            m_invoked.add(method.getName());
+            if ("executeUpdate".equals(method.getName())) {
+                throw new SQLException("update failed", "42000", 17);
+            }
+            if ("execute".equals(method.getName())) {
+                return Boolean.TRUE;
+            }
+            if ("getMaxRows".equals(method.getName())) {
+                return Integer.valueOf(42);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Tests that the statement timings are recorded per query key and ordered by total time.<p>
+     */
+    public void testQueryTimings() {
+
+        CmsSqlStatistics statistics = new CmsSqlStatistics(5);
+        statistics.recordStatement("C_READ", "SELECT 1", millis(3), false);
+        statistics.recordStatement("C_READ", "SELECT 1", millis(7), true);
+        statistics.recordStatement("C_WRITE", "UPDATE X", millis(1500), false);
+        assertEquals(3, statistics.getExecutedStatements());
+
+        List<CmsTimingStatistic> queries = statistics.getQueryStatistics();
+        assertEquals(2, queries.size());
+        assertEquals("C_WRITE", queries.get(0).getName());
+        CmsTimingStatistic read = queries.get(1);
+        assertEquals(2, read.getCount());
+        assertEquals(1, read.getErrorCount());
+        assertEquals(10, read.getTotalTime());
+        assertEquals(7, read.getMaxTime());
+        assertEquals(5.0, read.getAverageTime(), 0.001);
+        // 3 ms is in the bucket 2-5 ms, 7 ms in the bucket 5-10 ms
+        assertEquals(1, read.getHistogram()[2]);
+        assertEquals(1, read.getHistogram()[3]);
+        assertEquals(5, read.getPercentile(50));
+        assertEquals(7, read.getPercentile(95));
+
+        statistics.reset();
+        assertEquals(0, statistics.getExecutedStatements());
+        assertTrue(statistics.getQueryStatistics().isEmpty());
+    }
+
+    /**
+     * Tests that the profiling proxy forwards all calls and only records the timings of the execute methods.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testProxyRecordsExecuteOnly() throws Exception {
+
+        CmsSqlStatistics statistics = new CmsSqlStatistics(5);
+        TestStatement handler = new TestStatement();
+        PreparedStatement original = handler.createStatement();
+        PreparedStatement stmt = statistics.wrap(original, "C_READ", "SELECT 1");
+
+        stmt.setString(1, "value");
+        assertEquals(42, stmt.getMaxRows());
+        assertEquals(0, statistics.getExecutedStatements());
+
+        assertTrue(stmt.execute());
+        stmt.close();
+        assertEquals(1, statistics.getExecutedStatements());
+        assertEquals(4, handler.m_invoked.size());
+        assertEquals("setString", handler.m_invoked.get(0));
+        assertEquals("getMaxRows", handler.m_invoked.get(1));
+        assertEquals("execute", handler.m_invoked.get(2));
+        assertEquals("close", handler.m_invoked.get(3));
+
+        List<CmsTimingStatistic> queries = statistics.getQueryStatistics();
+        assertEquals(1, queries.size());
+        assertEquals("C_READ", queries.get(0).getName());
+        assertEquals(1, queries.get(0).getCount());
+        assertEquals(0, queries.get(0).getErrorCount());
+
+        assertSame(original, CmsSqlStatistics.unwrap(stmt));
+        assertSame(original, CmsSqlStatistics.unwrap(original));
+    }
+
+    /**
+     * Tests that the profiling proxy throws the original SQL exception and records the failed execution.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testProxyUnwrapsException() throws Exception {
+
+        CmsSqlStatistics statistics = new CmsSqlStatistics(5);
+        PreparedStatement stmt = statistics.wrap(new TestStatement().createStatement(), null, "UPDATE X");
+        try {
+            stmt.executeUpdate();
+            fail("SQLException expected");
+        } catch (SQLException e) {
+            assertEquals("update failed", e.getMessage());
+            assertEquals("42000", e.getSQLState());
+            assertEquals(17, e.getErrorCode());
+        }
+
+        List<CmsTimingStatistic> queries = statistics.getQueryStatistics();
+        assertEquals(1, queries.size());
+        assertEquals(CmsSqlStatistics.KEY_DYNAMIC_SQL, queries.get(0).getName());
+        assertEquals(1, queries.get(0).getCount());
+        assertEquals(1, queries.get(0).getErrorCount());
+    }
+
+    /**
+     * Tests that only the slowest statements are kept.<p>
+     */
+    public void testSlowStatements() {
+
+        CmsSqlStatistics statistics = new CmsSqlStatistics(3);
+        for (int i = 1; i <= 10; i++) {
+            statistics.recordStatement("C_QUERY_" + i, "SELECT " + i, millis(i * 10), false);
+        }
+        statistics.recordStatement("C_FAST", "SELECT 0", millis(1), false);
+        List<CmsSlowStatement> slow = statistics.getSlowStatementList();
+        assertEquals(3, slow.size());
+        assertEquals("C_QUERY_10", slow.get(0).getQueryKey());
+        assertEquals("C_QUERY_9", slow.get(1).getQueryKey());
+        assertEquals("C_QUERY_8", slow.get(2).getQueryKey());
+        assertEquals(100, slow.get(0).getDuration());
+        assertEquals("SELECT 10", slow.get(0).getSql());
+    }
+
+    /**
+     * Converts milliseconds to nanoseconds.<p>
+     *
+     * @param millis the milliseconds
+     *
+     * @return the nanoseconds
+     */
+    private long millis(long millis) {
+
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the CmsFlexCacheDependencies.<p>
+ */
+public class TestCmsFlexCacheDependencies extends TestCase {
+
+    /**
+     * Tests that entries are affected by a published folder if they depend on a resource below it.<p>
+     */
+    public void testAffectedByFolder() {
+
+        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies();
+        dependencies.add(createFile("/sites/default/news/a.html", "res1"));
+
+        Set<String> empty = Collections.emptySet();
+        Set<CmsUUID> noIds = Collections.emptySet();
+        assertTrue(dependencies.isAffectedBy(empty, noIds, Collections.singletonList("/sites/default/news/")));
+        assertFalse(dependencies.isAffectedBy(empty, noIds, Collections.singletonList("/sites/default/events/")));
+    }
+
+    /**
+     * Tests that entries are affected by published resources with the same path, parent folder or resource id.<p>
+     */
+    public void testAffectedByResource() {
+
+        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies();
+        dependencies.add(createFile("/sites/default/news/a.html", "res1"));
+        Set<CmsUUID> noIds = Collections.emptySet();
+        List<String> noFolders = Collections.emptyList();
+
+        assertTrue(dependencies.isAffectedBy(Collections.singleton("/sites/default/news/a.html"), noIds, noFolders));
+        // a new file published in the same folder
+        assertTrue(dependencies.isAffectedBy(Collections.singleton("/sites/default/news/"), noIds, noFolders));
+        // a sibling at another location
+        assertTrue(
+            dependencies.isAffectedBy(
+                Collections.singleton("/sites/default/other/b.html"),
+                Collections.singleton(CmsUUID.getConstantUUID("res1")),
+                noFolders));
+        assertFalse(
+            dependencies.isAffectedBy(
+                Collections.singleton("/sites/default/other/b.html"),
+                Collections.singleton(CmsUUID.getConstantUUID("res2")),
+                noFolders));
+    }
+
+    /**
+     * Tests that dependencies are marked as incomplete if too many resources are read.<p>
+     */
+    public void testIncomplete() {
+
+        CmsFlexCacheDependencies dependencies = new CmsFlexCacheDependencies();
+        for (int i = 0; i <= CmsFlexCacheDependencies.MAX_DEPENDENCIES; i++) {
+            dependencies.addPath("/sites/default/file" + i + ".html");
+        }
+        assertTrue(dependencies.isIncomplete());
+        Set<String> empty = new HashSet<String>();
+        Set<CmsUUID> noIds = Collections.emptySet();
+        assertTrue(dependencies.isAffectedBy(empty, noIds, Collections.<String> emptyList()));
+
+        CmsFlexCacheDependencies copy = new CmsFlexCacheDependencies(dependencies);
+        assertTrue(copy.isIncomplete());
+    }
+
+    /**
+     * Creates a dummy file resource.<p>
+     *
+     * @param path the root path
+     * @param resourceKey the key used to generate the resource id
+     *
+     * @return the dummy resource
+     */
+    private CmsResource createFile(String path, String resourceKey) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            CmsUUID.getConstantUUID(resourceKey),
+            path,
+            1,
+            false,
+            0,
+            null,
+            null,
+            0,
+            null,
+            0,
+            null,
+            0,
+            0,
+            1,
+            0,
+            0,
+            0);
+    }
+}
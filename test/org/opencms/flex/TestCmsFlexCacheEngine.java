@@ -0,0 +1,215 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the FlexCache with the different cache engines.<p>
+ */
+public class TestCmsFlexCacheEngine extends TestCase {
+
+    /**
+     * Tests that entries can be looked up with the concurrent cache engine.<p>
+     */
+    public void testConcurrentEngineLookup() {
+
+        checkLookup(CmsFlexCacheConfiguration.CACHE_ENGINE_CONCURRENT);
+    }
+
+    /**
+     * Tests that the entries of evicted keys are released with the concurrent cache engine.<p>
+     */
+    public void testConcurrentEngineKeyEviction() {
+
+        checkKeyEviction(CmsFlexCacheConfiguration.CACHE_ENGINE_CONCURRENT);
+    }
+
+    /**
+     * Tests that entries are added safely while keys are evicted concurrently with the concurrent cache engine.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentEngineParallelEviction() throws Exception {
+
+        checkParallelEviction(CmsFlexCacheConfiguration.CACHE_ENGINE_CONCURRENT);
+    }
+
+    /**
+     * Tests that entries can be looked up with the LRU cache engine.<p>
+     */
+    public void testLruEngineLookup() {
+
+        checkLookup(CmsFlexCacheConfiguration.CACHE_ENGINE_LRU);
+    }
+
+    /**
+     * Tests that the entries of evicted keys are released with the LRU cache engine.<p>
+     */
+    public void testLruEngineKeyEviction() {
+
+        checkKeyEviction(CmsFlexCacheConfiguration.CACHE_ENGINE_LRU);
+    }
+
+    /**
+     * Fills a cache with more keys than allowed and checks that the entries of all evicted keys are released.<p>
+     *
+     * @param engine the cache engine to use
+     */
+    private void checkKeyEviction(String engine) {
+
+        CmsFlexCache cache = createCache(engine, 10);
+        for (int i = 0; i < 50; i++) {
+            putEntry(cache, "/sites/default/page" + i + ".jsp", "a");
+            putEntry(cache, "/sites/default/page" + i + ".jsp", "b");
+        }
+        assertTrue(cache.keySize() <= 10);
+        assertTrue(cache.keySize() > 0);
+        assertEquals(cache.keySize() * 2, cache.size());
+        // the last added key must still be available
+        assertNotNull(cache.get(CmsFlexCacheKey.getKeyName("/sites/default/page49.jsp", true), "b"));
+    }
+
+    /**
+     * Tests that entries are added safely while keys are evicted concurrently with the LRU cache engine.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLruEngineParallelEviction() throws Exception {
+
+        checkParallelEviction(CmsFlexCacheConfiguration.CACHE_ENGINE_LRU);
+    }
+
+    /**
+     * Checks that entries put into the cache can be found again.<p>
+     *
+     * @param engine the cache engine to use
+     */
+    private void checkLookup(String engine) {
+
+        CmsFlexCache cache = createCache(engine, 100);
+        CmsFlexCacheEntry first = putEntry(cache, "/sites/default/index.jsp", "a");
+        CmsFlexCacheEntry second = putEntry(cache, "/sites/default/index.jsp", "b");
+        String resource = CmsFlexCacheKey.getKeyName("/sites/default/index.jsp", true);
+
+        assertEquals(1, cache.keySize());
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(resource, "a"));
+        assertSame(second, cache.get(resource, "b"));
+        assertNull(cache.get(resource, "c"));
+        assertNull(cache.get(CmsFlexCacheKey.getKeyName("/sites/default/index.jsp", false), "a"));
+
+        // removing the entry from the LRU cache must also remove it from the variation map
+        cache.getEntryLruCache().remove(first);
+        assertNull(cache.get(resource, "a"));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Puts entries for many keys from several threads into a cache with only a few keys, and checks
+     * that no entry is lost in a released variation map.<p>
+     *
+     * @param engine the cache engine to use
+     *
+     * @throws Exception if the test fails
+     */
+    private void checkParallelEviction(String engine) throws Exception {
+
+        final CmsFlexCache cache = createCache(engine, 5);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int offset = t;
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            String rootPath = "/sites/default/page" + ((i + offset) % 20) + ".jsp";
+                            putEntry(cache, rootPath, ((i % 2) == 0) ? "a" : "b");
+                            if ((i % 7) == 0) {
+                                cache.remove(new CmsFlexCacheKey(rootPath, "always", true));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        // every entry must be reachable through a cached key, with at most two variations per key
+        assertTrue(cache.keySize() <= 5);
+        assertTrue(cache.size() <= (cache.keySize() * 2));
+    }
+
+    /**
+     * Creates an enabled FlexCache.<p>
+     *
+     * @param engine the cache engine to use
+     * @param maxKeys the maximum number of keys
+     *
+     * @return the FlexCache
+     */
+    private CmsFlexCache createCache(String engine, int maxKeys) {
+
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.initialize("true", "false", "2000000", "1500000", "400000", String.valueOf(maxKeys));
+        configuration.setCacheEngine(engine);
+        return new CmsFlexCache(configuration);
+    }
+
+    /**
+     * Creates a completed entry and puts it into the cache.<p>
+     *
+     * @param cache the FlexCache
+     * @param rootPath the root path of the cached resource
+     * @param variation the variation
+     *
+     * @return the cached entry
+     */
+    private CmsFlexCacheEntry putEntry(CmsFlexCache cache, String rootPath, String variation) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(new byte[16]);
+        entry.complete();
+        cache.put(new CmsFlexCacheKey(rootPath, "always", true), entry, variation);
+        return entry;
+    }
+}
@@ -59,6 +59,8 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsImageScaler.class));
         suite.addTest(new TestSuite(TestCmsDefaultFileNameGenerator.class));
+        suite.addTest(new TestSuite(TestCmsImageScalingExecutor.class));
+        suite.addTest(new TestSuite(TestCmsImageVariantGenerator.class));
         //$JUnit-END$
         return suite;
     }
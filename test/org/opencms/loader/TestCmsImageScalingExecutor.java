@@ -0,0 +1,143 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the single-flight coordination of the image scaling executor.<p>
+ */
+public class TestCmsImageScalingExecutor extends TestCase {
+
+    /**
+     * Tests that a failed operation is reported to all waiting threads and that the key can be used again afterwards.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailure() throws Exception {
+
+        CmsImageScalingExecutor executor = new CmsImageScalingExecutor(1, 10);
+        try {
+            executor.scale("key", new Callable<byte[]>() {
+
+                public byte[] call() throws Exception {
+
+                    throw new IOException("failed");
+                }
+            });
+            fail("the operation should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        byte[] result = executor.scale("key", new Callable<byte[]>() {
+
+            public byte[] call() {
+
+                return new byte[] {1};
+            }
+        });
+        assertEquals(1, result.length);
+        assertEquals(2, executor.getStartedCount());
+        executor.shutDown();
+    }
+
+    /**
+     * Tests that concurrent requests for the same key share a single operation.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSingleFlight() throws Exception {
+
+        final CmsImageScalingExecutor executor = new CmsImageScalingExecutor(2, 10);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final byte[] scaled = new byte[] {1, 2, 3};
+        final Callable<byte[]> operation = new Callable<byte[]>() {
+
+            public byte[] call() throws Exception {
+
+                calls.incrementAndGet();
+                release.await(10, TimeUnit.SECONDS);
+                return scaled;
+            }
+        };
+
+        final List<byte[]> results = new ArrayList<byte[]>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        byte[] result = executor.scale("/image.jpg_w:100", operation);
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    } catch (Exception e) {
+                        // the result list will be incomplete
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        // wait until all threads are waiting for the operation
+        long end = System.currentTimeMillis() + 10000;
+        while (((executor.getStartedCount() + executor.getSharedCount()) < 8) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(8, results.size());
+        for (byte[] result : results) {
+            assertSame(scaled, result);
+        }
+        assertEquals(1, executor.getStartedCount());
+        assertEquals(7, executor.getSharedCount());
+
+        // once finished, a new request starts a new operation
+        executor.scale("/image.jpg_w:100", operation);
+        assertEquals(2, calls.get());
+        executor.shutDown();
+    }
+}
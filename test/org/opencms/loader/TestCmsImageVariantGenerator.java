@@ -0,0 +1,88 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.loader;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the recording of requested image variants.<p>
+ */
+public class TestCmsImageVariantGenerator extends TestCase {
+
+    /**
+     * Tests that the configured variants come first and that the number of recorded variants per image is limited,
+     * not counting the configured variants.<p>
+     */
+    public void testRecordRequests() {
+
+        CmsImageVariantGenerator generator = new CmsImageVariantGenerator(
+            null,
+            Arrays.asList("w:200,h:100", "w:800"),
+            2,
+            25);
+        generator.recordRequest("/sites/default/image.jpg", "w:50");
+        generator.recordRequest("/sites/default/image.jpg", "w:800");
+        generator.recordRequest("/sites/default/image.jpg", "w:100");
+        generator.recordRequest("/sites/default/image.jpg", "w:50");
+        // the limit of 2 recorded variants has been reached
+        generator.recordRequest("/sites/default/image.jpg", "w:300");
+
+        Set<String> variants = generator.getVariants("/sites/default/image.jpg");
+        assertEquals(4, variants.size());
+        Iterator<String> i = variants.iterator();
+        assertEquals("w:200,h:100", i.next());
+        assertEquals("w:800", i.next());
+        assertTrue(variants.contains("w:50"));
+        assertTrue(variants.contains("w:100"));
+
+        // other images only get the configured variants
+        assertEquals(2, generator.getVariants("/sites/default/other.jpg").size());
+        generator.shutDown();
+    }
+
+    /**
+     * Tests that nothing is recorded if the recording is disabled.<p>
+     */
+    public void testRecordingDisabled() {
+
+        CmsImageVariantGenerator generator = new CmsImageVariantGenerator(
+            null,
+            Collections.<String> emptyList(),
+            0,
+            25);
+        generator.recordRequest("/sites/default/image.jpg", "w:50");
+        assertTrue(generator.getVariants("/sites/default/image.jpg").isEmpty());
+        generator.shutDown();
+    }
+}
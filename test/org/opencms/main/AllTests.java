@@ -65,6 +65,8 @@ public final class AllTests {
         suite.addTest(TestCmsShellInline.suite());
         suite.addTest(TestOpenCmsSingleton.suite());
         suite.addTest(TestCmsEvents.suite());
+        suite.addTest(new TestSuite(TestCmsAsyncEventManager.class));
+        suite.addTest(new TestSuite(TestCmsAsyncEventDispatcher.class));
         suite.addTest(TestCmsSystemInfo.suite());
         // $JUnit-END$
         return suite;
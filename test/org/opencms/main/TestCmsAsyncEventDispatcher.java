@@ -0,0 +1,276 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the delivery of events by the asynchronous event dispatcher.<p>
+ */
+public class TestCmsAsyncEventDispatcher extends TestCase {
+
+    /**
+     * Test listener that records the received events and batches, and can be blocked.<p>
+     */
+    private static class CmsBlockingTestListener implements I_CmsAsyncEventListener {
+
+        /** The sizes of the batches processed successfully. */
+        List<Integer> m_batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+        /** Counted down when the first batch is received. */
+        CountDownLatch m_blocked = new CountDownLatch(1);
+
+        /** The received events. */
+        List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The index of the event the listener fails for, or -1. */
+        int m_failIndex = -1;
+
+        /** The listener waits for this latch before processing a batch. */
+        CountDownLatch m_release = new CountDownLatch(0);
+
+        /** The events received one at a time. */
+        List<CmsEvent> m_singleEvents = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            checkEvent(event);
+            m_singleEvents.add(event);
+            m_events.add(event);
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsAsyncEventListener#cmsEvents(java.util.List)
+         */
+        public void cmsEvents(List<CmsEvent> events) {
+
+            m_blocked.countDown();
+            try {
+                m_release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (CmsEvent event : events) {
+                checkEvent(event);
+            }
+            m_batches.add(Integer.valueOf(events.size()));
+            m_events.addAll(events);
+        }
+
+        /**
+         * Throws an exception if the listener fails for the given event.<p>
+         *
+         * @param event the event
+         */
+        private void checkEvent(CmsEvent event) {
+
+            if (getIndex(event) == m_failIndex) {
+                throw new IllegalStateException("failed event " + m_failIndex);
+            }
+        }
+    }
+
+    /**
+     * Returns the index stored in the data of a test event.<p>
+     *
+     * @param event the test event
+     *
+     * @return the index
+     */
+    static int getIndex(CmsEvent event) {
+
+        return ((Integer)event.getData().get("index")).intValue();
+    }
+
+    /**
+     * Tests that the thread firing an event waits while the queue is full.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBackPressure() throws Exception {
+
+        CmsBlockingTestListener listener = new CmsBlockingTestListener();
+        listener.m_release = new CountDownLatch(1);
+        final CmsAsyncEventDispatcher dispatcher = new CmsAsyncEventDispatcher(listener, 2, 10);
+        assertTrue(dispatcher.dispatch(createEvent(0)));
+        // the worker thread is blocked while delivering the first event
+        assertTrue(listener.m_blocked.await(10, TimeUnit.SECONDS));
+        assertTrue(dispatcher.dispatch(createEvent(1)));
+        assertTrue(dispatcher.dispatch(createEvent(2)));
+        assertEquals(2, dispatcher.getQueueSize());
+        assertEquals(0, dispatcher.getFullQueueCount());
+
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        Thread firing = new Thread() {
+
+            @Override
+            public void run() {
+
+                if (dispatcher.dispatch(createEvent(3))) {
+                    dispatched.countDown();
+                }
+            }
+        };
+        firing.start();
+        // the event can not be queued until the listener processes the queued events
+        assertFalse(dispatched.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, dispatcher.getFullQueueCount());
+
+        listener.m_release.countDown();
+        assertTrue(dispatched.await(10, TimeUnit.SECONDS));
+        dispatcher.shutDown(10000);
+        assertEquals(4, listener.m_events.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, getIndex(listener.m_events.get(i)));
+        }
+    }
+
+    /**
+     * Tests that the events of a failed batch are delivered one at a time.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFallbackToSingleEvents() throws Exception {
+
+        CmsBlockingTestListener listener = new CmsBlockingTestListener();
+        listener.m_release = new CountDownLatch(1);
+        listener.m_failIndex = 3;
+        CmsAsyncEventDispatcher dispatcher = new CmsAsyncEventDispatcher(listener, 100, 10);
+        dispatcher.dispatch(createEvent(0));
+        assertTrue(listener.m_blocked.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < 6; i++) {
+            dispatcher.dispatch(createEvent(i));
+        }
+        listener.m_release.countDown();
+        dispatcher.shutDown(10000);
+
+        // the first batch only contains the first event, the second batch fails because of event 3
+        assertEquals(Collections.singletonList(Integer.valueOf(1)), listener.m_batches);
+        List<Integer> single = new ArrayList<Integer>();
+        for (CmsEvent event : listener.m_singleEvents) {
+            single.add(Integer.valueOf(getIndex(event)));
+        }
+        assertEquals("[1, 2, 4, 5]", single.toString());
+        assertEquals(6, dispatcher.getDeliveredEventCount());
+        assertEquals(2, dispatcher.getBatchCount());
+    }
+
+    /**
+     * Tests that the events are delivered in order, in batches of at most the batch size.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testOrderingAndBatching() throws Exception {
+
+        CmsBlockingTestListener listener = new CmsBlockingTestListener();
+        listener.m_release = new CountDownLatch(1);
+        CmsAsyncEventDispatcher dispatcher = new CmsAsyncEventDispatcher(listener, 100, 4);
+        dispatcher.dispatch(createEvent(0));
+        assertTrue(listener.m_blocked.await(10, TimeUnit.SECONDS));
+        // queue more events while the worker thread is blocked, so they are delivered in batches
+        for (int i = 1; i < 11; i++) {
+            dispatcher.dispatch(createEvent(i));
+        }
+        assertEquals(10, dispatcher.getQueueSize());
+        listener.m_release.countDown();
+        dispatcher.shutDown(10000);
+
+        assertEquals(11, listener.m_events.size());
+        for (int i = 0; i < 11; i++) {
+            assertEquals(i, getIndex(listener.m_events.get(i)));
+        }
+        assertEquals("[1, 4, 4, 2]", listener.m_batches.toString());
+        assertEquals(11, dispatcher.getDeliveredEventCount());
+        assertEquals(4, dispatcher.getBatchCount());
+        assertEquals(0, dispatcher.getQueueSize());
+        assertTrue(dispatcher.getMaxLatency() >= dispatcher.getAverageLatency());
+    }
+
+    /**
+     * Tests that the queued events are delivered on shutdown, and no events are accepted after it.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testShutdownDeliversQueuedEvents() throws Exception {
+
+        final CmsBlockingTestListener listener = new CmsBlockingTestListener();
+        listener.m_release = new CountDownLatch(1);
+        CmsAsyncEventDispatcher dispatcher = new CmsAsyncEventDispatcher(listener, 100, 3);
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(createEvent(i));
+        }
+        assertTrue(listener.m_blocked.await(10, TimeUnit.SECONDS));
+        Thread release = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                listener.m_release.countDown();
+            }
+        };
+        release.start();
+        // the listener is still blocked when the shutdown starts
+        dispatcher.shutDown(10000);
+
+        assertEquals(10, listener.m_events.size());
+        assertEquals(0, dispatcher.getQueueSize());
+        assertFalse(dispatcher.dispatch(createEvent(10)));
+        assertEquals(10, listener.m_events.size());
+    }
+
+    /**
+     * Creates a test event.<p>
+     *
+     * @param index the index stored in the event data
+     *
+     * @return the test event
+     */
+    CmsEvent createEvent(int index) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("index", Integer.valueOf(index));
+        return new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+    }
+}
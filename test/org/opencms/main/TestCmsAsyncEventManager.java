@@ -0,0 +1,153 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the asynchronous event manager.<p>
+ */
+public class TestCmsAsyncEventManager extends TestCase {
+
+    /**
+     * Asynchronous test listener that records the received events and batches.<p>
+     */
+    private static class CmsAsyncTestListener implements I_CmsAsyncEventListener {
+
+        /** The number of received batches. */
+        int m_batches;
+
+        /** The received events. */
+        List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The threads the events were delivered in. */
+        List<Thread> m_threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            cmsEvents(Collections.singletonList(event));
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsAsyncEventListener#cmsEvents(java.util.List)
+         */
+        public void cmsEvents(List<CmsEvent> events) {
+
+            m_batches++;
+            m_events.addAll(events);
+            m_threads.add(Thread.currentThread());
+        }
+    }
+
+    /**
+     * Tests that asynchronous listeners receive all events in order, on a separate thread.<p>
+     */
+    public void testAsyncDelivery() {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(5, 3);
+        CmsAsyncTestListener listener = new CmsAsyncTestListener();
+        manager.addCmsEventListener(listener);
+        List<CmsEvent> fired = new ArrayList<CmsEvent>();
+        for (int i = 0; i < 20; i++) {
+            CmsEvent event = createEvent(i);
+            fired.add(event);
+            manager.fireEvent(event);
+        }
+        assertEquals(1, manager.getDispatchers().size());
+        CmsAsyncEventDispatcher dispatcher = manager.getDispatchers().iterator().next();
+        manager.shutDown();
+
+        assertEquals(fired, listener.m_events);
+        assertTrue(listener.m_batches <= 20);
+        assertTrue(listener.m_batches >= 7);
+        assertFalse(listener.m_threads.contains(Thread.currentThread()));
+        assertEquals(20, dispatcher.getDeliveredEventCount());
+        assertEquals(listener.m_batches, dispatcher.getBatchCount());
+        assertEquals(0, dispatcher.getQueueSize());
+    }
+
+    /**
+     * Tests that events fired after the shutdown are delivered synchronously.<p>
+     */
+    public void testDeliveryAfterShutdown() {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager();
+        CmsAsyncTestListener listener = new CmsAsyncTestListener();
+        manager.addCmsEventListener(listener);
+        manager.shutDown();
+        CmsEvent event = createEvent(1);
+        manager.fireEvent(event);
+        assertEquals(Collections.singletonList(event), listener.m_events);
+        assertEquals(Collections.singletonList(Thread.currentThread()), listener.m_threads);
+        assertTrue(manager.getDispatchers().isEmpty());
+    }
+
+    /**
+     * Tests that listeners not implementing the asynchronous interface are still notified synchronously.<p>
+     */
+    public void testSyncListener() {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager();
+        final List<CmsEvent> received = new ArrayList<CmsEvent>();
+        manager.addCmsEventListener(new I_CmsEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                received.add(event);
+            }
+        });
+        CmsEvent event = createEvent(1);
+        manager.fireEvent(event);
+        assertEquals(Collections.singletonList(event), received);
+        assertTrue(manager.getDispatchers().isEmpty());
+        manager.shutDown();
+    }
+
+    /**
+     * Creates a test event.<p>
+     *
+     * @param index the index stored in the event data
+     *
+     * @return the test event
+     */
+    private CmsEvent createEvent(int index) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("index", Integer.valueOf(index));
+        return new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+    }
+}
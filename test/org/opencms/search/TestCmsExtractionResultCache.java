@@ -0,0 +1,157 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.search.documents.CmsExtractionResultCache;
+import org.opencms.search.extractors.CmsExtractionResult;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the content based extraction result cache.<p>
+ */
+public class TestCmsExtractionResultCache extends TestCase {
+
+    /** The temporary base folder of the cache. */
+    private File m_basedir;
+
+    /**
+     * Tests that the cache grows beyond the initial index capacity and keeps all entries.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testManyEntries() throws Exception {
+
+        CmsExtractionResultCache cache = new CmsExtractionResultCache(m_basedir.getAbsolutePath(), "/cache");
+        String[] keys = new String[5000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = cache.getContentKey(("content " + i).getBytes(), null, "pdf");
+            cache.saveContentCacheObject(keys[i], new CmsExtractionResult("text " + i));
+        }
+        assertEquals(keys.length, cache.getEntryCount());
+        for (int i = 0; i < keys.length; i += 97) {
+            assertEquals("text " + i, cache.getContentCacheObject(keys[i]).getContent());
+        }
+        cache.shutDown();
+    }
+
+    /**
+     * Tests that the extraction result is shared by all contents with the same data,
+     * and that the document type and the locale are part of the key.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSameContent() throws Exception {
+
+        CmsExtractionResultCache cache = new CmsExtractionResultCache(m_basedir.getAbsolutePath(), "/cache");
+        String key = cache.getContentKey("binary content".getBytes(), Locale.ENGLISH, "pdf");
+        assertNull(cache.getContentCacheObject(key));
+        cache.saveContentCacheObject(key, new CmsExtractionResult("extracted text"));
+
+        // another resource with the same content
+        String sameKey = cache.getContentKey("binary content".getBytes(), Locale.ENGLISH, "pdf");
+        assertEquals(key, sameKey);
+        assertEquals("extracted text", cache.getContentCacheObject(sameKey).getContent());
+
+        assertFalse(key.equals(cache.getContentKey("binary content".getBytes(), Locale.GERMAN, "pdf")));
+        assertFalse(key.equals(cache.getContentKey("binary content".getBytes(), Locale.ENGLISH, "msword")));
+        assertFalse(key.equals(cache.getContentKey("other content".getBytes(), Locale.ENGLISH, "pdf")));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEntryCount());
+
+        // the entries are found again after a restart
+        cache.shutDown();
+        cache = new CmsExtractionResultCache(m_basedir.getAbsolutePath(), "/cache");
+        assertEquals(1, cache.getEntryCount());
+        assertEquals("extracted text", cache.getContentCacheObject(key).getContent());
+
+        // expired entries are removed
+        Thread.sleep(10);
+        assertEquals(1, cache.cleanCache(0));
+        assertEquals(0, cache.getEntryCount());
+        assertNull(cache.getContentCacheObject(key));
+        cache.shutDown();
+    }
+
+    /**
+     * Tests that the least recently used entries are removed if the maximum size is exceeded.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSizeLimit() throws Exception {
+
+        StringBuffer text = new StringBuffer();
+        for (int i = 0; i < 1000; i++) {
+            text.append("0123456789");
+        }
+        // room for about 10 entries
+        CmsExtractionResultCache cache = new CmsExtractionResultCache(m_basedir.getAbsolutePath(), "/cache", 110000);
+        String[] keys = new String[20];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = cache.getContentKey(("content " + i).getBytes(), null, "pdf");
+            cache.saveContentCacheObject(keys[i], new CmsExtractionResult(text.toString() + i));
+            Thread.sleep(2);
+            // keep the first entry in use
+            assertNotNull(cache.getContentCacheObject(keys[0]));
+            Thread.sleep(2);
+        }
+        assertTrue(cache.getSize() <= cache.getMaxSize());
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(keys.length - cache.getEvictions(), cache.getEntryCount());
+        assertNotNull(cache.getContentCacheObject(keys[0]));
+        assertNull(cache.getContentCacheObject(keys[1]));
+        assertNotNull(cache.getContentCacheObject(keys[keys.length - 1]));
+        cache.shutDown();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_basedir = File.createTempFile("extractcache", "");
+        m_basedir.delete();
+        m_basedir.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        CmsFileUtil.purgeDirectory(m_basedir);
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.report.I_CmsReport;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the creation of search index documents by the worker threads of the indexing thread manager.<p>
+ */
+public class TestCmsIndexingThreadManager extends TestCase {
+
+    /**
+     * Indexing thread that creates the document with a given document factory.<p>
+     */
+    private static class TestIndexingThread extends CmsIndexingThread {
+
+        /** The document factory. */
+        private I_TestDocumentFactory m_factory;
+
+        /** The resource to index. */
+        private CmsResource m_resource;
+
+        /**
+         * Creates a new test indexing thread.<p>
+         *
+         * @param resource the resource to index
+         * @param index the search index
+         * @param count the report count
+         * @param factory the document factory
+         */
+        TestIndexingThread(CmsResource resource, CmsSearchIndex index, int count, I_TestDocumentFactory factory) {
+
+            super(null, resource, index, count, null);
+            m_resource = resource;
+            m_factory = factory;
+        }
+
+        /**
+         * @see org.opencms.search.CmsIndexingThread#createIndexDocument(org.opencms.file.CmsObject, org.opencms.file.CmsResource, org.opencms.search.CmsSearchIndex, int, org.opencms.report.I_CmsReport)
+         */
+        @Override
+        protected I_CmsSearchDocument createIndexDocument(
+            CmsObject cms,
+            CmsResource res,
+            CmsSearchIndex index,
+            int count,
+            I_CmsReport report) throws CmsException {
+
+            try {
+                return m_factory.createDocument(m_resource);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * VFS indexer that records the documents written to the index writer.<p>
+     */
+    private static class TestVfsIndexer extends CmsVfsIndexer {
+
+        /** The root paths of the deleted resources. */
+        List<String> m_deleted = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The root paths of the updated resources. */
+        List<String> m_updated = Collections.synchronizedList(new ArrayList<String>());
+
+        /** The threads that have written to the index writer. */
+        Set<Thread> m_writerThreads = Collections.synchronizedSet(new HashSet<Thread>());
+
+        /**
+         * Creates a new test indexer.<p>
+         */
+        TestVfsIndexer() {
+
+            m_index = new CmsSearchIndex() {
+
+                @Override
+                public String getName() {
+
+                    return "test";
+                }
+            };
+        }
+
+        /**
+         * @see org.opencms.search.CmsVfsIndexer#deleteResource(org.opencms.search.I_CmsIndexWriter, org.opencms.db.CmsPublishedResource)
+         */
+        @Override
+        protected void deleteResource(I_CmsIndexWriter indexWriter, CmsPublishedResource resource) {
+
+            m_writerThreads.add(Thread.currentThread());
+            m_deleted.add(resource.getRootPath());
+        }
+
+        /**
+         * @see org.opencms.search.CmsVfsIndexer#updateResource(org.opencms.search.I_CmsIndexWriter, java.lang.String, org.opencms.search.I_CmsSearchDocument)
+         */
+        @Override
+        protected void updateResource(I_CmsIndexWriter indexWriter, String rootPath, I_CmsSearchDocument doc) {
+
+            m_writerThreads.add(Thread.currentThread());
+            m_updated.add(rootPath);
+        }
+    }
+
+    /**
+     * Creates the document for a resource.<p>
+     */
+    private interface I_TestDocumentFactory {
+
+        /**
+         * Creates the document for a resource.<p>
+         *
+         * @param resource the resource
+         *
+         * @return the document, or <code>null</code>
+         *
+         * @throws CmsException if creating the document fails
+         * @throws InterruptedException if the thread is interrupted while creating the document
+         */
+        I_CmsSearchDocument createDocument(CmsResource resource) throws CmsException, InterruptedException;
+    }
+
+    /** A search document without content. */
+    private static final I_CmsSearchDocument DOCUMENT = (I_CmsSearchDocument)Proxy.newProxyInstance(
+        TestCmsIndexingThreadManager.class.getClassLoader(),
+        new Class<?>[] {I_CmsSearchDocument.class},
+        new InvocationHandler() {
+
+            public Object invoke(Object proxy, Method method, Object[] args) {
+
+                return null;
+            }
+        });
+
+    /**
+     * Tests that a failed document extraction does not stall the writer.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedExtraction() throws Exception {
+
+        TestVfsIndexer indexer = new TestVfsIndexer();
+        CmsIndexingThreadManager manager = createManager(60000, 4, new I_TestDocumentFactory() {
+
+            public I_CmsSearchDocument createDocument(CmsResource resource) {
+
+                if (resource.getName().startsWith("fail")) {
+                    throw new RuntimeException("extraction failed");
+                }
+                return DOCUMENT;
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        List<String> expectedUpdated = new ArrayList<String>();
+        List<String> expectedDeleted = new ArrayList<String>();
+        for (int i = 0; i < 40; i++) {
+            String path = (i % 5) == 0 ? "/fail" + i + ".txt" : "/doc" + i + ".txt";
+            manager.createIndexingThread(indexer, createWriter(), createResource(path));
+            if ((i % 5) == 0) {
+                expectedDeleted.add(path);
+            } else {
+                expectedUpdated.add(path);
+            }
+        }
+        assertFalse(manager.isRunning());
+        // the failed documents are not waiting for the timeout
+        assertTrue(System.currentTimeMillis() - start < 30000);
+
+        assertEquals(40, manager.getStartedCounter());
+        assertEquals(40, manager.getReturnedCounter());
+        assertEquals(0, manager.getAbandonedCounter());
+        assertEquals(new HashSet<String>(expectedUpdated), new HashSet<String>(indexer.m_updated));
+        assertEquals(new HashSet<String>(expectedDeleted), new HashSet<String>(indexer.m_deleted));
+    }
+
+    /**
+     * Tests that the documents created in parallel are all written by the single writer thread.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testParallelDocumentsReachWriter() throws Exception {
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch firstDocuments = new CountDownLatch(2);
+        TestVfsIndexer indexer = new TestVfsIndexer();
+        CmsIndexingThreadManager manager = createManager(60000, 4, new I_TestDocumentFactory() {
+
+            public I_CmsSearchDocument createDocument(CmsResource resource) throws InterruptedException {
+
+                int current = running.incrementAndGet();
+                try {
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), current));
+                    }
+                    // the first two documents wait for each other, so they are created in parallel
+                    firstDocuments.countDown();
+                    firstDocuments.await(10, TimeUnit.SECONDS);
+                    Thread.sleep(resource.getName().length() % 3);
+                    return DOCUMENT;
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        });
+
+        Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            String path = "/doc" + i + ".txt";
+            expected.add(path);
+            manager.createIndexingThread(indexer, createWriter(), createResource(path));
+        }
+        assertFalse(manager.isRunning());
+
+        assertTrue(maxRunning.get() > 1);
+        assertTrue(maxRunning.get() <= manager.getWorkers());
+        assertEquals(100, indexer.m_updated.size());
+        assertEquals(expected, new HashSet<String>(indexer.m_updated));
+        assertTrue(indexer.m_deleted.isEmpty());
+        assertEquals(Collections.singleton(Thread.currentThread()), indexer.m_writerThreads);
+        assertEquals(100, manager.getReturnedCounter());
+    }
+
+    /**
+     * Tests that a document that is not created within the timeout is abandoned and counted.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testTimeout() throws Exception {
+
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        TestVfsIndexer indexer = new TestVfsIndexer();
+        CmsIndexingThreadManager manager = createManager(500, 2, new I_TestDocumentFactory() {
+
+            public I_CmsSearchDocument createDocument(CmsResource resource) throws InterruptedException {
+
+                if (resource.getName().startsWith("hang")) {
+                    try {
+                        Thread.sleep(60000);
+                    } catch (InterruptedException e) {
+                        // the worker thread is interrupted when the task is abandoned
+                        interrupted.countDown();
+                        throw e;
+                    }
+                }
+                return DOCUMENT;
+            }
+        });
+
+        manager.createIndexingThread(indexer, createWriter(), createResource("/hang.txt"));
+        for (int i = 0; i < 10; i++) {
+            manager.createIndexingThread(indexer, createWriter(), createResource("/doc" + i + ".txt"));
+        }
+        assertFalse(manager.isRunning());
+
+        assertEquals(11, manager.getStartedCounter());
+        assertEquals(10, manager.getReturnedCounter());
+        assertEquals(1, manager.getAbandonedCounter());
+        assertEquals(Collections.singletonList("/hang.txt"), indexer.m_deleted);
+        assertEquals(10, indexer.m_updated.size());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Creates a thread manager that creates the documents with the given factory.<p>
+     *
+     * @param timeout the timeout in milliseconds
+     * @param workers the number of worker threads
+     * @param factory the document factory
+     *
+     * @return the thread manager
+     */
+    private CmsIndexingThreadManager createManager(long timeout, int workers, final I_TestDocumentFactory factory) {
+
+        return new CmsIndexingThreadManager(timeout, 1000, workers) {
+
+            @Override
+            protected CmsIndexingThread newIndexingThread(
+                CmsVfsIndexer indexer,
+                CmsResource resource,
+                int count,
+                I_CmsReport report) {
+
+                return new TestIndexingThread(resource, indexer.getIndex(), count, factory);
+            }
+        };
+    }
+
+    /**
+     * Creates a resource with the given root path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            null,
+            null,
+            0,
+            null,
+            0,
+            null,
+            0,
+            0,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates an index writer that ignores all operations.<p>
+     *
+     * @return the index writer
+     */
+    private I_CmsIndexWriter createWriter() {
+
+        return (I_CmsIndexWriter)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {I_CmsIndexWriter.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return null;
+                }
+            });
+    }
+}
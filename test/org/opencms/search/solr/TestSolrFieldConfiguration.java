@@ -94,6 +94,7 @@ public class TestSolrFieldConfiguration extends OpenCmsTestCase {
         suite.setName(TestSolrFieldConfiguration.class.getName());
         suite.addTest(new TestSolrFieldConfiguration("testAppinfoSolrField"));
         suite.addTest(new TestSolrFieldConfiguration("testContentLocalesField"));
+        suite.addTest(new TestSolrFieldConfiguration("testContentLocalesFieldConcurrent"));
         suite.addTest(new TestSolrFieldConfiguration("testDependencies"));
         suite.addTest(new TestSolrFieldConfiguration("testLanguageDetection"));
         suite.addTest(new TestSolrFieldConfiguration("testLocaleDependenciesField"));
@@ -521,6 +522,69 @@ public class TestSolrFieldConfiguration extends OpenCmsTestCase {
         index.setLanguageDetection(true);
     }
 
+    /**
+     * Tests that documents with different locales get the right locales and localized content fields
+     * if they are created concurrently.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testContentLocalesFieldConcurrent() throws Throwable {
+
+        Map<String, String> filenames = new HashMap<String, String>();
+        for (int i = 0; i < 20; i++) {
+            String locale = (i % 2) == 0 ? "de" : "en";
+            filenames.put("concurrent_" + i + "_" + locale + ".pdf", locale);
+        }
+
+        // create test folder
+        String folderName = "/filenameTestConcurrent/";
+        CmsObject cms = getCmsObject();
+        cms.createResource(folderName, CmsResourceTypeFolder.RESOURCE_TYPE_ID, null, null);
+        cms.unlockResource(folderName);
+        for (String filename : filenames.keySet()) {
+            importTestResource(
+                cms,
+                "org/opencms/search/pdf-test-112.pdf",
+                folderName + filename,
+                CmsResourceTypeBinary.getStaticTypeId(),
+                Collections.<CmsProperty> emptyList());
+        }
+
+        // publish the project and update the search index with several indexing threads
+        int indexingThreads = OpenCms.getSearchManager().getIndexingThreads();
+        OpenCms.getSearchManager().setIndexingThreads(4);
+        try {
+            OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            OpenCms.getSearchManager().setIndexingThreads(indexingThreads);
+        }
+
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        for (Map.Entry<String, String> filename : filenames.entrySet()) {
+            String absoluteFileName = cms.getRequestContext().addSiteRoot(folderName + filename.getKey());
+            String locale = filename.getValue();
+            String otherLocale = "de".equals(locale) ? "en" : "de";
+
+            SolrQuery squery = new CmsSolrQuery();
+            squery.addFilterQuery("path:\"" + absoluteFileName + "\"");
+            CmsSolrResultList results = index.search(cms, squery);
+            assertEquals(1, results.size());
+            List<String> fieldLocales = results.get(0).getMultivaluedField(CmsSearchField.FIELD_CONTENT_LOCALES);
+            assertEquals(Collections.singletonList(locale), fieldLocales);
+
+            // the extracted content must only be stored in the field of the document locale
+            squery = new CmsSolrQuery();
+            squery.addFilterQuery("path:\"" + absoluteFileName + "\"");
+            squery.addFilterQuery(CmsSearchField.FIELD_CONTENT + "_" + locale + ":*");
+            assertEquals(1, index.search(cms, squery).size());
+            squery = new CmsSolrQuery();
+            squery.addFilterQuery("path:\"" + absoluteFileName + "\"");
+            squery.addFilterQuery(CmsSearchField.FIELD_CONTENT + "_" + otherLocale + ":*");
+            assertEquals(0, index.search(cms, squery).size());
+        }
+    }
+
     /**
      *
      * @throws Throwable
@@ -59,6 +59,7 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(TestCmsPrincipal.suite());
+        suite.addTest(TestGuestPermissions.suite());
         suite.addTest(TestLoginAndPasswordHandler.suite());
         suite.addTest(TestOrganizationalUnits.suite());
         suite.addTest(TestRoles.suite());
@@ -0,0 +1,265 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the cached permissions of the guest user in the online project.<p>
+ */
+public class TestGuestPermissions extends OpenCmsTestCase {
+
+    /** Number of milliseconds in a day. */
+    private static final long MSECS_PER_DAY = 1000 * 60 * 60 * 24;
+
+    /** The resource filters to check. */
+    private static final CmsResourceFilter[] FILTERS = {
+        CmsResourceFilter.ALL,
+        CmsResourceFilter.DEFAULT,
+        CmsResourceFilter.ONLY_VISIBLE,
+        CmsResourceFilter.IGNORE_EXPIRATION};
+
+    /** The permission sets to check. */
+    private static final CmsPermissionSet[] PERMISSIONS = {
+        CmsPermissionSet.ACCESS_READ,
+        CmsPermissionSet.ACCESS_VIEW,
+        new CmsPermissionSet(CmsPermissionSet.PERMISSION_READ | CmsPermissionSet.PERMISSION_VIEW)};
+
+    /** The resources to check. */
+    private static final String[] RESOURCES = {
+        "/index.html",
+        "/folder1/page1.html",
+        "/folder1/page2.html",
+        "/folder1/page3.html",
+        "/folder1/page4.html",
+        "/folder2/",
+        "/folder2/page1.html",
+        "/folder2/page2.html"};
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestGuestPermissions(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestGuestPermissions.class.getName());
+
+        suite.addTest(new TestGuestPermissions("testGuestPermissionsMatchGenericCheck"));
+        suite.addTest(new TestGuestPermissions("testOfflineChangeKeepsGuestPermissions"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the cached guest permissions give the same results as the generic permission check.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testGuestPermissionsMatchGenericCheck() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the cached guest permissions match the generic permission check");
+
+        String guests = OpenCms.getDefaultUsers().getGroupGuests();
+        String guest = OpenCms.getDefaultUsers().getUserGuest();
+        long now = System.currentTimeMillis();
+
+        // the guest user may not read the resource
+        changeResource(cms, "/folder1/page1.html", guest, 0, CmsPermissionSet.PERMISSION_READ);
+        // the guest user may read, but not view the resource (invisible)
+        changeResource(
+            cms,
+            "/folder1/page2.html",
+            guest,
+            CmsPermissionSet.PERMISSION_READ,
+            CmsPermissionSet.PERMISSION_VIEW);
+        // the guests group may not view the folder and its content
+        cms.lockResource("/folder2/");
+        cms.chacc(
+            "/folder2/",
+            I_CmsPrincipal.PRINCIPAL_GROUP,
+            guests,
+            0,
+            CmsPermissionSet.PERMISSION_VIEW,
+            CmsAccessControlEntry.ACCESS_FLAGS_INHERIT);
+        cms.unlockResource("/folder2/");
+        // the resource is expired
+        cms.lockResource("/folder1/page3.html");
+        cms.setDateExpired("/folder1/page3.html", now - MSECS_PER_DAY, false);
+        cms.unlockResource("/folder1/page3.html");
+        // the resource is not yet released
+        cms.lockResource("/folder1/page4.html");
+        cms.setDateReleased("/folder1/page4.html", now + MSECS_PER_DAY, false);
+        cms.unlockResource("/folder1/page4.html");
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject guestCms = OpenCms.initCmsObject(guest);
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        for (String path : RESOURCES) {
+            CmsResource resource = cms.readResource(path, CmsResourceFilter.ALL);
+            for (CmsPermissionSet permissions : PERMISSIONS) {
+                for (CmsResourceFilter filter : FILTERS) {
+                    // the second check uses the cached permissions
+                    boolean guestResult = guestCms.hasPermissions(resource, permissions, true, filter);
+                    assertNotNull(monitor.getCachedGuestPermission(resource.getStructureId()));
+                    assertEquals(guestResult, guestCms.hasPermissions(resource, permissions, true, filter));
+
+                    monitor.disableCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+                    try {
+                        boolean genericResult = guestCms.hasPermissions(resource, permissions, true, filter);
+                        assertEquals(
+                            path + " " + permissions.getPermissionString() + " " + filter,
+                            genericResult,
+                            guestResult);
+                    } finally {
+                        monitor.enableCache(CmsMemoryMonitor.CacheType.GUEST_PERMISSION);
+                    }
+                }
+            }
+        }
+
+        // check some of the expected results
+        assertFalse(guestCms.hasPermissions(cms.readResource("/folder1/page1.html"), CmsPermissionSet.ACCESS_READ));
+        assertTrue(guestCms.hasPermissions(cms.readResource("/folder1/page2.html"), CmsPermissionSet.ACCESS_READ));
+        assertFalse(
+            guestCms.hasPermissions(
+                cms.readResource("/folder1/page2.html"),
+                CmsPermissionSet.ACCESS_READ,
+                true,
+                CmsResourceFilter.ONLY_VISIBLE));
+        assertFalse(
+            guestCms.hasPermissions(
+                cms.readResource("/folder2/page1.html"),
+                CmsPermissionSet.ACCESS_READ,
+                true,
+                CmsResourceFilter.ONLY_VISIBLE));
+        CmsResource expired = cms.readResource("/folder1/page3.html", CmsResourceFilter.ALL);
+        assertFalse(guestCms.hasPermissions(expired, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.DEFAULT));
+        assertTrue(
+            guestCms.hasPermissions(expired, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.IGNORE_EXPIRATION));
+        CmsResource unreleased = cms.readResource("/folder1/page4.html", CmsResourceFilter.ALL);
+        assertFalse(guestCms.hasPermissions(unreleased, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.DEFAULT));
+    }
+
+    /**
+     * Tests that changes in an offline project do not flush the cached guest permissions.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testOfflineChangeKeepsGuestPermissions() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that changes in an offline project keep the cached guest permissions");
+
+        String guest = OpenCms.getDefaultUsers().getUserGuest();
+        CmsObject guestCms = OpenCms.initCmsObject(guest);
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+
+        CmsResource resource = guestCms.readResource("/index.html");
+        assertNotNull(monitor.getCachedGuestPermission(resource.getStructureId()));
+
+        // change the access control entries of another resource offline
+        changeResource(cms, "/folder2/page2.html", guest, 0, CmsPermissionSet.PERMISSION_READ);
+        assertNotNull(monitor.getCachedGuestPermission(resource.getStructureId()));
+
+        // publishing flushes the cached permissions
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        guestCms.readResource("/index.html");
+        assertNotNull(monitor.getCachedGuestPermission(resource.getStructureId()));
+        assertFalse(guestCms.existsResource("/folder2/page2.html"));
+    }
+
+    /**
+     * Sets an access control entry for the given user on the given resource.<p>
+     *
+     * @param cms the CmsObject
+     * @param path the resource path
+     * @param userName the user name
+     * @param allowed the allowed permissions
+     * @param denied the denied permissions
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void changeResource(CmsObject cms, String path, String userName, int allowed, int denied)
+    throws Exception {
+
+        cms.lockResource(path);
+        cms.chacc(
+            path,
+            I_CmsPrincipal.PRINCIPAL_USER,
+            userName,
+            allowed,
+            denied,
+            CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE);
+        cms.unlockResource(path);
+    }
+}
@@ -63,6 +63,9 @@ public final class AllTests {
         suite.addTest(TestExportFile.suite());
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
+        suite.addTest(new TestSuite(TestCmsExportnameTrie.class));
+        suite.addTest(new TestSuite(TestCmsStaticExportDependencyGraph.class));
+        suite.addTest(new TestSuite(TestCmsStaticExportLinkCache.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,87 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the lookup of export names in the export name trie.<p>
+ */
+public class TestCmsExportnameTrie extends TestCase {
+
+    /**
+     * Tests that all matching export names are found, ordered from the longest to the shortest.<p>
+     */
+    public void testGetVfsNames() {
+
+        Map<String, String> exportnames = new HashMap<String, String>();
+        exportnames.put("/", "/sites/default/");
+        exportnames.put("/news/", "/sites/default/news/");
+        exportnames.put("/news/archive/", "/sites/default/archive/2015/");
+        exportnames.put("/shop/", "/sites/shop/");
+        CmsExportnameTrie trie = new CmsExportnameTrie(exportnames);
+
+        assertEquals(
+            Arrays.asList(
+                "/sites/default/archive/2015/index.html",
+                "/sites/default/news/archive/index.html",
+                "/sites/default/news/archive/index.html"),
+            trie.getVfsNames("/news/archive/index.html"));
+        assertEquals(
+            Arrays.asList("/sites/shop/products/", "/sites/default/shop/products/"),
+            trie.getVfsNames("/shop/products/"));
+        assertEquals(Arrays.asList("/sites/default/index.html"), trie.getVfsNames("/index.html"));
+        // only complete path segments match
+        assertEquals(Arrays.asList("/sites/default/newsletter/a.html"), trie.getVfsNames("/newsletter/a.html"));
+        // the file name is never matched
+        assertEquals(Arrays.asList("/sites/default/shop"), trie.getVfsNames("/shop"));
+
+        assertEquals(4, trie.getExportnames().size());
+        assertEquals("/sites/shop/", trie.getExportnames().get("/shop/"));
+    }
+
+    /**
+     * Tests the lookup without an export name for the root folder.<p>
+     */
+    public void testNoRootExportname() {
+
+        Map<String, String> exportnames = new HashMap<String, String>();
+        exportnames.put("/a/b/", "/sites/default/x/");
+        CmsExportnameTrie trie = new CmsExportnameTrie(exportnames);
+
+        assertEquals(Arrays.asList("/sites/default/x/c/d.html"), trie.getVfsNames("/a/b/c/d.html"));
+        assertTrue(trie.getVfsNames("/a/c/d.html").isEmpty());
+        assertTrue(trie.getVfsNames("/a/b").isEmpty());
+        assertTrue(trie.getVfsNames("relative/b/c.html").isEmpty());
+    }
+}
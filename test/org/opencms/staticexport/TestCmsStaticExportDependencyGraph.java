@@ -0,0 +1,150 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the persistent dependency graph of the static export.<p>
+ */
+public class TestCmsStaticExportDependencyGraph extends TestCase {
+
+    /** The temporary folder of the graph. */
+    private File m_folder;
+
+    /**
+     * Tests that compaction removes outdated lines and keeps the current dependencies.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCompaction() throws Exception {
+
+        CmsStaticExportDependencyGraph graph = new CmsStaticExportDependencyGraph(m_folder.getAbsolutePath());
+        for (int i = 0; i < 20; i++) {
+            for (int page = 0; page < 100; page++) {
+                graph.addDependencies(
+                    "/page" + page + ".html",
+                    "/sites/default/page" + page + ".html",
+                    Arrays.asList("/sites/default/version" + i + "/", "/sites/default/page" + page + ".html"));
+            }
+        }
+        long size = graph.getSize();
+        graph.compact();
+        assertTrue(graph.getSize() < (size / 10));
+        assertEquals(100, graph.getDependentFiles(Collections.singleton("/sites/default/version19/")).size());
+        assertTrue(graph.getDependentFiles(Collections.singleton("/sites/default/version18/")).isEmpty());
+        assertEquals(
+            "/sites/default/page7.html",
+            graph.getDependentFiles(Collections.singleton("/sites/default/page7.html")).get("/page7.html"));
+
+        // the graph can be extended after the compaction
+        graph.addDependencies("/page7.html", "/sites/default/page7.html", Arrays.asList("/sites/default/nav/"));
+        assertEquals(99, graph.getDependentFiles(Collections.singleton("/sites/default/version19/")).size());
+        assertEquals(1, graph.getDependentFiles(Collections.singleton("/sites/default/nav/")).size());
+    }
+
+    /**
+     * Tests the lookup of dependent files.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDependentFiles() throws Exception {
+
+        CmsStaticExportDependencyGraph graph = new CmsStaticExportDependencyGraph(m_folder.getAbsolutePath());
+        assertFalse(graph.isComplete());
+        graph.clear();
+        assertTrue(graph.isComplete());
+
+        graph.addDependencies(
+            "/index.html",
+            "/sites/default/index.html",
+            Arrays.asList("/sites/default/index.html", "/sites/default/", "/sites/default/nav/"));
+        graph.addDependencies(
+            "/news/a.html",
+            "/sites/default/news/a.html",
+            Arrays.asList("/sites/default/news/a.html", "/sites/default/news/"));
+        graph.addDependencies(
+            "/big.html",
+            "/sites/default/big.html",
+            Collections.singleton(CmsStaticExportDependencyGraph.KEY_ALL));
+
+        Map<String, String> files = graph.getDependentFiles(Collections.singleton("/sites/default/nav/"));
+        assertEquals(2, files.size());
+        assertEquals("/sites/default/index.html", files.get("/index.html"));
+        assertTrue(files.containsKey("/big.html"));
+
+        files = graph.getDependentFiles(Arrays.asList("/sites/default/news/", "/sites/default/unknown"));
+        assertEquals(2, files.size());
+        assertTrue(files.containsKey("/news/a.html"));
+
+        // the last export of a file replaces its dependencies
+        graph.addDependencies("/index.html", "/sites/default/index.html", Arrays.asList("/sites/default/news/"));
+        files = graph.getDependentFiles(Collections.singleton("/sites/default/nav/"));
+        assertEquals(1, files.size());
+        assertTrue(files.containsKey("/big.html"));
+
+        // the dependencies are found again after a restart
+        graph = new CmsStaticExportDependencyGraph(m_folder.getAbsolutePath());
+        assertTrue(graph.isComplete());
+        files = graph.getDependentFiles(Collections.singleton("/sites/default/news/"));
+        assertEquals(3, files.size());
+
+        CmsStaticExportDependencyGraph.invalidate(m_folder.getAbsolutePath());
+        assertFalse(graph.isComplete());
+        graph.clear();
+        assertEquals(0, graph.getSize());
+        assertTrue(graph.getDependentFiles(Collections.singleton("/sites/default/news/")).isEmpty());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        m_folder = File.createTempFile("exportdependencies", "");
+        m_folder.delete();
+        m_folder.mkdirs();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() {
+
+        CmsFileUtil.purgeDirectory(m_folder);
+    }
+}
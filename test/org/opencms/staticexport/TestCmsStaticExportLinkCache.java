@@ -0,0 +1,114 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.cache.CmsConcurrentCacheMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the site partitioned link cache of the static export manager.<p>
+ */
+public class TestCmsStaticExportLinkCache extends TestCase {
+
+    /**
+     * Link cache that remembers the registered partitions instead of registering them with the memory monitor.<p>
+     */
+    private static class CmsTestLinkCache extends CmsStaticExportLinkCache<String> {
+
+        /** The registered partitions. */
+        Map<String, CmsConcurrentCacheMap<String, String>> m_registered;
+
+        /**
+         * Creates a new test link cache.<p>
+         *
+         * @param maxSize the maximum number of entries per site root
+         */
+        CmsTestLinkCache(int maxSize) {
+
+            super("links", maxSize);
+            m_registered = new HashMap<String, CmsConcurrentCacheMap<String, String>>();
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsStaticExportLinkCache#register(String, CmsConcurrentCacheMap)
+         */
+        @Override
+        protected void register(String name, CmsConcurrentCacheMap<String, String> partition) {
+
+            m_registered.put(name, partition);
+        }
+    }
+
+    /**
+     * Tests that the sites are cached separately and the statistics are summed up.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPartitions() throws Exception {
+
+        CmsTestLinkCache cache = new CmsTestLinkCache(100);
+        assertNull(cache.get("/sites/a", "/index.html"));
+        cache.put("/sites/a", "/index.html", "/export/a/index.html");
+        cache.put("/sites/b", "/index.html", "/export/b/index.html");
+        assertEquals("/export/a/index.html", cache.get("/sites/a", "/index.html"));
+        assertEquals("/export/b/index.html", cache.get("/sites/b", "/index.html"));
+        assertNull(cache.get("/sites/b", "/other.html"));
+
+        assertEquals(2, cache.getPartitionCount());
+        assertEquals(2, cache.m_registered.size());
+        assertTrue(cache.m_registered.containsKey("links[/sites/a]"));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("/sites/a", "/index.html"));
+        assertEquals(2, cache.getPartitionCount());
+    }
+
+    /**
+     * Tests that a site with many links does not evict the links of another site.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSizePerSite() throws Exception {
+
+        CmsTestLinkCache cache = new CmsTestLinkCache(10);
+        cache.put("/sites/small", "/index.html", "/export/index.html");
+        for (int i = 0; i < 1000; i++) {
+            cache.put("/sites/large", "/page" + i + ".html", "/export/page" + i + ".html");
+        }
+        assertTrue(cache.m_registered.get("links[/sites/large]").size() <= 10);
+        assertEquals("/export/index.html", cache.get("/sites/small", "/index.html"));
+    }
+}
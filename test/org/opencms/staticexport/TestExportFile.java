@@ -28,6 +28,8 @@
 package org.opencms.staticexport;
 
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
@@ -36,6 +38,11 @@ import org.opencms.util.CmsFileUtil;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -69,6 +76,7 @@ public class TestExportFile extends OpenCmsTestCase {
         suite.setName(TestExportFile.class.getName());
 
         suite.addTest(new TestExportFile("testStaticexportFile"));
+        suite.addTest(new TestExportFile("testConcurrentExport"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -88,6 +96,60 @@ public class TestExportFile extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Tests that exporting the published resources on several threads writes the same files as the serial export.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testConcurrentExport() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing concurrent file export");
+
+        // set the export mode to export immediately after publishing resources
+        OpenCms.getStaticExportManager().setHandler("org.opencms.staticexport.CmsAfterPublishStaticExportHandler");
+
+        String folderName = "/concurrent/";
+        cms.createResource(folderName, CmsResourceTypeFolder.getStaticTypeId());
+        List<String> resourceNames = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            String resourcename = folderName + "file" + i + ".txt";
+            String content = "this is the test content of file " + i;
+            cms.createResource(resourcename, CmsResourceTypePlain.getStaticTypeId(), content.getBytes(), null);
+            resourceNames.add(resourcename);
+        }
+        cms.unlockResource(folderName);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        String rootPath = cms.getRequestContext().addSiteRoot(folderName);
+        File exportFolder = new File(
+            CmsFileUtil.normalizePath(OpenCms.getStaticExportManager().getExportPath(rootPath) + rootPath));
+        try {
+            // export the resources on a single thread
+            OpenCms.getStaticExportManager().setExportThreads("1");
+            CmsFileUtil.purgeDirectory(exportFolder);
+            touchAndPublish(cms, resourceNames);
+            Map<String, String> serialFiles = readExportedFiles(exportFolder);
+            assertEquals(resourceNames.size(), serialFiles.size());
+
+            // export the same resources again on several threads
+            OpenCms.getStaticExportManager().setExportThreads("4");
+            CmsFileUtil.purgeDirectory(exportFolder);
+            touchAndPublish(cms, resourceNames);
+            Map<String, String> concurrentFiles = readExportedFiles(exportFolder);
+            assertEquals(serialFiles, concurrentFiles);
+            for (String resourcename : resourceNames) {
+                assertEquals(
+                    new String(cms.readFile(resourcename).getContents()),
+                    concurrentFiles.get(CmsResource.getName(resourcename)));
+            }
+        } finally {
+            OpenCms.getStaticExportManager().setExportThreads(
+                String.valueOf(CmsStaticExportManager.DEFAULT_EXPORT_THREADS));
+        }
+    }
+
     /**
      * Tests the file export.<p>
      *
@@ -130,4 +192,47 @@ public class TestExportFile extends OpenCmsTestCase {
 
         assertContent(cms, resourcename, exportContent);
     }
+
+    /**
+     * Reads the content of all exported files in the given export folder.<p>
+     *
+     * Fails if a temporary file of the export is left in the folder.<p>
+     *
+     * @param exportFolder the export folder
+     *
+     * @return the contents of the exported files by file name
+     *
+     * @throws IOException if reading a file fails
+     */
+    private Map<String, String> readExportedFiles(File exportFolder) throws IOException {
+
+        Map<String, String> result = new TreeMap<String, String>();
+        File[] files = exportFolder.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            assertFalse("Temporary export file left: " + file.getName(), file.getName().endsWith(".tmp"));
+            result.put(file.getName(), new String(CmsFileUtil.readFile(file)));
+        }
+        return result;
+    }
+
+    /**
+     * Changes the modification date of the given resources and publishes them, which exports them again.<p>
+     *
+     * @param cms the current CMS context
+     * @param resourceNames the names of the resources to publish
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void touchAndPublish(CmsObject cms, List<String> resourceNames) throws Exception {
+
+        long now = System.currentTimeMillis();
+        for (String resourcename : resourceNames) {
+            cms.lockResource(resourcename);
+            cms.setDateLastModified(resourcename, now, false);
+            cms.unlockResource(resourcename);
+        }
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
 }
\ No newline at end of file
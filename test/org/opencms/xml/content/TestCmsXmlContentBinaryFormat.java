@@ -0,0 +1,145 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.CmsXmlUtils;
+
+import java.io.IOException;
+
+import org.dom4j.Document;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the binary form of XML content documents.<p>
+ */
+public class TestCmsXmlContentBinaryFormat extends TestCase {
+
+    /**
+     * Tests that the binary form is only read for the version of the resource it was written for.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testResourceVersion() throws Exception {
+
+        CmsUUID id = new CmsUUID();
+        Document document = CmsXmlUtils.unmarshalHelper("<Articles><Article /></Articles>", null);
+        byte[] data = CmsXmlContentBinaryFormat.marshal(createResource(id, 1000L), document);
+
+        assertNotNull(CmsXmlContentBinaryFormat.unmarshal(createResource(id, 1000L), data));
+        assertNull(CmsXmlContentBinaryFormat.unmarshal(createResource(id, 2000L), data));
+        assertNull(CmsXmlContentBinaryFormat.unmarshal(createResource(new CmsUUID(), 1000L), data));
+
+        // corrupt data
+        byte[] truncated = new byte[data.length - 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        try {
+            CmsXmlContentBinaryFormat.unmarshal(createResource(id, 1000L), truncated);
+            fail("truncated data should not be readable");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that documents read from the binary form are identical to the parsed documents.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRoundTrip() throws Exception {
+
+        String[] files = {
+            "org/opencms/xml/content/xmlcontent-1.xml",
+            "org/opencms/xml/content/xmlcontent-2.xml",
+            "org/opencms/xml/content/xmlcontent-8.xml",
+            "org/opencms/xml/content/xmlcontent-definition-1.xsd"};
+        CmsResource resource = createResource(new CmsUUID(), 1000L);
+        for (String filename : files) {
+            String xml = CmsFileUtil.readFile(filename, CmsEncoder.ENCODING_UTF_8);
+            Document document = CmsXmlUtils.unmarshalHelper(xml, null);
+            byte[] data = CmsXmlContentBinaryFormat.marshal(resource, document);
+            Document read = CmsXmlContentBinaryFormat.unmarshal(resource, data);
+            assertEquals(filename, document.asXML(), read.asXML());
+            assertEquals(filename, document.getXMLEncoding(), read.getXMLEncoding());
+            assertEquals(
+                filename,
+                CmsXmlUtils.marshal(document, CmsEncoder.ENCODING_UTF_8),
+                CmsXmlUtils.marshal(read, CmsEncoder.ENCODING_UTF_8));
+        }
+
+        // special content
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<!-- comment -->\n"
+            + "<a:Root xmlns:a=\"http://a\" xmlns=\"http://b\" b=\"1\">"
+            + "<a:Text lang=\"de\"><![CDATA[<p>äöü €</p>]]></a:Text>"
+            + "<Empty/><?target data?>mixed <b>text</b> content</a:Root>";
+        Document document = CmsXmlUtils.unmarshalHelper(xml, null);
+        Document read = CmsXmlContentBinaryFormat.unmarshal(
+            resource,
+            CmsXmlContentBinaryFormat.marshal(resource, document));
+        assertEquals(document.asXML(), read.asXML());
+        assertEquals("http://a", read.getRootElement().getNamespaceURI());
+        assertEquals("http://b", read.getRootElement().element("Empty").getNamespaceURI());
+    }
+
+    /**
+     * Creates a resource with the given structure id and date of last modification.<p>
+     *
+     * @param id the structure id
+     * @param dateLastModified the date of last modification
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(CmsUUID id, long dateLastModified) {
+
+        return new CmsFile(
+            id,
+            id,
+            "/sites/default/article.xml",
+            1,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0L,
+            CmsUUID.getNullUUID(),
+            dateLastModified,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            dateLastModified,
+            0,
+            null);
+    }
+}
\ No newline at end of file
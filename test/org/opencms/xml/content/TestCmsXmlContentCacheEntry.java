@@ -0,0 +1,128 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the entries of the parsed XML content cache.<p>
+ */
+public class TestCmsXmlContentCacheEntry extends TestCase {
+
+    /**
+     * Tests that every user of an entry gets an independent copy of the document and the file contents.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCopies() throws Exception {
+
+        CmsFile file = createFile(1000L, "<Articles><Article /></Articles>");
+        Document document = DocumentHelper.parseText(new String(file.getContents(), "UTF-8"));
+        CmsXmlContentCacheEntry entry = new CmsXmlContentCacheEntry(file, document, "UTF-8");
+
+        // changes to the original document and file do not affect the entry
+        document.getRootElement().addElement("Article");
+        file.getContents()[0] = (byte)'X';
+
+        Document copy = entry.getDocument();
+        assertEquals(1, copy.getRootElement().elements().size());
+        ((Element)copy.getRootElement().elements().get(0)).addAttribute("language", "en");
+        copy.getRootElement().addElement("Article");
+
+        Document other = entry.getDocument();
+        assertNotSame(copy, other);
+        assertEquals(1, other.getRootElement().elements().size());
+        assertNull(((Element)other.getRootElement().elements().get(0)).attribute("language"));
+
+        CmsFile cachedFile = entry.getFile(file);
+        assertEquals('<', cachedFile.getContents()[0]);
+        assertEquals(file.getStructureId(), cachedFile.getStructureId());
+        cachedFile.getContents()[0] = (byte)'X';
+        assertEquals('<', entry.getFile(file).getContents()[0]);
+        assertEquals("UTF-8", entry.getEncoding());
+        assertTrue(entry.getMemorySize() > file.getLength());
+    }
+
+    /**
+     * Tests that an entry is only valid for the version of the resource it was created for.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testIsValid() throws Exception {
+
+        CmsFile file = createFile(1000L, "<Articles />");
+        Document document = DocumentHelper.parseText(new String(file.getContents(), "UTF-8"));
+        CmsXmlContentCacheEntry entry = new CmsXmlContentCacheEntry(file, document, "UTF-8");
+
+        assertTrue(entry.isValid(file));
+        assertFalse(entry.isValid(createFile(2000L, "<Articles />")));
+    }
+
+    /**
+     * Creates a file with the given date of last modification and contents.<p>
+     *
+     * @param dateLastModified the date of last modification
+     * @param xml the XML contents
+     *
+     * @return the file
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsFile createFile(long dateLastModified, String xml) throws Exception {
+
+        byte[] contents = xml.getBytes("UTF-8");
+        CmsUUID id = new CmsUUID("11111111-2222-3333-4444-555555555555");
+        return new CmsFile(
+            id,
+            id,
+            "/sites/default/article.xml",
+            1,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0L,
+            CmsUUID.getNullUUID(),
+            dateLastModified,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            contents.length,
+            dateLastModified,
+            0,
+            contents);
+    }
+}
\ No newline at end of file